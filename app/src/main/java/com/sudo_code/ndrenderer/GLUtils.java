@@ -1,7 +1,6 @@
 package com.sudo_code.ndrenderer;
 
 import android.app.Activity;
-import android.opengl.GLES30;
 import android.util.Log;
 
 import java.io.BufferedReader;
@@ -9,55 +8,19 @@ import java.io.IOException;
 import java.io.InputStream;
 import java.io.InputStreamReader;
 
-class Utils {
+class GLUtils {
 
-    private static final String TAG = "Utils";
-
-    /**
-     * Projects a vertex down a dimension
-     *
-     * @param vertex The vertex to be projected
-     * @param projectionConstant The camera's distance to the hypervolume of projection (MUST BE GREATER THAN GREATEST EXTENT OF SHAPE)
-     */
-    public static float[] projectDown(float[] vertex, float projectionConstant) {
-        float[] projVertex = new float[vertex.length - 1];
-
-        for (int i = 0; i < vertex.length - 1; i++) {
-            projVertex[i] = vertex[i] * (projectionConstant / (projectionConstant +  vertex[vertex.length - 1]));
-        }
-
-        return projVertex;
-    }
-
-    /**
-     * Integer exponentiation by squaring
-     *
-     * @param base Base of exponentiation
-     * @param exponent of exponentiation (must be >= 0)
-     */
-    public static int powI(int base, int exponent) {
-        int result = 1;
-
-        while (exponent != 0) {
-            if ((exponent & 1) != 0) {
-                result *= base;
-            }
-
-            exponent >>= 1;
-            base *= base;
-        }
-
-        return result;
-    }
+    private static final String TAG = "GLUtils";
 
     /**
     * Checks if we've had an error inside of OpenGL ES, and if so what that error is.
     *
+    * @param gl The GL to check.
     * @param label Label to report in case of error.
     */
-    public static void checkGLError(String label) {
+    public static void checkGLError(GLBackend gl, String label) {
         int error;
-        while ((error = GLES30.glGetError()) != GLES30.GL_NO_ERROR) {
+        while ((error = gl.glGetError()) != GLBackend.GL_NO_ERROR) {
             Log.e(TAG, label + ": glError " + error);
             throw new RuntimeException(label + ": glError " + error);
         }
@@ -91,21 +54,21 @@ class Utils {
      *
      * @return A handle to the shader
      */
-    public static int genShader(int type, int resId, Activity activity) {
+    public static int genShader(GLBackend gl, int type, int resId, Activity activity) {
         String code = readRawTextFile(resId, activity);
-        int shader = GLES30.glCreateShader(type);
+        int shader = gl.glCreateShader(type);
 
-        GLES30.glShaderSource(shader, code);
-        GLES30.glCompileShader(shader);
+        gl.glShaderSource(shader, code);
+        gl.glCompileShader(shader);
 
         //Get the compilation status.
         final int[] compileStatus = new int[1];
-        GLES30.glGetShaderiv(shader, GLES30.GL_COMPILE_STATUS, compileStatus, 0);
+        gl.glGetShaderiv(shader, GLBackend.GL_COMPILE_STATUS, compileStatus, 0);
 
         //If the compilation failed, delete the shader.
         if (compileStatus[0] == 0) {
-            Log.e(TAG, "Error compiling shader: " + GLES30.glGetShaderInfoLog(shader));
-            GLES30.glDeleteShader(shader);
+            Log.e(TAG, "Error compiling shader: " + gl.glGetShaderInfoLog(shader));
+            gl.glDeleteShader(shader);
             shader = 0;
         }
 
@@ -119,9 +82,9 @@ class Utils {
     /**
      * Deletes an array of shaders
      */
-    public static void delShaders(int[] shaders) {
+    public static void delShaders(GLBackend gl, int[] shaders) {
         for (int i = 0; i < shaders.length; i++) {
-            GLES30.glDeleteShader(shaders[i]);
+            gl.glDeleteShader(shaders[i]);
         }
     }
 
@@ -130,30 +93,30 @@ class Utils {
      *
      * @return A handle to the program
      */
-    public static int genProgram(int[] shaders) {
-        int program = GLES30.glCreateProgram();
+    public static int genProgram(GLBackend gl, int[] shaders) {
+        int program = gl.glCreateProgram();
 
         for (int i = 0; i < shaders.length; i++) {
-            GLES30.glAttachShader(program, shaders[i]);
+            gl.glAttachShader(program, shaders[i]);
         }
 
-        GLES30.glLinkProgram(program);
+        gl.glLinkProgram(program);
 
         int[] isLinked = new int[1];
-        GLES30.glGetProgramiv(program, GLES30.GL_LINK_STATUS, isLinked, 0);
+        gl.glGetProgramiv(program, GLBackend.GL_LINK_STATUS, isLinked, 0);
         if(isLinked[0] == 0)
         {
-            Log.i(TAG, "Error linking program: " + GLES30.glGetProgramInfoLog(program));
-            GLES30.glDeleteProgram(program);
+            Log.i(TAG, "Error linking program: " + gl.glGetProgramInfoLog(program));
+            gl.glDeleteProgram(program);
 
             throw new RuntimeException("Error linking program.");
         }
 
         for (int i = 0; i < shaders.length; i++) {
-            GLES30.glDetachShader(program, shaders[i]);
+            gl.glDetachShader(program, shaders[i]);
         }
 
-        Utils.checkGLError("Program");
+        checkGLError(gl, "Program");
 
         return program;
     }
@@ -3,7 +3,6 @@ package com.sudo_code.ndrenderer;
 import android.content.Context;
 import android.content.Intent;
 import android.content.SharedPreferences;
-import android.opengl.GLES30;
 import android.opengl.Matrix;
 import android.os.Bundle;
 import android.os.Vibrator;
@@ -15,6 +14,7 @@ import com.google.vrtoolkit.cardboard.Eye;
 import com.google.vrtoolkit.cardboard.HeadTransform;
 import com.google.vrtoolkit.cardboard.Viewport;
 
+import java.io.File;
 import java.nio.ByteBuffer;
 import java.nio.ByteOrder;
 import java.nio.FloatBuffer;
@@ -26,6 +26,13 @@ public class MainActivity extends CardboardActivity implements CardboardView.Ste
 
     private static final String TAG = "MainActivity";
     private static final int BYTES_PER_FLOAT = 4;
+    private static final int LATTICE_SIDE = 6;  //The lattice scene has 6x6x6 copies
+    private static final float LATTICE_SPACING = 2.5f;
+
+    //Lives as long as the process, so recreating the surface or the activity reuses the meshes
+    private static final ShapeMeshCache sMeshCache = new ShapeMeshCache(32 * 1024 * 1024);
+
+    private final GLBackend mGL = new GLES30Backend();
 
     private Vibrator mVibrator;
     private CardboardOverlayView mOverlayView;
@@ -48,17 +55,34 @@ public class MainActivity extends CardboardActivity implements CardboardView.Ste
 
     private String mObjectType;
     private NDShape mObject;    //The thing we're displaying
+    private CoherentFaceSorter mFaceSorter;
 
     private float[]   mModelMatrix;
+    private float[]   mModelViewMatrix      = new float[16];    //Per eye scratch, so drawing doesn't allocate
+    private float[]   mEyeProjectionMatrix  = new float[16];
+
+    private PhaseTimer mPrepareTimer = new PhaseTimer();   //Per frame geometry work
+    private PhaseTimer mSubmitTimer  = new PhaseTimer();   //Per eye drawing
+    private long       mDrawCalls;                          //Made by mObject over every frame
+    private NDTransform mRotation;   //The rotation applied to mObject each frame
 
     private int mDimensions;
+    private boolean mGpuProjection; //Whether to project mObject in the vertex shader
+    private FrameWorkerPool mWorkerPool;    //Splits the per frame geometry work across the cores
+    private boolean mAsyncGeometry; //Whether to prepare mObject's geometry on a background thread
+    private VertexFormat mVertexFormat; //How mObject's projected vertices are streamed to the GPU
+    private boolean mEdges;         //Whether to draw only mObject's edges
+    private boolean mOit;           //Whether to blend mObject's faces without sorting them
+    private WeightedBlendedOIT mWeightedOIT;
+    private int mEyeFramebuffer = -1;   //The framebuffer Cardboard draws the eyes into, -1 until it's queried
+    private boolean mInstanced;     //Whether to draw a lattice of copies of mObject instead of one
 
     /**
      * Generate the uniform buffer that will store the projection matrix and the projection constant
      */
     private void genUniformBuffer() {
         int[] uniformBufferArray = new int[1];
-        GLES30.glGenBuffers(1, uniformBufferArray, 0);
+        mGL.glGenBuffers(1, uniformBufferArray, 0);
         mUniformBuffer = uniformBufferArray[0];
 
         mProjectionMatrix = new float[16];
@@ -76,18 +100,18 @@ public class MainActivity extends CardboardActivity implements CardboardView.Ste
         mUniformBufferData.put(padding);
         mUniformBufferData.position(0);
 
-        GLES30.glBindBuffer(GLES30.GL_UNIFORM_BUFFER, mUniformBuffer);
+        mGL.glBindBuffer(GLBackend.GL_UNIFORM_BUFFER, mUniformBuffer);
 
-        GLES30.glBufferData(
-                GLES30.GL_UNIFORM_BUFFER,
+        mGL.glBufferData(
+                GLBackend.GL_UNIFORM_BUFFER,
                 mUniformBufferData.capacity() * BYTES_PER_FLOAT,
                 mUniformBufferData,
-                GLES30.GL_STREAM_DRAW);
+                GLBackend.GL_STREAM_DRAW);
 
-        GLES30.glBindBuffer(GLES30.GL_UNIFORM_BUFFER, 0);
+        mGL.glBindBuffer(GLBackend.GL_UNIFORM_BUFFER, 0);
 
-        GLES30.glBindBufferRange(
-                GLES30.GL_UNIFORM_BUFFER,
+        mGL.glBindBufferRange(
+                GLBackend.GL_UNIFORM_BUFFER,
                 mUniformBufferkBindingIndex,
                 mUniformBuffer,
                 0,
@@ -137,6 +161,7 @@ public class MainActivity extends CardboardActivity implements CardboardView.Ste
     @Override
     public void onCreate(Bundle savedInstanceState) {
         super.onCreate(savedInstanceState);
+        sMeshCache.setDirectory(new File(getCacheDir(), "meshes"));
 
         setContentView(R.layout.activity_main);
         CardboardView cardboardView = (CardboardView) findViewById(R.id.cardboard_view);
@@ -148,22 +173,107 @@ public class MainActivity extends CardboardActivity implements CardboardView.Ste
 
         mSharedPref = this.getSharedPreferences("settings", Context.MODE_PRIVATE);
         mDimensions = mSharedPref.getInt("dims", 4);
+        mGpuProjection = mSharedPref.getBoolean("gpuProjection", false);
+        mAsyncGeometry = mSharedPref.getBoolean("asyncGeometry", false);
+        mVertexFormat = VertexFormat.valueOf(mSharedPref.getString("vertexFormat", VertexFormat.SEPARATE_FLOAT.name()));
         setColor();
 
         //We can't initialize mObject here because the OpenGL context hasn't been created here
         Intent intent = getIntent();
         mObjectType = intent.getStringExtra("objectType");
+
+        //The copies are projected by shape_instanced_vert.glsl, so the lattice is always projected on the GPU
+        mInstanced = mSharedPref.getBoolean("instanced", false) && !mObjectType.equals("complexGraph");
+
+        if (mInstanced) {
+            mGpuProjection = true;
+            mAsyncGeometry = false;
+        }
+
+        //The graph is depth tested and colored by its own shaders, so it's always drawn as faces
+        mEdges = mSharedPref.getBoolean("edges", false) && !mObjectType.equals("complexGraph") && !mInstanced;
+
+        if (mEdges) {   //Edges are projected and streamed on the render thread
+            mGpuProjection = false;
+            mAsyncGeometry = false;
+        }
+
+        //Lines are blended as they come, so it's only the faces that can be
+        mOit = mSharedPref.getBoolean("oit", false) && !mObjectType.equals("complexGraph") && !mEdges;
     }
 
     @Override
     public void onRendererShutdown() {
         Log.i(TAG, "onRendererShutdown");
+
+        if (mObject != null) {
+            Log.i(TAG, "Uploaded " + mObject.getUploadStats().getAverageFrameBytes() + " bytes per frame (" +
+                    mObject.getVertexFormat() + " vertices, " +
+                    (mObject.getIndexType() == GLBackend.GL_UNSIGNED_SHORT ? 16 : 32) + " bit indices, " +
+                    (mObject.isEdgeMode() ? mObject.getMesh().getEdges().getEdgeCount() + " edges)" :
+                            mOit ? "unsorted faces, weighted blended)" :
+                            mInstanced ? "unsorted faces)" : "sorted faces)"));
+        }
+
+        Log.i(TAG, "Frame phases: prepare " + mPrepareTimer.getAverageNanos() / 1000 + "us per frame, submit " +
+                mSubmitTimer.getAverageNanos() / 1000 + "us per eye, " +
+                (mPrepareTimer.getCalls() == 0 ? 0 : mDrawCalls / mPrepareTimer.getCalls()) + " draw calls per frame" +
+                (mInstanced && mObject != null ? " (" + mObject.getInstances().getCount() + " instances)" : ""));
+
+        if (mObject != null) {
+            Log.i(TAG, "Render thread " + (mPrepareTimer.getAverageNanos() + mSubmitTimer.getAverageNanos() * 2) / 1000 +
+                    "us per frame, latency " + mObject.getFrameLatency().getAverageNanos() / 1000 + "us (" +
+                    (mObject.isAsyncGeometry() ? "background" : "render thread") + " geometry)");
+
+            mObject.stopAsyncGeometry();
+        }
+
+        if (mFaceSorter != null) {
+            Log.i(TAG, "Face sorts: " + mFaceSorter.getIncrementalSortCount() + " incremental, " +
+                    mFaceSorter.getFullSortCount() + " full, " + mFaceSorter.getFallbackCount() + " fallbacks");
+        }
+
+        if (mWorkerPool != null) {
+            mWorkerPool.shutdown();
+            mWorkerPool = null;
+        }
     }
 
     @Override
     public void onSurfaceChanged(int width, int height) {
         Log.i(TAG, "onSurfaceChanged");
-        GLES30.glViewport(0, 0, width, height);
+        mGL.glViewport(0, 0, width, height);
+        mEyeFramebuffer = -1;   //Cardboard makes a new one for the new size
+    }
+
+    /**
+     * @return The vertex shader the hypercube and the hypertorus are drawn with
+     */
+    private int getShapeVertexShader() {
+        if (mEdges) {
+            return R.raw.edge_vert;
+        }
+
+        if (mInstanced) {
+            return R.raw.shape_instanced_vert;
+        }
+
+        return mGpuProjection ? R.raw.shape_nd_vert : R.raw.shape_vert;
+    }
+
+    /**
+     * @return The fragment shader the hypercube and the hypertorus are drawn with
+     */
+    private int getShapeFragmentShader() {
+        if (mEdges) {
+            return R.raw.edge_frag;
+        }
+
+        if (mOit) {
+            return mGpuProjection ? R.raw.oit_nd_frag : R.raw.oit_frag;
+        }
+
+        return mGpuProjection ? R.raw.shape_nd_frag : R.raw.shape_frag;
     }
 
     /**
@@ -174,62 +284,148 @@ public class MainActivity extends CardboardActivity implements CardboardView.Ste
     @Override
     public void onSurfaceCreated(EGLConfig config) {
         Log.i(TAG, "onSurfaceCreated");
-        GLES30.glClearColor(0.3f, 0.3f, 0.3f, 1.0f);
-        GLES30.glClearDepthf(1.f);
+        mGL.glClearColor(0.3f, 0.3f, 0.3f, 1.0f);
+        mGL.glClearDepthf(1.f);
+
+        if (mWorkerPool == null) {
+            mWorkerPool = new FrameWorkerPool(Runtime.getRuntime().availableProcessors());
+        }
 
         int[] shaders = new int[2];
+        long shapeStart = System.nanoTime();
 
         if (mObjectType.equals("hypercube")) {
-            GLES30.glEnable(GLES30.GL_BLEND);
-            GLES30.glBlendFunc(GLES30.GL_SRC_ALPHA, GLES30.GL_ONE_MINUS_SRC_ALPHA);
+            mGL.glEnable(GLBackend.GL_BLEND);
+            mGL.glBlendFunc(GLBackend.GL_SRC_ALPHA, GLBackend.GL_ONE_MINUS_SRC_ALPHA);
 
-            shaders[0] = Utils.genShader(GLES30.GL_VERTEX_SHADER, R.raw.shape_vert, this);
-            shaders[1] = Utils.genShader(GLES30.GL_FRAGMENT_SHADER, R.raw.shape_frag, this);
+            shaders[0] = GLUtils.genShader(mGL, GLBackend.GL_VERTEX_SHADER, getShapeVertexShader(), this);
+            shaders[1] = GLUtils.genShader(mGL, GLBackend.GL_FRAGMENT_SHADER, getShapeFragmentShader(), this);
 
-            mObject = new Hypercube(mDimensions, mProjectionConstant, 10.f, 0, 1);
+            mObject = new Hypercube(mGL, mDimensions, mProjectionConstant, 10.f, 0, 1, sMeshCache);
+            mFaceSorter = new CoherentFaceSorter();
+            mObject.setFaceSorter(mFaceSorter);
         }
 
         else if (mObjectType.equals("hypertorus")) {
-            GLES30.glEnable(GLES30.GL_BLEND);
-            GLES30.glBlendFunc(GLES30.GL_SRC_ALPHA, GLES30.GL_ONE_MINUS_SRC_ALPHA);
+            mGL.glEnable(GLBackend.GL_BLEND);
+            mGL.glBlendFunc(GLBackend.GL_SRC_ALPHA, GLBackend.GL_ONE_MINUS_SRC_ALPHA);
 
-            shaders[0] = Utils.genShader(GLES30.GL_VERTEX_SHADER, R.raw.shape_vert, this);
-            shaders[1] = Utils.genShader(GLES30.GL_FRAGMENT_SHADER, R.raw.shape_frag, this);
+            shaders[0] = GLUtils.genShader(mGL, GLBackend.GL_VERTEX_SHADER, getShapeVertexShader(), this);
+            shaders[1] = GLUtils.genShader(mGL, GLBackend.GL_FRAGMENT_SHADER, getShapeFragmentShader(), this);
 
             if (mDimensions > 4) {
                 mDimensions = 4;    //I don't think any phone on the market can manage 5 or more
             }
 
-            mObject = new Hypertorus(mDimensions, mProjectionConstant, 10.f, 0, 1, 10);
+            mObject = new Hypertorus(mGL, mDimensions, mProjectionConstant, 10.f, 0, 1, 10, sMeshCache, mWorkerPool);
+            mFaceSorter = new CoherentFaceSorter();
+            mObject.setFaceSorter(mFaceSorter);
         }
 
         else if (mObjectType.equals("complexGraph")) {
             mDimensions = 4;
 
-            GLES30.glEnable(GLES30.GL_DEPTH_TEST);
-            GLES30.glDepthMask(true);
-            GLES30.glDepthFunc(GLES30.GL_LEQUAL);
-            GLES30.glDepthRangef(0.0f, 1.0f);
+            mGL.glEnable(GLBackend.GL_DEPTH_TEST);
+            mGL.glDepthMask(true);
+            mGL.glDepthFunc(GLBackend.GL_LEQUAL);
+            mGL.glDepthRangef(0.0f, 1.0f);
 
-            shaders[0] = Utils.genShader(GLES30.GL_VERTEX_SHADER, R.raw.c_graph_vert, this);
-            shaders[1] = Utils.genShader(GLES30.GL_FRAGMENT_SHADER, R.raw.c_graph_frag, this);
+            shaders[0] = GLUtils.genShader(mGL, GLBackend.GL_VERTEX_SHADER,
+                    mGpuProjection ? R.raw.c_graph_nd_vert : R.raw.c_graph_vert, this);
+            shaders[1] = GLUtils.genShader(mGL, GLBackend.GL_FRAGMENT_SHADER, R.raw.c_graph_frag, this);
 
-            mObject = new ComplexGraph(50, 1.5f, mProjectionConstant, 10.f, 0, 1);
+            mObject = new ComplexGraph(mGL, 50, 1.5f, mProjectionConstant, 10.f, 0, 1, sMeshCache);
         }
 
-        mProgram = Utils.genProgram(shaders);
-        Utils.delShaders(shaders);
+        Log.i(TAG, "Built the " + mObjectType + " in " + (System.nanoTime() - shapeStart) / 1000 +
+                "us, mesh cache hit rate " + sMeshCache.getHitRate() + " (" + sMeshCache.getHits() + " hits, " +
+                sMeshCache.getFileHits() + " from disk, " + sMeshCache.getMisses() + " misses, " +
+                sMeshCache.getBytes() + " bytes)");
+
+        mObject.setWorkerPool(mWorkerPool);
 
-        mProgramUniformBlockIndex = GLES30.glGetUniformBlockIndex(mProgram, "Globals");
-        GLES30.glUniformBlockBinding(mProgram, mProgramUniformBlockIndex, mUniformBufferkBindingIndex);
+        if (mOit) {
+            mObject.setBufferUpdatePolicy(BufferUpdatePolicy.UNSORTED);
+
+            int[] compositeShaders = new int[2];
+            compositeShaders[0] = GLUtils.genShader(mGL, GLBackend.GL_VERTEX_SHADER, R.raw.oit_composite_vert, this);
+            compositeShaders[1] = GLUtils.genShader(mGL, GLBackend.GL_FRAGMENT_SHADER, R.raw.oit_composite_frag, this);
+
+            mWeightedOIT = new WeightedBlendedOIT(mGL, GLUtils.genProgram(mGL, compositeShaders));
+            GLUtils.delShaders(mGL, compositeShaders);
+        }
+
+        mProgram = GLUtils.genProgram(mGL, shaders);
+        GLUtils.delShaders(mGL, shaders);
+
+        mProgramUniformBlockIndex = mGL.glGetUniformBlockIndex(mProgram, "Globals");
+        mGL.glUniformBlockBinding(mProgram, mProgramUniformBlockIndex, mUniformBufferkBindingIndex);
+
+        if (mInstanced) {
+            int instancesBlockIndex = mGL.glGetUniformBlockIndex(mProgram, "Instances");
+            mGL.glUniformBlockBinding(mProgram, instancesBlockIndex, NDShape.INSTANCES_BINDING);
+
+            //One face order can't suit every copy's orientation
+            mObject.setBufferUpdatePolicy(BufferUpdatePolicy.UNSORTED);
+            mObject.setGpuProjection(true);
+            mObject.setInstances(ShapeInstances.lattice(mDimensions, LATTICE_SIDE, LATTICE_SPACING, 0));
+        }
+
+        else if (mGpuProjection) {
+            int orientationBlockIndex = mGL.glGetUniformBlockIndex(mProgram, "Orientation");
+            mGL.glUniformBlockBinding(mProgram, orientationBlockIndex, NDShape.ORIENTATION_BINDING);
+
+            mObject.setGpuProjection(true);
+        }
 
         genUniformBuffer();
 
+        mRotation = new NDTransform(mDimensions);
+
+        mObject.setVertexFormat(mVertexFormat);
+        mObject.setEdgeMode(mEdges);
+
+        if (mAsyncGeometry && !mGpuProjection) {
+            mObject.startAsyncGeometry(new NDShape.Animator() {
+                @Override
+                public void nextRotation(long frameNanos, NDTransform rotation) {
+                    genRotation(frameNanos, rotation);
+                }
+            });
+        }
+
         mModelMatrix = new float[16];
         Matrix.setIdentityM(mModelMatrix, 0);
         Matrix.translateM(mModelMatrix, 0, 0, 0, -10.f);
 
-        Utils.checkGLError("onSurfaceCreated");
+        GLUtils.checkGLError(mGL, "onSurfaceCreated");
+    }
+
+    /**
+     * Sets rotation to how far the object turns in a frame
+     *
+     * @param frameNanos The length of the frame in nanoseconds
+     * @param rotation The transform to set
+     */
+    private void genRotation(long frameNanos, NDTransform rotation) {
+        float angle = (float) ((double) frameNanos / 1000000000.d);
+
+        rotation.setIdentity();
+        rotation.rotate(angle, 0, 2);
+
+        if (mDimensions > 3) {
+            rotation.rotate(angle, 2, 3);
+            rotation.rotate(angle, 3, 1);
+        }
+
+        if (mDimensions > 4) {
+            rotation.rotate(angle, 0, 4);
+            rotation.rotate(angle, 4, 1);
+        }
+
+        for (int axis = 5; axis < mDimensions; axis++) {  //Turn each further axis into the last
+            rotation.rotate(angle, axis - 1, axis);
+        }
     }
 
     /**
@@ -242,17 +438,14 @@ public class MainActivity extends CardboardActivity implements CardboardView.Ste
         mFrameTime = System.nanoTime() - mPrevTime;
         mPrevTime  = System.nanoTime();
 
-        mObject.rotate((float) ((double) mFrameTime / 1000000000.d), new int[] {0, 2});
-
-        if (mDimensions > 3) {
-            mObject.rotate((float) ((double) mFrameTime / 1000000000.d), new int[]{2, 3});
-            mObject.rotate((float) ((double) mFrameTime / 1000000000.d), new int[]{3, 1});
+        if (!mObject.isAsyncGeometry()) {   //Otherwise the geometry thread rotates it
+            genRotation(mFrameTime, mRotation);
+            mObject.transform(mRotation);
         }
 
-        if (mDimensions > 4) {
-            mObject.rotate((float) ((double) mFrameTime / 1000000000.d), new int[]{0, 4});
-            mObject.rotate((float) ((double) mFrameTime / 1000000000.d), new int[]{4, 1});
-        }
+        mPrepareTimer.start();
+        mObject.prepare();
+        mPrepareTimer.stop();
     }
 
     /**
@@ -262,34 +455,53 @@ public class MainActivity extends CardboardActivity implements CardboardView.Ste
      */
     @Override
     public void onDrawEye(Eye eye) {
-        GLES30.glClear(GLES30.GL_COLOR_BUFFER_BIT | GLES30.GL_DEPTH_BUFFER_BIT);
+        mGL.glClear(GLBackend.GL_COLOR_BUFFER_BIT | GLBackend.GL_DEPTH_BUFFER_BIT);
 
-        float[] eyeProjectionMatrix = new float[16];
-        Matrix.multiplyMM(eyeProjectionMatrix, 0, eye.getEyeView(), 0, mModelMatrix, 0);
-        Matrix.multiplyMM(eyeProjectionMatrix, 0, mProjectionMatrix, 0, eyeProjectionMatrix, 0);
+        Matrix.multiplyMM(mModelViewMatrix, 0, eye.getEyeView(), 0, mModelMatrix, 0);
+        Matrix.multiplyMM(mEyeProjectionMatrix, 0, mProjectionMatrix, 0, mModelViewMatrix, 0);
 
         mUniformBufferData.position(0);
-        mUniformBufferData.put(eyeProjectionMatrix);
+        mUniformBufferData.put(mEyeProjectionMatrix);
         mUniformBufferData.position(0);
 
-        GLES30.glBindBuffer(GLES30.GL_UNIFORM_BUFFER, mUniformBuffer);
+        mGL.glBindBuffer(GLBackend.GL_UNIFORM_BUFFER, mUniformBuffer);
 
-        GLES30.glBufferSubData(
-                GLES30.GL_UNIFORM_BUFFER,
+        mGL.glBufferSubData(
+                GLBackend.GL_UNIFORM_BUFFER,
                 0,
                 mUniformBufferData.capacity() * BYTES_PER_FLOAT,
                 mUniformBufferData);
 
-        GLES30.glBindBuffer(GLES30.GL_UNIFORM_BUFFER, 0);
+        mGL.glBindBuffer(GLBackend.GL_UNIFORM_BUFFER, 0);
+
+        mSubmitTimer.start();
+
+        if (mWeightedOIT != null) {
+            if (mEyeFramebuffer < 0) {  //It's the same one for every eye until the surface changes
+                int[] framebuffer = new int[1];
+                mGL.glGetIntegerv(GLBackend.GL_FRAMEBUFFER_BINDING, framebuffer, 0);
+                mEyeFramebuffer = framebuffer[0];
+            }
+
+            Viewport viewport = eye.getViewport();
+            mWeightedOIT.begin(mEyeFramebuffer, viewport.x, viewport.y, viewport.width, viewport.height);
+        }
+
+        mGL.glUseProgram(mProgram);
+        mObject.submit();
+        mGL.glUseProgram(0);
 
-        GLES30.glUseProgram(mProgram);
-        mObject.draw();
-        GLES30.glUseProgram(0);
+        if (mWeightedOIT != null) {
+            mWeightedOIT.end();
+        }
+
+        mSubmitTimer.stop();
     }
 
     @Override
     public void onFinishFrame(Viewport viewport) {
-
+        mDrawCalls += mObject.getFrameDrawCalls();
+        mObject.finishFrame();
     }
 
     /**
@@ -30,6 +30,24 @@ public class Settings extends Activity implements AdapterView.OnItemSelectedList
         Spinner spinner2 = (Spinner) findViewById(R.id.dim_spinner);
         spinner2.setOnItemSelectedListener(this);
 
+        Spinner spinner3 = (Spinner) findViewById(R.id.projection_spinner);
+        spinner3.setOnItemSelectedListener(this);
+
+        Spinner spinner4 = (Spinner) findViewById(R.id.geometry_spinner);
+        spinner4.setOnItemSelectedListener(this);
+
+        Spinner spinner5 = (Spinner) findViewById(R.id.vertex_spinner);
+        spinner5.setOnItemSelectedListener(this);
+
+        Spinner spinner6 = (Spinner) findViewById(R.id.draw_spinner);
+        spinner6.setOnItemSelectedListener(this);
+
+        Spinner spinner7 = (Spinner) findViewById(R.id.blend_spinner);
+        spinner7.setOnItemSelectedListener(this);
+
+        Spinner spinner8 = (Spinner) findViewById(R.id.scene_spinner);
+        spinner8.setOnItemSelectedListener(this);
+
         SharedPreferences mSharedPref = this.getSharedPreferences("settings", Context.MODE_PRIVATE);
         mEditor = mSharedPref.edit();
     }
@@ -87,6 +105,91 @@ public class Settings extends Activity implements AdapterView.OnItemSelectedList
             mEditor.putInt("dims", 6);
             mEditor.commit();
         }
+
+        else if (parent.getItemAtPosition(pos).toString().equals("7D")) {
+            mEditor.putInt("dims", 7);
+            mEditor.commit();
+        }
+
+        else if (parent.getItemAtPosition(pos).toString().equals("8D")) {
+            mEditor.putInt("dims", 8);
+            mEditor.commit();
+        }
+
+        else if (parent.getItemAtPosition(pos).toString().equals("9D")) {
+            mEditor.putInt("dims", 9);
+            mEditor.commit();
+        }
+
+        else if (parent.getItemAtPosition(pos).toString().equals("10D")) {
+            mEditor.putInt("dims", 10);
+            mEditor.commit();
+        }
+
+        else if (parent.getItemAtPosition(pos).toString().equals("CPU")) {
+            mEditor.putBoolean("gpuProjection", false);
+            mEditor.commit();
+        }
+
+        else if (parent.getItemAtPosition(pos).toString().equals("GPU")) {
+            mEditor.putBoolean("gpuProjection", true);
+            mEditor.commit();
+        }
+
+        else if (parent.getItemAtPosition(pos).toString().equals("Render thread")) {
+            mEditor.putBoolean("asyncGeometry", false);
+            mEditor.commit();
+        }
+
+        else if (parent.getItemAtPosition(pos).toString().equals("Background")) {
+            mEditor.putBoolean("asyncGeometry", true);
+            mEditor.commit();
+        }
+
+        else if (parent.getItemAtPosition(pos).toString().equals("Float")) {
+            mEditor.putString("vertexFormat", VertexFormat.SEPARATE_FLOAT.name());
+            mEditor.commit();
+        }
+
+        else if (parent.getItemAtPosition(pos).toString().equals("Half float")) {
+            mEditor.putString("vertexFormat", VertexFormat.INTERLEAVED_HALF_FLOAT.name());
+            mEditor.commit();
+        }
+
+        else if (parent.getItemAtPosition(pos).toString().equals("Snorm")) {
+            mEditor.putString("vertexFormat", VertexFormat.INTERLEAVED_SNORM.name());
+            mEditor.commit();
+        }
+
+        else if (parent.getItemAtPosition(pos).toString().equals("Faces")) {
+            mEditor.putBoolean("edges", false);
+            mEditor.commit();
+        }
+
+        else if (parent.getItemAtPosition(pos).toString().equals("Edges")) {
+            mEditor.putBoolean("edges", true);
+            mEditor.commit();
+        }
+
+        else if (parent.getItemAtPosition(pos).toString().equals("Sorted")) {
+            mEditor.putBoolean("oit", false);
+            mEditor.commit();
+        }
+
+        else if (parent.getItemAtPosition(pos).toString().equals("Weighted")) {
+            mEditor.putBoolean("oit", true);
+            mEditor.commit();
+        }
+
+        else if (parent.getItemAtPosition(pos).toString().equals("Single")) {
+            mEditor.putBoolean("instanced", false);
+            mEditor.commit();
+        }
+
+        else if (parent.getItemAtPosition(pos).toString().equals("Lattice")) {
+            mEditor.putBoolean("instanced", true);
+            mEditor.commit();
+        }
     }
 
     public void onNothingSelected(AdapterView<?> parent) {
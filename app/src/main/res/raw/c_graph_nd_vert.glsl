@@ -0,0 +1,50 @@
+#version 300 es
+
+#define MAX_DIMENSIONS 12
+
+layout (location = 0) in vec4 vertex0;  //Components 0-3 of the N dimensional vertex
+layout (location = 1) in vec3 color;
+layout (location = 2) in vec4 vertex1;  //Components 4-7
+layout (location = 3) in vec4 vertex2;  //Components 8-11
+
+smooth out vec3 fColor;
+
+layout(std140) uniform Globals
+{
+    mat4 projectionMatrix;
+    vec4 globalColor;
+    float projectionConstant;
+    float[3] padding;
+};
+
+layout(std140) uniform Orientation
+{
+    vec4 orientation[MAX_DIMENSIONS * 3];   //Row major, 3 vec4s per row
+    int dimensions;
+};
+
+void main()
+{
+    vec4 chunks[3] = vec4[3](vertex0, vertex1, vertex2);
+    float vertex[MAX_DIMENSIONS];
+
+    //Rotate
+    for (int row = 0; row < dimensions; row++) {
+        vertex[row] = dot(orientation[row * 3 + 0], chunks[0]) +
+                      dot(orientation[row * 3 + 1], chunks[1]) +
+                      dot(orientation[row * 3 + 2], chunks[2]);
+    }
+
+    //Project down to 3D (the same as NDProjection.projectVertex)
+    for (int dim = dimensions - 1; dim > 2; dim--) {
+        float scale = abs(projectionConstant - 1.f) / (projectionConstant + vertex[dim]);
+
+        for (int comp = 0; comp < dim - 1; comp++) {
+            vertex[comp] *= scale;
+        }
+    }
+
+    fColor = color;
+    gl_PointSize = 5.f;
+    gl_Position = projectionMatrix * vec4(vertex[0], vertex[1], vertex[2], 1.f);
+}
@@ -0,0 +1,17 @@
+#version 300 es
+
+out vec4 outputColor;
+
+layout(std140) uniform Globals
+{
+    mat4 projectionMatrix;
+    vec4 color;
+    float projectionConstant;
+    float[3] padding;
+};
+
+void main()
+{
+    //Lines have no normal to light them by, and are thin enough that they can be more opaque than faces
+    outputColor = vec4(color.xyz, min(1.f, color.w * 5.f));
+}
\ No newline at end of file
@@ -0,0 +1,16 @@
+#version 300 es
+
+layout (location = 0) in vec4 vertex;
+
+layout(std140) uniform Globals
+{
+    mat4 projectionMatrix;
+    vec4 color;
+    float projectionConstant;
+    float[3] padding;
+};
+
+void main()
+{
+    gl_Position = projectionMatrix * vertex;
+}
\ No newline at end of file
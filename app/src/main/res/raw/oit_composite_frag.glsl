@@ -0,0 +1,19 @@
+#version 300 es
+
+precision highp float;
+
+smooth in vec2 fTexCoord;
+
+uniform sampler2D accumulated;
+uniform sampler2D weights;
+
+out vec4 outputColor;
+
+void main()
+{
+    vec4 sums = texture(accumulated, fTexCoord);
+    float weight = max(texture(weights, fTexCoord).r, 1e-5f);
+
+    //Blended with GL_ONE_MINUS_SRC_ALPHA, GL_SRC_ALPHA, so the revealage is how much of what's there shows
+    outputColor = vec4(sums.rgb / weight, sums.a);
+}
\ No newline at end of file
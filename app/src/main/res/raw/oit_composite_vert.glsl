@@ -0,0 +1,12 @@
+#version 300 es
+
+smooth out vec2 fTexCoord;
+
+void main()
+{
+    //One triangle covering the viewport, from the vertex index alone
+    vec2 position = vec2(float((gl_VertexID & 1) * 4 - 1), float((gl_VertexID & 2) * 2 - 1));
+
+    fTexCoord = position * 0.5f + 0.5f;
+    gl_Position = vec4(position, 0.f, 1.f);
+}
\ No newline at end of file
@@ -0,0 +1,36 @@
+#version 300 es
+
+precision highp float;    //The weights span 1e-2 to 3e3
+
+flat in vec3 fNormal;
+
+layout (location = 0) out vec4 accumulated; //Weighted premultiplied color, and the revealage in alpha
+layout (location = 1) out vec4 weights;     //The weight in red
+
+layout(std140) uniform Globals
+{
+    mat4 projectionMatrix;
+    vec4 color;
+    float projectionConstant;
+    float[3] padding;
+};
+
+//WeightedBlendedOIT.getWeight(), equation 7 of McGuire and Bavoil
+float weight(float alpha)
+{
+    float viewDepth = 1.f / gl_FragCoord.w;
+    float near = viewDepth / 5.f;
+    float far = viewDepth / 200.f;
+
+    return alpha * clamp(10.f / (1e-5f + near * near + pow(far, 6.f)), 1e-2f, 3e3f);
+}
+
+void main()
+{
+    vec3 dirLight = normalize(vec3(1.f, -1.f, -1.f));
+    vec3 litColor = color.xyz * (abs(dot(fNormal, dirLight)));    //Directional lighting, as shape_frag
+    float w = weight(color.w);
+
+    accumulated = vec4(litColor * w, color.w);
+    weights = vec4(w);
+}
\ No newline at end of file
@@ -0,0 +1,40 @@
+#version 300 es
+
+precision mediump float;
+
+smooth in vec3 fPosition;
+
+layout (location = 0) out vec4 accumulated; //Weighted premultiplied color, and the revealage in alpha
+layout (location = 1) out vec4 weights;     //The weight in red
+
+layout(std140) uniform Globals
+{
+    mat4 projectionMatrix;
+    vec4 color;
+    float projectionConstant;
+    float[3] padding;
+};
+
+//WeightedBlendedOIT.getWeight(), equation 7 of McGuire and Bavoil
+highp float weight(float alpha)
+{
+    highp float viewDepth = 1.f / gl_FragCoord.w;
+    highp float near = viewDepth / 5.f;
+    highp float far = viewDepth / 200.f;
+
+    return alpha * clamp(10.f / (1e-5f + near * near + pow(far, 6.f)), 1e-2f, 3e3f);
+}
+
+void main()
+{
+    vec3 dirLight = normalize(vec3(1.f, -1.f, -1.f));
+
+    //The face normal, since the projected faces aren't known until the vertex shader
+    vec3 normal = normalize(cross(dFdx(fPosition), dFdy(fPosition)));
+
+    vec3 litColor = color.xyz * (abs(dot(normal, dirLight)));    //Directional lighting, as shape_nd_frag
+    highp float w = weight(color.w);
+
+    accumulated = vec4(litColor * w, color.w);
+    weights = vec4(w);
+}
\ No newline at end of file
@@ -0,0 +1,56 @@
+#version 300 es
+
+#define MAX_DIMENSIONS 12
+#define INSTANCE_VEC4S 1023 //The rest of a 16KB block after the header
+
+layout (location = 0) in vec4 vertex0;  //Components 0-3 of the N dimensional vertex
+layout (location = 2) in vec4 vertex1;  //Components 4-7
+layout (location = 3) in vec4 vertex2;  //Components 8-11
+
+smooth out vec3 fPosition;  //Projected position for the fragment shader to get the normal from
+
+layout(std140) uniform Globals
+{
+    mat4 projectionMatrix;
+    vec4 color;
+    float projectionConstant;
+    float[3] padding;
+};
+
+layout(std140) uniform Instances
+{
+    int dimensions;
+    int rowChunks;          //vec4s per row of an orientation
+    int instanceVec4s;      //vec4s per instance, its offset followed by its orientation's rows
+    int instancePadding;
+    vec4 instances[INSTANCE_VEC4S];
+};
+
+void main()
+{
+    vec4 chunks[3] = vec4[3](vertex0, vertex1, vertex2);
+    float vertex[MAX_DIMENSIONS];
+    int instance = gl_InstanceID * instanceVec4s;
+
+    //Rotate by this instance's orientation
+    for (int row = 0; row < dimensions; row++) {
+        int rowStart = instance + 1 + row * rowChunks;
+        vertex[row] = 0.f;
+
+        for (int chunk = 0; chunk < rowChunks; chunk++) {
+            vertex[row] += dot(instances[rowStart + chunk], chunks[chunk]);
+        }
+    }
+
+    //Project down to 3D (the same as NDProjection.projectVertex)
+    for (int dim = dimensions - 1; dim > 2; dim--) {
+        float scale = abs(projectionConstant - 1.f) / (projectionConstant + vertex[dim]);
+
+        for (int comp = 0; comp < dim - 1; comp++) {
+            vertex[comp] *= scale;
+        }
+    }
+
+    fPosition = vec3(vertex[0], vertex[1], vertex[2]) + instances[instance].xyz;
+    gl_Position = projectionMatrix * vec4(fPosition, 1.f);
+}
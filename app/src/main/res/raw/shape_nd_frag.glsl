@@ -0,0 +1,25 @@
+#version 300 es
+
+precision mediump float;
+
+smooth in vec3 fPosition;
+
+out vec4 outputColor;
+
+layout(std140) uniform Globals
+{
+    mat4 projectionMatrix;
+    vec4 color;
+    float projectionConstant;
+    float[3] padding;
+};
+
+void main()
+{
+    vec3 dirLight = normalize(vec3(1.f, -1.f, -1.f));
+
+    //The face normal, since the projected faces aren't known until the vertex shader
+    vec3 normal = normalize(cross(dFdx(fPosition), dFdy(fPosition)));
+
+    outputColor = vec4(color.xyz * (abs(dot(normal, dirLight))), color.w);    //Directional lighting
+}
@@ -0,0 +1,20 @@
+package com.sudo_code.ndrenderer;
+
+import org.openjdk.jmh.annotations.Param;
+
+/**
+ * MeshBenchmark over the complex graph (always 4D) at a few densities. It's drawn with a depth
+ * test, so sort() measures the faces not being sorted, same as in the app.
+ */
+public class ComplexGraphBenchmark extends MeshBenchmark {
+    private static final float VIEW_SIZE = 1.5f;
+
+    //JMH names the parameter after the field, e.g. -p density=50
+    @Param({"25", "50", "100"})
+    public int density;
+
+    @Override
+    protected NDMesh genMesh() {
+        return new ComplexGraphMesh(density, VIEW_SIZE, PROJECTION_CONSTANT, VIEW_DIST);
+    }
+}
@@ -0,0 +1,92 @@
+package com.sudo_code.ndrenderer;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares the per frame CPU time of drawing a mesh's faces (projecting, normals and the back to
+ * front sort, prepareGeometry()) with drawing only its edges (projecting the vertices the edges
+ * join, prepareEdges()). Setup prints the face and edge counts and the vertex bytes each mode
+ * streams per frame.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Fork(1)
+@Warmup(iterations = 5)
+@Measurement(iterations = 5)
+public class EdgeModeBenchmark {
+    private static final float PROJECTION_CONSTANT = 3.f;
+    private static final float VIEW_DIST           = 10.f;
+    private static final float ANGLE               = 1.f / 60.f;
+    private static final int   BYTES_PER_FLOAT     = 4;
+
+    //JMH names the parameters after the fields, e.g. -p mesh=hypercube-6
+    @Param({"hypercube-3", "hypercube-4", "hypercube-5", "hypercube-6", "hypercube-7", "hypercube-8",
+            "hypercube-9", "hypercube-10", "hypertorus-3-40", "hypertorus-4-16"})
+    public String mesh;
+
+    private NDMesh      mMesh;
+    private NDTransform mRotation;
+
+    @Setup
+    public void setup() {
+        String[] parts = mesh.split("-");
+        int dimensions = Integer.parseInt(parts[1]);
+
+        switch (parts[0]) {
+            case "hypercube":
+                mMesh = new HypercubeMesh(dimensions, PROJECTION_CONSTANT, VIEW_DIST);
+                break;
+
+            case "hypertorus":
+                mMesh = new HypertorusMesh(dimensions, PROJECTION_CONSTANT, VIEW_DIST, Integer.parseInt(parts[2]));
+                break;
+
+            default:
+                throw new IllegalArgumentException("Unknown mesh " + mesh);
+        }
+
+        //A slowly rotating orientation, the way MainActivity drives the meshes
+        mRotation = new NDTransform(dimensions);
+        mRotation.rotate(ANGLE, 0, 2);
+        mRotation.rotate(ANGLE, 1, dimensions - 1);
+        mRotation.rotate(ANGLE, 0, dimensions - 1);
+
+        mMesh.prepareGeometry();
+        mMesh.prepareEdges();
+
+        System.out.println(mMesh.getFaceCount() + " faces, " +
+                mMesh.getEdges().getEdgeCount() + " edges, " +
+                (mMesh.getVertices3d().length + mMesh.getSecondaryData().length) * BYTES_PER_FLOAT +
+                " face bytes, " +
+                mMesh.getEdgeVertices3d().length * BYTES_PER_FLOAT + " edge bytes per frame");
+    }
+
+    @Benchmark
+    public float[] faces() {
+        mMesh.transform(mRotation);
+        mMesh.prepareGeometry();
+
+        return mMesh.getVertices3d();
+    }
+
+    @Benchmark
+    public float[] edges() {
+        mMesh.transform(mRotation);
+        mMesh.prepareEdges();
+
+        return mMesh.getEdgeVertices3d();
+    }
+}
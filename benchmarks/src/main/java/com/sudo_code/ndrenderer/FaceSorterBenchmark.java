@@ -0,0 +1,138 @@
+package com.sudo_code.ndrenderer;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares the face sorters on random quads laid out the same way Hypercube lays out its faces.
+ * The selection sort is quadratic, so it's refused above MAX_SELECTION_FACES when setup makes the
+ * sorter (JMH reports those combinations as failed and carries on with the rest). The coherent
+ * sorter prints how many of its rotating() sorts were repairs at the end of each trial.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Fork(1)
+@Warmup(iterations = 5)
+@Measurement(iterations = 5)
+public class FaceSorterBenchmark {
+    private static final float VIEW_DIST           = 10.f;
+    private static final float ANGLE               = 1.f / 60.f;    //About a frame's worth of rotation at 60fps
+    private static final int   MAX_SELECTION_FACES = 10000;
+
+    //JMH names the parameters after the fields, e.g. -p sorter=radix -p faceCount=1000
+    @Param({"selection", "radix", "coherent"})
+    public String sorter;
+
+    @Param({"24", "240", "1000", "10000", "100000"})    //4D and 6D hypercubes and up
+    public int faceCount;
+
+    private FaceSorter mSorter;
+    private float[]    mVertices3d;
+    private int[]      mShuffledIndices;
+    private int[]      mIndices;
+    private float      mCos;
+    private float      mSin;
+
+    @Setup
+    public void setup() {
+        switch (sorter) {
+            case "selection":
+                if (faceCount > MAX_SELECTION_FACES) {
+                    throw new IllegalArgumentException("Selection sorting " + faceCount + " faces takes too long");
+                }
+
+                mSorter = new SelectionFaceSorter();
+                break;
+
+            case "radix":
+                mSorter = new RadixFaceSorter();
+                break;
+
+            case "coherent":
+                mSorter = new CoherentFaceSorter();
+                break;
+
+            default:
+                throw new IllegalArgumentException("Unknown sorter " + sorter);
+        }
+
+        Random random = new Random(42);
+
+        mVertices3d = new float[faceCount * 4 * 3];
+        for (int i = 0; i < mVertices3d.length; i++) {
+            mVertices3d[i] = random.nextFloat() * 4.f - 2.f;
+        }
+
+        mShuffledIndices = new int[faceCount * FaceSorter.INDICES_PER_FACE];
+        for (int faceI = 0; faceI < faceCount; faceI++) {
+            int vertI = faceI * 4;
+
+            mShuffledIndices[faceI * 6 + 0] = vertI + 0;
+            mShuffledIndices[faceI * 6 + 1] = vertI + 1;
+            mShuffledIndices[faceI * 6 + 2] = vertI + 3;
+            mShuffledIndices[faceI * 6 + 3] = vertI + 1;
+            mShuffledIndices[faceI * 6 + 4] = vertI + 2;
+            mShuffledIndices[faceI * 6 + 5] = vertI + 3;
+        }
+
+        mIndices = mShuffledIndices.clone();
+        mCos = (float) Math.cos(ANGLE);
+        mSin = (float) Math.sin(ANGLE);
+    }
+
+    @TearDown
+    public void tearDown() {
+        if (mSorter instanceof CoherentFaceSorter) {
+            CoherentFaceSorter coherent = (CoherentFaceSorter) mSorter;
+
+            System.out.println(coherent.getIncrementalSortCount() + " incremental, " +
+                    coherent.getFullSortCount() + " full, " +
+                    coherent.getFallbackCount() + " fallbacks");
+        }
+    }
+
+    /**
+     * Sorting the faces from their original order every time, so each sort does the full amount
+     * of work
+     */
+    @Benchmark
+    public int[] shuffled() {
+        System.arraycopy(mShuffledIndices, 0, mIndices, 0, mIndices.length);
+        mSorter.sortFaces(mVertices3d, mIndices, faceCount, VIEW_DIST);
+
+        return mIndices;
+    }
+
+    /**
+     * Turning the faces a little about the y axis, then sorting them without resetting the
+     * indices, the way they move in MainActivity
+     */
+    @Benchmark
+    public int[] rotating() {
+        for (int vertI = 0; vertI < mVertices3d.length; vertI += 3) {
+            float x = mVertices3d[vertI];
+            float z = mVertices3d[vertI + 2];
+
+            mVertices3d[vertI]     = x * mCos - z * mSin;
+            mVertices3d[vertI + 2] = x * mSin + z * mCos;
+        }
+
+        mSorter.sortFaces(mVertices3d, mIndices, faceCount, VIEW_DIST);
+
+        return mIndices;
+    }
+}
@@ -0,0 +1,86 @@
+package com.sudo_code.ndrenderer;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * NDMesh.prepareGeometry() on a large 5D hypertorus, the projection, normals and face sort split
+ * across threads threads by a FrameWorkerPool, 1 being no pool at all.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Fork(1)
+@Warmup(iterations = 5)
+@Measurement(iterations = 5)
+public class FrameWorkerPoolBenchmark {
+    private static final int   DIMENSIONS          = 5;
+    private static final int   SMOOTHNESS          = 20;
+    private static final float PROJECTION_CONSTANT = 3.f;
+    private static final float VIEW_DIST           = 10.f;
+    private static final float ANGLE               = 1.f / 60.f;
+
+    //JMH names the parameters after the fields, e.g. -p threads=4
+    @Param({"1", "2", "4", "8"})
+    public int threads;
+
+    private NDMesh          mMesh;
+    private FrameWorkerPool mPool;
+    private NDTransform     mRotation;
+
+    @Setup
+    public void setup() {
+        mMesh = new HypertorusMesh(DIMENSIONS, PROJECTION_CONSTANT, VIEW_DIST, SMOOTHNESS);
+        mMesh.setFaceSorter(new CoherentFaceSorter());
+
+        mPool = threads > 1 ? new FrameWorkerPool(threads) : null;
+        mMesh.setWorkerPool(mPool);
+
+        mRotation = new NDTransform(DIMENSIONS);
+        mRotation.rotate(ANGLE, 0, 2);
+        mRotation.rotate(ANGLE, 3, 1);
+        mRotation.rotate(ANGLE, 0, 4);
+
+        mMesh.prepareGeometry();
+    }
+
+    @TearDown
+    public void tearDown() {
+        if (mPool != null) {
+            mPool.shutdown();
+        }
+    }
+
+    /**
+     * Turning and projecting every vertex
+     */
+    @Benchmark
+    public float[] project() {
+        mMesh.transform(mRotation);
+        mMesh.project();
+
+        return mMesh.getVertices3d();
+    }
+
+    /**
+     * A whole frame: the rotation, then projecting, the normals and sorting together
+     */
+    @Benchmark
+    public boolean frame() {
+        mMesh.transform(mRotation);
+
+        return mMesh.prepareGeometry();
+    }
+}
@@ -0,0 +1,128 @@
+package com.sudo_code.ndrenderer;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares FusedProjectionPass with the separate projection, normal and sorting passes NDShape
+ * used before, over random quads laid out the same way Hypercube lays out its faces. 24 and 240
+ * faces are the 4D and 6D hypercubes.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Fork(1)
+@Warmup(iterations = 5)
+@Measurement(iterations = 5)
+public class FusedProjectionBenchmark {
+    private static final float PROJECTION_CONSTANT = 3.f;
+    private static final float VIEW_DIST           = 10.f;
+    private static final float ANGLE               = 1.f / 60.f;
+
+    //JMH names the parameters after the fields, e.g. -p dimensions=4 -p faceCount=1000
+    @Param({"4", "6"})
+    public int dimensions;
+
+    @Param({"24", "240", "1000", "10000", "100000"})
+    public int faceCount;
+
+    private FusedProjectionPass mPass;
+    private FaceSorter          mSorter;
+    private NDTransform         mRotation;
+    private NDTransform         mOrientation;
+    private float[]             mVertices;
+    private float[]             mVertices3d;
+    private float[]             mNormals;
+    private float[]             mVertex;
+    private int[]               mIndices;
+
+    @Setup
+    public void setup() {
+        int vertexCount = faceCount * 4;
+        Random random = new Random(faceCount);
+
+        mVertices = new float[vertexCount * dimensions];
+        for (int i = 0; i < mVertices.length; i++) {
+            mVertices[i] = random.nextFloat() * 2.f - 1.f;
+        }
+
+        mIndices = new int[faceCount * FaceSorter.INDICES_PER_FACE];
+        for (int faceI = 0; faceI < faceCount; faceI++) {
+            int vertI = faceI * 4;
+
+            mIndices[faceI * 6 + 0] = vertI + 0;
+            mIndices[faceI * 6 + 1] = vertI + 1;
+            mIndices[faceI * 6 + 2] = vertI + 3;
+            mIndices[faceI * 6 + 3] = vertI + 1;
+            mIndices[faceI * 6 + 4] = vertI + 2;
+            mIndices[faceI * 6 + 5] = vertI + 3;
+        }
+
+        mVertices3d = new float[vertexCount * 3];
+        mNormals    = new float[vertexCount * 3];
+        mVertex     = new float[dimensions];
+        mSorter     = new RadixFaceSorter();
+        mPass       = new FusedProjectionPass(mVertices, dimensions, PROJECTION_CONSTANT, VIEW_DIST);
+
+        mOrientation = new NDTransform(dimensions);
+        mRotation = new NDTransform(dimensions);
+        mRotation.rotate(ANGLE, 0, 2);
+        mRotation.rotate(ANGLE, 2, 3);
+        mRotation.rotate(ANGLE, dimensions - 1, 1);
+    }
+
+    /**
+     * Projecting every vertex, then generating every face's normal, then sorting the faces, each
+     * in a pass of its own
+     */
+    @Benchmark
+    public boolean threePass() {
+        mOrientation.concat(mRotation);
+
+        for (int vertI = 0; vertI < mVertices3d.length / 3; vertI++) {
+            mOrientation.apply(mVertices, vertI * dimensions, mVertex, 0);
+            NDProjection.projectVertex(mVertex, 0, dimensions, PROJECTION_CONSTANT);
+            System.arraycopy(mVertex, 0, mVertices3d, vertI * 3, 3);
+        }
+
+        for (int indexFaceStartI = 0; indexFaceStartI < mIndices.length; indexFaceStartI += 6) {
+            int normalI = mIndices[indexFaceStartI + 0] * 3;
+
+            NDVector.triangleNormal(
+                    mVertices3d,
+                    normalI,
+                    mIndices[indexFaceStartI + 1] * 3,
+                    mIndices[indexFaceStartI + 2] * 3,
+                    mNormals,
+                    normalI);
+
+            for (int i = 1; i < 6; i++) {
+                System.arraycopy(mNormals, normalI, mNormals, mIndices[indexFaceStartI + i] * 3, 3);
+            }
+        }
+
+        return mSorter.sortFaces(mVertices3d, mIndices, faceCount, VIEW_DIST);
+    }
+
+    /**
+     * The same work in FusedProjectionPass
+     */
+    @Benchmark
+    public boolean fused() {
+        mOrientation.concat(mRotation);
+
+        return mPass.run(mOrientation, mVertices3d, mIndices, faceCount, mNormals, mSorter);
+    }
+}
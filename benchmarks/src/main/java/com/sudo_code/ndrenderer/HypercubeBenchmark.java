@@ -0,0 +1,18 @@
+package com.sudo_code.ndrenderer;
+
+import org.openjdk.jmh.annotations.Param;
+
+/**
+ * MeshBenchmark over hypercubes of 3 to 10 dimensions
+ */
+public class HypercubeBenchmark extends MeshBenchmark {
+
+    //JMH names the parameters after the fields, e.g. -p dimensions=5
+    @Param({"3", "4", "5", "6", "7", "8", "9", "10"})
+    public int dimensions;
+
+    @Override
+    protected NDMesh genMesh() {
+        return new HypercubeMesh(dimensions, PROJECTION_CONSTANT, VIEW_DIST);
+    }
+}
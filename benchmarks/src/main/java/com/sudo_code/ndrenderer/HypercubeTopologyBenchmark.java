@@ -0,0 +1,98 @@
+package com.sudo_code.ndrenderer;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The per frame vertex work of hypercubes of 3 to 10 dimensions, projecting only the 2^D corners
+ * and gathering the faces' vertices from them, or projecting every face's 4 vertices the way
+ * SeparateVerticesHypercubeMesh lays them out. Setup prints the projected vertices and the model
+ * space bytes each layout keeps.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Fork(1)
+@Warmup(iterations = 5)
+@Measurement(iterations = 5)
+public class HypercubeTopologyBenchmark {
+    private static final float PROJECTION_CONSTANT = 3.f;
+    private static final float VIEW_DIST           = 10.f;
+    private static final float ANGLE               = 1.f / 60.f;
+
+    //JMH names the parameters after the fields, e.g. -p dimensions=8 -p layout=shared
+    @Param({"3", "4", "5", "6", "7", "8", "9", "10"})
+    public int dimensions;
+
+    @Param({"shared", "separate"})
+    public String layout;
+
+    private NDMesh      mMesh;
+    private NDTransform mRotation;
+
+    /**
+     * @return The bytes of model space data the mesh keeps: its vertices, the copy of them
+     *         FusedProjectionPass projects from, and the vertex sources
+     */
+    private static long getModelBytes(NDMesh mesh) {
+        int sources = mesh.getVertexSources() != null ? mesh.getVertexSources().length : 0;
+        return 4L * (mesh.getVertices().length * 2 + sources);
+    }
+
+    @Setup
+    public void setup() {
+        switch (layout) {
+            case "shared":
+                mMesh = new HypercubeMesh(dimensions, PROJECTION_CONSTANT, VIEW_DIST);
+                break;
+
+            case "separate":
+                mMesh = new SeparateVerticesHypercubeMesh(dimensions, PROJECTION_CONSTANT, VIEW_DIST);
+                break;
+
+            default:
+                throw new IllegalArgumentException("Unknown layout " + layout);
+        }
+
+        mRotation = new NDTransform(dimensions);
+        mRotation.rotate(ANGLE, 0, 2);
+        mRotation.rotate(ANGLE, 1, dimensions - 1);
+        mRotation.rotate(ANGLE, 0, dimensions - 1);
+
+        System.out.println(mMesh.getFaceCount() + " faces, " +
+                mMesh.getVertices().length / dimensions + " projected vertices, " +
+                getModelBytes(mMesh) + " model bytes");
+    }
+
+    /**
+     * Turning and projecting the vertices
+     */
+    @Benchmark
+    public float[] project() {
+        mMesh.transform(mRotation);
+        mMesh.project();
+
+        return mMesh.getVertices3d();
+    }
+
+    /**
+     * A whole frame: the rotation, then projecting, the normals and sorting together
+     */
+    @Benchmark
+    public boolean frame() {
+        mMesh.transform(mRotation);
+
+        return mMesh.prepareGeometry();
+    }
+}
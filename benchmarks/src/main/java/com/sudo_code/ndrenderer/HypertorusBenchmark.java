@@ -0,0 +1,31 @@
+package com.sudo_code.ndrenderer;
+
+import org.openjdk.jmh.annotations.Param;
+
+/**
+ * MeshBenchmark over hypertori of 3 to 8 dimensions at a few smoothnesses. A hypertorus has
+ * smoothness^(dimensions - 1) vertices, so only the combinations up to 10^5 vertices are run by
+ * default, and the higher smoothnesses are only listed for the lower dimensions. Bigger ones can
+ * be asked for with -p, up to MAX_VERTICES, past which genMesh refuses them.
+ */
+public class HypertorusBenchmark extends MeshBenchmark {
+    private static final int MAX_VERTICES = 1 << 20;
+
+    //JMH names the parameters after the fields, e.g. -p hypertorus=7-10
+    @Param({"3-4", "3-10", "3-16", "4-4", "4-10", "4-16", "5-4", "5-10", "5-16", "6-4", "6-10", "7-4", "8-4"})
+    public String hypertorus;   //The dimensions and the smoothness
+
+    @Override
+    protected NDMesh genMesh() {
+        String[] parts = hypertorus.split("-");
+        int dimensions = Integer.parseInt(parts[0]);
+        int smoothness = Integer.parseInt(parts[1]);
+
+        if (Math.pow(smoothness, dimensions - 1) > MAX_VERTICES) {
+            throw new IllegalArgumentException("A " + dimensions + "D hypertorus with a smoothness of " +
+                    smoothness + " has more than " + MAX_VERTICES + " vertices");
+        }
+
+        return new HypertorusMesh(dimensions, PROJECTION_CONSTANT, VIEW_DIST, smoothness);
+    }
+}
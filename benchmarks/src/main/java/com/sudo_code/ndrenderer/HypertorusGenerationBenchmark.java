@@ -0,0 +1,62 @@
+package com.sudo_code.ndrenderer;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares generating hypertorus vertices with HypertorusMesh's closed form generator against the
+ * recursive one it replaced. Run with -prof gc to see the bytes each allocates along the way
+ * (everything past the vertex array itself is garbage for the collector). Only combinations with
+ * at most MAX_VERTICES vertices are listed, and setup refuses bigger ones asked for with -p.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Fork(value = 1, jvmArgsAppend = "-Xmx1g")  //Enough heap for the largest meshes
+@Warmup(iterations = 5)
+@Measurement(iterations = 5)
+public class HypertorusGenerationBenchmark {
+    private static final int MAX_VERTICES = 1 << 20;
+
+    //JMH names the parameters after the fields, e.g. -p hypertorus=5-20
+    @Param({"4-8", "4-10", "4-20", "5-8", "5-10", "5-20", "6-8", "6-10", "7-8", "7-10"})
+    public String hypertorus;   //The dimensions and the smoothness
+
+    private int mDimensions;
+    private int mSmoothness;
+
+    @Setup
+    public void setup() {
+        String[] parts = hypertorus.split("-");
+        mDimensions = Integer.parseInt(parts[0]);
+        mSmoothness = Integer.parseInt(parts[1]);
+
+        if (Math.pow(mSmoothness, mDimensions - 1) > MAX_VERTICES) {
+            throw new IllegalArgumentException("A " + mDimensions + "D hypertorus with a smoothness of " +
+                    mSmoothness + " has more than " + MAX_VERTICES + " vertices");
+        }
+    }
+
+    @Benchmark
+    public float[] recursive() {
+        return RecursiveHypertorusVertices.generate(mDimensions, mSmoothness);
+    }
+
+    @Benchmark
+    public float[] closedForm() {
+        float[] vertices = new float[Utils.powI(mSmoothness, mDimensions - 1) * mDimensions];
+        HypertorusMesh.genTorusVertices(mDimensions, mSmoothness, vertices);
+        return vertices;
+    }
+}
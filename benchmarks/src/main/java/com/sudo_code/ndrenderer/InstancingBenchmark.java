@@ -0,0 +1,140 @@
+package com.sudo_code.ndrenderer;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares drawing a lattice of copies of a hypercube as one GPU projected NDShape per copy, each
+ * with its own orientation block and draw, with drawing them all from one NDShape with
+ * ShapeInstances: the CPU time of preparing a frame and of submitting an eye. Setup prints the
+ * draw calls, GL calls and uniform bytes of a frame (two eyes). The GL calls go to a
+ * RecordingGLBackend, so the times are of the renderer's own work plus a little bookkeeping per
+ * call, not a driver's.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Fork(1)
+@Warmup(iterations = 5)
+@Measurement(iterations = 5)
+public class InstancingBenchmark {
+    private static final float PROJECTION_CONSTANT = 3.f;
+    private static final float VIEW_DIST           = 10.f;
+    private static final float SPACING             = 2.5f;
+    private static final float ANGLE               = 1.f / 60.f;
+    private static final int   EYES                = 2;
+
+    //JMH names the parameters after the fields, e.g. -p dimensions=6 -p side=4 -p mode=instanced
+    @Param({"4", "6", "8"})
+    public int dimensions;
+
+    @Param({"3", "4", "5", "6", "7", "8"})  //Copies along each of the lattice's 3 axes
+    public int side;
+
+    @Param({"separate", "instanced"})
+    public String mode;
+
+    private RecordingGLBackend mGL;
+    private NDShape[]          mShapes;
+    private NDTransform        mRotation;
+
+    private NDShape genShape() {
+        NDShape shape = new Hypercube(mGL, dimensions, PROJECTION_CONSTANT, VIEW_DIST, 0, 1);
+        shape.setBufferUpdatePolicy(BufferUpdatePolicy.UNSORTED);
+        shape.setGpuProjection(true);
+        return shape;
+    }
+
+    @Setup
+    public void setup() {
+        ShapeInstances lattice = ShapeInstances.lattice(dimensions, side, SPACING, 0);
+        mGL = new RecordingGLBackend();
+
+        switch (mode) {
+            case "separate":
+                mShapes = new NDShape[lattice.getCount()];
+
+                for (int copy = 0; copy < mShapes.length; copy++) {
+                    mShapes[copy] = genShape();
+                }
+
+                break;
+
+            case "instanced":
+                mShapes = new NDShape[] {genShape()};
+                mShapes[0].setInstances(lattice);
+                break;
+
+            default:
+                throw new IllegalArgumentException("Unknown mode " + mode);
+        }
+
+        mRotation = new NDTransform(dimensions);
+        mRotation.rotate(ANGLE, 0, 2);
+        mRotation.rotate(ANGLE, 1, dimensions - 1);
+
+        //A whole frame the way MainActivity draws one, to count what it costs the GL
+        mGL.beginFrame();
+        prepareShapes();
+
+        for (int eye = 0; eye < EYES; eye++) {
+            submitShapes();
+        }
+
+        for (NDShape shape : mShapes) {
+            shape.finishFrame();
+        }
+
+        System.out.println(lattice.getCount() + " copies, " +
+                mGL.getFrameDrawSizes().length + " draws, " +
+                mGL.getFrameCallCount() + " GL calls, " +
+                mGL.getFrameBytes() + " uniform bytes per frame");
+    }
+
+    private void prepareShapes() {
+        for (NDShape shape : mShapes) {
+            shape.transform(mRotation);
+            shape.prepare();
+        }
+    }
+
+    private void submitShapes() {
+        for (NDShape shape : mShapes) {
+            shape.submit();
+        }
+    }
+
+    /**
+     * Turning and preparing every shape, once per frame. Each benchmark starts a new frame of
+     * the RecordingGLBackend's, which otherwise keeps every draw's size.
+     */
+    @Benchmark
+    public RecordingGLBackend prepare() {
+        mGL.beginFrame();
+        prepareShapes();
+
+        return mGL;
+    }
+
+    /**
+     * Submitting every shape, once per eye
+     */
+    @Benchmark
+    public RecordingGLBackend submit() {
+        mGL.beginFrame();
+        submitShapes();
+
+        return mGL;
+    }
+}
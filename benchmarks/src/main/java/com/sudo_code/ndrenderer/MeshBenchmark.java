@@ -0,0 +1,114 @@
+package com.sudo_code.ndrenderer;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The per frame CPU work of an NDMesh, one stage at a time, plus generating the mesh and the
+ * whole frame as NDShape.prepare() does it. Subclasses pick the mesh and its parameters, so each
+ * stage gets a result per dimension and smoothness or density. The mesh is turned by the same
+ * planes MainActivity turns it by.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Fork(1)
+@Warmup(iterations = 5)
+@Measurement(iterations = 5)
+public abstract class MeshBenchmark {
+    protected static final float PROJECTION_CONSTANT = 3.f;
+    protected static final float VIEW_DIST           = 10.f;
+
+    private static final float ANGLE = 0.01f;   //Radians per frame on every plane
+
+    private NDMesh      mMesh;
+    private NDTransform mRotation;
+
+    /**
+     * @return A newly generated mesh with the benchmark's parameters
+     */
+    protected abstract NDMesh genMesh();
+
+    @Setup
+    public void setup() {
+        mMesh = genMesh();
+
+        int dimensions = mMesh.getDimensions();
+        mRotation = new NDTransform(dimensions);
+
+        mRotation.rotate(ANGLE, 0, 2);
+
+        if (dimensions > 3) {
+            mRotation.rotate(ANGLE, 2, 3);
+            mRotation.rotate(ANGLE, 3, 1);
+        }
+
+        if (dimensions > 4) {
+            mRotation.rotate(ANGLE, 0, 4);
+            mRotation.rotate(ANGLE, 4, 1);
+        }
+    }
+
+    /**
+     * Generating the vertices and indices, i.e. what switching shape costs
+     */
+    @Benchmark
+    public NDMesh generate() {
+        return genMesh();
+    }
+
+    /**
+     * Adding the frame's rotation to the orientation
+     */
+    @Benchmark
+    public NDTransform rotate() {
+        mMesh.transform(mRotation);
+        return mMesh.getOrientation();
+    }
+
+    /**
+     * Rotating and projecting every vertex down to 3D
+     */
+    @Benchmark
+    public float[] project() {
+        mMesh.project();
+        return mMesh.getVertices3d();
+    }
+
+    /**
+     * Regenerating the secondary data (the normals, for the shapes that have them)
+     */
+    @Benchmark
+    public float[] normals() {
+        mMesh.prepareSecondaryData();
+        return mMesh.getSecondaryData();
+    }
+
+    /**
+     * Sorting the faces back to front, as the mesh's buffer update policy asks. The projection
+     * doesn't change between calls, so this is the order barely changing from frame to frame.
+     */
+    @Benchmark
+    public boolean sort() {
+        return mMesh.sortFaces();
+    }
+
+    /**
+     * A whole frame: the rotation, then projecting, the secondary data and sorting together
+     */
+    @Benchmark
+    public boolean frame() {
+        mMesh.transform(mRotation);
+        return mMesh.prepareGeometry();
+    }
+}
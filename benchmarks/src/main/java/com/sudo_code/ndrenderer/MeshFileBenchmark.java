@@ -0,0 +1,102 @@
+package com.sudo_code.ndrenderer;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares making a mesh the first time, when it has to be generated, with making it again in a
+ * new process, when it's mapped from the MeshFile the first time saved, and in the same process,
+ * when it's still in memory. Each includes the first projection and sort NDMesh.init() does.
+ * The file is in the OS's page cache after the first run, so the mapped times are a warm disk.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Fork(1)
+@Warmup(iterations = 5)
+@Measurement(iterations = 5)
+public class MeshFileBenchmark {
+    private static final float PROJECTION_CONSTANT = 3.f;
+    private static final float VIEW_DIST           = 10.f;
+
+    //JMH names the parameters after the fields, e.g. -p mesh=hypertorus-5-16
+    @Param({"hypertorus-4-30", "hypertorus-5-16", "hypertorus-6-10", "complexGraph-200"})
+    public String mesh;
+
+    private File           mDirectory;
+    private ShapeMeshCache mCache;
+
+    /**
+     * @param cache The cache to make the mesh with, or null to generate it
+     * @return The mesh named by the mesh parameter: the shape, then its dimensions and
+     *         smoothness or its density
+     */
+    private NDMesh make(ShapeMeshCache cache) {
+        String[] parts = mesh.split("-");
+
+        switch (parts[0]) {
+            case "hypertorus":
+                return new HypertorusMesh(Integer.parseInt(parts[1]), PROJECTION_CONSTANT, VIEW_DIST,
+                        Integer.parseInt(parts[2]), cache);
+
+            case "complexGraph":
+                return new ComplexGraphMesh(Integer.parseInt(parts[1]), 1.5f, PROJECTION_CONSTANT, VIEW_DIST, cache);
+
+            default:
+                throw new IllegalArgumentException("Unknown mesh " + mesh);
+        }
+    }
+
+    @Setup
+    public void setup() throws IOException {
+        mDirectory = File.createTempFile("meshes", "");
+        mDirectory.delete();
+
+        mCache = new ShapeMeshCache(256 * 1024 * 1024);
+        mCache.setDirectory(mDirectory);
+
+        make(mCache);   //Saves the file
+    }
+
+    @TearDown
+    public void tearDown() {
+        for (File file : mDirectory.listFiles()) {
+            file.delete();
+        }
+
+        mDirectory.delete();
+    }
+
+    @Benchmark
+    public NDMesh generated() {
+        return make(null);
+    }
+
+    /**
+     * Emptying the cache's memory first, so the mesh comes from its file
+     */
+    @Benchmark
+    public NDMesh mapped() {
+        mCache.clear();
+        return make(mCache);
+    }
+
+    @Benchmark
+    public NDMesh memory() {
+        return make(mCache);
+    }
+}
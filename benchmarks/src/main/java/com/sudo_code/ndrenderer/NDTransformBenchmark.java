@@ -0,0 +1,96 @@
+package com.sudo_code.ndrenderer;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares rotating every vertex once per plane with NDVector.rotate (the way NDShape.rotate used
+ * to work) against composing the planes into an NDTransform and applying it once, over as many
+ * vertices as a 6D hypertorus with a smoothness of 10 has.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Fork(1)
+@Warmup(iterations = 5)
+@Measurement(iterations = 5)
+public class NDTransformBenchmark {
+    private static final int   VERTEX_COUNT = 100000;
+    private static final float ANGLE        = 1.f / 60.f;
+
+    //JMH names the parameters after the fields, e.g. -p dimensions=6
+    @Param({"4", "5", "6", "7", "8"})
+    public int dimensions;
+
+    private float[]     mVertices;
+    private int[][]     mPlanes;
+    private NDTransform mTransform;
+
+    @Setup
+    public void setup() {
+        Random random = new Random(42);
+
+        mVertices = new float[VERTEX_COUNT * dimensions];
+        for (int i = 0; i < mVertices.length; i++) {
+            mVertices[i] = random.nextFloat() * 2.f - 1.f;
+        }
+
+        //The planes MainActivity uses, carrying on the same pattern for the dimensions above 5
+        mPlanes = new int[1 + 2 * (dimensions - 3)][];
+        mPlanes[0] = new int[] {0, 2};
+        mPlanes[1] = new int[] {2, 3};
+        mPlanes[2] = new int[] {3, 1};
+
+        for (int dim = 4; dim < dimensions; dim++) {
+            mPlanes[(dim - 3) * 2 + 1] = new int[] {0, dim};
+            mPlanes[(dim - 3) * 2 + 2] = new int[] {dim, 1};
+        }
+
+        mTransform = new NDTransform(dimensions);
+    }
+
+    /**
+     * Rotating the vertices once per plane, allocating per vertex like NDShape.rotate used to
+     */
+    @Benchmark
+    public float[] perPlane() {
+        for (int[] plane : mPlanes) {
+            for (int vertI = 0; vertI < mVertices.length; vertI += dimensions) {
+                float[] vertex = new float[dimensions];
+                System.arraycopy(mVertices, vertI, vertex, 0, dimensions);
+                vertex = NDVector.rotate(vertex, ANGLE, plane);
+                System.arraycopy(vertex, 0, mVertices, vertI, dimensions);
+            }
+        }
+
+        return mVertices;
+    }
+
+    /**
+     * Composing the planes into one transform and applying it once
+     */
+    @Benchmark
+    public float[] composed() {
+        mTransform.setIdentity();
+
+        for (int[] plane : mPlanes) {
+            mTransform.rotate(ANGLE, plane[0], plane[1]);
+        }
+
+        mTransform.apply(mVertices, 0, VERTEX_COUNT);
+
+        return mVertices;
+    }
+}
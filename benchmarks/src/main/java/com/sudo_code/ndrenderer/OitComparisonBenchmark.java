@@ -0,0 +1,154 @@
+package com.sudo_code.ndrenderer;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares sorted blending with weighted blended order independent transparency: the per frame
+ * CPU geometry time with the faces sorted (REORDERED_INDICES) and without (UNSORTED), and the
+ * time the SoftwareRasterizer takes to draw each. Setup prints how different the two images of
+ * the mesh are.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Fork(1)
+@Warmup(iterations = 5)
+@Measurement(iterations = 5)
+public class OitComparisonBenchmark {
+    private static final float   PROJECTION_CONSTANT = 3.f;
+    private static final float   VIEW_DIST           = 10.f;
+    private static final float   ANGLE               = 1.f / 60.f;
+    private static final int     SIZE                = 256;
+    private static final float[] WHITE               = {1.f, 1.f, 1.f, 0.1f};   //MainActivity's "White"
+    private static final int     TOLERANCE           = 8;       //Per channel, out of 255, for a pixel to count as different
+
+    //JMH names the parameters after the fields, e.g. -p mesh=hypercube-6 -p blending=weighted
+    @Param({"hypercube-4", "hypercube-5", "hypercube-6", "hypercube-7", "hypercube-8",
+            "hypertorus-3-40", "hypertorus-4-16"})
+    public String mesh;
+
+    @Param({"sorted", "weighted"})
+    public String blending;
+
+    private NDMesh             mMesh;
+    private NDTransform        mRotation;
+    private SoftwareRasterizer mRasterizer;
+    private boolean            mWeighted;
+
+    /**
+     * @return The average absolute difference per channel, out of 255
+     */
+    private static double getMeanDifference(RgbImage a, RgbImage b) {
+        byte[] pixelsA = a.getPixels();
+        byte[] pixelsB = b.getPixels();
+        long total = 0;
+
+        for (int i = 0; i < pixelsA.length; i++) {
+            total += Math.abs((pixelsA[i] & 0xFF) - (pixelsB[i] & 0xFF));
+        }
+
+        return (double) total / pixelsA.length;
+    }
+
+    @Setup
+    public void setup() {
+        switch (blending) {
+            case "sorted":
+                mWeighted = false;
+                break;
+
+            case "weighted":
+                mWeighted = true;
+                break;
+
+            default:
+                throw new IllegalArgumentException("Unknown blending " + blending);
+        }
+
+        String[] parts = mesh.split("-");
+        int dimensions = Integer.parseInt(parts[1]);
+
+        switch (parts[0]) {
+            case "hypercube":
+                mMesh = new HypercubeMesh(dimensions, PROJECTION_CONSTANT, VIEW_DIST);
+                break;
+
+            case "hypertorus":
+                mMesh = new HypertorusMesh(dimensions, PROJECTION_CONSTANT, VIEW_DIST, Integer.parseInt(parts[2]));
+                break;
+
+            default:
+                throw new IllegalArgumentException("Unknown mesh " + mesh);
+        }
+
+        mMesh.setBufferUpdatePolicy(mWeighted ? BufferUpdatePolicy.UNSORTED : BufferUpdatePolicy.REORDERED_INDICES);
+
+        mRotation = new NDTransform(dimensions);
+        mRotation.rotate(ANGLE, 0, 2);
+        mRotation.rotate(ANGLE, 1, dimensions - 1);
+        mRotation.rotate(ANGLE, 0, dimensions - 1);
+
+        mRasterizer = new SoftwareRasterizer(SIZE, SIZE);
+        mRasterizer.setCamera(30.f, 0.1f, 100.f, VIEW_DIST);
+
+        //Both ways from the same orientation, sorting a copy of the faces for the sorted one
+        mMesh.prepareGeometry();
+        int[] indices = mMesh.getIndices();
+
+        mRasterizer.clear(0.3f, 0.3f, 0.3f, 1.f);
+        mRasterizer.drawLitWeightedBlended(mMesh.getVertices3d(), mMesh.getSecondaryData(), indices, indices.length, WHITE);
+        RgbImage weighted = mRasterizer.toImage();
+
+        int[] sortedIndices = indices.clone();
+        new RadixFaceSorter().sortFaces(mMesh.getVertices3d(), sortedIndices, mMesh.getFaceCount(), VIEW_DIST);
+
+        mRasterizer.clear(0.3f, 0.3f, 0.3f, 1.f);
+        mRasterizer.drawLit(mMesh.getVertices3d(), mMesh.getSecondaryData(), sortedIndices, sortedIndices.length, WHITE);
+        RgbImage sorted = mRasterizer.toImage();
+
+        System.out.printf("%d faces, %.2f%% of pixels differ by more than %d/255, %.2f/255 on average%n",
+                mMesh.getFaceCount(),
+                100.0 * sorted.countDifferences(weighted, TOLERANCE) / (SIZE * SIZE),
+                TOLERANCE,
+                getMeanDifference(sorted, weighted));
+    }
+
+    /**
+     * Turning and preparing the mesh, sorting its faces unless they're weighted
+     */
+    @Benchmark
+    public boolean geometry() {
+        mMesh.transform(mRotation);
+
+        return mMesh.prepareGeometry();
+    }
+
+    /**
+     * Drawing the mesh's current geometry
+     */
+    @Benchmark
+    public SoftwareRasterizer draw() {
+        int[] indices = mMesh.getIndices();
+        mRasterizer.clear(0.3f, 0.3f, 0.3f, 1.f);
+
+        if (mWeighted) {
+            mRasterizer.drawLitWeightedBlended(mMesh.getVertices3d(), mMesh.getSecondaryData(), indices, indices.length, WHITE);
+        } else {
+            mRasterizer.drawLit(mMesh.getVertices3d(), mMesh.getSecondaryData(), indices, indices.length, WHITE);
+        }
+
+        return mRasterizer;
+    }
+}
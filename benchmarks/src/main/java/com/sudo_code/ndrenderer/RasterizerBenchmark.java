@@ -0,0 +1,107 @@
+package com.sudo_code.ndrenderer;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Whole hypertorus frames rendered by the SoftwareRasterizer: the CPU geometry work NDShape does,
+ * then drawing it into one eye's worth of pixels. Comparing draw() against frame() shows how much
+ * of a headless frame is the rasterizer rather than the geometry being measured, and threads
+ * shows how the tiles scale.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Fork(1)
+@Warmup(iterations = 5)
+@Measurement(iterations = 5)
+public class RasterizerBenchmark {
+    private static final float   PROJECTION_CONSTANT = 3.f;
+    private static final float   VIEW_DIST           = 10.f;
+    private static final float   ANGLE               = 0.01f;
+    private static final float[] COLOR               = {1.f, 1.f, 1.f, 0.1f};
+
+    //JMH names the parameters after the fields, e.g. -p threads=4
+    @Param({"3", "4", "5"})
+    public int dimensions;
+
+    @Param({"1", "2", "4"})
+    public int threads;
+
+    @Param({"512"})
+    public int size;
+
+    private NDMesh             mMesh;
+    private NDTransform        mRotation;
+    private SoftwareRasterizer mRasterizer;
+    private FrameWorkerPool    mPool;
+
+    @Setup
+    public void setup() {
+        mMesh = new HypertorusMesh(dimensions, PROJECTION_CONSTANT, VIEW_DIST, 10);
+
+        mRotation = new NDTransform(dimensions);
+        mRotation.rotate(ANGLE, 0, 2);
+
+        if (dimensions > 3) {
+            mRotation.rotate(ANGLE, 2, 3);
+            mRotation.rotate(ANGLE, 3, 1);
+        }
+
+        if (dimensions > 4) {
+            mRotation.rotate(ANGLE, 0, 4);
+            mRotation.rotate(ANGLE, 4, 1);
+        }
+
+        mPool = threads > 1 ? new FrameWorkerPool(threads) : null;
+
+        mRasterizer = new SoftwareRasterizer(size, size);
+        mRasterizer.setWorkerPool(mPool);
+        mRasterizer.setCamera(30.f, 0.1f, 100.f, VIEW_DIST);
+
+        mMesh.prepareGeometry();
+    }
+
+    @TearDown
+    public void tearDown() {
+        if (mPool != null) {
+            mPool.shutdown();
+        }
+    }
+
+    /**
+     * Only rasterizing, the geometry staying the same
+     */
+    @Benchmark
+    public float[] draw() {
+        int[] indices = mMesh.getIndices();
+
+        mRasterizer.clear(0.3f, 0.3f, 0.3f, 1.f);
+        mRasterizer.drawLit(mMesh.getVertices3d(), mMesh.getSecondaryData(), indices, indices.length, COLOR);
+
+        return mRasterizer.getColorBuffer();
+    }
+
+    /**
+     * Turning, preparing and rasterizing a frame
+     */
+    @Benchmark
+    public float[] frame() {
+        mMesh.transform(mRotation);
+        mMesh.prepareGeometry();
+
+        return draw();
+    }
+}
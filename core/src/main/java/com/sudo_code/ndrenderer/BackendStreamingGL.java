@@ -0,0 +1,78 @@
+package com.sudo_code.ndrenderer;
+
+import java.nio.ByteBuffer;
+
+/**
+ * The GLBackend calls behind a StreamingVertexBuffer
+ */
+public class BackendStreamingGL implements StreamingVertexBuffer.GL {
+    private final GLBackend mGL;
+
+    /**
+     * @param gl The GL to make the calls on
+     */
+    public BackendStreamingGL(GLBackend gl) {
+        mGL = gl;
+    }
+
+    @Override
+    public int genBuffer() {
+        int[] buffers = new int[1];
+        mGL.glGenBuffers(1, buffers, 0);
+        return buffers[0];
+    }
+
+    @Override
+    public void allocate(int buffer, int size) {
+        mGL.glBindBuffer(GLBackend.GL_ARRAY_BUFFER, buffer);
+        mGL.glBufferData(GLBackend.GL_ARRAY_BUFFER, size, null, GLBackend.GL_STREAM_DRAW);
+        mGL.glBindBuffer(GLBackend.GL_ARRAY_BUFFER, 0);
+    }
+
+    @Override
+    public ByteBuffer map(int buffer, int offset, int length) {
+        mGL.glBindBuffer(GLBackend.GL_ARRAY_BUFFER, buffer);
+
+        ByteBuffer mapped = mGL.glMapBufferRange(
+                GLBackend.GL_ARRAY_BUFFER,
+                offset,
+                length,
+                GLBackend.GL_MAP_WRITE_BIT |
+                        GLBackend.GL_MAP_INVALIDATE_RANGE_BIT |
+                        GLBackend.GL_MAP_UNSYNCHRONIZED_BIT);
+
+        if (mapped == null) {
+            throw new RuntimeException("glMapBufferRange failed: glError " + mGL.glGetError());
+        }
+
+        return mapped;
+    }
+
+    @Override
+    public void unmap(int buffer) {
+        mGL.glBindBuffer(GLBackend.GL_ARRAY_BUFFER, buffer);
+        mGL.glUnmapBuffer(GLBackend.GL_ARRAY_BUFFER);
+        mGL.glBindBuffer(GLBackend.GL_ARRAY_BUFFER, 0);
+    }
+
+    @Override
+    public long fence() {
+        return mGL.glFenceSync(GLBackend.GL_SYNC_GPU_COMMANDS_COMPLETE, 0);
+    }
+
+    @Override
+    public boolean waitFence(long fence, long timeoutNanos) {
+        int result = mGL.glClientWaitSync(fence, GLBackend.GL_SYNC_FLUSH_COMMANDS_BIT, timeoutNanos);
+
+        if (result == GLBackend.GL_WAIT_FAILED) {
+            throw new RuntimeException("glClientWaitSync failed: glError " + mGL.glGetError());
+        }
+
+        return result != GLBackend.GL_TIMEOUT_EXPIRED;
+    }
+
+    @Override
+    public void deleteFence(long fence) {
+        mGL.glDeleteSync(fence);
+    }
+}
@@ -0,0 +1,53 @@
+package com.sudo_code.ndrenderer;
+
+/**
+ * Decides which of an NDShape's buffers need uploading each frame. The connectivity of a shape
+ * never changes, only the order of its faces, and only if it's drawn with sorted blending.
+ */
+public enum BufferUpdatePolicy {
+    /**
+     * The faces are never sorted (the shape is drawn with a depth test), so the indices and the
+     * secondary data are only uploaded once. Only the projected positions change.
+     */
+    STATIC_INDICES,
+
+    /**
+     * The faces are never sorted, because the shape is drawn with a blend that doesn't depend on
+     * their order (WeightedBlendedOIT), so the indices are only uploaded once. The secondary data
+     * is still regenerated and uploaded every frame, as the lighting changes as the shape turns.
+     */
+    UNSORTED,
+
+    /**
+     * The faces are sorted every frame and the indices are uploaded only when the sort actually
+     * moved some of them
+     */
+    REORDERED_INDICES,
+
+    /**
+     * Everything is uploaded every frame
+     */
+    DYNAMIC;
+
+    /**
+     * @return Whether the faces need sorting back to front
+     */
+    public boolean sortsFaces() {
+        return this == REORDERED_INDICES || this == DYNAMIC;
+    }
+
+    /**
+     * @return Whether the secondary data needs regenerating and uploading every frame
+     */
+    public boolean updatesSecondaryData() {
+        return this != STATIC_INDICES;
+    }
+
+    /**
+     * @param reordered Whether sorting the faces changed their order this frame
+     * @return Whether the indices need uploading
+     */
+    public boolean uploadsIndices(boolean reordered) {
+        return this == DYNAMIC || (this == REORDERED_INDICES && reordered);
+    }
+}
@@ -0,0 +1,124 @@
+package com.sudo_code.ndrenderer;
+
+/**
+ * Orders faces by repairing the previous frame's order with an insertion sort. The indices are
+ * left in last frame's order, so between two frames that only rotated a little the faces are
+ * nearly sorted already and the repair is close to linear. If the faces have moved around too
+ * much (the insertion sort has shifted more than a fixed amount per face) it gives up and does a
+ * full radix sort instead. After giving up it skips the repair for a few frames, doubling that
+ * each time, so that a shape that's always too disordered costs about the same as a radix sort.
+ */
+public class CoherentFaceSorter extends RadixFaceSorter {
+    private static final float DEFAULT_MAX_SHIFTS_PER_FACE = 8.f;
+    private static final int   MIN_MAX_SHIFTS   = 4096;   //Small shapes are dominated by the radix sort's fixed cost
+    private static final int   MAX_BACKOFF      = 64;
+
+    private final float mMaxShiftsPerFace;
+    private int   mPrevFaceCount = -1;
+    private int   mBackoff;        //Frames to skip the repair for after the next fall back
+    private int   mSkipFrames;     //Frames left before trying the repair again
+
+    private long mIncrementalSorts;
+    private long mFullSorts;
+    private long mFallbacks;
+
+    public CoherentFaceSorter() {
+        this(DEFAULT_MAX_SHIFTS_PER_FACE);
+    }
+
+    /**
+     * @param maxShiftsPerFace The average number of places each face is allowed to move before
+     *                         the insertion sort falls back to a full sort
+     */
+    public CoherentFaceSorter(float maxShiftsPerFace) {
+        mMaxShiftsPerFace = maxShiftsPerFace;
+    }
+
+    @Override
+    protected void order(int faceCount) {
+        if (faceCount != mPrevFaceCount) {  //There's no previous order to repair
+            mPrevFaceCount = faceCount;
+            fullSort(faceCount);
+            return;
+        }
+
+        if (mSkipFrames > 0) {
+            mSkipFrames--;
+            fullSort(faceCount);
+            return;
+        }
+
+        long maxShifts = Math.max((long) (mMaxShiftsPerFace * faceCount), MIN_MAX_SHIFTS);
+        long shifts = 0;
+
+        //Face i of the indices is already face i of last frame's order
+        for (int faceI = 0; faceI < faceCount; faceI++) {
+            mOrder[faceI] = faceI;
+        }
+
+        for (int faceI = 1; faceI < faceCount; faceI++) {
+            int face = mOrder[faceI];
+            float dist = mDepthKeys[face];
+            int insertI = faceI - 1;
+
+            while (insertI >= 0 && mDepthKeys[mOrder[insertI]] < dist) {
+                mOrder[insertI + 1] = mOrder[insertI];
+                insertI--;
+            }
+
+            mOrder[insertI + 1] = face;
+            shifts += faceI - 1 - insertI;
+
+            if (shifts > maxShifts) {   //Too disordered, it'll be quicker to start again
+                mFallbacks++;
+                mBackoff    = Math.min(Math.max(mBackoff * 2, 1), MAX_BACKOFF);
+                mSkipFrames = mBackoff;
+                fullSort(faceCount);
+                return;
+            }
+        }
+
+        mBackoff = 0;
+        mIncrementalSorts++;
+    }
+
+    /**
+     * Sorts the faces from scratch with the radix sort
+     */
+    private void fullSort(int faceCount) {
+        super.order(faceCount);
+        mFullSorts++;
+    }
+
+    /**
+     * @return The number of sorts that were done by repairing the previous order
+     */
+    public long getIncrementalSortCount() {
+        return mIncrementalSorts;
+    }
+
+    /**
+     * @return The number of sorts that were done with the radix sort: the first one, every
+     *         fallback and every frame the repair was skipped for after one
+     */
+    public long getFullSortCount() {
+        return mFullSorts;
+    }
+
+    /**
+     * @return The number of times the repair gave up part way through because the faces had
+     *         moved too much, and fell back to the radix sort
+     */
+    public long getFallbackCount() {
+        return mFallbacks;
+    }
+
+    /**
+     * Resets the sort counters
+     */
+    public void resetCounters() {
+        mIncrementalSorts = 0;
+        mFullSorts = 0;
+        mFallbacks = 0;
+    }
+}
@@ -0,0 +1,13 @@
+package com.sudo_code.ndrenderer;
+
+public class ComplexGraph extends NDShape {
+
+    public ComplexGraph(GLBackend gl, int density, float viewSize, float projectionConstant, float viewDist, int posHandle, int colorHandle) {
+        this(gl, density, viewSize, projectionConstant, viewDist, posHandle, colorHandle, null);
+    }
+
+    public ComplexGraph(GLBackend gl, int density, float viewSize, float projectionConstant, float viewDist, int posHandle,
+                        int colorHandle, ShapeMeshCache meshCache) {
+        super(gl, new ComplexGraphMesh(density, viewSize, projectionConstant, viewDist, meshCache), posHandle, colorHandle);
+    }
+}
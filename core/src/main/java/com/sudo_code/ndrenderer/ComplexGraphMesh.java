@@ -1,17 +1,24 @@
 package com.sudo_code.ndrenderer;
 
-public class ComplexGraph extends NDShape {
+public class ComplexGraphMesh extends NDMesh {
 
     private int   mDensity;   //The number of points along each axis
     private float mViewSize;
 
-    public ComplexGraph(int density, float viewSize, float projectionConstant, float viewDist, int posHandle, int colorHandle) {
-        super(4, projectionConstant, viewDist, posHandle, colorHandle);
+    public ComplexGraphMesh(int density, float viewSize, float projectionConstant, float viewDist) {
+        this(density, viewSize, projectionConstant, viewDist, null);
+    }
+
+    public ComplexGraphMesh(int density, float viewSize, float projectionConstant, float viewDist, ShapeMeshCache cache) {
+        super(4, projectionConstant, viewDist);
 
         mDensity = density;
         mViewSize = viewSize;
 
-        init();
+        //It's drawn with a depth test so the faces don't need sorting
+        setBufferUpdatePolicy(BufferUpdatePolicy.STATIC_INDICES);
+
+        init(cache);
     }
 
     /**
@@ -22,6 +29,7 @@ public class ComplexGraph extends NDShape {
         mVertices3d    = new float[mDensity * mDensity * 3];
         mSecondaryData = new float[mDensity * mDensity * 3];
         mIndices       = new int[(mDensity - 1) * (mDensity - 1) * 6];
+        mFaceCount     = (mDensity - 1) * (mDensity - 1);
 
         for (int realIter = 0; realIter < mDensity; realIter++) {
             for (int imagIter = 0; imagIter < mDensity; imagIter++) {
@@ -66,6 +74,11 @@ public class ComplexGraph extends NDShape {
         }
     }
 
+    @Override
+    protected ShapeMeshCache.Key getCacheKey() {
+        return new ShapeMeshCache.Key(ComplexGraphMesh.class, mDimensions, mDensity, mViewSize);
+    }
+
     @Override
     protected void updateSecondaryData() {
 
@@ -0,0 +1,141 @@
+package com.sudo_code.ndrenderer;
+
+/**
+ * Orders the faces of an NDShape back to front so that they blend properly. The depth keys and
+ * the permutation are kept in primitive arrays that are reused between frames, so once they've
+ * grown to fit the shape, sorting doesn't allocate anything.
+ */
+public abstract class FaceSorter {
+    public static final int INDICES_PER_FACE = 6;   //2 triangles per face * 3 points per triangle
+    public static final int FIRST_KEY_INDEX  = 1;   //The face's depth is the midpoint of these two indices
+    public static final int SECOND_KEY_INDEX = 3;
+
+    protected float[] mDepthKeys = new float[0];  //Squared distance from the camera to each face
+    protected int[]   mOrder     = new int[0];    //Face permutation, farthest face first
+    private   int[]   mIndexScratch = new int[0];
+
+    /**
+     * Rearranges indices so that it's in order by the distance of the center of the faces to the
+     * camera, farthest first
+     *
+     * @param vertices3d The projected 3D vertices
+     * @param indices The draw indices, INDICES_PER_FACE per face
+     * @param faceCount The number of faces in indices
+     * @param viewDist The distance from the camera to the center of projection along z
+     * @return Whether the order of the faces changed
+     */
+    public boolean sortFaces(float[] vertices3d, int[] indices, int faceCount, float viewDist) {
+        ensureCapacity(faceCount);
+        computeDepthKeys(vertices3d, indices, faceCount, viewDist);
+        return sortByDepthKeys(indices, faceCount);
+    }
+
+    /**
+     * Gets the array of depth keys for a caller that calculates them itself (with depthKey()) to
+     * fill in before calling sortByDepthKeys()
+     *
+     * @param faceCount The number of faces that are going to be sorted
+     * @return The depth key array, at least faceCount long
+     */
+    public float[] getDepthKeys(int faceCount) {
+        ensureCapacity(faceCount);
+        return mDepthKeys;
+    }
+
+    /**
+     * Rearranges indices by depth keys that have already been written into getDepthKeys()
+     *
+     * @param indices The draw indices, INDICES_PER_FACE per face
+     * @param faceCount The number of faces in indices
+     * @return Whether the order of the faces changed
+     */
+    public boolean sortByDepthKeys(int[] indices, int faceCount) {
+        order(faceCount);
+        return applyOrder(indices, faceCount);
+    }
+
+    /**
+     * Calculates the depth key of a face, the squared distance from the camera to the midpoint
+     * of its two key vertices. It's only ever compared, so there's no point taking the square root.
+     *
+     * @param vertices3d The projected 3D vertices
+     * @param vert1 The index of the first component of the face's FIRST_KEY_INDEX vertex
+     * @param vert2 The index of the first component of the face's SECOND_KEY_INDEX vertex
+     * @param viewDist The distance from the camera to the center of projection along z
+     * @return The depth key
+     */
+    public static float depthKey(float[] vertices3d, int vert1, int vert2, float viewDist) {
+        float x = (vertices3d[vert1 + 0] + vertices3d[vert2 + 0]) / 2.f;
+        float y = (vertices3d[vert1 + 1] + vertices3d[vert2 + 1]) / 2.f;
+        float z = (vertices3d[vert1 + 2] - viewDist + vertices3d[vert2 + 2] - viewDist) / 2.f;
+
+        return x * x + y * y + z * z;
+    }
+
+    /**
+     * Fills mOrder[0, faceCount) with a permutation of the faces such that mDepthKeys is
+     * non-increasing along it
+     *
+     * @param faceCount The number of faces to order
+     */
+    protected abstract void order(int faceCount);
+
+    /**
+     * Grows the reusable arrays if they're too small for faceCount faces
+     */
+    protected void ensureCapacity(int faceCount) {
+        if (mDepthKeys.length < faceCount) {
+            mDepthKeys    = new float[faceCount];
+            mOrder        = new int[faceCount];
+            mIndexScratch = new int[faceCount * INDICES_PER_FACE];
+        }
+    }
+
+    /**
+     * Calculates the depth key of every face
+     */
+    protected void computeDepthKeys(float[] vertices3d, int[] indices, int faceCount, float viewDist) {
+        for (int faceI = 0; faceI < faceCount; faceI++) {
+            mDepthKeys[faceI] = depthKey(
+                    vertices3d,
+                    indices[faceI * INDICES_PER_FACE + FIRST_KEY_INDEX] * 3,
+                    indices[faceI * INDICES_PER_FACE + SECOND_KEY_INDEX] * 3,
+                    viewDist);
+        }
+    }
+
+    /**
+     * Rewrites indices so that face i is the face that was at mOrder[i]
+     *
+     * @return Whether any faces moved
+     */
+    protected boolean applyOrder(int[] indices, int faceCount) {
+        int firstMovedI = 0;
+        while (firstMovedI < faceCount && mOrder[firstMovedI] == firstMovedI) {
+            firstMovedI++;
+        }
+
+        if (firstMovedI == faceCount) {
+            return false;   //Already in order
+        }
+
+        //The faces before firstMovedI stay where they are, so only the rest need copying
+        System.arraycopy(
+                indices,
+                firstMovedI * INDICES_PER_FACE,
+                mIndexScratch,
+                firstMovedI * INDICES_PER_FACE,
+                (faceCount - firstMovedI) * INDICES_PER_FACE);
+
+        for (int faceI = firstMovedI; faceI < faceCount; faceI++) {
+            System.arraycopy(
+                    mIndexScratch,
+                    mOrder[faceI] * INDICES_PER_FACE,
+                    indices,
+                    faceI * INDICES_PER_FACE,
+                    INDICES_PER_FACE);
+        }
+
+        return true;
+    }
+}
@@ -0,0 +1,81 @@
+package com.sudo_code.ndrenderer;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Hands frames from one producer thread to one consumer thread without either ever blocking.
+ * There are three slots: the producer writes the back one, the consumer reads the front one and
+ * the middle one holds the latest finished frame. Publishing swaps the back and middle slots and
+ * acquiring swaps the middle and front slots, each with a single atomic exchange, so the
+ * consumer always gets the newest frame and neither side ever sees a slot the other is using.
+ *
+ * @param <T> The type of the slots
+ */
+public class FrameTripleBuffer<T> {
+    private static final int INDEX_MASK = 3;
+    private static final int FRESH      = 4;    //Set on the middle index when it holds a frame the consumer hasn't had
+
+    private final T             mSlot0;
+    private final T             mSlot1;
+    private final T             mSlot2;
+    private final AtomicInteger mMiddle = new AtomicInteger(1);
+
+    private int     mBack  = 0;     //Only touched by the producer
+    private int     mFront = 2;     //Only touched by the consumer
+    private boolean mHasFront;
+
+    /**
+     * @param back The slot the producer writes first
+     * @param middle The slot the first published frame is swapped with
+     * @param front The slot the consumer starts with
+     */
+    public FrameTripleBuffer(T back, T middle, T front) {
+        mSlot0 = back;
+        mSlot1 = middle;
+        mSlot2 = front;
+    }
+
+    private T getSlot(int index) {
+        switch (index) {
+            case 0:  return mSlot0;
+            case 1:  return mSlot1;
+            default: return mSlot2;
+        }
+    }
+
+    /**
+     * @return The slot for the producer to write the next frame into
+     */
+    public T getBack() {
+        return getSlot(mBack);
+    }
+
+    /**
+     * Makes the frame in the back slot the newest one, and gives the producer a new back slot
+     */
+    public void publish() {
+        mBack = mMiddle.getAndSet(mBack | FRESH) & INDEX_MASK;
+    }
+
+    /**
+     * @return Whether a frame has been published since the consumer last acquired one
+     */
+    public boolean hasFreshFrame() {
+        return (mMiddle.get() & FRESH) != 0;
+    }
+
+    /**
+     * Takes the newest published frame, if there is one newer than the last one taken
+     *
+     * @return The newest frame, the one from the last call if nothing newer has been
+     *         published, or null if nothing has been published yet
+     */
+    public T acquire() {
+        if (hasFreshFrame()) {
+            mFront = mMiddle.getAndSet(mFront) & INDEX_MASK;
+            mHasFront = true;
+        }
+
+        return mHasFront ? getSlot(mFront) : null;
+    }
+}
@@ -0,0 +1,224 @@
+package com.sudo_code.ndrenderer;
+
+/**
+ * A fixed set of worker threads that live as long as the pool, for splitting per frame loops
+ * across cores. The calling thread does the first chunk itself and then waits for the workers at
+ * a barrier, so run() returns once the whole range is done. Idle workers block rather than spin,
+ * so the pool costs nothing between frames.
+ */
+public class FrameWorkerPool {
+
+    /**
+     * A loop body that can be run over separate ranges at the same time
+     */
+    public interface Task {
+        /**
+         * Runs the loop over [start, end)
+         *
+         * @param chunk Which chunk this is, from 0 to the number of chunks - 1, for picking
+         *              per thread scratch space
+         * @param start The first index of the range
+         * @param end One past the last index of the range
+         */
+        void run(int chunk, int start, int end);
+    }
+
+    private final Thread[] mWorkers;
+    private final Object   mLock = new Object();
+
+    //Guarded by mLock
+    private int       mGeneration;  //Incremented every time work is handed out
+    private Task      mTask;
+    private int       mCount;
+    private int       mChunks;
+    private int       mPending;     //Worker chunks that haven't finished yet
+    private Throwable mFailure;     //The first exception thrown by a worker's chunk
+    private boolean   mShutdown;
+
+    /**
+     * Starts the workers
+     *
+     * @param threadCount The total number of threads to run on, including the calling thread
+     */
+    public FrameWorkerPool(int threadCount) {
+        if (threadCount < 1) {
+            throw new IllegalArgumentException("A pool needs at least one thread");
+        }
+
+        mWorkers = new Thread[threadCount - 1];
+
+        for (int workerI = 0; workerI < mWorkers.length; workerI++) {
+            final int chunk = workerI + 1;  //The calling thread takes chunk 0
+
+            mWorkers[workerI] = new Thread(new Runnable() {
+                @Override
+                public void run() {
+                    work(chunk);
+                }
+            }, "FrameWorker-" + chunk);
+
+            mWorkers[workerI].setDaemon(true);
+            mWorkers[workerI].start();
+        }
+    }
+
+    /**
+     * @return The number of threads work is split across, including the calling thread
+     */
+    public int getThreadCount() {
+        return mWorkers.length + 1;
+    }
+
+    /**
+     * Calculates how many chunks a loop should be split into. Every chunk gets at least
+     * minChunkSize items, so that small loops stay on the calling thread where handing them
+     * off would cost more than it saves.
+     *
+     * @param count The number of items in the loop
+     * @param minChunkSize The smallest number of items worth giving a thread
+     * @return The number of chunks, at least 1
+     */
+    public int getChunks(int count, int minChunkSize) {
+        return Math.max(1, Math.min(getThreadCount(), count / minChunkSize));
+    }
+
+    /**
+     * Runs task over [0, count), split into getChunks(count, minChunkSize) contiguous ranges
+     * that run in parallel. Returns once they've all finished.
+     *
+     * @param count The number of items in the loop
+     * @param minChunkSize The smallest number of items worth giving a thread
+     * @param task The loop body
+     */
+    public void run(int count, int minChunkSize, Task task) {
+        int chunks = getChunks(count, minChunkSize);
+
+        if (chunks == 1) {
+            task.run(0, 0, count);
+            return;
+        }
+
+        synchronized (mLock) {
+            if (mShutdown) {
+                throw new IllegalStateException("The pool has been shut down");
+            }
+
+            mTask    = task;
+            mCount   = count;
+            mChunks  = chunks;
+            mPending = chunks - 1;
+            mFailure = null;
+            mGeneration++;
+
+            mLock.notifyAll();
+        }
+
+        Throwable failure = null;
+        try {
+            task.run(0, 0, getChunkStart(1, count, chunks));
+        } catch (RuntimeException | Error e) {
+            failure = e;
+        }
+
+        //The barrier, the range isn't done until every worker's chunk is
+        boolean interrupted = false;
+        synchronized (mLock) {
+            while (mPending > 0) {
+                try {
+                    mLock.wait();
+                } catch (InterruptedException e) {
+                    interrupted = true;
+                }
+            }
+
+            mTask = null;
+
+            if (failure == null) {
+                failure = mFailure;
+            }
+        }
+
+        if (interrupted) {
+            Thread.currentThread().interrupt();
+        }
+
+        if (failure instanceof RuntimeException) {
+            throw (RuntimeException) failure;
+        } else if (failure != null) {
+            throw (Error) failure;
+        }
+    }
+
+    /**
+     * Stops the workers once they've finished what they're doing
+     */
+    public void shutdown() {
+        synchronized (mLock) {
+            mShutdown = true;
+            mLock.notifyAll();
+        }
+    }
+
+    /**
+     * @return The first index of a chunk, spreading the remainder over the first chunks
+     */
+    private static int getChunkStart(int chunk, int count, int chunks) {
+        return (int) ((long) count * chunk / chunks);
+    }
+
+    /**
+     * The loop each worker runs, waiting for a new generation of work and doing its chunk of it
+     *
+     * @param chunk The chunk this worker always takes
+     */
+    private void work(int chunk) {
+        int seenGeneration = 0;
+
+        while (true) {
+            Task task;
+            int count;
+            int chunks;
+
+            synchronized (mLock) {
+                while (mGeneration == seenGeneration && !mShutdown) {
+                    try {
+                        mLock.wait();
+                    } catch (InterruptedException e) {
+                        //Only shutdown() stops a worker
+                    }
+                }
+
+                if (mShutdown) {
+                    return;
+                }
+
+                seenGeneration = mGeneration;
+                task   = mTask;
+                count  = mCount;
+                chunks = mChunks;
+            }
+
+            if (chunk >= chunks) {
+                continue;   //This loop was split into fewer chunks than there are threads
+            }
+
+            Throwable failure = null;
+            try {
+                task.run(chunk, getChunkStart(chunk, count, chunks), getChunkStart(chunk + 1, count, chunks));
+            } catch (RuntimeException | Error e) {
+                failure = e;
+            }
+
+            synchronized (mLock) {
+                if (failure != null && mFailure == null) {
+                    mFailure = failure;
+                }
+
+                mPending--;
+                if (mPending == 0) {
+                    mLock.notifyAll();
+                }
+            }
+        }
+    }
+}
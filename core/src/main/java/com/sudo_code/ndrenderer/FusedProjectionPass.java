@@ -0,0 +1,297 @@
+package com.sudo_code.ndrenderer;
+
+/**
+ * The per frame CPU geometry work of an NDShape done in two tight passes instead of three loose
+ * ones. The model space vertices are kept as a structure of arrays (one array per component), so
+ * rotating and projecting a block of vertices is a handful of simple loops over contiguous floats
+ * that the JIT can unroll and vectorize. The second pass walks the faces once, generating the
+ * flat normals and the depth keys together. The results are identical to projecting vertex by
+ * vertex with NDTransform.apply() and NDProjection.projectVertex().
+ *
+ * Given a FrameWorkerPool, both passes are split across its threads. Faces can share vertices,
+ * so in that case the face normals are generated in parallel but copied into the vertices in
+ * face order afterwards, which keeps the result the same as on one thread.
+ */
+public class FusedProjectionPass {
+    private static final int BLOCK_SIZE = 256;  //Vertices per block, small enough for the block to stay in L1
+
+    //Below these a thread costs more to wake up than it saves
+    private static final int MIN_VERTICES_PER_CHUNK = 4096;
+    private static final int MIN_FACES_PER_CHUNK    = 4096;
+
+    private final int   mDimensions;
+    private final int   mVertexCount;
+    private final float mProjectionConstant;
+    private final float mViewDist;
+
+    private final float[][]   mComponents;  //[component][vertex], the model space vertices
+    private       float[][][] mBlocks;      //[chunk][component][vertex in block], the blocks being projected
+    private       float[][]   mScales;      //[chunk][vertex in block], the perspective divide of each vertex
+
+    private FrameWorkerPool mPool;
+    private float[]         mFaceNormals = new float[0];    //One per face when the faces are split up
+
+    //The arguments of the current pass, for the tasks
+    private float[] mMatrix;
+    private float[] mVertices3d;
+    private int[]   mIndices;
+    private float[] mNormals;
+    private float[] mDepthKeys;
+
+    private final FrameWorkerPool.Task mProjectTask = new FrameWorkerPool.Task() {
+        @Override
+        public void run(int chunk, int start, int end) {
+            projectRange(chunk, start, end);
+        }
+    };
+
+    private final FrameWorkerPool.Task mFaceTask = new FrameWorkerPool.Task() {
+        @Override
+        public void run(int chunk, int start, int end) {
+            processFaceRange(start, end, mFaceNormals, true);
+        }
+    };
+
+    /**
+     * Splits the vertices up into the structure of arrays
+     *
+     * @param vertices The model space vertices, in the form x,y,z,w...x,y etc.
+     * @param dimensions The number of components of each vertex
+     * @param projectionConstant The camera's distance to the hypervolume of projection (MUST BE GREATER THAN 1)
+     * @param viewDist The distance from the camera to the center of projection along z
+     */
+    public FusedProjectionPass(float[] vertices, int dimensions, float projectionConstant, float viewDist) {
+        mDimensions         = dimensions;
+        mVertexCount        = vertices.length / dimensions;
+        mProjectionConstant = projectionConstant;
+        mViewDist           = viewDist;
+
+        mComponents = new float[dimensions][mVertexCount];
+        mBlocks     = new float[1][dimensions][BLOCK_SIZE];
+        mScales     = new float[1][BLOCK_SIZE];
+
+        for (int vertI = 0; vertI < mVertexCount; vertI++) {
+            for (int comp = 0; comp < dimensions; comp++) {
+                mComponents[comp][vertI] = vertices[vertI * dimensions + comp];
+            }
+        }
+    }
+
+    /**
+     * Sets the pool to split the passes across
+     *
+     * @param pool The pool, or null to do everything on the calling thread
+     */
+    public void setWorkerPool(FrameWorkerPool pool) {
+        mPool = pool;
+
+        int threads = pool != null ? pool.getThreadCount() : 1;
+        if (mBlocks.length < threads) {
+            mBlocks = new float[threads][mDimensions][BLOCK_SIZE];
+            mScales = new float[threads][BLOCK_SIZE];
+        }
+    }
+
+    /**
+     * Rotates and projects all the vertices, then generates the normals and depth keys of the
+     * faces and sorts them
+     *
+     * @param orientation The rotation to apply before projecting
+     * @param vertices3d The array to write the projected vertices to, 3 components each
+     * @param indices The draw indices, FaceSorter.INDICES_PER_FACE per face
+     * @param faceCount The number of faces in indices
+     * @param normals The array to write the flat normal of every face into, 3 components per
+     *                vertex, or null to not generate normals
+     * @param sorter The sorter to sort the faces with, or null to leave them in order
+     * @return Whether the order of the faces changed
+     */
+    public boolean run(NDTransform orientation, float[] vertices3d, int[] indices, int faceCount,
+                       float[] normals, FaceSorter sorter) {
+        project(orientation, vertices3d);
+        return processFaces(vertices3d, indices, faceCount, normals, sorter);
+    }
+
+    /**
+     * Rotates and projects all the vertices into vertices3d
+     *
+     * @param orientation The rotation to apply before projecting
+     * @param vertices3d The array to write the projected vertices to, 3 components each
+     */
+    public void project(NDTransform orientation, float[] vertices3d) {
+        mMatrix     = orientation.getMatrix();
+        mVertices3d = vertices3d;
+
+        if (mPool != null) {
+            mPool.run(mVertexCount, MIN_VERTICES_PER_CHUNK, mProjectTask);
+        } else {
+            projectRange(0, 0, mVertexCount);
+        }
+
+        mMatrix     = null;
+        mVertices3d = null;
+    }
+
+    /**
+     * Rotates and projects the vertices in [start, end) into mVertices3d
+     *
+     * @param chunk Which scratch block to use
+     */
+    private void projectRange(int chunk, int start, int end) {
+        float[] matrix = mMatrix;
+        float[] vertices3d = mVertices3d;
+        float[][] block = mBlocks[chunk];
+        float[] scale = mScales[chunk];
+        float projectionScale = Math.abs(mProjectionConstant - 1);
+
+        for (int blockStart = start; blockStart < end; blockStart += BLOCK_SIZE) {
+            int count = Math.min(BLOCK_SIZE, end - blockStart);
+
+            //Rotate, a row of the matrix at a time
+            for (int row = 0; row < mDimensions; row++) {
+                float[] out = block[row];
+                int rowI = row * mDimensions;
+
+                for (int i = 0; i < count; i++) {
+                    out[i] = 0.f;
+                }
+
+                for (int col = 0; col < mDimensions; col++) {
+                    float element = matrix[rowI + col];
+                    float[] in = mComponents[col];
+
+                    for (int i = 0; i < count; i++) {
+                        out[i] += element * in[blockStart + i];
+                    }
+                }
+            }
+
+            //Project, the same cascade as NDProjection.projectVertex()
+            for (int dim = mDimensions - 1; dim > 2; dim--) {
+                float[] from = block[dim];
+
+                for (int i = 0; i < count; i++) {
+                    scale[i] = projectionScale / (mProjectionConstant + from[i]);
+                }
+
+                for (int comp = 0; comp < dim - 1; comp++) {
+                    float[] out = block[comp];
+
+                    for (int i = 0; i < count; i++) {
+                        out[i] *= scale[i];
+                    }
+                }
+            }
+
+            float[] x = block[0];
+            float[] y = block[1];
+            float[] z = block[2];
+
+            for (int i = 0; i < count; i++) {
+                int vert3dI = (blockStart + i) * 3;
+
+                vertices3d[vert3dI + 0] = x[i];
+                vertices3d[vert3dI + 1] = y[i];
+                vertices3d[vert3dI + 2] = z[i];
+            }
+        }
+    }
+
+    /**
+     * Generates the flat normals and depth keys of the faces in one walk over the indices, then
+     * sorts the faces by them
+     *
+     * @param vertices3d The projected vertices
+     * @param indices The draw indices, FaceSorter.INDICES_PER_FACE per face
+     * @param faceCount The number of faces in indices
+     * @param normals The array to write the flat normal of every face into, 3 components per
+     *                vertex, or null to not generate normals
+     * @param sorter The sorter to sort the faces with, or null to leave them in order
+     * @return Whether the order of the faces changed
+     */
+    public boolean processFaces(float[] vertices3d, int[] indices, int faceCount, float[] normals, FaceSorter sorter) {
+        mVertices3d = vertices3d;
+        mIndices    = indices;
+        mNormals    = normals;
+        mDepthKeys  = sorter != null ? sorter.getDepthKeys(faceCount) : null;
+
+        if (mPool != null && mPool.getChunks(faceCount, MIN_FACES_PER_CHUNK) > 1) {
+            if (normals != null && mFaceNormals.length < faceCount * 3) {
+                mFaceNormals = new float[faceCount * 3];
+            }
+
+            mPool.run(faceCount, MIN_FACES_PER_CHUNK, mFaceTask);
+
+            if (normals != null) {
+                scatterFaceNormals(faceCount);
+            }
+        } else {
+            processFaceRange(0, faceCount, normals, false);
+        }
+
+        mVertices3d = null;
+        mIndices    = null;
+        mNormals    = null;
+        mDepthKeys  = null;
+
+        return sorter != null && sorter.sortByDepthKeys(indices, faceCount);
+    }
+
+    /**
+     * Generates the normals and depth keys of the faces in [start, end)
+     *
+     * @param normals Where to write the normals
+     * @param perFace Whether normals holds one normal per face, rather than one per vertex that
+     *                gets copied into every vertex of the face
+     */
+    private void processFaceRange(int start, int end, float[] normals, boolean perFace) {
+        float[] vertices3d = mVertices3d;
+        int[] indices = mIndices;
+        float[] depthKeys = mDepthKeys;
+        boolean generateNormals = mNormals != null;
+
+        for (int faceI = start; faceI < end; faceI++) {
+            int indexFaceStartI = faceI * FaceSorter.INDICES_PER_FACE;
+
+            if (generateNormals) {
+                int normalI = perFace ? faceI * 3 : indices[indexFaceStartI + 0] * 3;
+
+                NDVector.triangleNormal(
+                        vertices3d,
+                        indices[indexFaceStartI + 0] * 3,
+                        indices[indexFaceStartI + 1] * 3,
+                        indices[indexFaceStartI + 2] * 3,
+                        normals,
+                        normalI);
+
+                if (!perFace) {
+                    //Every vertex of the face gets the same normal
+                    for (int i = 1; i < FaceSorter.INDICES_PER_FACE; i++) {
+                        System.arraycopy(normals, normalI, normals, indices[indexFaceStartI + i] * 3, 3);
+                    }
+                }
+            }
+
+            if (depthKeys != null) {
+                depthKeys[faceI] = FaceSorter.depthKey(
+                        vertices3d,
+                        indices[indexFaceStartI + FaceSorter.FIRST_KEY_INDEX] * 3,
+                        indices[indexFaceStartI + FaceSorter.SECOND_KEY_INDEX] * 3,
+                        mViewDist);
+            }
+        }
+    }
+
+    /**
+     * Copies the per face normals into every vertex of their faces, in face order so that a
+     * vertex shared between faces ends up with the same normal as it would on one thread
+     */
+    private void scatterFaceNormals(int faceCount) {
+        for (int faceI = 0; faceI < faceCount; faceI++) {
+            int indexFaceStartI = faceI * FaceSorter.INDICES_PER_FACE;
+
+            for (int i = 0; i < FaceSorter.INDICES_PER_FACE; i++) {
+                System.arraycopy(mFaceNormals, faceI * 3, mNormals, mIndices[indexFaceStartI + i] * 3, 3);
+            }
+        }
+    }
+}
@@ -0,0 +1,227 @@
+package com.sudo_code.ndrenderer;
+
+import java.nio.Buffer;
+import java.nio.ByteBuffer;
+
+/**
+ * The OpenGL ES 3.0 calls the renderer makes, so that everything above them can be driven by
+ * something other than the device's GL. The methods and constants are named and valued the same
+ * as android.opengl.GLES30's, so GLES30Backend just passes them straight through, while
+ * RecordingGLBackend counts them on the JVM.
+ */
+public interface GLBackend {
+    int GL_NO_ERROR = 0;
+
+    //Types and primitives
+    int GL_LINES          = 0x0001;
+    int GL_TRIANGLES      = 0x0004;
+    int GL_BYTE           = 0x1400;
+    int GL_UNSIGNED_SHORT = 0x1403;
+    int GL_UNSIGNED_INT   = 0x1405;
+    int GL_FLOAT          = 0x1406;
+    int GL_HALF_FLOAT     = 0x140B;
+    int GL_RED            = 0x1903;
+    int GL_RGBA           = 0x1908;
+
+    //Buffer targets and usages
+    int GL_ARRAY_BUFFER         = 0x8892;
+    int GL_ELEMENT_ARRAY_BUFFER = 0x8893;
+    int GL_UNIFORM_BUFFER       = 0x8A11;
+    int GL_STREAM_DRAW          = 0x88E0;
+    int GL_STATIC_DRAW          = 0x88E4;
+
+    //Textures and framebuffers
+    int GL_TEXTURE_2D           = 0x0DE1;
+    int GL_TEXTURE0             = 0x84C0;
+    int GL_TEXTURE_MIN_FILTER   = 0x2801;
+    int GL_TEXTURE_MAG_FILTER   = 0x2800;
+    int GL_NEAREST              = 0x2600;
+    int GL_R16F                 = 0x822D;
+    int GL_RGBA16F              = 0x881A;
+    int GL_FRAMEBUFFER          = 0x8D40;
+    int GL_FRAMEBUFFER_BINDING  = 0x8CA6;
+    int GL_FRAMEBUFFER_COMPLETE = 0x8CD5;
+    int GL_COLOR_ATTACHMENT0    = 0x8CE0;
+    int GL_COLOR_ATTACHMENT1    = 0x8CE1;
+    int GL_COLOR                = 0x1800;
+
+    //Mapping
+    int GL_MAP_WRITE_BIT            = 0x0002;
+    int GL_MAP_INVALIDATE_RANGE_BIT = 0x0004;
+    int GL_MAP_UNSYNCHRONIZED_BIT   = 0x0020;
+
+    //Sync objects
+    int GL_SYNC_GPU_COMMANDS_COMPLETE = 0x9117;
+    int GL_SYNC_FLUSH_COMMANDS_BIT    = 0x0001;
+    int GL_ALREADY_SIGNALED           = 0x911A;
+    int GL_TIMEOUT_EXPIRED            = 0x911B;
+    int GL_CONDITION_SATISFIED        = 0x911C;
+    int GL_WAIT_FAILED                = 0x911D;
+
+    //Shaders and programs
+    int GL_FRAGMENT_SHADER = 0x8B30;
+    int GL_VERTEX_SHADER   = 0x8B31;
+    int GL_COMPILE_STATUS  = 0x8B81;
+    int GL_LINK_STATUS     = 0x8B82;
+
+    //Fixed function state
+    int GL_DEPTH_TEST           = 0x0B71;
+    int GL_BLEND                = 0x0BE2;
+    int GL_VIEWPORT             = 0x0BA2;
+    int GL_LEQUAL               = 0x0203;
+    int GL_ZERO                 = 0;
+    int GL_ONE                  = 1;
+    int GL_SRC_ALPHA            = 0x0302;
+    int GL_ONE_MINUS_SRC_ALPHA  = 0x0303;
+    int GL_DEPTH_BUFFER_BIT     = 0x0100;
+    int GL_COLOR_BUFFER_BIT     = 0x4000;
+
+    int glGetError();
+
+    //Buffer objects
+
+    void glGenBuffers(int n, int[] buffers, int offset);
+
+    void glBindBuffer(int target, int buffer);
+
+    void glBindBufferBase(int target, int index, int buffer);
+
+    void glBindBufferRange(int target, int index, int buffer, int offset, int size);
+
+    /**
+     * @param data The initial contents, or null to leave the storage uninitialized
+     */
+    void glBufferData(int target, int size, Buffer data, int usage);
+
+    void glBufferSubData(int target, int offset, int size, Buffer data);
+
+    /**
+     * @return The mapped range, or null if it couldn't be mapped
+     */
+    ByteBuffer glMapBufferRange(int target, int offset, int length, int access);
+
+    boolean glUnmapBuffer(int target);
+
+    //Vertex arrays and drawing
+
+    void glGenVertexArrays(int n, int[] arrays, int offset);
+
+    void glBindVertexArray(int array);
+
+    void glEnableVertexAttribArray(int index);
+
+    void glVertexAttribPointer(int index, int size, int type, boolean normalized, int stride, int offset);
+
+    /**
+     * @param offset The byte offset of the first index in the bound element array buffer
+     */
+    void glDrawElements(int mode, int count, int type, int offset);
+
+    void glDrawArrays(int mode, int first, int count);
+
+    /**
+     * @param offset The byte offset of the first index in the bound element array buffer
+     * @param instanceCount The number of copies to draw, numbered by gl_InstanceID
+     */
+    void glDrawElementsInstanced(int mode, int count, int type, int offset, int instanceCount);
+
+    //Textures and framebuffers
+
+    void glGenTextures(int n, int[] textures, int offset);
+
+    void glActiveTexture(int texture);
+
+    void glBindTexture(int target, int texture);
+
+    /**
+     * @param pixels The initial contents, or null to leave the storage uninitialized
+     */
+    void glTexImage2D(int target, int level, int internalformat, int width, int height, int border,
+                      int format, int type, Buffer pixels);
+
+    void glTexParameteri(int target, int pname, int param);
+
+    void glGenFramebuffers(int n, int[] framebuffers, int offset);
+
+    void glBindFramebuffer(int target, int framebuffer);
+
+    void glFramebufferTexture2D(int target, int attachment, int textarget, int texture, int level);
+
+    int glCheckFramebufferStatus(int target);
+
+    void glDrawBuffers(int n, int[] bufs, int offset);
+
+    void glClearBufferfv(int buffer, int drawbuffer, float[] value, int offset);
+
+    //Sync objects
+
+    long glFenceSync(int condition, int flags);
+
+    int glClientWaitSync(long sync, int flags, long timeout);
+
+    void glDeleteSync(long sync);
+
+    //Shaders and programs
+
+    int glCreateShader(int type);
+
+    void glShaderSource(int shader, String source);
+
+    void glCompileShader(int shader);
+
+    void glGetShaderiv(int shader, int pname, int[] params, int offset);
+
+    String glGetShaderInfoLog(int shader);
+
+    void glDeleteShader(int shader);
+
+    int glCreateProgram();
+
+    void glAttachShader(int program, int shader);
+
+    void glDetachShader(int program, int shader);
+
+    void glLinkProgram(int program);
+
+    void glGetProgramiv(int program, int pname, int[] params, int offset);
+
+    String glGetProgramInfoLog(int program);
+
+    void glDeleteProgram(int program);
+
+    void glUseProgram(int program);
+
+    int glGetUniformBlockIndex(int program, String uniformBlockName);
+
+    void glUniformBlockBinding(int program, int uniformBlockIndex, int uniformBlockBinding);
+
+    int glGetUniformLocation(int program, String name);
+
+    void glUniform1i(int location, int x);
+
+    //Fixed function state and the framebuffer
+
+    void glEnable(int cap);
+
+    void glDisable(int cap);
+
+    void glBlendFunc(int sfactor, int dfactor);
+
+    void glBlendFuncSeparate(int srcRGB, int dstRGB, int srcAlpha, int dstAlpha);
+
+    void glDepthMask(boolean flag);
+
+    void glDepthFunc(int func);
+
+    void glDepthRangef(float zNear, float zFar);
+
+    void glClearColor(float red, float green, float blue, float alpha);
+
+    void glClearDepthf(float depth);
+
+    void glClear(int mask);
+
+    void glViewport(int x, int y, int width, int height);
+
+    void glGetIntegerv(int pname, int[] params, int offset);
+}
@@ -0,0 +1,124 @@
+package com.sudo_code.ndrenderer;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.FloatBuffer;
+import java.nio.IntBuffer;
+import java.nio.ShortBuffer;
+
+/**
+ * One frame of projected geometry, ready to be copied into the GL buffers: the 3D positions
+ * and the secondary data, and the draw indices. The buffers are direct so the GL thread can hand
+ * them straight to the driver.
+ */
+public class GeometryFrame {
+    private static final int BYTES_PER_FLOAT = 4;
+    private static final int BYTES_PER_INT   = 4;
+    private static final int BYTES_PER_SHORT = 2;
+
+    private final ByteBuffer  mVertexData;
+    private final FloatBuffer mVertexFloats;
+    private final ByteBuffer  mIndexData;
+    private final IntBuffer   mIndexInts;     //Null if the indices are shorts
+    private final ShortBuffer mIndexShorts;   //Null if the indices are ints
+    private final int         mIndexType;
+
+    private long mSequence;         //Which frame this is, counting from 1
+    private long mStartNanos;       //When the producer started making it
+    private int  mIndicesVersion;   //Changes every time the faces are reordered
+
+    /**
+     * @param vertexFloats The number of floats of vertex data (positions and secondary data)
+     * @param indexCount The number of draw indices
+     */
+    public GeometryFrame(int vertexFloats, int indexCount) {
+        this(vertexFloats, indexCount, GLBackend.GL_UNSIGNED_INT);
+    }
+
+    /**
+     * @param vertexFloats The number of floats of vertex data if it was all floats (packed
+     *                     vertex data fits in the same space)
+     * @param indexCount The number of draw indices
+     * @param indexType GLBackend.GL_UNSIGNED_SHORT or GLBackend.GL_UNSIGNED_INT
+     */
+    public GeometryFrame(int vertexFloats, int indexCount, int indexType) {
+        boolean shortIndices = indexType == GLBackend.GL_UNSIGNED_SHORT;
+
+        mVertexData = ByteBuffer.allocateDirect(vertexFloats * BYTES_PER_FLOAT).order(ByteOrder.nativeOrder());
+        mIndexData  = ByteBuffer.allocateDirect(indexCount * (shortIndices ? BYTES_PER_SHORT : BYTES_PER_INT))
+                .order(ByteOrder.nativeOrder());
+
+        mVertexFloats = mVertexData.asFloatBuffer();
+        mIndexInts    = shortIndices ? null : mIndexData.asIntBuffer();
+        mIndexShorts  = shortIndices ? mIndexData.asShortBuffer() : null;
+        mIndexType    = indexType;
+
+        mIndicesVersion = -1;   //Never written
+    }
+
+    /**
+     * @return The vertex data as bytes, for uploading
+     */
+    public ByteBuffer getVertexData() {
+        return mVertexData;
+    }
+
+    /**
+     * @return The vertex data as floats, for writing
+     */
+    public FloatBuffer getVertexFloats() {
+        return mVertexFloats;
+    }
+
+    /**
+     * @return The indices as bytes, for uploading
+     */
+    public ByteBuffer getIndexData() {
+        return mIndexData;
+    }
+
+    /**
+     * @return The indices as ints, for writing, or null if they're shorts
+     */
+    public IntBuffer getIndexInts() {
+        return mIndexInts;
+    }
+
+    /**
+     * @return The indices as unsigned shorts, for writing, or null if they're ints
+     */
+    public ShortBuffer getIndexShorts() {
+        return mIndexShorts;
+    }
+
+    /**
+     * @return GLBackend.GL_UNSIGNED_SHORT or GLBackend.GL_UNSIGNED_INT
+     */
+    public int getIndexType() {
+        return mIndexType;
+    }
+
+    public long getSequence() {
+        return mSequence;
+    }
+
+    public void setSequence(long sequence) {
+        mSequence = sequence;
+    }
+
+    public long getStartNanos() {
+        return mStartNanos;
+    }
+
+    public void setStartNanos(long startNanos) {
+        mStartNanos = startNanos;
+    }
+
+    public int getIndicesVersion() {
+        return mIndicesVersion;
+    }
+
+    public void setIndicesVersion(int indicesVersion) {
+        mIndicesVersion = indicesVersion;
+    }
+}
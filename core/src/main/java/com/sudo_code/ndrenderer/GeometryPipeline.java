@@ -0,0 +1,148 @@
+package com.sudo_code.ndrenderer;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Runs the geometry preparation of frame N + 1 on its own thread while the GL thread draws frame
+ * N. Frames are handed over through a FrameTripleBuffer, so the GL thread never waits for the
+ * producer: it just draws the newest frame there is. The producer stays at most one frame ahead
+ * of what the GL thread has taken, parking in between rather than preparing frames that would
+ * never be drawn.
+ */
+public class GeometryPipeline {
+
+    /**
+     * Prepares frames. Only ever called from one thread at a time.
+     */
+    public interface Producer {
+        /**
+         * Fills in the frame's vertex data and indices
+         *
+         * @param frame The frame to write. Its start time has already been set.
+         */
+        void produce(GeometryFrame frame);
+    }
+
+    private final FrameTripleBuffer<GeometryFrame> mFrames;
+    private final Producer   mProducer;
+    private final Thread     mThread;
+    private final AtomicLong mConsumed = new AtomicLong();  //The sequence of the last frame the consumer took
+
+    private volatile boolean   mRunning;
+    private volatile Throwable mFailure;
+
+    private long mProduced; //Only touched by the producer
+
+    /**
+     * @param producer What makes the frames
+     * @param vertexFloats The number of floats of vertex data in each frame
+     * @param indexCount The number of draw indices in each frame
+     */
+    public GeometryPipeline(Producer producer, int vertexFloats, int indexCount) {
+        this(producer, vertexFloats, indexCount, GLBackend.GL_UNSIGNED_INT);
+    }
+
+    /**
+     * @param producer What makes the frames
+     * @param vertexFloats The number of floats of vertex data in each frame if it was all floats
+     * @param indexCount The number of draw indices in each frame
+     * @param indexType The type of the indices, GLBackend.GL_UNSIGNED_SHORT or GLBackend.GL_UNSIGNED_INT
+     */
+    public GeometryPipeline(Producer producer, int vertexFloats, int indexCount, int indexType) {
+        mProducer = producer;
+        mFrames = new FrameTripleBuffer<>(
+                new GeometryFrame(vertexFloats, indexCount, indexType),
+                new GeometryFrame(vertexFloats, indexCount, indexType),
+                new GeometryFrame(vertexFloats, indexCount, indexType));
+
+        mThread = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                produceFrames();
+            }
+        }, "GeometryProducer");
+
+        mThread.setDaemon(true);
+    }
+
+    /**
+     * Makes the first frame on the calling thread, so there's always one to draw, then starts
+     * the producer thread
+     */
+    public void start() {
+        produceFrame();
+
+        mRunning = true;
+        mThread.start();
+    }
+
+    /**
+     * Stops the producer thread and waits for it to finish the frame it's on
+     */
+    public void stop() {
+        mRunning = false;
+        LockSupport.unpark(mThread);
+
+        boolean interrupted = false;
+        while (mThread.isAlive()) {
+            try {
+                mThread.join();
+            } catch (InterruptedException e) {
+                interrupted = true;
+            }
+        }
+
+        if (interrupted) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Takes the newest frame for drawing, and lets the producer start on the next one
+     *
+     * @return The newest frame. It's the same as last time if the producer hasn't finished a
+     *         new one yet, which the sequence number shows.
+     */
+    public GeometryFrame acquire() {
+        if (mFailure != null) {
+            throw new IllegalStateException("The geometry producer failed", mFailure);
+        }
+
+        GeometryFrame frame = mFrames.acquire();
+
+        if (frame.getSequence() > mConsumed.get()) {
+            mConsumed.set(frame.getSequence());
+            LockSupport.unpark(mThread);
+        }
+
+        return frame;
+    }
+
+    private void produceFrame() {
+        GeometryFrame frame = mFrames.getBack();
+
+        frame.setStartNanos(System.nanoTime());
+        mProducer.produce(frame);
+        frame.setSequence(++mProduced);
+
+        mFrames.publish();
+    }
+
+    private void produceFrames() {
+        try {
+            while (mRunning) {
+                //Only get one frame ahead of the consumer
+                while (mRunning && mProduced > mConsumed.get()) {
+                    LockSupport.park(this);
+                }
+
+                if (mRunning) {
+                    produceFrame();
+                }
+            }
+        } catch (RuntimeException | Error e) {
+            mFailure = e;
+        }
+    }
+}
@@ -0,0 +1,34 @@
+package com.sudo_code.ndrenderer;
+
+public class Hypercube extends NDShape {
+
+    /**
+     * Initializes the hypercube
+     *
+     * @param gl The GL to draw with
+     * @param dimensions The number of dimensions the hypercube should have
+     * @param projectionConstant The camera's distance to the hypervolume of projection (MUST BE GREATER THAN 1)
+     * @param viewDist The distance from the 2D camera to the center of projection
+     * @param vertexHandle The attribute index of the vertex position
+     * @param normalHandle The attribute index of the vertex normal
+     */
+    public Hypercube(GLBackend gl, int dimensions, float projectionConstant, float viewDist, int vertexHandle, int normalHandle) {
+        this(gl, dimensions, projectionConstant, viewDist, vertexHandle, normalHandle, null);
+    }
+
+    /**
+     * Initializes the hypercube, taking its mesh from a cache if it's there
+     *
+     * @param gl The GL to draw with
+     * @param dimensions The number of dimensions the hypercube should have
+     * @param projectionConstant The camera's distance to the hypervolume of projection (MUST BE GREATER THAN 1)
+     * @param viewDist The distance from the 2D camera to the center of projection
+     * @param vertexHandle The attribute index of the vertex position
+     * @param normalHandle The attribute index of the vertex normal
+     * @param meshCache The cache to look the mesh up in and add it to, or null to always generate it
+     */
+    public Hypercube(GLBackend gl, int dimensions, float projectionConstant, float viewDist, int vertexHandle,
+                     int normalHandle, ShapeMeshCache meshCache) {
+        super(gl, new HypercubeMesh(dimensions, projectionConstant, viewDist, meshCache), vertexHandle, normalHandle);
+    }
+}
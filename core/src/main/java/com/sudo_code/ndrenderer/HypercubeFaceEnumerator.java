@@ -0,0 +1,204 @@
+package com.sudo_code.ndrenderer;
+
+import org.apache.commons.math3.util.CombinatoricsUtils;
+
+/**
+ * Walks the square faces of a D dimensional hypercube a chunk at a time, so that a mesh can be
+ * filled in from a fixed size buffer rather than from every face's vertices at once.
+ *
+ * Every face lies on two of the axes (the unlocked ones) and is at -1 or 1 on each of the other
+ * D - 2 (the locked ones), which makes C(D, 2) * 2^(D - 2) faces. They're walked one combination
+ * of locked axes at a time, and within one through every combination of values of the locked
+ * axes, counting in binary. Each face is written as its 4 corners, going round it: (-1, -1),
+ * (-1, 1), (1, 1) then (1, -1) on its two unlocked axes. Corner c is the one with a component of
+ * 1 on axis a if bit a of c is set, otherwise -1.
+ */
+public class HypercubeFaceEnumerator {
+    public static final int CORNERS_PER_FACE = 4;
+
+    private final int mDimensions;
+    private final int mFaceCount;
+
+    private final int[]   mLockedAxes;       //The index of each axis that is currently locked
+    private final float[] mLockedAxesValues; //The value of each axis that is currently locked
+    private final int[]   mUnlockedAxes = new int[2];
+
+    private int     mLockedCorner;  //The corner bits of the locked axes' values
+    private int     mFacesDone;
+    private boolean mFinished;
+
+    /**
+     * @param dimensions The number of dimensions of the hypercube (at least 2)
+     */
+    public HypercubeFaceEnumerator(int dimensions) {
+        mDimensions = dimensions;
+        mFaceCount  = getFaceCount(dimensions);
+
+        mLockedAxes       = new int[dimensions - 2];
+        mLockedAxesValues = new float[dimensions - 2];
+
+        reset();
+    }
+
+    /**
+     * @param dimensions The number of dimensions of the hypercube
+     * @return The number of square faces it has
+     */
+    public static int getFaceCount(int dimensions) {
+        return (int) (CombinatoricsUtils.binomialCoefficient(dimensions, 2) * Utils.powI(2, dimensions - 2));
+    }
+
+    /**
+     * Goes back to the first face
+     */
+    public void reset() {
+        for (int i = 0; i < mLockedAxes.length; i++) {
+            mLockedAxes[i] = i;
+            mLockedAxesValues[i] = -1.f;
+        }
+
+        mFacesDone = 0;
+        mFinished  = false;
+
+        lockedAxesChanged();
+    }
+
+    public int getFaceCount() {
+        return mFaceCount;
+    }
+
+    /**
+     * @return The number of faces written so far
+     */
+    public int getFacesDone() {
+        return mFacesDone;
+    }
+
+    public boolean hasNext() {
+        return !mFinished;
+    }
+
+    /**
+     * Writes the corners of the next faces, CORNERS_PER_FACE per face
+     *
+     * @param corners The array to write to, from the start
+     * @param maxFaces The most faces to write (corners must have room for them)
+     * @return The number of faces written, 0 once they've all been
+     */
+    public int next(int[] corners, int maxFaces) {
+        int faces = 0;
+
+        while (faces < maxFaces && !mFinished) {
+            int first  = 1 << mUnlockedAxes[0];
+            int second = 1 << mUnlockedAxes[1];
+            int cornerI = faces * CORNERS_PER_FACE;
+
+            corners[cornerI + 0] = mLockedCorner;
+            corners[cornerI + 1] = mLockedCorner | second;
+            corners[cornerI + 2] = mLockedCorner | first | second;
+            corners[cornerI + 3] = mLockedCorner | first;
+
+            faces++;
+
+            if (nextLockedAxesValues(mLockedAxesValues)) {
+                lockedValuesChanged();
+            } else if (nextLockedAxes(mLockedAxes)) {
+                for (int i = 0; i < mLockedAxesValues.length; i++) {
+                    mLockedAxesValues[i] = -1.f;
+                }
+
+                lockedAxesChanged();
+            } else {
+                mFinished = true;
+            }
+        }
+
+        mFacesDone += faces;
+        return faces;
+    }
+
+    private void lockedAxesChanged() {
+        getUnlockedAxes(mLockedAxes, mUnlockedAxes);
+        lockedValuesChanged();
+    }
+
+    private void lockedValuesChanged() {
+        mLockedCorner = 0;
+
+        for (int i = 0; i < mLockedAxes.length; i++) {
+            if (mLockedAxesValues[i] == 1.f) {
+                mLockedCorner |= 1 << mLockedAxes[i];
+            }
+        }
+    }
+
+    /**
+     * Iterates currentLockedAxes to the next combination of locked axes.
+     * The locked axes are the axes that will remain fixed in drawing a square
+     *
+     * @param currentLockedAxes An array with the index of each axis that is currently locked
+     * @return Whether or not there is a next combination
+     */
+    private static boolean nextLockedAxes(int[] currentLockedAxes) {
+        for (int i = currentLockedAxes.length - 1; i >= 0; i--) {
+            if (currentLockedAxes[i] < i + 2) {
+                currentLockedAxes[i]++;
+
+                for (int resetI = i + 1; resetI < currentLockedAxes.length; resetI++) {
+                    currentLockedAxes[resetI] = currentLockedAxes[i] + resetI - i;
+                }
+
+                return true;
+            }
+        }
+
+        return false;   //We're at the last one
+    }
+
+    /**
+     * Iterates to the next combination of values of 1.f and -1.f in binary counting
+     *
+     * @param currentLockedAxesValues An array with the values of each axis that is currently locked
+     * @return Whether or not there is a next combination
+     */
+    private static boolean nextLockedAxesValues(float[] currentLockedAxesValues) {
+        for (int i = 0; i < currentLockedAxesValues.length; i++) {
+            if (currentLockedAxesValues[i] == -1.f) {
+                currentLockedAxesValues[i] = 1.f;
+
+                for (int wipeI = i - 1; wipeI >= 0; wipeI--) {
+                    currentLockedAxesValues[wipeI] = -1.f;
+                }
+
+                return true;
+            }
+        }
+
+        return false;   //We're at the last one
+    }
+
+    /**
+     * Works out the unlocked axes (the ones the square will lie on) from the locked axes
+     *
+     * @param currentLockedAxes An array with the index of each axis that is currently locked
+     * @param unlockedAxes The array to write the two unlocked axes to, in order
+     */
+    private static void getUnlockedAxes(int[] currentLockedAxes, int[] unlockedAxes) {
+        int unlockedAxesIndex = 0;
+
+        for (int checkLocked = 0; checkLocked < currentLockedAxes.length + 2; checkLocked++) {
+            boolean found = false;
+
+            for (int i = 0; i < currentLockedAxes.length; i++) {
+                if (currentLockedAxes[i] == checkLocked) {
+                    found = true;
+                }
+            }
+
+            if (!found) {
+                unlockedAxes[unlockedAxesIndex] = checkLocked;
+                unlockedAxesIndex++;
+            }
+        }
+    }
+}
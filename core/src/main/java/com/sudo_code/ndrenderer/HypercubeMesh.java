@@ -0,0 +1,174 @@
+package com.sudo_code.ndrenderer;
+
+public class HypercubeMesh extends NDMesh {
+
+    /**
+     * The most dimensions a hypercube can have. It's the most whose faces' vertices (46080 at
+     * 10D) can still be drawn with 16 bit indices. The whole per frame CPU geometry work
+     * (HypercubeTopologyBenchmark's frame on a desktop JVM) comes to:
+     *
+     *  D   faces   frame
+     *  3       6     5us
+     *  4      24     5us
+     *  5      80    10us
+     *  6     240    26us
+     *  7     672    63us
+     *  8    1792   184us
+     *  9    4608   512us
+     * 10   11520   834us
+     *
+     * A phone takes several times as long, and it has to fit in what's left of a 16.7ms frame
+     * once both eyes have been drawn, so 9D and 10D are really only smooth with the geometry on
+     * a background thread or projected on the GPU.
+     */
+    public static final int MAX_DIMENSIONS = 10;
+
+    private static final int FACE_CHUNK = 256;    //Faces generated at a time
+
+    /**
+     * Initializes the hypercube
+     *
+     * Every square face has 4 vertices of its own so that it can have its own flat normal, which
+     * makes C(D, 2) * 2^(D - 2) * 4 vertices where there are only 2^D corners. Only the corners
+     * are kept in model space, rotated and projected, and each face's vertices are gathered from
+     * them afterwards.
+     *
+     * @param dimensions The number of dimensions the hypercube should have (3 to MAX_DIMENSIONS)
+     * @param projectionConstant The camera's distance to the hypervolume of projection (MUST BE GREATER THAN 1)
+     * @param viewDist The distance from the 2D camera to the center of projection
+     */
+    public HypercubeMesh(int dimensions, float projectionConstant, float viewDist) {
+        this(dimensions, projectionConstant, viewDist, null);
+    }
+
+    /**
+     * Initializes the hypercube, taking it from a cache if it's there
+     *
+     * @param dimensions The number of dimensions the hypercube should have (3 to MAX_DIMENSIONS)
+     * @param projectionConstant The camera's distance to the hypervolume of projection (MUST BE GREATER THAN 1)
+     * @param viewDist The distance from the 2D camera to the center of projection
+     * @param cache The cache to look the mesh up in and add it to, or null to always generate it
+     */
+    public HypercubeMesh(int dimensions, float projectionConstant, float viewDist, ShapeMeshCache cache) {
+        super(dimensions, projectionConstant, viewDist);
+
+        if (dimensions < 3 || dimensions > MAX_DIMENSIONS) {
+            throw new IllegalArgumentException("A hypercube can have 3 to " + MAX_DIMENSIONS + " dimensions, not " + dimensions);
+        }
+
+        init(cache);
+    }
+
+    /**
+     * Generates the vertex data for the hypercube (arrays of vertices, indices and normals). The
+     * faces come from a HypercubeFaceEnumerator, FACE_CHUNK at a time.
+     */
+    @Override
+    protected void genVertexData() {
+        HypercubeFaceEnumerator faces = new HypercubeFaceEnumerator(mDimensions);
+        mFaceCount = faces.getFaceCount();
+
+        int faceVertexCount = mFaceCount * HypercubeFaceEnumerator.CORNERS_PER_FACE;
+
+        //4 * number of faces * 3 components
+        mVertices3d = new float[faceVertexCount * 3];
+
+        //4 * number of faces vertices, each with 3 components
+        mSecondaryData    = new float[faceVertexCount * 3];
+
+        //6 * number of faces vertices (2 triangles per face * 3 points per triangle)
+        mIndices    = new int[mFaceCount * 6];
+
+        //The 2^D corners, and which one each face's vertices are at
+        mVertices      = genCorners(Utils.powI(2, mDimensions));
+        mVertexSources = new int[faceVertexCount];
+
+        int[] corners = new int[FACE_CHUNK * HypercubeFaceEnumerator.CORNERS_PER_FACE];
+        int faceStartI = 0;
+        int chunkFaces;
+
+        while ((chunkFaces = faces.next(corners, FACE_CHUNK)) > 0) {
+            for (int faceI = 0; faceI < chunkFaces; faceI++) {
+                int vertFaceStartI = (faceStartI + faceI) * HypercubeFaceEnumerator.CORNERS_PER_FACE;
+                int indexFaceStartI = (faceStartI + faceI) * 6;
+
+                System.arraycopy(corners, faceI * HypercubeFaceEnumerator.CORNERS_PER_FACE,
+                        mVertexSources, vertFaceStartI, HypercubeFaceEnumerator.CORNERS_PER_FACE);
+
+                mIndices[indexFaceStartI + 0] = vertFaceStartI + 0;
+                mIndices[indexFaceStartI + 1] = vertFaceStartI + 1;
+                mIndices[indexFaceStartI + 2] = vertFaceStartI + 3;
+
+                mIndices[indexFaceStartI + 3] = vertFaceStartI + 1;
+                mIndices[indexFaceStartI + 4] = vertFaceStartI + 2;
+                mIndices[indexFaceStartI + 5] = vertFaceStartI + 3;
+            }
+
+            faceStartI += chunkFaces;
+        }
+    }
+
+    /**
+     * @param cornerCount The number of corners, 2^mDimensions
+     * @return Every corner of the hypercube, in the order of their numbers
+     */
+    private float[] genCorners(int cornerCount) {
+        float[] corners = new float[cornerCount * mDimensions];
+
+        for (int corner = 0; corner < cornerCount; corner++) {
+            setCorner(corner, corners, corner * mDimensions);
+        }
+
+        return corners;
+    }
+
+    /**
+     * Writes a corner of the hypercube: 1 on the axes whose bits are set in its number, -1 on the rest
+     *
+     * @param corner The number of the corner
+     * @param dst The array to write it to
+     * @param dstOff Where in dst to write it
+     */
+    private void setCorner(int corner, float[] dst, int dstOff) {
+        for (int axis = 0; axis < mDimensions; axis++) {
+            dst[dstOff + axis] = (corner >> axis & 1) != 0 ? 1.f : -1.f;
+        }
+    }
+
+    @Override
+    protected boolean hasFaceNormals() {
+        return true;
+    }
+
+    @Override
+    protected ShapeMeshCache.Key getCacheKey() {
+        return new ShapeMeshCache.Key(HypercubeMesh.class, mDimensions, 0, 0.f);
+    }
+
+    /**
+     * Updates the mSecondaryData array based on mVertices3d (note that inwards and outwards are
+     * meaningless concepts when with a projection)
+     */
+    @Override
+    protected void updateSecondaryData() {
+        for (int indexFaceStartI = 0; indexFaceStartI < mIndices.length; indexFaceStartI += 6) {   //index triangle start index
+            int normalI = mIndices[indexFaceStartI + 0] * 3;
+
+            NDVector.triangleNormal(
+                    mVertices3d,
+                    mIndices[indexFaceStartI + 0] * 3,
+                    mIndices[indexFaceStartI + 1] * 3,
+                    mIndices[indexFaceStartI + 2] * 3,
+                    mSecondaryData,
+                    normalI);
+
+            //Every vertex of the face gets the same normal
+            System.arraycopy(mSecondaryData, normalI, mSecondaryData, mIndices[indexFaceStartI + 1] * 3, 3);
+            System.arraycopy(mSecondaryData, normalI, mSecondaryData, mIndices[indexFaceStartI + 2] * 3, 3);
+
+            System.arraycopy(mSecondaryData, normalI, mSecondaryData, mIndices[indexFaceStartI + 3] * 3, 3);
+            System.arraycopy(mSecondaryData, normalI, mSecondaryData, mIndices[indexFaceStartI + 4] * 3, 3);
+            System.arraycopy(mSecondaryData, normalI, mSecondaryData, mIndices[indexFaceStartI + 5] * 3, 3);
+        }
+    }
+}
\ No newline at end of file
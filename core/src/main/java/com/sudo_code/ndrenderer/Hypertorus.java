@@ -0,0 +1,56 @@
+package com.sudo_code.ndrenderer;
+
+public class Hypertorus extends NDShape {
+
+    /**
+     * Initializes the hypertorus
+     *
+     * @param gl The GL to draw with
+     * @param dimensions The number of dimensions the hypertorus should have
+     * @param projectionConstant The camera's distance to the hypervolume of projection (MUST BE GREATER THAN 1)
+     * @param viewDist The distance from the 2D camera to the center of projection
+     * @param vertexHandle The attribute index of the vertex position
+     * @param normalHandle The attribute index of the vertex normal
+     * @param smoothness The number of vertices on the circles the hypertorus is based off
+     */
+    public Hypertorus(GLBackend gl, int dimensions, float projectionConstant, float viewDist, int vertexHandle, int normalHandle, int smoothness) {
+        this(gl, dimensions, projectionConstant, viewDist, vertexHandle, normalHandle, smoothness, null);
+    }
+
+    /**
+     * Initializes the hypertorus, taking its mesh from a cache if it's there
+     *
+     * @param gl The GL to draw with
+     * @param dimensions The number of dimensions the hypertorus should have
+     * @param projectionConstant The camera's distance to the hypervolume of projection (MUST BE GREATER THAN 1)
+     * @param viewDist The distance from the 2D camera to the center of projection
+     * @param vertexHandle The attribute index of the vertex position
+     * @param normalHandle The attribute index of the vertex normal
+     * @param smoothness The number of vertices on the circles the hypertorus is based off
+     * @param meshCache The cache to look the mesh up in and add it to, or null to always generate it
+     */
+    public Hypertorus(GLBackend gl, int dimensions, float projectionConstant, float viewDist, int vertexHandle, int normalHandle,
+                      int smoothness, ShapeMeshCache meshCache) {
+        this(gl, dimensions, projectionConstant, viewDist, vertexHandle, normalHandle, smoothness, meshCache, null);
+    }
+
+    /**
+     * Initializes the hypertorus, taking its mesh from a cache if it's there and otherwise
+     * generating its faces across a pool
+     *
+     * @param gl The GL to draw with
+     * @param dimensions The number of dimensions the hypertorus should have
+     * @param projectionConstant The camera's distance to the hypervolume of projection (MUST BE GREATER THAN 1)
+     * @param viewDist The distance from the 2D camera to the center of projection
+     * @param vertexHandle The attribute index of the vertex position
+     * @param normalHandle The attribute index of the vertex normal
+     * @param smoothness The number of vertices on the circles the hypertorus is based off
+     * @param meshCache The cache to look the mesh up in and add it to, or null to always generate it
+     * @param pool The pool to generate the faces on, or null to generate them on the calling thread
+     */
+    public Hypertorus(GLBackend gl, int dimensions, float projectionConstant, float viewDist, int vertexHandle, int normalHandle,
+                      int smoothness, ShapeMeshCache meshCache, FrameWorkerPool pool) {
+        super(gl, new HypertorusMesh(dimensions, projectionConstant, viewDist, smoothness, meshCache, pool),
+                vertexHandle, normalHandle);
+    }
+}
@@ -0,0 +1,313 @@
+package com.sudo_code.ndrenderer;
+
+public class HypertorusMesh extends NDMesh {
+    private static final int MIN_FACES_PER_CHUNK = 1 << 15;    //Below twice this the faces are generated on one thread
+
+    private int mSmoothness;    //The number of vertices on the circles the hypertorus is based off
+    private FrameWorkerPool mGenerationPool;    //The pool to split generating the faces across, or null
+
+    /**
+     * Initializes the hypertorus
+     *
+     * @param dimensions The number of dimensions the hypertorus should have
+     * @param projectionConstant The camera's distance to the hypervolume of projection (MUST BE GREATER THAN 1)
+     * @param viewDist The distance from the 2D camera to the center of projection
+     * @param smoothness The number of vertices on the circles the hypertorus is based off
+     */
+    public HypertorusMesh(int dimensions, float projectionConstant, float viewDist, int smoothness) {
+        this(dimensions, projectionConstant, viewDist, smoothness, null);
+    }
+
+    /**
+     * Initializes the hypertorus, taking it from a cache if it's there
+     *
+     * @param dimensions The number of dimensions the hypertorus should have
+     * @param projectionConstant The camera's distance to the hypervolume of projection (MUST BE GREATER THAN 1)
+     * @param viewDist The distance from the 2D camera to the center of projection
+     * @param smoothness The number of vertices on the circles the hypertorus is based off
+     * @param cache The cache to look the mesh up in and add it to, or null to always generate it
+     */
+    public HypertorusMesh(int dimensions, float projectionConstant, float viewDist, int smoothness, ShapeMeshCache cache) {
+        this(dimensions, projectionConstant, viewDist, smoothness, cache, null);
+    }
+
+    /**
+     * Initializes the hypertorus, taking it from a cache if it's there and otherwise splitting
+     * the generation of its faces across a pool
+     *
+     * @param dimensions The number of dimensions the hypertorus should have
+     * @param projectionConstant The camera's distance to the hypervolume of projection (MUST BE GREATER THAN 1)
+     * @param viewDist The distance from the 2D camera to the center of projection
+     * @param smoothness The number of vertices on the circles the hypertorus is based off
+     * @param cache The cache to look the mesh up in and add it to, or null to always generate it
+     * @param pool The pool to generate the faces on, or null to generate them on the calling thread
+     */
+    public HypertorusMesh(int dimensions, float projectionConstant, float viewDist, int smoothness, ShapeMeshCache cache,
+                          FrameWorkerPool pool) {
+        super(dimensions, projectionConstant, viewDist);
+
+        mSmoothness     = smoothness;
+        mGenerationPool = pool;
+
+        init(cache);
+
+        mGenerationPool = null; //Only needed while generating, the caller owns it
+    }
+
+    /**
+     * Generates all of the vertex positions of a hypertorus straight into an array.
+     *
+     * A vertex is a point on the unit circle in the XY plane, plus an offset for every dimension
+     * after Y. The offset for dimension d is a circle in the plane of the previous offset and
+     * axis d, halved in size for every dimension: the previous offset times the cosine of angle
+     * d - 1 plus axis d times its sine (both over 2^(d - 1)). The angles are the digits of the
+     * vertex's index in base smoothness, the first circle's the most significant, so walking
+     * the indices in order only changes the last few circles' offsets from one vertex to the next.
+     * The offsets and partial sums of every circle are kept, and only the circles whose angle
+     * changed are redone. The arithmetic is done in the same order as the recursive matrix
+     * version this replaced, so the vertices come out the same to the bit.
+     *
+     * @param dimensions The number of dimensions of the hypertorus
+     * @param smoothness The number of vertices on each circle
+     * @param vertices The array to write to, smoothness^(dimensions - 1) * dimensions long
+     */
+    static void genTorusVertices(int dimensions, int smoothness, float[] vertices) {
+        int circles = dimensions - 1;   //The number of angles making up each vertex
+
+        //Every circle uses the same angles, just scaled
+        float[] cos = new float[smoothness];
+        float[] sin = new float[smoothness];
+
+        for (int i = 0; i < smoothness; i++) {
+            cos[i] = (float) Math.cos(i * 2.f * Math.PI / smoothness);
+            sin[i] = (float) Math.sin(i * 2.f * Math.PI / smoothness);
+        }
+
+        float[] offsets = new float[circles * dimensions];  //The offset added by each circle
+        float[] sums    = new float[circles * dimensions];  //The position after adding each circle
+        int[]   angles  = new int[circles];                 //The digits of the current vertex's index
+
+        int vertexCount = vertices.length / dimensions;
+        int changed     = 0;    //The first circle whose angle changed since the last vertex
+
+        for (int vertI = 0; vertI < vertexCount; vertI++) {
+            for (int circle = changed; circle < circles; circle++) {
+                int offI = circle * dimensions;
+                int angle = angles[circle];
+
+                if (circle == 0) {
+                    offsets[0] = sums[0] = cos[angle];
+                    offsets[1] = sums[1] = sin[angle];
+                    continue;
+                }
+
+                float scale = 1.f / (1 << circle);
+                float c = cos[angle] * scale;
+                float s = sin[angle] * scale;
+
+                //The previous offset only has components up to circle, and this one adds circle + 1
+                for (int comp = 0; comp <= circle; comp++) {
+                    offsets[offI + comp] = offsets[offI - dimensions + comp] * c;
+                }
+
+                offsets[offI + circle + 1] = s;
+
+                for (int comp = 0; comp <= circle + 1; comp++) {
+                    sums[offI + comp] = sums[offI - dimensions + comp] + offsets[offI + comp];
+                }
+            }
+
+            System.arraycopy(sums, (circles - 1) * dimensions, vertices, vertI * dimensions, dimensions);
+
+            //Count up in base smoothness
+            changed = circles - 1;
+            while (++angles[changed] == smoothness && changed > 0) {
+                angles[changed] = 0;
+                changed--;
+            }
+        }
+    }
+
+    /**
+     * Generates the vertex data for the hypertorus (arrays of vertices, indices and normals)
+     */
+    @Override
+    protected void genVertexData() {
+        mFaceCount = Utils.powI(mSmoothness, mDimensions - 1) * (mDimensions - 2);
+
+        //Number of vertices * mDimensions components
+        mVertices   = new float[Utils.powI(mSmoothness, mDimensions - 1) * mDimensions];
+
+        //Number of vertices * 3 components
+        mVertices3d = new float[Utils.powI(mSmoothness, mDimensions - 1) * 3];
+
+        //Number of vertices * 3 components
+        mSecondaryData    = new float[Utils.powI(mSmoothness, mDimensions - 1) * 3];
+
+        //6 * number of faces vertices (2 triangles per face * 3 points per triangle)
+        mIndices    = new int[mFaceCount * 6];
+
+        genTorusVertices(mDimensions, mSmoothness, mVertices);
+        genTorusIndices(mDimensions, mSmoothness, mIndices, mGenerationPool);
+    }
+
+    /**
+     * Generates the faces of a hypertorus, 2 triangles each, to go with genTorusVertices's
+     * vertices.
+     *
+     * Every vertex starts a face per dimension from the third on. The face for dimension dim
+     * joins the vertex to its neighbours along the last two circles added before dim, which are
+     * smoothness^(dim - 3) and smoothness^(dim - 2) vertices on. Those circles wrap around
+     * within blocks of smoothness^(dim - 1) vertices. The faces are laid out dimension by
+     * dimension, and within one the vertex's offset into its block goes up by 1 per face, so
+     * the neighbours are found by adding the strides and subtracting the block size if they go
+     * past the end, rather than dividing.
+     *
+     * @param dimensions The number of dimensions of the hypertorus
+     * @param smoothness The number of vertices on each circle
+     * @param indices The array to write to, smoothness^(dimensions - 1) * (dimensions - 2) * 6 long
+     */
+    static void genTorusIndices(int dimensions, int smoothness, int[] indices) {
+        genTorusIndices(dimensions, smoothness, indices, null);
+    }
+
+    /**
+     * Generates the faces of a hypertorus like genTorusIndices(int, int, int[]), splitting them
+     * into contiguous ranges across a pool once there are enough of them to be worth it
+     *
+     * @param dimensions The number of dimensions of the hypertorus
+     * @param smoothness The number of vertices on each circle
+     * @param indices The array to write to, smoothness^(dimensions - 1) * (dimensions - 2) * 6 long
+     * @param pool The pool to split the faces across, or null to generate them on the calling thread
+     */
+    static void genTorusIndices(int dimensions, int smoothness, int[] indices, FrameWorkerPool pool) {
+        genTorusIndices(dimensions, smoothness, indices, pool, MIN_FACES_PER_CHUNK);
+    }
+
+    /**
+     * Generates the faces of a hypertorus, splitting them across a pool in ranges of at least
+     * minChunkSize faces
+     *
+     * A range can start part way through a dimension or a block, so each one works out where
+     * it starts with a division and then walks on like the serial loop.
+     *
+     * @param dimensions The number of dimensions of the hypertorus
+     * @param smoothness The number of vertices on each circle
+     * @param indices The array to write to, smoothness^(dimensions - 1) * (dimensions - 2) * 6 long
+     * @param pool The pool to split the faces across, or null to generate them on the calling thread
+     * @param minChunkSize The smallest number of faces worth giving a thread
+     */
+    static void genTorusIndices(int dimensions, int smoothness, final int[] indices, FrameWorkerPool pool,
+                                int minChunkSize) {
+        final int vertexCount = Utils.powI(smoothness, dimensions - 1);
+        final int[] strides = new int[dimensions];  //smoothness to the power of the index
+
+        strides[0] = 1;
+        for (int i = 1; i < dimensions; i++) {
+            strides[i] = strides[i - 1] * smoothness;
+        }
+
+        int faceCount = vertexCount * (dimensions - 2);
+
+        FrameWorkerPool.Task task = new FrameWorkerPool.Task() {
+            @Override
+            public void run(int chunk, int start, int end) {
+                int faceI = start;
+
+                while (faceI < end) {
+                    int dim    = 3 + faceI / vertexCount;
+                    int dimEnd = Math.min(end, (dim - 2) * vertexCount);
+
+                    int nearStep  = strides[dim - 3];
+                    int farStep   = strides[dim - 2];
+                    int blockSize = strides[dim - 1];
+
+                    //Where the range starts within this dimension's faces
+                    int i          = faceI - (dim - 3) * vertexCount;
+                    int blockStart = i / blockSize * blockSize;
+                    int offset     = i - blockStart;
+
+                    for (; faceI < dimEnd; faceI++) {
+                        int near = offset + nearStep;
+                        if (near >= blockSize) {
+                            near -= blockSize;
+                        }
+
+                        int far = offset + farStep;
+                        if (far >= blockSize) {
+                            far -= blockSize;
+                        }
+
+                        int both = far + nearStep;
+                        if (both >= blockSize) {
+                            both -= blockSize;
+                        }
+
+                        int indexI = faceI * 6;
+
+                        //First triangle
+                        indices[indexI + 0] = blockStart + offset;
+                        indices[indexI + 1] = blockStart + near;
+                        indices[indexI + 2] = blockStart + far;
+
+                        //Second triangle
+                        indices[indexI + 3] = blockStart + near;
+                        indices[indexI + 4] = blockStart + both;
+                        indices[indexI + 5] = blockStart + far;
+
+                        offset++;
+                        if (offset == blockSize) {
+                            offset = 0;
+                            blockStart += blockSize;
+                        }
+                    }
+                }
+            }
+        };
+
+        if (pool != null) {
+            pool.run(faceCount, minChunkSize, task);
+        }
+
+        else {
+            task.run(0, 0, faceCount);
+        }
+    }
+
+    @Override
+    protected boolean hasFaceNormals() {
+        return true;
+    }
+
+    @Override
+    protected ShapeMeshCache.Key getCacheKey() {
+        return new ShapeMeshCache.Key(HypertorusMesh.class, mDimensions, mSmoothness, 0.f);
+    }
+
+    /**
+     * Updates the mSecondaryData array based on mVertices3d (note that inwards and outwards are
+     * meaningless concepts when with a projection)
+     */
+    @Override
+    protected void updateSecondaryData() {
+        for (int indexFaceStartI = 0; indexFaceStartI < mIndices.length; indexFaceStartI += 6) {   //index triangle start index
+            int normalI = mIndices[indexFaceStartI + 0] * 3;
+
+            NDVector.triangleNormal(
+                    mVertices3d,
+                    mIndices[indexFaceStartI + 0] * 3,
+                    mIndices[indexFaceStartI + 1] * 3,
+                    mIndices[indexFaceStartI + 2] * 3,
+                    mSecondaryData,
+                    normalI);
+
+            //Every vertex of the face gets the same normal
+            System.arraycopy(mSecondaryData, normalI, mSecondaryData, mIndices[indexFaceStartI + 1] * 3, 3);
+            System.arraycopy(mSecondaryData, normalI, mSecondaryData, mIndices[indexFaceStartI + 2] * 3, 3);
+
+            System.arraycopy(mSecondaryData, normalI, mSecondaryData, mIndices[indexFaceStartI + 3] * 3, 3);
+            System.arraycopy(mSecondaryData, normalI, mSecondaryData, mIndices[indexFaceStartI + 4] * 3, 3);
+            System.arraycopy(mSecondaryData, normalI, mSecondaryData, mIndices[indexFaceStartI + 5] * 3, 3);
+        }
+    }
+}
\ No newline at end of file
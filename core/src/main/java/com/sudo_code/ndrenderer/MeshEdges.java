@@ -0,0 +1,187 @@
+package com.sudo_code.ndrenderer;
+
+import java.util.Arrays;
+import java.util.Comparator;
+
+/**
+ * The unique edges of an NDMesh's faces, for drawing it as a wireframe with GL_LINES. Each face
+ * is two triangles, and its edges are the sides of them that aren't shared with the other one
+ * (the diagonal between them isn't drawn). Faces often have vertices of their own at the same
+ * position as their neighbours' (so that each can have its own flat normal), so vertices are
+ * welded together by their model space position first, and each edge is only kept once however
+ * many faces it borders. The vertices the edges join are kept in a compact array of their own,
+ * so projecting them each frame costs as many vertices as the wireframe actually has.
+ */
+public class MeshEdges {
+    public static final int INDICES_PER_EDGE = 2;
+
+    //The 6 sides of a face's two triangles, as pairs of offsets into its indices
+    private static final int[] TRIANGLE_SIDES = {0, 1, 1, 2, 2, 0, 3, 4, 4, 5, 5, 3};
+
+    private final float[] mVertices;    //The model space vertices the edges join, in the form x,y,z,w...x,y etc.
+    private final int[]   mIndices;     //INDICES_PER_EDGE per edge, into mVertices
+
+    private MeshEdges(float[] vertices, int[] indices) {
+        mVertices = vertices;
+        mIndices  = indices;
+    }
+
+    /**
+     * Finds the unique edges of a mesh's faces
+     *
+     * @param vertices The model space vertex of every drawn vertex (NDMesh.getDrawnVertices())
+     * @param dimensions The number of components of each vertex
+     * @param indices The draw indices, FaceSorter.INDICES_PER_FACE per face
+     * @param faceCount The number of faces in indices
+     * @return The edges
+     */
+    public static MeshEdges fromFaces(float[] vertices, int dimensions, int[] indices, int faceCount) {
+        int[] welded = weld(vertices, dimensions);
+        long[] edges = new long[faceCount * 4];
+        int edgeCount = 0;
+
+        for (int faceI = 0; faceI < faceCount; faceI++) {
+            int indexFaceStartI = faceI * FaceSorter.INDICES_PER_FACE;
+
+            for (int side = 0; side < TRIANGLE_SIDES.length; side += 2) {
+                long edge = getEdge(welded, indices, indexFaceStartI, side);
+
+                if (edge < 0) {
+                    continue;   //Both ends welded into one
+                }
+
+                boolean shared = false;
+
+                for (int otherSide = 0; otherSide < TRIANGLE_SIDES.length; otherSide += 2) {
+                    if (otherSide != side && getEdge(welded, indices, indexFaceStartI, otherSide) == edge) {
+                        shared = true;
+                    }
+                }
+
+                if (!shared) {
+                    if (edgeCount == edges.length) {
+                        edges = Arrays.copyOf(edges, edges.length * 2);
+                    }
+
+                    edges[edgeCount++] = edge;
+                }
+            }
+        }
+
+        //Sorting puts each edge next to its copies from the other faces it borders
+        Arrays.sort(edges, 0, edgeCount);
+
+        int[] newIndex = new int[vertices.length / dimensions];    //1 more than the vertex's index in the edges' vertices, 0 if not used
+        int[] edgeIndices = new int[edgeCount * INDICES_PER_EDGE];
+        int uniqueEdges = 0;
+        int usedVertices = 0;
+
+        for (int edgeI = 0; edgeI < edgeCount; edgeI++) {
+            if (edgeI > 0 && edges[edgeI] == edges[edgeI - 1]) {
+                continue;
+            }
+
+            int[] ends = {(int) (edges[edgeI] >>> 32), (int) edges[edgeI]};
+
+            for (int end = 0; end < ends.length; end++) {
+                if (newIndex[ends[end]] == 0) {
+                    newIndex[ends[end]] = ++usedVertices;
+                }
+
+                edgeIndices[uniqueEdges * INDICES_PER_EDGE + end] = newIndex[ends[end]] - 1;
+            }
+
+            uniqueEdges++;
+        }
+
+        float[] edgeVertices = new float[usedVertices * dimensions];
+
+        for (int vertI = 0; vertI < newIndex.length; vertI++) {
+            if (newIndex[vertI] != 0) {
+                System.arraycopy(vertices, vertI * dimensions, edgeVertices, (newIndex[vertI] - 1) * dimensions, dimensions);
+            }
+        }
+
+        return new MeshEdges(edgeVertices, Arrays.copyOf(edgeIndices, uniqueEdges * INDICES_PER_EDGE));
+    }
+
+    /**
+     * @return The side of a face's triangles as its two welded vertices, the lower one in the
+     *         high 32 bits, or -1 if they're the same vertex
+     */
+    private static long getEdge(int[] welded, int[] indices, int indexFaceStartI, int side) {
+        int a = welded[indices[indexFaceStartI + TRIANGLE_SIDES[side + 0]]];
+        int b = welded[indices[indexFaceStartI + TRIANGLE_SIDES[side + 1]]];
+
+        if (a == b) {
+            return -1;
+        }
+
+        return ((long) Math.min(a, b) << 32) | Math.max(a, b);
+    }
+
+    /**
+     * Finds the vertices at the same position as each other
+     *
+     * @return The index of the first vertex at the same position as each vertex
+     */
+    private static int[] weld(final float[] vertices, final int dimensions) {
+        int vertexCount = vertices.length / dimensions;
+        Integer[] order = new Integer[vertexCount];
+
+        for (int vertI = 0; vertI < vertexCount; vertI++) {
+            order[vertI] = vertI;
+        }
+
+        //Equal positions end up next to each other, lowest index first (the sort is stable)
+        Arrays.sort(order, new Comparator<Integer>() {
+            @Override
+            public int compare(Integer a, Integer b) {
+                return comparePositions(vertices, dimensions, a, b);
+            }
+        });
+
+        int[] welded = new int[vertexCount];
+        int first = 0;
+
+        for (int orderI = 0; orderI < vertexCount; orderI++) {
+            if (orderI == 0 || comparePositions(vertices, dimensions, order[orderI - 1], order[orderI]) != 0) {
+                first = order[orderI];
+            }
+
+            welded[order[orderI]] = first;
+        }
+
+        return welded;
+    }
+
+    private static int comparePositions(float[] vertices, int dimensions, int a, int b) {
+        for (int comp = 0; comp < dimensions; comp++) {
+            int compared = Float.compare(vertices[a * dimensions + comp], vertices[b * dimensions + comp]);
+
+            if (compared != 0) {
+                return compared;
+            }
+        }
+
+        return 0;
+    }
+
+    /**
+     * @return The model space vertices the edges join (not a copy)
+     */
+    public float[] getVertices() {
+        return mVertices;
+    }
+
+    /**
+     * @return The line indices, INDICES_PER_EDGE per edge, into getVertices() (not a copy)
+     */
+    public int[] getIndices() {
+        return mIndices;
+    }
+
+    public int getEdgeCount() {
+        return mIndices.length / INDICES_PER_EDGE;
+    }
+}
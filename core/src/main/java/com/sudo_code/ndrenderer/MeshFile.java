@@ -0,0 +1,423 @@
+package com.sudo_code.ndrenderer;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.Buffer;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.FloatBuffer;
+import java.nio.IntBuffer;
+import java.nio.ShortBuffer;
+import java.nio.channels.FileChannel;
+import java.util.zip.CRC32;
+
+/**
+ * A generated mesh saved in a compact binary file, memory mapped to load it back.
+ *
+ * The file is little endian: a header of HEADER_INTS ints (MAGIC, VERSION, the dimensions,
+ * vertex count, index count, index type, face count, secondary float count and vertex source
+ * count), the vertices, the secondary data, the vertex sources as ints, the indices (as
+ * unsigned shorts if every drawn vertex fits in one, otherwise ints) padded to a multiple of 4
+ * bytes, then a CRC32 of everything before it. Bump VERSION
+ * whenever the layout or the way any shape is generated changes, so old files are regenerated
+ * rather than loaded.
+ *
+ * The views over a mapped file are direct buffers, so NDShape uploads its static buffers
+ * straight from them (where the native byte order is BYTE_ORDER) rather than from copies.
+ */
+public class MeshFile {
+    public static final int MAGIC   = 0x534D444E;   //"NDMS"
+    public static final int VERSION = 2;
+
+    public static final ByteOrder BYTE_ORDER = ByteOrder.LITTLE_ENDIAN;
+
+    private static final int HEADER_INTS     = 9;
+    private static final int HEADER_BYTES    = HEADER_INTS * 4;
+    private static final int CHECKSUM_BYTES  = 4;
+    private static final int MAX_SHORT_INDEX = 0xFFFF;
+    private static final int CHUNK_BYTES     = 64 * 1024;   //Bytes checksummed at a time
+
+    private final int mDimensions;
+    private final int mFaceCount;
+    private final int mIndexType;   //GLBackend.GL_UNSIGNED_SHORT or GL_UNSIGNED_INT
+
+    private final FloatBuffer mVertexData;      //The vertices followed by the secondary data
+    private final FloatBuffer mVertices;
+    private final FloatBuffer mSecondaryData;
+    private final IntBuffer   mVertexSources;   //Empty if the mesh doesn't have any
+    private final Buffer      mIndices;         //A ShortBuffer or an IntBuffer, going by mIndexType
+
+    private MeshFile(int dimensions, int faceCount, int indexType, FloatBuffer vertexData, FloatBuffer vertices,
+                     FloatBuffer secondaryData, IntBuffer vertexSources, Buffer indices) {
+        mDimensions    = dimensions;
+        mFaceCount     = faceCount;
+        mIndexType     = indexType;
+        mVertexData    = vertexData;
+        mVertices      = vertices;
+        mSecondaryData = secondaryData;
+        mVertexSources = vertexSources;
+        mIndices       = indices;
+    }
+
+    /**
+     * Writes a mesh to a file, replacing it if it's there. The arrays are streamed through a
+     * CHUNK_BYTES buffer rather than copied, and checksummed as they go. It's written to a
+     * temporary file next to it first and renamed over it, so a file that exists is always
+     * complete.
+     *
+     * @param file The file to write
+     * @param dimensions The number of dimensions of the vertices
+     * @param data The mesh's arrays
+     */
+    public static void write(File file, int dimensions, ShapeMeshCache.MeshData data) throws IOException {
+        float[] vertices      = data.getVertices();
+        int[]   indices       = data.getIndices();
+        float[] secondaryData = data.getSecondaryData();
+        int[]   vertexSources = data.getVertexSources() != null ? data.getVertexSources() : new int[0];
+
+        int vertexCount = vertices.length / dimensions;
+        int drawnVertexCount = data.getVertexSources() != null ? vertexSources.length : vertexCount;
+        boolean shortIndices = drawnVertexCount <= MAX_SHORT_INDEX + 1;
+
+        File temp = File.createTempFile(file.getName(), ".tmp", file.getParentFile());
+        RandomAccessFile out = null;
+
+        try {
+            out = new RandomAccessFile(temp, "rw");
+            ChunkWriter writer = new ChunkWriter(out.getChannel());
+
+            writer.putInt(MAGIC);
+            writer.putInt(VERSION);
+            writer.putInt(dimensions);
+            writer.putInt(vertexCount);
+            writer.putInt(indices.length);
+            writer.putInt(shortIndices ? GLBackend.GL_UNSIGNED_SHORT : GLBackend.GL_UNSIGNED_INT);
+            writer.putInt(data.getFaceCount());
+            writer.putInt(secondaryData.length);
+            writer.putInt(vertexSources.length);
+
+            writer.put(vertices);
+            writer.put(secondaryData);
+            writer.put(vertexSources);
+
+            if (shortIndices) {
+                writer.putShorts(indices);
+
+                if (indices.length % 2 != 0) {
+                    writer.putShorts(new int[1]);   //Padding to a multiple of 4 bytes
+                }
+            } else {
+                writer.put(indices);
+            }
+
+            writer.finish();
+            out.close();
+        } catch (IOException e) {
+            if (out != null) {
+                try {
+                    out.close();
+                } catch (IOException closeException) {
+                    //The write's already failed
+                }
+            }
+
+            temp.delete();
+            throw e;
+        }
+
+        if (!temp.renameTo(file)) {
+            temp.delete();
+            throw new IOException("Couldn't rename " + temp + " to " + file);
+        }
+    }
+
+    /**
+     * Writes little endian values to a file through a CHUNK_BYTES buffer, keeping the CRC32 of
+     * everything written
+     */
+    private static final class ChunkWriter {
+        private final FileChannel mChannel;
+        private final ByteBuffer  mChunk = ByteBuffer.allocate(CHUNK_BYTES).order(BYTE_ORDER);
+        private final CRC32       mCrc   = new CRC32();
+
+        ChunkWriter(FileChannel channel) {
+            mChannel = channel;
+        }
+
+        void putInt(int value) throws IOException {
+            if (mChunk.remaining() < 4) {
+                flush();
+            }
+
+            mChunk.putInt(value);
+        }
+
+        void put(float[] src) throws IOException {
+            for (int done = 0; done < src.length; ) {
+                if (mChunk.remaining() < 4) {
+                    flush();
+                }
+
+                int count = Math.min(src.length - done, mChunk.remaining() / 4);
+                mChunk.asFloatBuffer().put(src, done, count);
+                mChunk.position(mChunk.position() + count * 4);
+                done += count;
+            }
+        }
+
+        void put(int[] src) throws IOException {
+            for (int done = 0; done < src.length; ) {
+                if (mChunk.remaining() < 4) {
+                    flush();
+                }
+
+                int count = Math.min(src.length - done, mChunk.remaining() / 4);
+                mChunk.asIntBuffer().put(src, done, count);
+                mChunk.position(mChunk.position() + count * 4);
+                done += count;
+            }
+        }
+
+        /**
+         * Puts each of the ints as an unsigned short
+         */
+        void putShorts(int[] src) throws IOException {
+            for (int done = 0; done < src.length; ) {
+                if (mChunk.remaining() < 2) {
+                    flush();
+                }
+
+                int end = done + Math.min(src.length - done, mChunk.remaining() / 2);
+
+                for (; done < end; done++) {
+                    mChunk.putShort((short) src[done]);
+                }
+            }
+        }
+
+        /**
+         * Writes out what's left, then the checksum of everything before it
+         */
+        void finish() throws IOException {
+            flush();
+
+            mChunk.putInt((int) mCrc.getValue());
+            mChunk.flip();
+            write();
+        }
+
+        private void flush() throws IOException {
+            mCrc.update(mChunk.array(), 0, mChunk.position());
+            mChunk.flip();
+            write();
+        }
+
+        private void write() throws IOException {
+            while (mChunk.hasRemaining()) {
+                mChannel.write(mChunk);
+            }
+
+            mChunk.clear();
+        }
+    }
+
+    /**
+     * Maps a mesh file, checking it's whole and the current version
+     *
+     * @param file The file to map
+     * @return The mapped mesh
+     * @throws IOException If it can't be read, or it's corrupt, truncated or an old version
+     */
+    public static MeshFile map(File file) throws IOException {
+        ByteBuffer buffer;
+        RandomAccessFile in = new RandomAccessFile(file, "r");
+
+        try {
+            FileChannel channel = in.getChannel();
+
+            if (channel.size() < HEADER_BYTES + CHECKSUM_BYTES || channel.size() > Integer.MAX_VALUE) {
+                throw new IOException(file + " is " + channel.size() + " bytes, which can't be a mesh");
+            }
+
+            //The mapping stays valid after the channel's closed
+            buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        } finally {
+            in.close();
+        }
+
+        buffer.order(BYTE_ORDER);
+
+        if (buffer.getInt(0) != MAGIC) {
+            throw new IOException(file + " isn't a mesh file");
+        }
+
+        if (buffer.getInt(4) != VERSION) {
+            throw new IOException(file + " is version " + buffer.getInt(4) + ", not " + VERSION);
+        }
+
+        int dimensions      = buffer.getInt(8);
+        int vertexCount     = buffer.getInt(12);
+        int indexCount      = buffer.getInt(16);
+        int indexType       = buffer.getInt(20);
+        int faceCount       = buffer.getInt(24);
+        int secondaryFloats = buffer.getInt(28);
+        int sourceCount     = buffer.getInt(32);
+
+        boolean shortIndices = indexType == GLBackend.GL_UNSIGNED_SHORT;
+
+        if (dimensions < 1 || vertexCount < 0 || indexCount < 0 || faceCount < 0 || secondaryFloats < 0 ||
+                sourceCount < 0 || (!shortIndices && indexType != GLBackend.GL_UNSIGNED_INT)) {
+            throw new IOException(file + " has a corrupt header");
+        }
+
+        long vertexBytes    = 4L * vertexCount * dimensions;
+        long secondaryBytes = 4L * secondaryFloats;
+        long sourceBytes    = 4L * sourceCount;
+        long indexBytes     = ((long) indexCount * (shortIndices ? 2 : 4) + 3) & ~3L;
+        long checksumOffset = HEADER_BYTES + vertexBytes + secondaryBytes + sourceBytes + indexBytes;
+
+        if (checksumOffset + CHECKSUM_BYTES != buffer.capacity()) {
+            throw new IOException(file + " is " + buffer.capacity() + " bytes, but its header says " +
+                    (checksumOffset + CHECKSUM_BYTES));
+        }
+
+        if (checksum(buffer, (int) checksumOffset) != buffer.getInt((int) checksumOffset)) {
+            throw new IOException(file + " is corrupt");
+        }
+
+        buffer.position(HEADER_BYTES);
+        FloatBuffer vertexData = buffer.slice().order(BYTE_ORDER).asFloatBuffer();
+        vertexData.limit((int) ((vertexBytes + secondaryBytes) / 4));
+
+        FloatBuffer vertices = slice(buffer, vertexBytes).asFloatBuffer();
+        FloatBuffer secondaryData = slice(buffer, secondaryBytes).asFloatBuffer();
+        IntBuffer vertexSources = slice(buffer, sourceBytes).asIntBuffer();
+        ByteBuffer indexData = slice(buffer, (long) indexCount * (shortIndices ? 2 : 4));
+        Buffer indices = shortIndices ? indexData.asShortBuffer() : indexData.asIntBuffer();
+
+        return new MeshFile(dimensions, faceCount, indexType, vertexData.slice(), vertices, secondaryData, vertexSources, indices);
+    }
+
+    /**
+     * @return The next length bytes of buffer as a little endian buffer of their own, moving past them
+     */
+    private static ByteBuffer slice(ByteBuffer buffer, long length) {
+        ByteBuffer slice = buffer.slice();
+        slice.limit((int) length);
+        buffer.position(buffer.position() + (int) ((length + 3) & ~3L));
+        return slice.order(BYTE_ORDER);
+    }
+
+    /**
+     * @return The CRC32 of the first length bytes of buffer
+     */
+    private static int checksum(ByteBuffer buffer, int length) {
+        CRC32 crc = new CRC32();
+        byte[] chunk = new byte[Math.min(CHUNK_BYTES, length)];
+        ByteBuffer data = buffer.duplicate();
+        data.position(0);
+
+        for (int done = 0; done < length; done += chunk.length) {
+            int size = Math.min(chunk.length, length - done);
+            data.get(chunk, 0, size);
+            crc.update(chunk, 0, size);
+        }
+
+        return (int) crc.getValue();
+    }
+
+    public int getDimensions() {
+        return mDimensions;
+    }
+
+    public int getFaceCount() {
+        return mFaceCount;
+    }
+
+    public int getVertexCount() {
+        return mVertices.capacity() / mDimensions;
+    }
+
+    /**
+     * @return GLBackend.GL_UNSIGNED_SHORT or GLBackend.GL_UNSIGNED_INT, the type of getIndices()
+     */
+    public int getIndexType() {
+        return mIndexType;
+    }
+
+    /**
+     * @return The vertices followed by the secondary data, a view of the mapped file laid out the
+     *         way NDShape's GPU projection path keeps them in its static vertex buffer
+     */
+    public FloatBuffer getVertexData() {
+        return mVertexData.duplicate();
+    }
+
+    /**
+     * @return The vertices, a view of the mapped file
+     */
+    public FloatBuffer getVertices() {
+        return mVertices.duplicate();
+    }
+
+    /**
+     * @return The secondary data, a view of the mapped file
+     */
+    public FloatBuffer getSecondaryData() {
+        return mSecondaryData.duplicate();
+    }
+
+    /**
+     * @return The vertex each drawn vertex is a copy of, a view of the mapped file, empty if the
+     *         drawn vertices are the vertices themselves
+     */
+    public IntBuffer getVertexSources() {
+        return mVertexSources.duplicate();
+    }
+
+    /**
+     * @return The indices, in the order they were generated, a view of the mapped file: a
+     *         ShortBuffer or an IntBuffer going by getIndexType()
+     */
+    public Buffer getIndices() {
+        return mIndexType == GLBackend.GL_UNSIGNED_SHORT ?
+                ((ShortBuffer) mIndices).duplicate() : ((IntBuffer) mIndices).duplicate();
+    }
+
+    /**
+     * Copies the mesh out of the file into arrays, each with a single bulk get, for an NDMesh to
+     * project and sort on the CPU. The arrays keep the file, so NDShape can still upload its
+     * static buffers from the mapped views.
+     */
+    public ShapeMeshCache.MeshData toMeshData() {
+        float[] vertices = new float[mVertices.capacity()];
+        getVertices().get(vertices);
+
+        float[] secondaryData = new float[mSecondaryData.capacity()];
+        getSecondaryData().get(secondaryData);
+
+        int[] vertexSources = null;
+
+        if (mVertexSources.capacity() > 0) {
+            vertexSources = new int[mVertexSources.capacity()];
+            getVertexSources().get(vertexSources);
+        }
+
+        int[] indices;
+
+        if (mIndexType == GLBackend.GL_UNSIGNED_SHORT) {
+            ShortBuffer shorts = (ShortBuffer) mIndices;
+            indices = new int[shorts.capacity()];
+
+            for (int i = 0; i < indices.length; i++) {
+                indices[i] = shorts.get(i) & 0xFFFF;
+            }
+        } else {
+            indices = new int[mIndices.capacity()];
+            ((IntBuffer) getIndices()).get(indices);
+        }
+
+        return new ShapeMeshCache.MeshData(vertices, vertexSources, indices, secondaryData, mFaceCount, this);
+    }
+}
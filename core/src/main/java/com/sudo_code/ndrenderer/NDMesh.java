@@ -0,0 +1,438 @@
+package com.sudo_code.ndrenderer;
+
+/**
+ * The GL-free half of an NDShape: the D dimensional mesh, its orientation and the per frame CPU
+ * work that turns them into 3D vertices, secondary data and back to front indices. NDShape
+ * uploads and draws what an NDMesh prepares, so on its own this is everything the frame costs
+ * before the GL calls, which is what the benchmarks measure.
+ */
+public abstract class NDMesh {
+    private static final int TRANSFORMS_PER_ORTHONORMALIZE = 60;
+
+    protected float[] mVertices;  //In the form x,y,z,w...x,y etc. (model space, never modified after genVertexData)
+    protected int[]   mIndices;   //These are obviously the same in 3D
+
+    //If not null, the vertices that are drawn are copies of the ones in mVertices, so that faces
+    //sharing a corner can each give it their own flat normal: this is the index in mVertices of
+    //the vertex each one is a copy of. Only mVertices are projected, and then gathered.
+    protected int[] mVertexSources;
+
+    private MeshFile mMeshFile;   //The mapped file the arrays were copied from, or null if they were generated
+
+    protected float[] mVertices3d;    //All this is in 3D, one per drawn vertex
+    protected float[] mSecondaryData;
+
+    protected int   mDimensions;
+    protected float mProjectionConstant;
+    private   float mViewDist;
+
+    protected int mFaceCount;
+
+    private FaceSorter         mFaceSorter   = new RadixFaceSorter();
+    private BufferUpdatePolicy mUpdatePolicy = BufferUpdatePolicy.REORDERED_INDICES;
+
+    private NDTransform mRotation;    //Reused by rotate()
+    private NDTransform mOrientation; //Applied to mVertices during projection
+    private int         mTransformsSinceOrthonormalize;
+    private float[]     mVertex;      //The vertex being projected
+
+    private FusedProjectionPass mFusedPass;   //The per frame CPU projection, normals and depth keys
+    private float[]             mSharedVertices3d;  //mVertices projected, when they're gathered through mVertexSources
+
+    private FrameWorkerPool     mWorkerPool;
+    private MeshEdges           mEdges;             //Only found once something asks for them
+    private FusedProjectionPass mEdgePass;
+    private float[]             mEdgeVertices3d;
+
+    /**
+     * Initializes the NDMesh
+     *
+     * @param dimensions The number of dimensions the NDMesh should have
+     * @param projectionConstant The camera's distance to the NDMesh of projection (MUST BE GREATER THAN 1)
+     * @param viewDist The distance from the 2D camera to the center of projection
+     */
+    public NDMesh(int dimensions, float projectionConstant, float viewDist) {
+        mDimensions         = dimensions;
+        mProjectionConstant = projectionConstant;
+        mViewDist           = viewDist;
+        mRotation           = new NDTransform(dimensions);
+        mOrientation        = new NDTransform(dimensions);
+        mVertex             = new float[dimensions];
+    }
+
+    /**
+     * Allocates and generates the primary and secondary vertex data as well as the indices, and
+     * the vertex sources if the drawn vertices are gathered from shared ones
+     */
+    protected abstract void genVertexData();
+
+    /**
+     * Updates the secondary vertex data (this is probably going to be normals or colors which
+     * could need to be regenerated while the primary data is position data in model space so
+     * doesn't change)
+     */
+    protected abstract void updateSecondaryData();
+
+    /**
+     * Whether updateSecondaryData() generates a flat normal per face from its first triangle
+     * into every vertex of the face. If so, the per frame pass generates them along with the
+     * depth keys instead of calling updateSecondaryData().
+     *
+     * @return Whether the secondary data is flat face normals
+     */
+    protected boolean hasFaceNormals() {
+        return false;
+    }
+
+    /**
+     * @return What genVertexData() generates the mesh from, or null if it can't be cached
+     */
+    protected ShapeMeshCache.Key getCacheKey() {
+        return null;
+    }
+
+    /**
+     * MUST be called from subclass constructors. You might ask why this isn't in the constructor,
+     * but Java, in it's infinite wisdom doesn't let you modify variables before calling the
+     * super constructor, making it pretty much impossible to modify superclass initialization behaviour
+     *
+     * @param cache The cache to take the model space arrays from instead of generating them, when
+     *              it has them. If it doesn't they're generated and added to it. null to always
+     *              generate them.
+     */
+    protected void init(ShapeMeshCache cache) {
+        ShapeMeshCache.Key key = cache == null ? null : getCacheKey();
+        ShapeMeshCache.MeshData cached = key == null ? null : cache.get(key);
+
+        if (cached != null) {
+            mVertices      = cached.getVertices();
+            mVertexSources = cached.getVertexSources();
+            mIndices       = cached.copyIndices();
+            mSecondaryData = cached.copySecondaryData();
+            mFaceCount     = cached.getFaceCount();
+            mMeshFile      = cached.getFile();
+            mVertices3d    = new float[getDrawnVertexCount() * 3];
+        } else {
+            genVertexData();
+
+            if (key != null) {
+                cache.put(key, new ShapeMeshCache.MeshData(
+                        mVertices, mVertexSources, mIndices.clone(), mSecondaryData.clone(), mFaceCount));
+            }
+        }
+
+        if (mVertexSources != null) {
+            mSharedVertices3d = new float[mVertices.length / mDimensions * 3];
+        }
+
+        mFusedPass = new FusedProjectionPass(mVertices, mDimensions, mProjectionConstant, mViewDist);
+        updateProjection();
+        updateSecondaryData();
+        sortFaces();
+    }
+
+    /**
+     * Updates the mVertices3d array as a projection of mVertices rotated by mOrientation
+     */
+    private void updateProjection() {
+        for (int vertI = 0; vertI < getDrawnVertexCount(); vertI++) {  //Vertices
+            projectVertex(vertI);
+        }
+    }
+
+    /**
+     * Projects a single drawn vertex into mVertices3d
+     *
+     * @param vertI The index of the vertex
+     */
+    private void projectVertex(int vertI) {
+        int sourceI = mVertexSources != null ? mVertexSources[vertI] : vertI;
+
+        mOrientation.apply(mVertices, sourceI * mDimensions, mVertex, 0);
+        NDProjection.projectVertex(mVertex, 0, mDimensions, mProjectionConstant);
+        System.arraycopy(mVertex, 0, mVertices3d, vertI * 3, 3);
+    }
+
+    /**
+     * Rearranges mIndices so that it's in order by z coordinates of the center of the faces, if
+     * the buffer update policy sorts them
+     *
+     * @return Whether the order changed
+     */
+    public boolean sortFaces() {
+        if (!mUpdatePolicy.sortsFaces()) {
+            return false;
+        }
+
+        return mFaceSorter.sortFaces(mVertices3d, mIndices, mFaceCount, mViewDist);
+    }
+
+    /**
+     * Sets which buffers are updated each frame
+     *
+     * @param updatePolicy The buffer update policy
+     */
+    public void setBufferUpdatePolicy(BufferUpdatePolicy updatePolicy) {
+        mUpdatePolicy = updatePolicy;
+    }
+
+    /**
+     * @return Which buffers are updated each frame
+     */
+    public BufferUpdatePolicy getBufferUpdatePolicy() {
+        return mUpdatePolicy;
+    }
+
+    /**
+     * Sets the engine used to order the faces back to front each frame
+     *
+     * @param faceSorter The face sorter
+     */
+    public void setFaceSorter(FaceSorter faceSorter) {
+        mFaceSorter = faceSorter;
+    }
+
+    /**
+     * Sets the pool the per frame projection and face work is split across. Meshes too small
+     * to be worth splitting stay on the calling thread.
+     *
+     * @param pool The pool, or null to do everything on the calling thread
+     */
+    public void setWorkerPool(FrameWorkerPool pool) {
+        mWorkerPool = pool;
+        mFusedPass.setWorkerPool(pool);
+
+        if (mEdgePass != null) {
+            mEdgePass.setWorkerPool(pool);
+        }
+    }
+
+    /**
+     * Rotates the NDMesh on the rotationPlane plane by an angle of angle radians
+     * @param angle The angle the vector is rotated by (in radians)
+     * @param rotationPlane The plane of rotation (a length two vector containing the dimensions
+     *                      of the rotation plane, e.g. XZ would be {0, 2})
+     */
+    public void rotate(float angle, int[] rotationPlane) {
+        mRotation.setIdentity();
+        mRotation.rotate(angle, rotationPlane[0], rotationPlane[1]);
+        transform(mRotation);
+    }
+
+    /**
+     * Applies a transform to the NDMesh. The vertices themselves aren't touched, the transform
+     * is added to the orientation, which is applied to them as they're projected. The
+     * orientation is orthonormalized every so often so that rounding doesn't skew it.
+     *
+     * @param transform The transform (must have the same number of dimensions as the NDMesh)
+     */
+    public void transform(NDTransform transform) {
+        mOrientation.concat(transform);
+        mTransformsSinceOrthonormalize++;
+
+        if (mTransformsSinceOrthonormalize >= TRANSFORMS_PER_ORTHONORMALIZE) {
+            mOrientation.orthonormalize();
+            mTransformsSinceOrthonormalize = 0;
+        }
+    }
+
+    /**
+     * @return The current orientation of the NDMesh (not a copy)
+     */
+    public NDTransform getOrientation() {
+        return mOrientation;
+    }
+
+    /**
+     * Projects the vertices, generates the secondary data and sorts the faces, all on the CPU,
+     * as the buffer update policy asks
+     *
+     * @return Whether the order of the faces changed
+     */
+    public boolean prepareGeometry() {
+        boolean secondaryData = mUpdatePolicy.updatesSecondaryData();
+        boolean faceNormals   = secondaryData && hasFaceNormals();
+
+        project();
+
+        if (secondaryData && !faceNormals) {
+            updateSecondaryData();
+        }
+
+        return mFusedPass.processFaces(
+                mVertices3d,
+                mIndices,
+                mFaceCount,
+                faceNormals ? mSecondaryData : null,
+                mUpdatePolicy.sortsFaces() ? mFaceSorter : null);
+    }
+
+    /**
+     * Rotates and projects all of mVertices into mVertices3d. If the drawn vertices are copies of
+     * shared ones, only the shared ones are projected, and each copy is then gathered from them.
+     */
+    public void project() {
+        if (mVertexSources == null) {
+            mFusedPass.project(mOrientation, mVertices3d);
+            return;
+        }
+
+        mFusedPass.project(mOrientation, mSharedVertices3d);
+
+        for (int vertI = 0; vertI < mVertexSources.length; vertI++) {
+            int sourceI = mVertexSources[vertI] * 3;
+
+            mVertices3d[vertI * 3 + 0] = mSharedVertices3d[sourceI + 0];
+            mVertices3d[vertI * 3 + 1] = mSharedVertices3d[sourceI + 1];
+            mVertices3d[vertI * 3 + 2] = mSharedVertices3d[sourceI + 2];
+        }
+    }
+
+    /**
+     * @return The unique edges of the faces, found the first time they're asked for
+     */
+    public MeshEdges getEdges() {
+        if (mEdges == null) {
+            mEdges          = MeshEdges.fromFaces(getDrawnVertices(), mDimensions, mIndices, mFaceCount);
+            mEdgePass       = new FusedProjectionPass(mEdges.getVertices(), mDimensions, mProjectionConstant, mViewDist);
+            mEdgePass.setWorkerPool(mWorkerPool);
+            mEdgeVertices3d = new float[mEdges.getVertices().length / mDimensions * 3];
+        }
+
+        return mEdges;
+    }
+
+    /**
+     * Rotates and projects only the vertices the edges join into getEdgeVertices3d(), for drawing
+     * the mesh as a wireframe. Lines don't need to be sorted or have normals, so that's the whole
+     * of the per frame CPU work.
+     */
+    public void prepareEdges() {
+        getEdges();
+        mEdgePass.project(mOrientation, mEdgeVertices3d);
+    }
+
+    /**
+     * @return The vertices the edges join as of the last prepareEdges(), 3 components each (not a copy)
+     */
+    public float[] getEdgeVertices3d() {
+        getEdges();
+        return mEdgeVertices3d;
+    }
+
+    /**
+     * Regenerates the secondary data from mVertices3d the same way prepareGeometry() does,
+     * without sorting the faces
+     */
+    public void prepareSecondaryData() {
+        if (hasFaceNormals()) {
+            mFusedPass.processFaces(mVertices3d, mIndices, mFaceCount, mSecondaryData, null);
+        } else {
+            updateSecondaryData();
+        }
+    }
+
+    /**
+     * Sorts the faces for when the vertices are projected on the GPU. Only the vertices the face
+     * sorter uses to find the depth of each face are projected into mVertices3d.
+     *
+     * @return Whether the order of the faces changed
+     */
+    public boolean prepareFaceOrder() {
+        if (!mUpdatePolicy.sortsFaces()) {
+            return false;
+        }
+
+        for (int faceI = 0; faceI < mFaceCount; faceI++) {
+            projectVertex(mIndices[faceI * FaceSorter.INDICES_PER_FACE + FaceSorter.FIRST_KEY_INDEX]);
+            projectVertex(mIndices[faceI * FaceSorter.INDICES_PER_FACE + FaceSorter.SECOND_KEY_INDEX]);
+        }
+
+        return sortFaces();
+    }
+
+    /**
+     * @return The number of dimensions of the NDMesh
+     */
+    public int getDimensions() {
+        return mDimensions;
+    }
+
+    /**
+     * @return The model space vertices (not a copy). If there are vertex sources, these are the
+     *         shared vertices, not the drawn ones.
+     */
+    public float[] getVertices() {
+        return mVertices;
+    }
+
+    /**
+     * @return The index in getVertices() of the vertex each drawn vertex is a copy of (not a
+     *         copy), or null if the drawn vertices are getVertices() themselves
+     */
+    public int[] getVertexSources() {
+        return mVertexSources;
+    }
+
+    /**
+     * @return The mapped file the model space arrays were copied from, or null if they were
+     *         generated. Its views hold the arrays as they were generated, before any projecting,
+     *         relighting or sorting.
+     */
+    public MeshFile getMeshFile() {
+        return mMeshFile;
+    }
+
+    /**
+     * @return The model space vertex of every drawn vertex: getVertices() itself, or a copy of
+     *         it gathered through the vertex sources
+     */
+    public float[] getDrawnVertices() {
+        if (mVertexSources == null) {
+            return mVertices;
+        }
+
+        float[] drawn = new float[mVertexSources.length * mDimensions];
+
+        for (int vertI = 0; vertI < mVertexSources.length; vertI++) {
+            System.arraycopy(mVertices, mVertexSources[vertI] * mDimensions, drawn, vertI * mDimensions, mDimensions);
+        }
+
+        return drawn;
+    }
+
+    /**
+     * @return The number of vertices that are drawn, and so projected into getVertices3d()
+     */
+    public int getDrawnVertexCount() {
+        return mVertexSources != null ? mVertexSources.length : mVertices.length / mDimensions;
+    }
+
+    /**
+     * @return The projected vertices, 3 components each (not a copy)
+     */
+    public float[] getVertices3d() {
+        return mVertices3d;
+    }
+
+    /**
+     * @return The secondary vertex data, 3 components per vertex (not a copy)
+     */
+    public float[] getSecondaryData() {
+        return mSecondaryData;
+    }
+
+    /**
+     * @return The draw indices, FaceSorter.INDICES_PER_FACE per face (not a copy)
+     */
+    public int[] getIndices() {
+        return mIndices;
+    }
+
+    /**
+     * @return The number of faces in the indices
+     */
+    public int getFaceCount() {
+        return mFaceCount;
+    }
+}
@@ -0,0 +1,102 @@
+package com.sudo_code.ndrenderer;
+
+import java.nio.ByteBuffer;
+import java.nio.FloatBuffer;
+
+/**
+ * The N to 3 dimensional perspective projection, along with the packing of the data the GPU
+ * projection path (shape_nd_vert.glsl and c_graph_nd_vert.glsl) needs. None of this touches
+ * OpenGL so it can be checked against the CPU projection off the device.
+ */
+public class NDProjection {
+    public static final int MAX_DIMENSIONS       = 12;  //3 vec4 vertex attributes
+    public static final int COMPONENTS_PER_CHUNK = 4;   //A vertex is split into vec4 attributes
+
+    //The Orientation uniform block (std140): vec4 orientation[MAX_DIMENSIONS * 3]; int dimensions;
+    public static final int ORIENTATION_CHUNKS_PER_ROW = MAX_DIMENSIONS / COMPONENTS_PER_CHUNK;
+    public static final int ORIENTATION_BLOCK_SIZE     = (MAX_DIMENSIONS * MAX_DIMENSIONS + 4) * 4;
+
+    /**
+     * Projects a vertex down to 3D in place by cascading a perspective divide from the highest
+     * dimension down to the fourth
+     *
+     * @param vertex The array holding the vertex
+     * @param offset The index of the first component of the vertex
+     * @param dimensions The number of components of the vertex
+     * @param projectionConstant The camera's distance to the hypervolume of projection (MUST BE GREATER THAN 1)
+     */
+    public static void projectVertex(float[] vertex, int offset, int dimensions, float projectionConstant) {
+        for (int dim = dimensions - 1; dim > 2; dim--) {    //Dimension we're projecting from
+            float scale = Math.abs(projectionConstant - 1) / (projectionConstant + vertex[offset + dim]);
+
+            for (int comp = 0; comp < dim - 1; comp++) {    //Component we're updating
+                vertex[offset + comp] *= scale;
+            }
+        }
+    }
+
+    /**
+     * @return The number of vec4 attributes a vertex with the given number of dimensions is
+     *         split into
+     */
+    public static int getAttributeChunks(int dimensions) {
+        return (dimensions + COMPONENTS_PER_CHUNK - 1) / COMPONENTS_PER_CHUNK;
+    }
+
+    /**
+     * @param dimensions The number of components of a vertex
+     * @param chunk Which of its vec4 attributes
+     * @return The number of the vertex's components the attribute is read from, 4 except for
+     *         the last one, where the GL fills in the rest
+     */
+    public static int getAttributeSize(int dimensions, int chunk) {
+        return Math.min(COMPONENTS_PER_CHUNK, dimensions - chunk * COMPONENTS_PER_CHUNK);
+    }
+
+    /**
+     * Puts the vertices into dst as consecutive vec4 attributes, the way the vertex shader reads
+     * them from NDShape's tightly packed vertices: the last one of each vertex is filled in the
+     * way the GL fills in the components an attribute doesn't have, with zeros and a w of 1
+     *
+     * @param vertices The vertices, in the form x,y,z,w...x,y etc.
+     * @param dimensions The number of components of each vertex
+     * @param dst The buffer to put the packed vertices in
+     */
+    public static void packVertices(float[] vertices, int dimensions, FloatBuffer dst) {
+        int paddedDimensions = getAttributeChunks(dimensions) * COMPONENTS_PER_CHUNK;
+
+        for (int vertI = 0; vertI < vertices.length; vertI += dimensions) {
+            for (int comp = 0; comp < paddedDimensions; comp++) {
+                if (comp < dimensions) {
+                    dst.put(vertices[vertI + comp]);
+                } else {
+                    dst.put(comp % COMPONENTS_PER_CHUNK == COMPONENTS_PER_CHUNK - 1 ? 1.f : 0.f);
+                }
+            }
+        }
+    }
+
+    /**
+     * Puts the orientation into dst in the layout of the Orientation uniform block. Every row
+     * takes up MAX_DIMENSIONS floats, so the columns and rows past the orientation's dimensions
+     * are zeros, which also cancels out whatever the unused attribute components hold.
+     *
+     * @param orientation The orientation
+     * @param dst The buffer to put the block in, starting from its position
+     */
+    public static void packOrientation(NDTransform orientation, ByteBuffer dst) {
+        int dimensions = orientation.getDimensions();
+        float[] matrix = orientation.getMatrix();
+
+        for (int row = 0; row < MAX_DIMENSIONS; row++) {
+            for (int col = 0; col < MAX_DIMENSIONS; col++) {
+                dst.putFloat(row < dimensions && col < dimensions ? matrix[row * dimensions + col] : 0.f);
+            }
+        }
+
+        dst.putInt(dimensions);
+        dst.putInt(0);  //Padding to a whole vec4
+        dst.putInt(0);
+        dst.putInt(0);
+    }
+}
@@ -0,0 +1,1051 @@
+package com.sudo_code.ndrenderer;
+
+import java.nio.Buffer;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.FloatBuffer;
+import java.nio.IntBuffer;
+import java.nio.ShortBuffer;
+
+/**
+ * Draws an NDMesh through a GLBackend. The mesh does the CPU side of each frame, NDShape streams
+ * the result to the GPU and draws it.
+ */
+public class NDShape {
+
+    /**
+     * Decides how an NDShape turns each frame when its geometry is prepared on a background
+     * thread. Called from that thread.
+     */
+    public interface Animator {
+        /**
+         * @param frameNanos The time since the last frame was started in nanoseconds (0 for the first)
+         * @param rotation The transform to set to the rotation to apply this frame
+         */
+        void nextRotation(long frameNanos, NDTransform rotation);
+    }
+
+    private static final int BYTES_PER_INT = 4;
+    private static final int BYTES_PER_SHORT = 2;
+    private static final int BYTES_PER_FLOAT = 4;
+    private static final int MAX_SHORT_INDEX = 0xFFFF;
+    private static final int STREAMING_SLICES = 3;  //Two eyes and a frame in flight
+
+    public static final int   ORIENTATION_BINDING    = 1;       //Uniform buffer binding of the Orientation block
+    public static final int   INSTANCES_BINDING      = 2;       //Uniform buffer binding of the Instances block
+    public static final int[] EXTRA_POSITION_HANDLES = {2, 3};  //Attribute indices of vertex components 4-11
+
+    private final GLBackend mGL;
+    private final NDMesh    mMesh;
+
+    private StreamingVertexBuffer mStreamingVertBuffer;
+    private ByteBuffer            mNativeIndexBuffer;
+    private IntBuffer             mNativeIndexInts;     //Null if the indices are shorts
+    private ShortBuffer           mNativeIndexShorts;   //Null if the indices are ints
+
+    private int          mIndexType;    //GL_UNSIGNED_SHORT whenever every vertex fits in one
+    private VertexFormat mVertexFormat = VertexFormat.SEPARATE_FLOAT;
+
+    private int mVAO;
+    private int mVertVBO;
+    private int mIndexVBO;
+
+    private int mPosHandle;     //Vertex attribute indices
+    private int mSecondaryHandle;
+
+    private UploadStats mUploadStats = new UploadStats();
+
+    private GeometryPipeline mPipeline;             //Only set while the geometry is prepared in the background
+    private GeometryFrame    mFrame;                //The frame being drawn, from mPipeline
+    private long             mDrawnSequence;        //The sequence of the frame in the current vertex slice
+    private int              mUploadedIndicesVersion;
+    private boolean          mIndicesStale;         //Whether the index VBO is behind the mesh's indices
+    private boolean          mFileIndices;          //Whether the index VBO holds the mesh file's unsorted indices
+    private long             mFrameStartNanos;      //When preparing the current frame started
+    private PhaseTimer       mLatencyTimer = new PhaseTimer();
+
+    private boolean mEdgeMode;
+    private int     mEdgeVAO;
+    private int     mEdgeIndexVBO;
+    private int     mEdgeIndexType;
+
+    private boolean    mGpuProjection;
+    private int        mGpuVAO;
+    private int        mGpuVertVBO;
+    private int        mOrientationUBO;
+    private ByteBuffer mOrientationData;
+
+    private ShapeInstances mInstances;  //Null unless every copy is drawn in the same draw
+    private int            mInstanceUBO;
+    private ByteBuffer     mInstanceData;
+
+    private int mFrameDrawCalls;    //Made by submit() since the last prepare()
+
+    /**
+     * Initializes the NDShape and the buffers and vertex array object it's drawn from
+     *
+     * @param gl The GL to draw with
+     * @param mesh The mesh to draw
+     * @param posHandle The attribute index of the vertex position
+     * @param secondayHandle The attribute index of the vertex normal
+     */
+    public NDShape(GLBackend gl, NDMesh mesh, int posHandle, int secondayHandle) {
+        mGL              = gl;
+        mMesh            = mesh;
+        mPosHandle       = posHandle;
+        mSecondaryHandle = secondayHandle;
+
+        genNativeBuffers();
+        genVBOs();
+        genVAO();
+    }
+
+    /**
+     * Generates the native buffer containing the draw indices, as unsigned shorts if every
+     * vertex fits in one, otherwise ints, which is filled before each upload. The vertex data is
+     * written straight into the mapped streaming buffer so it doesn't need one.
+     */
+    private void genNativeBuffers() {
+        mIndexType = mMesh.getVertices3d().length / 3 <= MAX_SHORT_INDEX + 1 ?
+                GLBackend.GL_UNSIGNED_SHORT : GLBackend.GL_UNSIGNED_INT;
+
+        mNativeIndexBuffer = ByteBuffer.allocateDirect(getIndexBytes())
+                .order(ByteOrder.nativeOrder());
+
+        if (mIndexType == GLBackend.GL_UNSIGNED_SHORT) {
+            mNativeIndexShorts = mNativeIndexBuffer.asShortBuffer();
+        } else {
+            mNativeIndexInts = mNativeIndexBuffer.asIntBuffer();
+        }
+    }
+
+    /**
+     * @return The mapped file the mesh was loaded from, if the GL can read its views as they
+     *         are (it reads them in the native byte order), otherwise null
+     */
+    private MeshFile getMappedMeshFile() {
+        MeshFile file = mMesh.getMeshFile();
+        return file != null && ByteOrder.nativeOrder() == MeshFile.BYTE_ORDER ? file : null;
+    }
+
+    /**
+     * @return The bytes all the indices take up as mIndexType
+     */
+    private int getIndexBytes() {
+        return mMesh.getIndices().length * (mIndexType == GLBackend.GL_UNSIGNED_SHORT ? BYTES_PER_SHORT : BYTES_PER_INT);
+    }
+
+    /**
+     * Generates the vertex buffer objects containing the vertex data and the draw indices. The
+     * vertex data is streamed through a ring of STREAMING_SLICES slices. If the mesh was loaded
+     * from a file, the indices are first uploaded straight from it, in the order they were
+     * generated, so shapes that never reorder them (BufferUpdatePolicy.UNSORTED) never copy
+     * them at all.
+     */
+    private void genVBOs() {
+        mStreamingVertBuffer = new StreamingVertexBuffer(
+                new BackendStreamingGL(mGL),
+                (mMesh.getVertices3d().length + mMesh.getSecondaryData().length) * BYTES_PER_FLOAT,
+                STREAMING_SLICES);
+
+        mVertVBO = mStreamingVertBuffer.getBuffer();
+
+        int[] VBOs = new int[1];
+        mGL.glGenBuffers(1, VBOs, 0);
+
+        mIndexVBO = VBOs[0];
+
+        MeshFile file = getMappedMeshFile();
+        mFileIndices = file != null && file.getIndexType() == mIndexType;
+
+        if (!mFileIndices) {
+            updateNativeBuffers();
+        }
+
+        mGL.glBindBuffer(GLBackend.GL_ARRAY_BUFFER, mIndexVBO);
+
+        mGL.glBufferData(
+                GLBackend.GL_ARRAY_BUFFER,
+                getIndexBytes(),
+                mFileIndices ? file.getIndices() : mNativeIndexBuffer,
+                GLBackend.GL_STREAM_DRAW);
+
+        mGL.glBindBuffer(GLBackend.GL_ARRAY_BUFFER, 0);
+    }
+
+    /**
+     * Update index native buffer
+     */
+    private void updateNativeBuffers() {
+        if (mNativeIndexShorts != null) {
+            putIndices(mMesh.getIndices(), mNativeIndexShorts);
+        } else {
+            mNativeIndexInts.put(mMesh.getIndices());
+            mNativeIndexInts.position(0);
+        }
+    }
+
+    /**
+     * Narrows indices to unsigned shorts
+     *
+     * @param indices The indices, all of which fit in an unsigned short
+     * @param shorts The buffer to write them to, from the start
+     */
+    private static void putIndices(int[] indices, ShortBuffer shorts) {
+        for (int i = 0; i < indices.length; i++) {
+            shorts.put(i, (short) indices[i]);
+        }
+    }
+
+    /**
+     * Writes the vertex positions and normals into the next slice of the streaming vertex buffer
+     * and uploads the indices if needed
+     *
+     * @param secondaryData Whether the secondary data has changed as well as the positions
+     * @param indices Whether to upload the indices
+     */
+    private void updateVBOs(boolean secondaryData, boolean indices) {
+        //A slice that's never been written doesn't have any secondary data in it yet
+        boolean writeSecondary = mVertexFormat.uploadsSecondaryData(!mStreamingVertBuffer.nextSlice() || secondaryData);
+        int vertBytes = mVertexFormat.getUploadBytes(mMesh.getVertices3d().length / 3, writeSecondary);
+
+        mVertexFormat.write(
+                mMesh.getVertices3d(),
+                mMesh.getSecondaryData(),
+                writeSecondary,
+                mStreamingVertBuffer.map(0, vertBytes));
+
+        mStreamingVertBuffer.unmap();
+
+        mUploadStats.addVertexBytes(vertBytes);
+
+        if (indices) {
+            updateNativeBuffers();
+            updateIndexVBO(mNativeIndexBuffer);
+        }
+    }
+
+    /**
+     * Uploads all the indices to the index buffer object
+     *
+     * @param indices The native buffer holding the indices
+     */
+    private void updateIndexVBO(Buffer indices) {
+        mGL.glBindBuffer(GLBackend.GL_ARRAY_BUFFER, mIndexVBO);
+
+        mGL.glBufferSubData(
+                GLBackend.GL_ARRAY_BUFFER,
+                0,
+                getIndexBytes(),
+                indices);
+
+        mGL.glBindBuffer(GLBackend.GL_ARRAY_BUFFER, 0);
+
+        mUploadStats.addIndexBytes(getIndexBytes());
+        mIndicesStale = false;
+        mFileIndices  = false;
+    }
+
+    /**
+     * @param updatePolicy The mesh's buffer update policy
+     * @return Whether the index VBO has to be uploaded even if the order hasn't changed: it's
+     *         behind the mesh's indices, or still holds the file's unsorted ones and they're
+     *         meant to be sorted
+     */
+    private boolean isIndexVBOBehind(BufferUpdatePolicy updatePolicy) {
+        return mIndicesStale || (mFileIndices && updatePolicy.sortsFaces());
+    }
+
+    /**
+     * Generates and initializes the vertex array object that will be used to draw the NDShape
+     */
+    private void genVAO() {
+        int[] VAOArray = new int[1];
+        mGL.glGenVertexArrays(1, VAOArray, 0);
+        mVAO = VAOArray[0];
+
+        mGL.glBindVertexArray(mVAO);
+
+        mGL.glEnableVertexAttribArray(mPosHandle);
+        mGL.glEnableVertexAttribArray(mSecondaryHandle);
+
+        mGL.glBindBuffer(GLBackend.GL_ARRAY_BUFFER, mVertVBO);
+
+        mVertexFormat.setAttribPointers(mGL, mPosHandle, mSecondaryHandle, mMesh.getVertices3d().length / 3, 0);
+
+        mGL.glBindBuffer(GLBackend.GL_ARRAY_BUFFER, 0);
+
+        mGL.glBindBuffer(GLBackend.GL_ELEMENT_ARRAY_BUFFER, mIndexVBO);
+
+        mGL.glBindVertexArray(0);
+    }
+
+    /**
+     * Points the vertex array object at the current slice of the streaming vertex buffer. Must be
+     * called with the vertex array object bound.
+     */
+    private void bindVertexSlice() {
+        int sliceOffset = mStreamingVertBuffer.getSliceOffset();
+
+        mGL.glBindBuffer(GLBackend.GL_ARRAY_BUFFER, mVertVBO);
+
+        mVertexFormat.setAttribPointers(mGL, mPosHandle, mSecondaryHandle, mMesh.getVertices3d().length / 3, sliceOffset);
+
+        mGL.glBindBuffer(GLBackend.GL_ARRAY_BUFFER, 0);
+    }
+
+    /**
+     * @return The mesh the NDShape draws
+     */
+    public NDMesh getMesh() {
+        return mMesh;
+    }
+
+    /**
+     * Sets which buffers are uploaded each frame
+     *
+     * @param updatePolicy The buffer update policy
+     */
+    public void setBufferUpdatePolicy(BufferUpdatePolicy updatePolicy) {
+        mMesh.setBufferUpdatePolicy(updatePolicy);
+    }
+
+    /**
+     * Sets how the projected vertices are laid out when they're streamed to the GPU. The packed
+     * formats interleave each vertex's position and secondary data and store the secondary data
+     * in fewer bits, so every frame that uploads the secondary data uploads fewer bytes. Frames
+     * that only upload the positions (STATIC_INDICES once every slice has been written) upload
+     * more, as interleaved positions can't be written without the secondary data next to them.
+     * Can't be changed while the geometry is prepared in the background.
+     *
+     * @param vertexFormat The vertex format
+     */
+    public void setVertexFormat(VertexFormat vertexFormat) {
+        if (mPipeline != null) {
+            throw new IllegalStateException("The vertex format can't be changed while the geometry is prepared in the background");
+        }
+
+        if (vertexFormat != mVertexFormat) {
+            mVertexFormat = vertexFormat;
+            mStreamingVertBuffer.discardContents();   //None of the slices hold secondary data laid out this way
+        }
+    }
+
+    public VertexFormat getVertexFormat() {
+        return mVertexFormat;
+    }
+
+    /**
+     * @return GLBackend.GL_UNSIGNED_SHORT if every vertex can be indexed with one, otherwise
+     *         GLBackend.GL_UNSIGNED_INT
+     */
+    public int getIndexType() {
+        return mIndexType;
+    }
+
+    /**
+     * @return The counts of the bytes uploaded by the NDShape
+     */
+    public UploadStats getUploadStats() {
+        return mUploadStats;
+    }
+
+    /**
+     * Sets the engine used to order the faces back to front each frame
+     *
+     * @param faceSorter The face sorter
+     */
+    public void setFaceSorter(FaceSorter faceSorter) {
+        mMesh.setFaceSorter(faceSorter);
+    }
+
+    /**
+     * Sets the pool the per frame projection and face work is split across. Shapes too small
+     * to be worth splitting stay on the calling thread.
+     *
+     * @param pool The pool, or null to do everything on the calling thread
+     */
+    public void setWorkerPool(FrameWorkerPool pool) {
+        mMesh.setWorkerPool(pool);
+    }
+
+    /**
+     * Rotates the NDShape on the rotationPlane plane by an angle of angle radians
+     * @param angle The angle the vector is rotated by (in radians)
+     * @param rotationPlane The plane of rotation (a length two vector containing the dimensions
+     *                      of the rotation plane, e.g. XZ would be {0, 2})
+     */
+    public void rotate(float angle, int[] rotationPlane) {
+        checkOrientationOwner();
+        mMesh.rotate(angle, rotationPlane);
+    }
+
+    /**
+     * Applies a transform to the NDShape. The vertices themselves aren't touched, the transform
+     * is added to the NDShape's orientation, which is applied to them as they're projected.
+     *
+     * @param transform The transform (must have the same number of dimensions as the NDShape)
+     */
+    public void transform(NDTransform transform) {
+        checkOrientationOwner();
+        mMesh.transform(transform);
+    }
+
+    /**
+     * Throws if the orientation can't be changed from this thread
+     */
+    private void checkOrientationOwner() {
+        if (mPipeline != null) {
+            throw new IllegalStateException("The orientation belongs to the geometry thread, use an Animator");
+        }
+    }
+
+    /**
+     * @return The current orientation of the NDShape (not a copy)
+     */
+    public NDTransform getOrientation() {
+        return mMesh.getOrientation();
+    }
+
+    /**
+     * Switches between drawing the faces and drawing only their edges, with GL_LINES. In edge
+     * mode only the vertices the edges join are projected and streamed (positions only, to the
+     * position attribute), and the edge indices are uploaded once, so nothing is sorted and no
+     * normals are generated. The secondary attribute is left disabled, so the program should be
+     * one that doesn't light by it. Must be called from the GL thread, and can't be used with
+     * the GPU projection path or background geometry.
+     *
+     * @param edgeMode Whether to draw only the edges
+     */
+    public void setEdgeMode(boolean edgeMode) {
+        if (edgeMode && (mPipeline != null || mGpuProjection)) {
+            throw new IllegalStateException("Edge mode can't be used with GPU projection or background geometry");
+        }
+
+        if (edgeMode && mEdgeVAO == 0) {
+            genEdgeObjects();
+        }
+
+        if (mEdgeMode && !edgeMode) {
+            mStreamingVertBuffer.discardContents();   //The slices hold edge positions, not the faces' vertices
+        }
+
+        mEdgeMode = edgeMode;
+    }
+
+    public boolean isEdgeMode() {
+        return mEdgeMode;
+    }
+
+    /**
+     * Generates the edge index buffer object and the vertex array object used to draw the edges.
+     * The edge vertices are streamed through the same ring as the faces' vertices, which always
+     * has room for them, as there are never more of them than drawn vertices.
+     */
+    private void genEdgeObjects() {
+        MeshEdges edges = mMesh.getEdges();
+        int[] edgeIndices = edges.getIndices();
+        int vertexCount = edges.getVertices().length / mMesh.getDimensions();
+
+        mEdgeIndexType = vertexCount <= MAX_SHORT_INDEX + 1 ? GLBackend.GL_UNSIGNED_SHORT : GLBackend.GL_UNSIGNED_INT;
+
+        ByteBuffer indexData = ByteBuffer.allocateDirect(
+                edgeIndices.length * (mEdgeIndexType == GLBackend.GL_UNSIGNED_SHORT ? BYTES_PER_SHORT : BYTES_PER_INT))
+                .order(ByteOrder.nativeOrder());
+
+        if (mEdgeIndexType == GLBackend.GL_UNSIGNED_SHORT) {
+            putIndices(edgeIndices, indexData.asShortBuffer());
+        } else {
+            indexData.asIntBuffer().put(edgeIndices);
+        }
+
+        int[] VBOs = new int[1];
+        mGL.glGenBuffers(1, VBOs, 0);
+        mEdgeIndexVBO = VBOs[0];
+
+        mGL.glBindBuffer(GLBackend.GL_ARRAY_BUFFER, mEdgeIndexVBO);
+
+        mGL.glBufferData(
+                GLBackend.GL_ARRAY_BUFFER,
+                indexData.capacity(),
+                indexData,
+                GLBackend.GL_STATIC_DRAW);
+
+        mGL.glBindBuffer(GLBackend.GL_ARRAY_BUFFER, 0);
+
+        int[] VAOArray = new int[1];
+        mGL.glGenVertexArrays(1, VAOArray, 0);
+        mEdgeVAO = VAOArray[0];
+
+        mGL.glBindVertexArray(mEdgeVAO);
+
+        mGL.glEnableVertexAttribArray(mPosHandle);
+
+        mGL.glBindBuffer(GLBackend.GL_ELEMENT_ARRAY_BUFFER, mEdgeIndexVBO);
+
+        mGL.glBindVertexArray(0);
+    }
+
+    /**
+     * Projects the edge vertices and writes their positions into the next slice of the
+     * streaming vertex buffer
+     */
+    private void prepareEdges() {
+        mMesh.prepareEdges();
+
+        float[] edgeVertices3d = mMesh.getEdgeVertices3d();
+        int vertBytes = edgeVertices3d.length * BYTES_PER_FLOAT;
+
+        mStreamingVertBuffer.nextSlice();
+        mStreamingVertBuffer.map(0, vertBytes).asFloatBuffer().put(edgeVertices3d);
+        mStreamingVertBuffer.unmap();
+
+        mUploadStats.addVertexBytes(vertBytes);
+    }
+
+    /**
+     * @return GLBackend.GL_UNSIGNED_SHORT if every edge vertex can be indexed with one,
+     *         otherwise GLBackend.GL_UNSIGNED_INT, or 0 if edge mode has never been used
+     */
+    public int getEdgeIndexType() {
+        return mEdgeIndexType;
+    }
+
+    /**
+     * Switches between projecting every vertex on the CPU each frame and uploading the vertices
+     * once and projecting them in the vertex shader (shape_nd_vert.glsl or c_graph_nd_vert.glsl).
+     * The GPU path reads the orientation from the Orientation uniform block, bound at
+     * ORIENTATION_BINDING. Must be called from the GL thread.
+     *
+     * @param gpuProjection Whether to project the vertices on the GPU
+     */
+    public void setGpuProjection(boolean gpuProjection) {
+        if (mPipeline != null) {
+            throw new IllegalStateException("The GPU projection path can't be used with background geometry");
+        }
+
+        if (gpuProjection && mEdgeMode) {
+            throw new IllegalStateException("The GPU projection path can't be used in edge mode");
+        }
+
+        if (!gpuProjection && mInstances != null) {
+            throw new IllegalStateException("Instances can only be drawn with the GPU projection path");
+        }
+
+        if (gpuProjection && mGpuVAO == 0) {
+            genGpuProjectionObjects();
+        }
+
+        mGpuProjection = gpuProjection;
+    }
+
+    /**
+     * Generates the static vertex buffer, the orientation uniform buffer and the vertex array
+     * object used to draw the NDShape when it's projected on the GPU. The static vertex buffer
+     * holds the D dimensional vertices, tightly packed and read as vec4 attributes, followed by
+     * the secondary data. That's the layout of a MeshFile, so a mesh loaded from one without
+     * vertex sources is uploaded straight from the mapped file.
+     */
+    private void genGpuProjectionObjects() {
+        int dimensions   = mMesh.getDimensions();
+        int chunks       = NDProjection.getAttributeChunks(dimensions);
+        int vertexCount  = mMesh.getDrawnVertexCount();
+        int vertexStride = dimensions * BYTES_PER_FLOAT;
+        int chunkBytes   = NDProjection.COMPONENTS_PER_CHUNK * BYTES_PER_FLOAT;
+
+        if (chunks > EXTRA_POSITION_HANDLES.length + 1) {
+            throw new IllegalStateException(dimensions + " dimensions can't be projected on the GPU");
+        }
+
+        MeshFile file = getMappedMeshFile();
+        FloatBuffer vertData;
+
+        if (file != null && file.getVertexSources().capacity() == 0) {
+            vertData = file.getVertexData();
+        } else {
+            //The drawn vertices are gathered from the shared ones, so they have to be copied
+            vertData = ByteBuffer.allocateDirect(
+                    (vertexCount * dimensions + mMesh.getSecondaryData().length) * BYTES_PER_FLOAT)
+                    .order(ByteOrder.nativeOrder())
+                    .asFloatBuffer();
+
+            vertData.put(mMesh.getDrawnVertices());
+            vertData.put(mMesh.getSecondaryData());
+            vertData.position(0);
+        }
+
+        mOrientationData = ByteBuffer.allocateDirect(NDProjection.ORIENTATION_BLOCK_SIZE)
+                .order(ByteOrder.nativeOrder());
+
+        int[] buffers = new int[2];
+        mGL.glGenBuffers(2, buffers, 0);
+
+        mGpuVertVBO     = buffers[0];
+        mOrientationUBO = buffers[1];
+
+        mGL.glBindBuffer(GLBackend.GL_ARRAY_BUFFER, mGpuVertVBO);
+
+        mGL.glBufferData(
+                GLBackend.GL_ARRAY_BUFFER,
+                vertData.capacity() * BYTES_PER_FLOAT,
+                vertData,
+                GLBackend.GL_STATIC_DRAW);
+
+        mGL.glBindBuffer(GLBackend.GL_UNIFORM_BUFFER, mOrientationUBO);
+
+        mGL.glBufferData(
+                GLBackend.GL_UNIFORM_BUFFER,
+                NDProjection.ORIENTATION_BLOCK_SIZE,
+                mOrientationData,
+                GLBackend.GL_STREAM_DRAW);
+
+        mGL.glBindBuffer(GLBackend.GL_UNIFORM_BUFFER, 0);
+
+        int[] VAOArray = new int[1];
+        mGL.glGenVertexArrays(1, VAOArray, 0);
+        mGpuVAO = VAOArray[0];
+
+        mGL.glBindVertexArray(mGpuVAO);
+
+        for (int chunk = 0; chunk < chunks; chunk++) {
+            int handle = chunk == 0 ? mPosHandle : EXTRA_POSITION_HANDLES[chunk - 1];
+
+            mGL.glEnableVertexAttribArray(handle);
+
+            //The last chunk can be short, the GL fills in the rest
+            mGL.glVertexAttribPointer(
+                    handle,
+                    NDProjection.getAttributeSize(dimensions, chunk),
+                    GLBackend.GL_FLOAT,
+                    false,
+                    vertexStride,
+                    chunk * chunkBytes);
+        }
+
+        mGL.glEnableVertexAttribArray(mSecondaryHandle);
+
+        mGL.glVertexAttribPointer(
+                mSecondaryHandle,
+                3,
+                GLBackend.GL_FLOAT,
+                false,
+                0,
+                vertexCount * vertexStride);
+
+        mGL.glBindBuffer(GLBackend.GL_ARRAY_BUFFER, 0);
+
+        mGL.glBindBuffer(GLBackend.GL_ELEMENT_ARRAY_BUFFER, mIndexVBO);
+
+        mGL.glBindVertexArray(0);
+    }
+
+    /**
+     * Switches between drawing the NDShape once and drawing many copies of it, each turned and
+     * moved its own way, with glDrawElementsInstanced. The copies are projected by
+     * shape_instanced_vert.glsl, which reads them from the Instances uniform block, bound at
+     * INSTANCES_BINDING, instead of the Orientation block. Each frame uploads every copy's
+     * orientation combined with the NDShape's, and draws as many copies at once as fit in a
+     * block. The faces are ordered for the NDShape's own orientation, which won't be right for
+     * the copies, so they're best drawn with BufferUpdatePolicy.UNSORTED and WeightedBlendedOIT,
+     * or a depth test. Must be called from the GL thread, with the GPU projection path on.
+     *
+     * @param instances The copies (with the same number of dimensions as the NDShape), or null
+     *                  to draw the NDShape once
+     */
+    public void setInstances(ShapeInstances instances) {
+        if (instances != null && !mGpuProjection) {
+            throw new IllegalStateException("Instances can only be drawn with the GPU projection path");
+        }
+
+        if (instances != null && instances.getDimensions() != mMesh.getDimensions()) {
+            throw new IllegalArgumentException("The instances have " + instances.getDimensions() +
+                    " dimensions, the shape has " + mMesh.getDimensions());
+        }
+
+        if (instances != null && (mInstanceData == null || mInstanceData.capacity() < instances.getBufferSize())) {
+            genInstanceObjects(instances.getBufferSize());
+        }
+
+        mInstances = instances;
+    }
+
+    /**
+     * @return The copies drawn, or null if the NDShape is only drawn once
+     */
+    public ShapeInstances getInstances() {
+        return mInstances;
+    }
+
+    /**
+     * Generates the instance uniform buffer and its native buffer, or grows them
+     *
+     * @param size The bytes they need to hold
+     */
+    private void genInstanceObjects(int size) {
+        mInstanceData = ByteBuffer.allocateDirect(size)
+                .order(ByteOrder.nativeOrder());
+
+        if (mInstanceUBO == 0) {
+            int[] buffers = new int[1];
+            mGL.glGenBuffers(1, buffers, 0);
+            mInstanceUBO = buffers[0];
+        }
+
+        mGL.glBindBuffer(GLBackend.GL_UNIFORM_BUFFER, mInstanceUBO);
+
+        mGL.glBufferData(
+                GLBackend.GL_UNIFORM_BUFFER,
+                size,
+                null,
+                GLBackend.GL_STREAM_DRAW);
+
+        mGL.glBindBuffer(GLBackend.GL_UNIFORM_BUFFER, 0);
+    }
+
+    /**
+     * Uploads every copy combined with the current orientation
+     */
+    private void updateInstanceUBO() {
+        int packedBytes = mInstances.getPackedBytes();
+
+        mInstanceData.clear();
+        mInstances.pack(mMesh.getOrientation(), mInstanceData);
+        mInstanceData.position(0);
+
+        mGL.glBindBuffer(GLBackend.GL_UNIFORM_BUFFER, mInstanceUBO);
+
+        mGL.glBufferSubData(
+                GLBackend.GL_UNIFORM_BUFFER,
+                0,
+                packedBytes,
+                mInstanceData);
+
+        mGL.glBindBuffer(GLBackend.GL_UNIFORM_BUFFER, 0);
+
+        mUploadStats.addUniformBytes(packedBytes);
+    }
+
+    /**
+     * Prepares the NDShape for drawing with the projection done in the vertex shader. Only the
+     * orientation (or the copies) and the reordered indices are uploaded.
+     */
+    private void prepareGpuProjected() {
+        boolean reordered = mMesh.prepareFaceOrder();
+        BufferUpdatePolicy updatePolicy = mMesh.getBufferUpdatePolicy();
+
+        if (updatePolicy.uploadsIndices(reordered) || isIndexVBOBehind(updatePolicy)) {
+            updateNativeBuffers();
+            updateIndexVBO(mNativeIndexBuffer);
+        }
+
+        if (mInstances != null) {
+            updateInstanceUBO();
+            return;
+        }
+
+        mOrientationData.position(0);
+        NDProjection.packOrientation(mMesh.getOrientation(), mOrientationData);
+        mOrientationData.position(0);
+
+        mGL.glBindBuffer(GLBackend.GL_UNIFORM_BUFFER, mOrientationUBO);
+
+        mGL.glBufferSubData(
+                GLBackend.GL_UNIFORM_BUFFER,
+                0,
+                NDProjection.ORIENTATION_BLOCK_SIZE,
+                mOrientationData);
+
+        mGL.glBindBuffer(GLBackend.GL_UNIFORM_BUFFER, 0);
+
+        mUploadStats.addUniformBytes(NDProjection.ORIENTATION_BLOCK_SIZE);
+    }
+
+    /**
+     * Does all the per frame work that doesn't depend on the view: projecting, generating the
+     * secondary data, sorting and uploading. Call once per frame, before submit().
+     */
+    public void prepare() {
+        mUploadStats.beginFrame();
+        mFrameStartNanos = System.nanoTime();
+        mFrameDrawCalls = 0;
+
+        if (mGpuProjection) {
+            prepareGpuProjected();
+            return;
+        }
+
+        if (mEdgeMode) {
+            prepareEdges();
+            return;
+        }
+
+        if (mPipeline != null) {
+            prepareFromPipeline();
+            return;
+        }
+
+        BufferUpdatePolicy updatePolicy = mMesh.getBufferUpdatePolicy();
+        boolean indices = updatePolicy.uploadsIndices(mMesh.prepareGeometry()) || isIndexVBOBehind(updatePolicy);
+
+        updateVBOs(updatePolicy.updatesSecondaryData(), indices);
+    }
+
+    /**
+     * Uploads the newest frame the geometry thread has finished, if it's one that hasn't been
+     * uploaded yet
+     */
+    private void prepareFromPipeline() {
+        mFrame = mPipeline.acquire();
+
+        if (mFrame.getSequence() == mDrawnSequence) {
+            return; //The geometry thread hasn't finished the next one, so the current slice is drawn again
+        }
+
+        mDrawnSequence = mFrame.getSequence();
+
+        //A slice that's never been written doesn't have any secondary data in it yet
+        BufferUpdatePolicy updatePolicy = mMesh.getBufferUpdatePolicy();
+        boolean writeSecondary = mVertexFormat.uploadsSecondaryData(!mStreamingVertBuffer.nextSlice() || updatePolicy.updatesSecondaryData());
+        int vertBytes = mVertexFormat.getUploadBytes(mMesh.getVertices3d().length / 3, writeSecondary);
+
+        ByteBuffer vertexData = mFrame.getVertexData();
+        vertexData.clear();
+        vertexData.limit(vertBytes);
+
+        mStreamingVertBuffer.map(0, vertBytes).put(vertexData);
+        mStreamingVertBuffer.unmap();
+
+        mUploadStats.addVertexBytes(vertBytes);
+
+        if (updatePolicy == BufferUpdatePolicy.DYNAMIC || mFrame.getIndicesVersion() != mUploadedIndicesVersion) {
+            ByteBuffer indexData = mFrame.getIndexData();
+            indexData.clear();
+
+            updateIndexVBO(indexData);
+            mUploadedIndicesVersion = mFrame.getIndicesVersion();
+        }
+    }
+
+    /**
+     * Makes the geometry thread's frames
+     */
+    private class GeometryProducer implements GeometryPipeline.Producer {
+        private final Animator    mAnimator;
+        private final NDTransform mFrameRotation = new NDTransform(mMesh.getDimensions());
+
+        private long mPrevStartNanos;
+        private int  mIndicesVersion;
+
+        GeometryProducer(Animator animator) {
+            mAnimator = animator;
+        }
+
+        @Override
+        public void produce(GeometryFrame frame) {
+            long frameNanos = mPrevStartNanos == 0 ? 0 : frame.getStartNanos() - mPrevStartNanos;
+            mPrevStartNanos = frame.getStartNanos();
+
+            mAnimator.nextRotation(frameNanos, mFrameRotation);
+            mMesh.transform(mFrameRotation);
+
+            if (mMesh.prepareGeometry()) {
+                mIndicesVersion++;
+            }
+
+            //Separate floats put the secondary data after the positions, where the GL thread can leave it out
+            ByteBuffer vertexData = frame.getVertexData();
+            vertexData.clear();
+            mVertexFormat.write(mMesh.getVertices3d(), mMesh.getSecondaryData(), true, vertexData);
+
+            //Each frame only needs the indices rewriting if they've been reordered since it last had them
+            if (frame.getIndicesVersion() != mIndicesVersion) {
+                if (frame.getIndexShorts() != null) {
+                    putIndices(mMesh.getIndices(), frame.getIndexShorts());
+                } else {
+                    IntBuffer indexInts = frame.getIndexInts();
+                    indexInts.clear();
+                    indexInts.put(mMesh.getIndices());
+                }
+
+                frame.setIndicesVersion(mIndicesVersion);
+            }
+        }
+    }
+
+    /**
+     * Moves the per frame projection, secondary data and sorting onto a background thread. The
+     * GL thread then only uploads whatever frame the background thread most recently finished,
+     * so the geometry is up to a frame older by the time it's drawn. Until
+     * stopAsyncGeometry(), the orientation is only changed through animator. Not available
+     * with GPU projection.
+     *
+     * @param animator Supplies each frame's rotation
+     */
+    public void startAsyncGeometry(Animator animator) {
+        if (mGpuProjection) {
+            throw new IllegalStateException("The GPU projection path can't be used with background geometry");
+        }
+
+        if (mEdgeMode) {
+            throw new IllegalStateException("Edge mode can't be used with background geometry");
+        }
+
+        if (mPipeline != null) {
+            return;
+        }
+
+        //Unless it's behind, what's in the index VBO is what's in the mesh's indices now. Frames
+        //start out never written, so -1 has the first one uploaded.
+        mUploadedIndicesVersion = isIndexVBOBehind(mMesh.getBufferUpdatePolicy()) ? -1 : 0;
+        mDrawnSequence = 0;
+
+        mPipeline = new GeometryPipeline(
+                new GeometryProducer(animator),
+                mMesh.getVertices3d().length + mMesh.getSecondaryData().length,
+                mMesh.getIndices().length,
+                mIndexType);
+
+        mPipeline.start();
+    }
+
+    /**
+     * Stops the background geometry thread and goes back to preparing the geometry in prepare()
+     */
+    public void stopAsyncGeometry() {
+        if (mPipeline == null) {
+            return;
+        }
+
+        mPipeline.stop();
+        mPipeline = null;
+        mFrame = null;
+        mIndicesStale = true;   //The index VBO could be a frame behind the mesh's indices
+    }
+
+    /**
+     * @return Whether the geometry is being prepared on a background thread
+     */
+    public boolean isAsyncGeometry() {
+        return mPipeline != null;
+    }
+
+    /**
+     * @return The time from starting to prepare each frame's geometry to the end of the frame
+     *         that draws it, whichever thread it was prepared on
+     */
+    public PhaseTimer getFrameLatency() {
+        return mLatencyTimer;
+    }
+
+    /**
+     * @return The number of draw calls submit() has made since the last prepare()
+     */
+    public int getFrameDrawCalls() {
+        return mFrameDrawCalls;
+    }
+
+    /**
+     * Draws what the last prepare() uploaded. This only binds and draws, so it's cheap to call
+     * once per eye.
+     */
+    public void submit() {
+        if (mInstances != null) {
+            submitInstances();
+            return;
+        }
+
+        mFrameDrawCalls++;
+
+        if (mGpuProjection) {
+            mGL.glBindBufferBase(GLBackend.GL_UNIFORM_BUFFER, ORIENTATION_BINDING, mOrientationUBO);
+
+            mGL.glBindVertexArray(mGpuVAO);
+            mGL.glDrawElements(GLBackend.GL_TRIANGLES, mMesh.getIndices().length, mIndexType, 0);
+            mGL.glBindVertexArray(0);
+            return;
+        }
+
+        if (mEdgeMode) {
+            mGL.glBindVertexArray(mEdgeVAO);
+            mGL.glBindBuffer(GLBackend.GL_ARRAY_BUFFER, mVertVBO);
+            mGL.glVertexAttribPointer(mPosHandle, 3, GLBackend.GL_FLOAT, false, 0, mStreamingVertBuffer.getSliceOffset());
+            mGL.glBindBuffer(GLBackend.GL_ARRAY_BUFFER, 0);
+
+            mGL.glDrawElements(GLBackend.GL_LINES, mMesh.getEdges().getIndices().length, mEdgeIndexType, 0);
+            mGL.glBindVertexArray(0);
+            return;
+        }
+
+        mGL.glBindVertexArray(mVAO);
+        bindVertexSlice();
+        mGL.glDrawElements(GLBackend.GL_TRIANGLES, mMesh.getIndices().length, mIndexType, 0);
+        mGL.glBindVertexArray(0);
+    }
+
+    /**
+     * Draws every copy, one draw per block of them
+     */
+    private void submitInstances() {
+        mGL.glBindVertexArray(mGpuVAO);
+
+        for (int batch = 0; batch < mInstances.getBatchCount(); batch++) {
+            mGL.glBindBufferRange(
+                    GLBackend.GL_UNIFORM_BUFFER,
+                    INSTANCES_BINDING,
+                    mInstanceUBO,
+                    batch * ShapeInstances.BLOCK_SIZE,
+                    ShapeInstances.BLOCK_SIZE);
+
+            mGL.glDrawElementsInstanced(GLBackend.GL_TRIANGLES, mMesh.getIndices().length, mIndexType, 0,
+                    mInstances.getBatchInstanceCount(batch));
+
+            mFrameDrawCalls++;
+        }
+
+        mGL.glBindVertexArray(0);
+    }
+
+    /**
+     * Marks the end of the frame once every submit() for it has been made, so the vertex slice
+     * they read from isn't overwritten until the GPU is done with it
+     */
+    public void finishFrame() {
+        if (!mGpuProjection) {
+            mStreamingVertBuffer.fenceSlice();
+        }
+
+        long startNanos = mPipeline != null ? mFrame.getStartNanos() : mFrameStartNanos;
+        mLatencyTimer.add(System.nanoTime() - startNanos);
+    }
+
+    /**
+     * Draws the NDShape to the screen from a single view
+     */
+    public void draw() {
+        prepare();
+        submit();
+        finishFrame();
+    }
+
+    /**
+     * @return The ring the vertex data is streamed through
+     */
+    public StreamingVertexBuffer getStreamingVertexBuffer() {
+        return mStreamingVertBuffer;
+    }
+
+    /**
+     * @return The buffer object the indices are drawn from
+     */
+    public int getIndexBuffer() {
+        return mIndexVBO;
+    }
+
+    /**
+     * @return The static vertex buffer object the GPU projection path draws from, or 0 if it's
+     *         never been turned on
+     */
+    public int getGpuVertexBuffer() {
+        return mGpuVertVBO;
+    }
+}
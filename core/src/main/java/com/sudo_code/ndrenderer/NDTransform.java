@@ -0,0 +1,171 @@
+package com.sudo_code.ndrenderer;
+
+/**
+ * An N dimensional linear transform stored as a DxD matrix. Any number of plane rotations can be
+ * composed into it once and then applied to a whole array of vertices in a single pass, instead
+ * of rotating every vertex once per plane.
+ */
+public class NDTransform {
+    private final int     mDimensions;
+    private final float[] mMatrix;  //Row major, so result[row] = sum(mMatrix[row * D + col] * vector[col])
+    private final float[] mVertex;  //Scratch space for the vertex being transformed
+    private final float[] mProduct; //Scratch space for concat()
+
+    /**
+     * Initializes the transform to the identity
+     *
+     * @param dimensions The number of dimensions of the vectors being transformed
+     */
+    public NDTransform(int dimensions) {
+        mDimensions = dimensions;
+        mMatrix     = new float[dimensions * dimensions];
+        mVertex     = new float[dimensions];
+        mProduct    = new float[dimensions * dimensions];
+
+        setIdentity();
+    }
+
+    /**
+     * Resets the transform to the identity
+     */
+    public void setIdentity() {
+        for (int row = 0; row < mDimensions; row++) {
+            for (int col = 0; col < mDimensions; col++) {
+                mMatrix[row * mDimensions + col] = row == col ? 1.f : 0.f;
+            }
+        }
+    }
+
+    /**
+     * Adds a rotation on the plane of axis1 and axis2 after the rest of the transform. This
+     * rotates the same way as NDVector.rotate with a rotation plane of {axis1, axis2}.
+     *
+     * @param angle The angle to rotate by (in radians)
+     * @param axis1 The first axis of the plane of rotation
+     * @param axis2 The second axis of the plane of rotation
+     */
+    public void rotate(float angle, int axis1, int axis2) {
+        float cos = (float) Math.cos(angle);
+        float sin = (float) Math.sin(angle);
+
+        //Multiplying by a rotation on the left only changes the rows of the two axes
+        int row1 = axis1 * mDimensions;
+        int row2 = axis2 * mDimensions;
+
+        for (int col = 0; col < mDimensions; col++) {
+            float value1 = mMatrix[row1 + col];
+            float value2 = mMatrix[row2 + col];
+
+            mMatrix[row1 + col] = value1 * cos - value2 * sin;
+            mMatrix[row2 + col] = value2 * cos + value1 * sin;
+        }
+    }
+
+    /**
+     * Adds another transform after this one (this = transform * this)
+     *
+     * @param transform The transform to add (must have the same number of dimensions)
+     */
+    public void concat(NDTransform transform) {
+        float[] other = transform.mMatrix;
+
+        for (int row = 0; row < mDimensions; row++) {
+            for (int col = 0; col < mDimensions; col++) {
+                float result = 0;
+
+                for (int i = 0; i < mDimensions; i++) {
+                    result += other[row * mDimensions + i] * mMatrix[i * mDimensions + col];
+                }
+
+                mProduct[row * mDimensions + col] = result;
+            }
+        }
+
+        System.arraycopy(mProduct, 0, mMatrix, 0, mMatrix.length);
+    }
+
+    /**
+     * Makes the rows of the matrix orthonormal again with Gram-Schmidt. A product of rotations
+     * should always be orthonormal, but float rounding makes it drift away from that as more
+     * rotations are added, which would slowly skew and scale the shape.
+     */
+    public void orthonormalize() {
+        for (int row = 0; row < mDimensions; row++) {
+            int rowI = row * mDimensions;
+
+            for (int prevRow = 0; prevRow < row; prevRow++) {  //Remove the parts along the previous rows
+                int prevRowI = prevRow * mDimensions;
+                float dot = 0;
+
+                for (int col = 0; col < mDimensions; col++) {
+                    dot += mMatrix[rowI + col] * mMatrix[prevRowI + col];
+                }
+
+                for (int col = 0; col < mDimensions; col++) {
+                    mMatrix[rowI + col] -= dot * mMatrix[prevRowI + col];
+                }
+            }
+
+            float length = 0;
+            for (int col = 0; col < mDimensions; col++) {
+                length += mMatrix[rowI + col] * mMatrix[rowI + col];
+            }
+
+            float invLength = 1.f / (float) Math.sqrt(length);
+            for (int col = 0; col < mDimensions; col++) {
+                mMatrix[rowI + col] *= invLength;
+            }
+        }
+    }
+
+    /**
+     * Transforms a single vertex from src into dst (which can't be the same vertex)
+     *
+     * @param src The array holding the vertex to transform
+     * @param srcOffset The index of the first component of the vertex in src
+     * @param dst The array to write the transformed vertex to
+     * @param dstOffset The index to write the first component of the transformed vertex to
+     */
+    public void apply(float[] src, int srcOffset, float[] dst, int dstOffset) {
+        for (int row = 0; row < mDimensions; row++) {
+            int rowI = row * mDimensions;
+            float result = 0;
+
+            for (int col = 0; col < mDimensions; col++) {
+                result += mMatrix[rowI + col] * src[srcOffset + col];
+            }
+
+            dst[dstOffset + row] = result;
+        }
+    }
+
+    /**
+     * Transforms vertexCount consecutive vertices in place
+     *
+     * @param vertices The vertices, in the form x,y,z,w...x,y etc.
+     * @param offset The index of the first component of the first vertex
+     * @param vertexCount The number of vertices to transform
+     */
+    public void apply(float[] vertices, int offset, int vertexCount) {
+        int end = offset + vertexCount * mDimensions;
+
+        for (int vertI = offset; vertI < end; vertI += mDimensions) {
+            System.arraycopy(vertices, vertI, mVertex, 0, mDimensions);
+            apply(mVertex, 0, vertices, vertI);
+        }
+    }
+
+    /**
+     * @return The number of dimensions of the transform
+     */
+    public int getDimensions() {
+        return mDimensions;
+    }
+
+    /**
+     * @return The row major DxD matrix backing the transform (not a copy)
+     */
+    public float[] getMatrix() {
+        return mMatrix;
+    }
+}
@@ -0,0 +1,291 @@
+package com.sudo_code.ndrenderer;
+
+/**
+ * Vector maths on float arrays. Every operation comes in two forms: one that takes whole arrays
+ * and returns a new one, and one that works on vectors at an offset inside bigger (strided)
+ * arrays and writes its result into an array it's given. The second form never allocates, so
+ * it's the one to use in anything that runs every frame. Unless it says otherwise, the
+ * destination of those can be the same as (but not partially overlap) a source.
+ */
+public class NDVector {
+
+    /**
+     * Calculates the cross product between two 3D vectors, a and b
+     *
+     * @param vector1 The first vector
+     * @param vector2 The second vector
+     * @return The cross product of a and b
+     */
+    public static float[] cross(float[] vector1, float[] vector2) {
+        float[] result = new float[3];
+        cross(vector1, 0, vector2, 0, result, 0);
+        return result;
+    }
+
+    /**
+     * Calculates the cross product between two 3D vectors
+     *
+     * @param src1 The array holding the first vector
+     * @param src1Off The index of the first vector's first component
+     * @param src2 The array holding the second vector
+     * @param src2Off The index of the second vector's first component
+     * @param dst The array to write the cross product to
+     * @param dstOff The index to write the first component to
+     */
+    public static void cross(float[] src1, int src1Off, float[] src2, int src2Off, float[] dst, int dstOff) {
+        float x = src1[src1Off + 1] * src2[src2Off + 2] - src1[src1Off + 2] * src2[src2Off + 1];
+        float y = src1[src1Off + 2] * src2[src2Off + 0] - src1[src1Off + 0] * src2[src2Off + 2];
+        float z = src1[src1Off + 0] * src2[src2Off + 1] - src1[src1Off + 1] * src2[src2Off + 0];
+
+        dst[dstOff + 0] = x;
+        dst[dstOff + 1] = y;
+        dst[dstOff + 2] = z;
+    }
+
+    /**
+     * Calculates the unit normal of a 3D triangle, (vert2 - vert1) x (vert3 - vert1) normalized
+     *
+     * @param src The array holding the vertices
+     * @param vert1Off The index of the first vertex's first component
+     * @param vert2Off The index of the second vertex's first component
+     * @param vert3Off The index of the third vertex's first component
+     * @param dst The array to write the normal to
+     * @param dstOff The index to write the first component to
+     */
+    public static void triangleNormal(float[] src, int vert1Off, int vert2Off, int vert3Off, float[] dst, int dstOff) {
+        float side1X = src[vert2Off + 0] - src[vert1Off + 0];
+        float side1Y = src[vert2Off + 1] - src[vert1Off + 1];
+        float side1Z = src[vert2Off + 2] - src[vert1Off + 2];
+
+        float side2X = src[vert3Off + 0] - src[vert1Off + 0];
+        float side2Y = src[vert3Off + 1] - src[vert1Off + 1];
+        float side2Z = src[vert3Off + 2] - src[vert1Off + 2];
+
+        float x = side1Y * side2Z - side1Z * side2Y;
+        float y = side1Z * side2X - side1X * side2Z;
+        float z = side1X * side2Y - side1Y * side2X;
+
+        float invLength = 1 / (float) Math.sqrt(x * x + y * y + z * z);
+
+        dst[dstOff + 0] = x * invLength;
+        dst[dstOff + 1] = y * invLength;
+        dst[dstOff + 2] = z * invLength;
+    }
+
+    /**
+     * Calculates the vector normalized
+     *
+     * @param vector The vector
+     * @return The input vector normalized
+     */
+    public static float[] normalize(float[] vector) {
+        float[] result = new float[vector.length];
+        normalize(vector, 0, vector.length, result, 0);
+        return result;
+    }
+
+    /**
+     * Normalizes a vector
+     *
+     * @param src The array holding the vector
+     * @param srcOff The index of the vector's first component
+     * @param length The number of components of the vector
+     * @param dst The array to write the normalized vector to
+     * @param dstOff The index to write the first component to
+     */
+    public static void normalize(float[] src, int srcOff, int length, float[] dst, int dstOff) {
+        mult(1 / getLength(src, srcOff, length), src, srcOff, length, dst, dstOff);
+    }
+
+    /**
+     * Calculates the length of the vector
+     *
+     * @param vector The vector
+     * @return The length of the vector
+     */
+    public static float getLength(float[] vector) {
+        return getLength(vector, 0, vector.length);
+    }
+
+    /**
+     * Calculates the length of a vector
+     *
+     * @param src The array holding the vector
+     * @param srcOff The index of the vector's first component
+     * @param length The number of components of the vector
+     * @return The length of the vector
+     */
+    public static float getLength(float[] src, int srcOff, int length) {
+        float lengthSquared = 0;
+
+        for (int i = srcOff; i < srcOff + length; i++) {
+            lengthSquared += src[i] * src[i];
+        }
+
+        return (float) Math.sqrt(lengthSquared);
+    }
+
+    /**
+     * Calculates the scalar multiplied by the vector
+     *
+     * @param scalar The scalar
+     * @param vector The vector
+     * @return The scalar multiplied by the vector
+     */
+    public static float[] mult(float scalar, float[] vector) {
+        float[] result = new float[vector.length];
+        mult(scalar, vector, 0, vector.length, result, 0);
+        return result;
+    }
+
+    /**
+     * Multiplies a vector by a scalar
+     *
+     * @param scalar The scalar
+     * @param src The array holding the vector
+     * @param srcOff The index of the vector's first component
+     * @param length The number of components of the vector
+     * @param dst The array to write the result to
+     * @param dstOff The index to write the first component to
+     */
+    public static void mult(float scalar, float[] src, int srcOff, int length, float[] dst, int dstOff) {
+        for (int i = 0; i < length; i++) {
+            dst[dstOff + i] = src[srcOff + i] * scalar;
+        }
+    }
+
+    /**
+     * Calculates the vector1 + vector2
+     *
+     * @param vector1 The first vector
+     * @param vector2 The second vector
+     * @return vector1 + vector2
+     */
+    public static float[] add(float[] vector1, float[] vector2) {
+        float[] result = new float[vector1.length];
+        add(vector1, 0, vector2, 0, vector1.length, result, 0);
+        return result;
+    }
+
+    /**
+     * Adds two vectors
+     *
+     * @param src1 The array holding the first vector
+     * @param src1Off The index of the first vector's first component
+     * @param src2 The array holding the second vector
+     * @param src2Off The index of the second vector's first component
+     * @param length The number of components of the vectors
+     * @param dst The array to write first + second to
+     * @param dstOff The index to write the first component to
+     */
+    public static void add(float[] src1, int src1Off, float[] src2, int src2Off, int length, float[] dst, int dstOff) {
+        for (int i = 0; i < length; i++) {
+            dst[dstOff + i] = src1[src1Off + i] + src2[src2Off + i];
+        }
+    }
+
+    /**
+     * Calculates the vector1 - vector2
+     *
+     * @param vector1 The first vector
+     * @param vector2 The second vector
+     * @return vector1 - vector2
+     */
+    public static float[] sub(float[] vector1, float[] vector2) {
+        float[] result = new float[vector1.length];
+        sub(vector1, 0, vector2, 0, vector1.length, result, 0);
+        return result;
+    }
+
+    /**
+     * Subtracts one vector from another
+     *
+     * @param src1 The array holding the first vector
+     * @param src1Off The index of the first vector's first component
+     * @param src2 The array holding the second vector
+     * @param src2Off The index of the second vector's first component
+     * @param length The number of components of the vectors
+     * @param dst The array to write first - second to
+     * @param dstOff The index to write the first component to
+     */
+    public static void sub(float[] src1, int src1Off, float[] src2, int src2Off, int length, float[] dst, int dstOff) {
+        for (int i = 0; i < length; i++) {
+            dst[dstOff + i] = src1[src1Off + i] - src2[src2Off + i];
+        }
+    }
+
+    /**
+     * Calculates matrix * vector
+     *
+     * Assumes the matrix is indexed column major ([x][y])
+     *
+     * @param matrix The matrix
+     * @param vector The vector
+     * @return matrix * vector
+     */
+    public static float[] multMatrix(float[][] matrix, float[] vector) {
+        float[] result = new float[vector.length];
+        multMatrix(matrix, vector, 0, vector.length, result, 0);
+        return result;
+    }
+
+    /**
+     * Multiplies a vector by a matrix (matrix * vector)
+     *
+     * Assumes the matrix is indexed column major ([x][y]). The destination can't be the source.
+     *
+     * @param matrix The matrix
+     * @param src The array holding the vector
+     * @param srcOff The index of the vector's first component
+     * @param length The number of components of the vector
+     * @param dst The array to write the result to
+     * @param dstOff The index to write the first component to
+     */
+    public static void multMatrix(float[][] matrix, float[] src, int srcOff, int length, float[] dst, int dstOff) {
+        for (int y = 0; y < length; y++) {
+            float result = 0;
+
+            for (int x = 0; x < matrix.length; x++) {
+                result += matrix[x][y] * src[srcOff + x];
+            }
+
+            dst[dstOff + y] = result;
+        }
+    }
+
+    /**
+     * Rotates a vector along a plane
+     *
+     * @param vector The vector
+     * @param angle The angle the vector is rotated by (in radians)
+     * @param rotationPlane The plane of rotation (a length two vector containing the dimensions
+     *                      of the rotation plane, e.g. XZ would be {0, 2})
+     * @return The rotated vector
+     */
+    public static float[] rotate(float[] vector, float angle, int[] rotationPlane) {
+        float[] result = vector.clone();
+
+        rotate(result, 0, (float) Math.cos(angle), (float) Math.sin(angle), rotationPlane[0], rotationPlane[1]);
+
+        return result;
+    }
+
+    /**
+     * Rotates a vector in place along a plane. The sine and cosine are taken precomputed so that
+     * rotating lots of vectors by the same angle doesn't recompute them.
+     *
+     * @param vector The array holding the vector
+     * @param offset The index of the vector's first component
+     * @param cos The cosine of the angle to rotate by
+     * @param sin The sine of the angle to rotate by
+     * @param axis1 The first axis of the plane of rotation
+     * @param axis2 The second axis of the plane of rotation
+     */
+    public static void rotate(float[] vector, int offset, float cos, float sin, int axis1, int axis2) {
+        float value1 = vector[offset + axis1];
+        float value2 = vector[offset + axis2];
+
+        vector[offset + axis1] = value1 * cos - value2 * sin;
+        vector[offset + axis2] = value2 * cos + value1 * sin;
+    }
+}
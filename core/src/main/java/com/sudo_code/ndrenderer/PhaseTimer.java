@@ -0,0 +1,55 @@
+package com.sudo_code.ndrenderer;
+
+/**
+ * Accumulates the time spent in one phase of a frame (e.g. preparing the geometry or submitting
+ * the draws for an eye) so the cost of each phase can be compared.
+ */
+public class PhaseTimer {
+    private long mStart;
+    private long mTotalNanos;
+    private long mCalls;
+
+    public void start() {
+        mStart = System.nanoTime();
+    }
+
+    public void stop() {
+        add(System.nanoTime() - mStart);
+    }
+
+    /**
+     * Counts a call that was timed somewhere else, e.g. across threads
+     *
+     * @param nanos How long the call took in nanoseconds
+     */
+    public void add(long nanos) {
+        mTotalNanos += nanos;
+        mCalls++;
+    }
+
+    /**
+     * @return The total time spent in the phase in nanoseconds
+     */
+    public long getTotalNanos() {
+        return mTotalNanos;
+    }
+
+    /**
+     * @return The number of times the phase has been timed
+     */
+    public long getCalls() {
+        return mCalls;
+    }
+
+    /**
+     * @return The average time spent in the phase per call in nanoseconds
+     */
+    public long getAverageNanos() {
+        return mCalls == 0 ? 0 : mTotalNanos / mCalls;
+    }
+
+    public void reset() {
+        mTotalNanos = 0;
+        mCalls = 0;
+    }
+}
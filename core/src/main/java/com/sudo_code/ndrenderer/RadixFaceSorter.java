@@ -0,0 +1,91 @@
+package com.sudo_code.ndrenderer;
+
+import java.util.Arrays;
+
+/**
+ * Orders faces with an LSD radix sort on the bit patterns of the depth keys, which is O(n) in
+ * the number of faces. The depth keys are never negative, so their IEEE 754 bit patterns compare
+ * the same way as the floats themselves do, once the sign bit of -0 is cleared.
+ */
+public class RadixFaceSorter extends FaceSorter {
+    private static final int RADIX_BITS = 11;
+    private static final int RADIX      = 1 << RADIX_BITS;
+    private static final int RADIX_MASK = RADIX - 1;
+    private static final int PASSES     = 3;    //3 * 11 bits covers all 32 bits of a float
+    private static final int SIGN_MASK  = 0x7FFFFFFF;
+
+    private int[] mKeys        = new int[0];
+    private int[] mKeysScratch = new int[0];
+    private int[] mOrderScratch = new int[0];
+    private final int[] mCounts = new int[RADIX];
+
+    @Override
+    protected void ensureCapacity(int faceCount) {
+        super.ensureCapacity(faceCount);
+
+        if (mKeys.length < faceCount) {
+            mKeys         = new int[faceCount];
+            mKeysScratch  = new int[faceCount];
+            mOrderScratch = new int[faceCount];
+        }
+    }
+
+    @Override
+    protected void order(int faceCount) {
+        if (faceCount == 0) {
+            return;
+        }
+
+        int[] keys  = mKeys;
+        int[] order = mOrder;
+        int[] keysOut  = mKeysScratch;
+        int[] orderOut = mOrderScratch;
+
+        for (int faceI = 0; faceI < faceCount; faceI++) {
+            //Inverting the bits sorts the farthest face first, and clearing the sign puts -0 with 0
+            keys[faceI]  = ~(Float.floatToRawIntBits(mDepthKeys[faceI]) & SIGN_MASK);
+            order[faceI] = faceI;
+        }
+
+        for (int pass = 0; pass < PASSES; pass++) {
+            int shift = pass * RADIX_BITS;
+
+            Arrays.fill(mCounts, 0);
+
+            for (int faceI = 0; faceI < faceCount; faceI++) {
+                mCounts[(keys[faceI] >>> shift) & RADIX_MASK]++;
+            }
+
+            if (mCounts[(keys[0] >>> shift) & RADIX_MASK] == faceCount) {
+                continue;   //Every key has the same digit, so this pass wouldn't move anything
+            }
+
+            int total = 0;  //Turn the counts into starting offsets
+            for (int digit = 0; digit < RADIX; digit++) {
+                int count = mCounts[digit];
+                mCounts[digit] = total;
+                total += count;
+            }
+
+            for (int faceI = 0; faceI < faceCount; faceI++) {
+                int key  = keys[faceI];
+                int dest = mCounts[(key >>> shift) & RADIX_MASK]++;
+
+                keysOut[dest]  = key;
+                orderOut[dest] = order[faceI];
+            }
+
+            int[] temp = keys;
+            keys = keysOut;
+            keysOut = temp;
+
+            temp = order;
+            order = orderOut;
+            orderOut = temp;
+        }
+
+        if (order != mOrder) {
+            System.arraycopy(order, 0, mOrder, 0, faceCount);
+        }
+    }
+}
@@ -0,0 +1,690 @@
+package com.sudo_code.ndrenderer;
+
+import java.nio.Buffer;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.ShortBuffer;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * A GLBackend that draws nothing and instead records what it was asked to do: how many times
+ * each call was made, how many bytes were uploaded to buffer objects (by glBufferData,
+ * glBufferSubData and mapped writes) and the size of every draw. Everything is counted both per
+ * frame, from the last beginFrame(), and in total, so upload reductions can be checked on the JVM.
+ *
+ * It keeps track of buffer sizes and bindings, and throws an IllegalStateException for the
+ * mistakes a driver would only report with glGetError(): writing outside of a buffer, binding a
+ * range outside of one, unmapping a buffer that isn't mapped and drawing without a vertex array
+ * object bound. Shaders always compile, programs always link and fences have always signalled.
+ */
+public class RecordingGLBackend implements GLBackend {
+    private final Map<String, long[]> mCalls = new HashMap<>();          //{frame, total} per call
+    private final Map<Integer, long[]> mUploadedBytes = new HashMap<>(); //{frame, total} per target
+
+    private final Map<Integer, Integer> mBoundBuffers  = new HashMap<>();    //Buffer bound to each target
+    private final Map<Integer, Integer> mBufferSizes   = new HashMap<>();    //Bytes allocated for each buffer
+    private final Map<Integer, Integer> mMappedLengths = new HashMap<>();    //Bytes mapped on each target
+    private final Map<Integer, Buffer>  mBufferData    = new HashMap<>();    //What each buffer was last allocated from
+
+    private int  mNextName = 1;
+    private long mNextSync = 1;
+    private int  mBoundVertexArray;
+    private int  mBoundFramebuffer;
+    private final int[] mViewport  = new int[4];
+    private final int[] mBlendFunc = {GL_ONE, GL_ZERO, GL_ONE, GL_ZERO};  //srcRGB, dstRGB, srcAlpha, dstAlpha
+
+    private long mFrames;
+    private int  mFrameDraws;
+    private int[] mFrameDrawSizes = new int[16];
+    private long mTotalDraws;
+    private long mTotalDrawnIndices;
+    private int  mLastDrawMode = -1; //GL_POINTS is 0
+    private int  mLastDrawType;
+    private int  mLastDrawInstanceCount;
+
+    private ByteBuffer mMapScratch = ByteBuffer.allocateDirect(0);
+
+    /**
+     * Starts counting a new frame
+     */
+    public void beginFrame() {
+        for (long[] counts : mCalls.values()) {
+            counts[0] = 0;
+        }
+
+        for (long[] bytes : mUploadedBytes.values()) {
+            bytes[0] = 0;
+        }
+
+        mFrameDraws = 0;
+        mFrames++;
+    }
+
+    /**
+     * @return The number of times beginFrame() has been called
+     */
+    public long getFrames() {
+        return mFrames;
+    }
+
+    /**
+     * @param name The name of the call, e.g. "glBufferSubData"
+     * @return The number of times it's been made in the current frame
+     */
+    public long getFrameCallCount(String name) {
+        long[] counts = mCalls.get(name);
+        return counts == null ? 0 : counts[0];
+    }
+
+    /**
+     * @param name The name of the call, e.g. "glBufferSubData"
+     * @return The number of times it's been made in total
+     */
+    public long getTotalCallCount(String name) {
+        long[] counts = mCalls.get(name);
+        return counts == null ? 0 : counts[1];
+    }
+
+    /**
+     * @return The number of calls of any kind made in the current frame
+     */
+    public long getFrameCallCount() {
+        long calls = 0;
+
+        for (long[] counts : mCalls.values()) {
+            calls += counts[0];
+        }
+
+        return calls;
+    }
+
+    /**
+     * @param target The buffer target, e.g. GL_ARRAY_BUFFER
+     * @return The bytes uploaded to buffers bound to target in the current frame
+     */
+    public long getFrameBytes(int target) {
+        long[] bytes = mUploadedBytes.get(target);
+        return bytes == null ? 0 : bytes[0];
+    }
+
+    /**
+     * @return The bytes uploaded to buffers in the current frame
+     */
+    public long getFrameBytes() {
+        long frameBytes = 0;
+
+        for (long[] bytes : mUploadedBytes.values()) {
+            frameBytes += bytes[0];
+        }
+
+        return frameBytes;
+    }
+
+    /**
+     * @return The bytes uploaded to buffers in total
+     */
+    public long getTotalBytes() {
+        long totalBytes = 0;
+
+        for (long[] bytes : mUploadedBytes.values()) {
+            totalBytes += bytes[1];
+        }
+
+        return totalBytes;
+    }
+
+    /**
+     * @return The number of elements drawn by each draw call in the current frame, in order
+     */
+    public int[] getFrameDrawSizes() {
+        return Arrays.copyOf(mFrameDrawSizes, mFrameDraws);
+    }
+
+    /**
+     * @return The number of draw calls made in total
+     */
+    public long getTotalDraws() {
+        return mTotalDraws;
+    }
+
+    /**
+     * @return The number of elements drawn in total, counting every copy of instanced draws
+     */
+    public long getTotalDrawnIndices() {
+        return mTotalDrawnIndices;
+    }
+
+    /**
+     * @return The primitive mode of the last draw call, e.g. GL_LINES, or -1 if there hasn't been one
+     */
+    public int getLastDrawMode() {
+        return mLastDrawMode;
+    }
+
+    /**
+     * @return The number of copies the last draw call drew, 1 unless it was instanced, or 0 if
+     *         there hasn't been one
+     */
+    public int getLastDrawInstanceCount() {
+        return mLastDrawInstanceCount;
+    }
+
+    /**
+     * @return The index type of the last draw call, e.g. GL_UNSIGNED_SHORT, or 0 if there hasn't been one
+     */
+    public int getLastDrawType() {
+        return mLastDrawType;
+    }
+
+    /**
+     * @return The framebuffer last bound, 0 for the default one
+     */
+    public int getBoundFramebuffer() {
+        return mBoundFramebuffer;
+    }
+
+    /**
+     * @return The blend factors last set, {srcRGB, dstRGB, srcAlpha, dstAlpha}
+     */
+    public int[] getBlendFunc() {
+        return mBlendFunc.clone();
+    }
+
+    /**
+     * @param buffer A buffer object
+     * @return The data glBufferData last allocated it from (the Buffer itself, not a copy), or
+     *         null if it's never been allocated from any
+     */
+    public Buffer getBufferData(int buffer) {
+        return mBufferData.get(buffer);
+    }
+
+    /**
+     * @param buffer A buffer object
+     * @return The bytes allocated for it by glBufferData, or -1 if it's never been allocated
+     */
+    public int getBufferSize(int buffer) {
+        Integer size = mBufferSizes.get(buffer);
+        return size == null ? -1 : size;
+    }
+
+    private void record(String name) {
+        long[] counts = mCalls.get(name);
+
+        if (counts == null) {
+            counts = new long[2];
+            mCalls.put(name, counts);
+        }
+
+        counts[0]++;
+        counts[1]++;
+    }
+
+    private void recordUpload(int target, long size) {
+        long[] bytes = mUploadedBytes.get(target);
+
+        if (bytes == null) {
+            bytes = new long[2];
+            mUploadedBytes.put(target, bytes);
+        }
+
+        bytes[0] += size;
+        bytes[1] += size;
+    }
+
+    /**
+     * @return The buffer bound to target, throwing if there isn't one
+     */
+    /**
+     * @return The bytes between data's position and its limit
+     */
+    private static long getRemainingBytes(Buffer data) {
+        if (data instanceof ByteBuffer) {
+            return data.remaining();
+        }
+
+        return (long) data.remaining() * (data instanceof ShortBuffer ? 2 : 4);
+    }
+
+    private int getBoundBuffer(int target, String call) {
+        Integer buffer = mBoundBuffers.get(target);
+
+        if (buffer == null || buffer == 0) {
+            throw new IllegalStateException(call + " with no buffer bound to 0x" + Integer.toHexString(target));
+        }
+
+        return buffer;
+    }
+
+    /**
+     * Throws if [offset, offset + size) isn't inside the buffer bound to target
+     */
+    private void checkRange(int target, int offset, int size, String call) {
+        int buffer = getBoundBuffer(target, call);
+        int bufferSize = getBufferSize(buffer);
+
+        if (offset < 0 || size < 0 || offset + size > bufferSize) {
+            throw new IllegalStateException(call + " of [" + offset + ", " + (offset + size) +
+                    ") is outside buffer " + buffer + " of " + bufferSize + " bytes");
+        }
+    }
+
+    private void genNames(int n, int[] names, int offset) {
+        for (int i = 0; i < n; i++) {
+            names[offset + i] = mNextName++;
+        }
+    }
+
+    @Override
+    public int glGetError() {
+        record("glGetError");
+        return GL_NO_ERROR;
+    }
+
+    @Override
+    public void glGenBuffers(int n, int[] buffers, int offset) {
+        record("glGenBuffers");
+        genNames(n, buffers, offset);
+    }
+
+    @Override
+    public void glBindBuffer(int target, int buffer) {
+        record("glBindBuffer");
+        mBoundBuffers.put(target, buffer);
+    }
+
+    @Override
+    public void glBindBufferBase(int target, int index, int buffer) {
+        record("glBindBufferBase");
+    }
+
+    @Override
+    public void glBindBufferRange(int target, int index, int buffer, int offset, int size) {
+        record("glBindBufferRange");
+        int bufferSize = getBufferSize(buffer);
+
+        if (offset < 0 || size < 0 || offset + size > bufferSize) {
+            throw new IllegalStateException("glBindBufferRange of [" + offset + ", " + (offset + size) +
+                    ") is outside buffer " + buffer + " of " + bufferSize + " bytes");
+        }
+    }
+
+    @Override
+    public void glBufferData(int target, int size, Buffer data, int usage) {
+        record("glBufferData");
+        int buffer = getBoundBuffer(target, "glBufferData");
+
+        if (data != null && getRemainingBytes(data) < size) {
+            throw new IllegalStateException("glBufferData of " + size + " bytes from a buffer with " +
+                    getRemainingBytes(data) + " left");
+        }
+
+        mBufferSizes.put(buffer, size);
+        mBufferData.put(buffer, data);
+
+        if (data != null) {
+            recordUpload(target, size);
+        }
+    }
+
+    @Override
+    public void glBufferSubData(int target, int offset, int size, Buffer data) {
+        record("glBufferSubData");
+        checkRange(target, offset, size, "glBufferSubData");
+        recordUpload(target, size);
+    }
+
+    @Override
+    public ByteBuffer glMapBufferRange(int target, int offset, int length, int access) {
+        record("glMapBufferRange");
+        checkRange(target, offset, length, "glMapBufferRange");
+
+        if (mMappedLengths.containsKey(target)) {
+            throw new IllegalStateException("glMapBufferRange of a buffer that's already mapped");
+        }
+
+        mMappedLengths.put(target, length);
+
+        if (mMapScratch.capacity() < length) {
+            mMapScratch = ByteBuffer.allocateDirect(length);
+        }
+
+        mMapScratch.clear();
+        mMapScratch.limit(length);
+
+        return mMapScratch.slice().order(ByteOrder.nativeOrder());
+    }
+
+    @Override
+    public boolean glUnmapBuffer(int target) {
+        record("glUnmapBuffer");
+        Integer length = mMappedLengths.remove(target);
+
+        if (length == null) {
+            throw new IllegalStateException("glUnmapBuffer of a buffer that isn't mapped");
+        }
+
+        recordUpload(target, length);
+        return true;
+    }
+
+    @Override
+    public void glGenVertexArrays(int n, int[] arrays, int offset) {
+        record("glGenVertexArrays");
+        genNames(n, arrays, offset);
+    }
+
+    @Override
+    public void glBindVertexArray(int array) {
+        record("glBindVertexArray");
+        mBoundVertexArray = array;
+    }
+
+    @Override
+    public void glEnableVertexAttribArray(int index) {
+        record("glEnableVertexAttribArray");
+    }
+
+    @Override
+    public void glVertexAttribPointer(int index, int size, int type, boolean normalized, int stride, int offset) {
+        record("glVertexAttribPointer");
+    }
+
+    @Override
+    public void glDrawElements(int mode, int count, int type, int offset) {
+        record("glDrawElements");
+        recordDraw("glDrawElements", mode, count, type);
+    }
+
+    @Override
+    public void glDrawArrays(int mode, int first, int count) {
+        record("glDrawArrays");
+        recordDraw("glDrawArrays", mode, count, 0);
+    }
+
+    @Override
+    public void glDrawElementsInstanced(int mode, int count, int type, int offset, int instanceCount) {
+        record("glDrawElementsInstanced");
+        recordDraw("glDrawElementsInstanced", mode, count, type);
+        mTotalDrawnIndices += (long) count * (instanceCount - 1);  //recordDraw counted the first copy
+        mLastDrawInstanceCount = instanceCount;
+    }
+
+    private void recordDraw(String call, int mode, int count, int type) {
+        if (mBoundVertexArray == 0) {
+            throw new IllegalStateException(call + " with no vertex array object bound");
+        }
+
+        if (mFrameDraws == mFrameDrawSizes.length) {
+            mFrameDrawSizes = Arrays.copyOf(mFrameDrawSizes, mFrameDraws * 2);
+        }
+
+        mFrameDrawSizes[mFrameDraws++] = count;
+        mLastDrawMode = mode;
+        mLastDrawType = type;
+        mLastDrawInstanceCount = 1;
+        mTotalDraws++;
+        mTotalDrawnIndices += count;
+    }
+
+    @Override
+    public void glGenTextures(int n, int[] textures, int offset) {
+        record("glGenTextures");
+        genNames(n, textures, offset);
+    }
+
+    @Override
+    public void glActiveTexture(int texture) {
+        record("glActiveTexture");
+    }
+
+    @Override
+    public void glBindTexture(int target, int texture) {
+        record("glBindTexture");
+    }
+
+    @Override
+    public void glTexImage2D(int target, int level, int internalformat, int width, int height, int border,
+                             int format, int type, Buffer pixels) {
+        record("glTexImage2D");
+    }
+
+    @Override
+    public void glTexParameteri(int target, int pname, int param) {
+        record("glTexParameteri");
+    }
+
+    @Override
+    public void glGenFramebuffers(int n, int[] framebuffers, int offset) {
+        record("glGenFramebuffers");
+        genNames(n, framebuffers, offset);
+    }
+
+    @Override
+    public void glBindFramebuffer(int target, int framebuffer) {
+        record("glBindFramebuffer");
+        mBoundFramebuffer = framebuffer;
+    }
+
+    @Override
+    public void glFramebufferTexture2D(int target, int attachment, int textarget, int texture, int level) {
+        record("glFramebufferTexture2D");
+    }
+
+    @Override
+    public int glCheckFramebufferStatus(int target) {
+        record("glCheckFramebufferStatus");
+        return GL_FRAMEBUFFER_COMPLETE;
+    }
+
+    @Override
+    public void glDrawBuffers(int n, int[] bufs, int offset) {
+        record("glDrawBuffers");
+    }
+
+    @Override
+    public void glClearBufferfv(int buffer, int drawbuffer, float[] value, int offset) {
+        record("glClearBufferfv");
+    }
+
+    @Override
+    public long glFenceSync(int condition, int flags) {
+        record("glFenceSync");
+        return mNextSync++;
+    }
+
+    @Override
+    public int glClientWaitSync(long sync, int flags, long timeout) {
+        record("glClientWaitSync");
+        return GL_ALREADY_SIGNALED;
+    }
+
+    @Override
+    public void glDeleteSync(long sync) {
+        record("glDeleteSync");
+    }
+
+    @Override
+    public int glCreateShader(int type) {
+        record("glCreateShader");
+        return mNextName++;
+    }
+
+    @Override
+    public void glShaderSource(int shader, String source) {
+        record("glShaderSource");
+    }
+
+    @Override
+    public void glCompileShader(int shader) {
+        record("glCompileShader");
+    }
+
+    @Override
+    public void glGetShaderiv(int shader, int pname, int[] params, int offset) {
+        record("glGetShaderiv");
+        params[offset] = 1;
+    }
+
+    @Override
+    public String glGetShaderInfoLog(int shader) {
+        record("glGetShaderInfoLog");
+        return "";
+    }
+
+    @Override
+    public void glDeleteShader(int shader) {
+        record("glDeleteShader");
+    }
+
+    @Override
+    public int glCreateProgram() {
+        record("glCreateProgram");
+        return mNextName++;
+    }
+
+    @Override
+    public void glAttachShader(int program, int shader) {
+        record("glAttachShader");
+    }
+
+    @Override
+    public void glDetachShader(int program, int shader) {
+        record("glDetachShader");
+    }
+
+    @Override
+    public void glLinkProgram(int program) {
+        record("glLinkProgram");
+    }
+
+    @Override
+    public void glGetProgramiv(int program, int pname, int[] params, int offset) {
+        record("glGetProgramiv");
+        params[offset] = 1;
+    }
+
+    @Override
+    public String glGetProgramInfoLog(int program) {
+        record("glGetProgramInfoLog");
+        return "";
+    }
+
+    @Override
+    public void glDeleteProgram(int program) {
+        record("glDeleteProgram");
+    }
+
+    @Override
+    public void glUseProgram(int program) {
+        record("glUseProgram");
+    }
+
+    @Override
+    public int glGetUniformLocation(int program, String name) {
+        record("glGetUniformLocation");
+        return 0;
+    }
+
+    @Override
+    public void glUniform1i(int location, int x) {
+        record("glUniform1i");
+    }
+
+    @Override
+    public int glGetUniformBlockIndex(int program, String uniformBlockName) {
+        record("glGetUniformBlockIndex");
+        return 0;
+    }
+
+    @Override
+    public void glUniformBlockBinding(int program, int uniformBlockIndex, int uniformBlockBinding) {
+        record("glUniformBlockBinding");
+    }
+
+    @Override
+    public void glEnable(int cap) {
+        record("glEnable");
+    }
+
+    @Override
+    public void glDisable(int cap) {
+        record("glDisable");
+    }
+
+    @Override
+    public void glBlendFunc(int sfactor, int dfactor) {
+        record("glBlendFunc");
+        mBlendFunc[0] = sfactor;
+        mBlendFunc[1] = dfactor;
+        mBlendFunc[2] = sfactor;
+        mBlendFunc[3] = dfactor;
+    }
+
+    @Override
+    public void glBlendFuncSeparate(int srcRGB, int dstRGB, int srcAlpha, int dstAlpha) {
+        record("glBlendFuncSeparate");
+        mBlendFunc[0] = srcRGB;
+        mBlendFunc[1] = dstRGB;
+        mBlendFunc[2] = srcAlpha;
+        mBlendFunc[3] = dstAlpha;
+    }
+
+    @Override
+    public void glDepthMask(boolean flag) {
+        record("glDepthMask");
+    }
+
+    @Override
+    public void glDepthFunc(int func) {
+        record("glDepthFunc");
+    }
+
+    @Override
+    public void glDepthRangef(float zNear, float zFar) {
+        record("glDepthRangef");
+    }
+
+    @Override
+    public void glClearColor(float red, float green, float blue, float alpha) {
+        record("glClearColor");
+    }
+
+    @Override
+    public void glClearDepthf(float depth) {
+        record("glClearDepthf");
+    }
+
+    @Override
+    public void glClear(int mask) {
+        record("glClear");
+    }
+
+    @Override
+    public void glViewport(int x, int y, int width, int height) {
+        record("glViewport");
+        mViewport[0] = x;
+        mViewport[1] = y;
+        mViewport[2] = width;
+        mViewport[3] = height;
+    }
+
+    /**
+     * Answers GL_FRAMEBUFFER_BINDING and GL_VIEWPORT from what's been bound and set, and
+     * nothing else
+     */
+    @Override
+    public void glGetIntegerv(int pname, int[] params, int offset) {
+        record("glGetIntegerv");
+
+        if (pname == GL_FRAMEBUFFER_BINDING) {
+            params[offset] = mBoundFramebuffer;
+        } else if (pname == GL_VIEWPORT) {
+            System.arraycopy(mViewport, 0, params, offset, 4);
+        } else {
+            throw new UnsupportedOperationException("glGetIntegerv of 0x" + Integer.toHexString(pname));
+        }
+    }
+}
@@ -0,0 +1,193 @@
+package com.sudo_code.ndrenderer;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.Charset;
+import java.util.zip.CRC32;
+import java.util.zip.DeflaterOutputStream;
+
+/**
+ * An 8 bit per channel RGB image, top row first, that can be written as a PPM or a PNG and read
+ * back from a PPM. Only needs java.util.zip, so it works on the device as well as the JVM.
+ */
+public class RgbImage {
+    private static final byte[]  PNG_SIGNATURE = {(byte) 0x89, 'P', 'N', 'G', '\r', '\n', 0x1A, '\n'};
+    private static final Charset ASCII         = Charset.forName("US-ASCII");
+
+    private final int    mWidth;
+    private final int    mHeight;
+    private final byte[] mPixels;   //r,g,b,r,g,b...
+
+    /**
+     * Makes a black image
+     */
+    public RgbImage(int width, int height) {
+        mWidth  = width;
+        mHeight = height;
+        mPixels = new byte[width * height * 3];
+    }
+
+    public int getWidth() {
+        return mWidth;
+    }
+
+    public int getHeight() {
+        return mHeight;
+    }
+
+    /**
+     * @return The pixels, 3 bytes each, top row first (not a copy)
+     */
+    public byte[] getPixels() {
+        return mPixels;
+    }
+
+    /**
+     * @return The pixel at x, y as 0xRRGGBB
+     */
+    public int getRGB(int x, int y) {
+        int i = (y * mWidth + x) * 3;
+        return (mPixels[i] & 0xFF) << 16 | (mPixels[i + 1] & 0xFF) << 8 | (mPixels[i + 2] & 0xFF);
+    }
+
+    /**
+     * Counts the pixels that differ from another image of the same size by more than tolerance
+     * in any channel
+     *
+     * @param other The image to compare against
+     * @param tolerance The largest difference in a channel (0-255) that still counts as the same
+     * @return The number of differing pixels
+     */
+    public int countDifferences(RgbImage other, int tolerance) {
+        if (other.mWidth != mWidth || other.mHeight != mHeight) {
+            throw new IllegalArgumentException("The images are different sizes");
+        }
+
+        int differences = 0;
+
+        for (int i = 0; i < mPixels.length; i += 3) {
+            for (int channel = 0; channel < 3; channel++) {
+                if (Math.abs((mPixels[i + channel] & 0xFF) - (other.mPixels[i + channel] & 0xFF)) > tolerance) {
+                    differences++;
+                    break;
+                }
+            }
+        }
+
+        return differences;
+    }
+
+    /**
+     * Writes the image as a binary (P6) PPM
+     */
+    public void writePPM(OutputStream out) throws IOException {
+        out.write(("P6\n" + mWidth + " " + mHeight + "\n255\n").getBytes(ASCII));
+        out.write(mPixels);
+        out.flush();
+    }
+
+    /**
+     * Reads a binary (P6) PPM with a maximum value of 255
+     */
+    public static RgbImage readPPM(InputStream in) throws IOException {
+        if (!"P6".equals(readPPMToken(in))) {
+            throw new IOException("Not a binary PPM");
+        }
+
+        int width  = Integer.parseInt(readPPMToken(in));
+        int height = Integer.parseInt(readPPMToken(in));
+
+        if (!"255".equals(readPPMToken(in))) {
+            throw new IOException("Only 8 bit PPMs are supported");
+        }
+
+        RgbImage image = new RgbImage(width, height);
+
+        for (int read = 0; read < image.mPixels.length; ) {
+            int count = in.read(image.mPixels, read, image.mPixels.length - read);
+
+            if (count < 0) {
+                throw new EOFException("The PPM is missing pixels");
+            }
+
+            read += count;
+        }
+
+        return image;
+    }
+
+    /**
+     * Reads a header field of a PPM along with the single whitespace character after it,
+     * skipping comments
+     */
+    private static String readPPMToken(InputStream in) throws IOException {
+        StringBuilder token = new StringBuilder();
+
+        while (true) {
+            int c = in.read();
+
+            if (c < 0) {
+                throw new EOFException("The PPM header is cut short");
+            } else if (c == '#') {
+                while (c >= 0 && c != '\n') {
+                    c = in.read();
+                }
+            } else if (Character.isWhitespace(c)) {
+                if (token.length() > 0) {
+                    return token.toString();
+                }
+            } else {
+                token.append((char) c);
+            }
+        }
+    }
+
+    /**
+     * Writes the image as an 8 bit RGB PNG
+     */
+    public void writePNG(OutputStream out) throws IOException {
+        ByteArrayOutputStream header = new ByteArrayOutputStream();
+        DataOutputStream headerData = new DataOutputStream(header);
+        headerData.writeInt(mWidth);
+        headerData.writeInt(mHeight);
+        headerData.writeByte(8);    //Bit depth
+        headerData.writeByte(2);    //Truecolor
+        headerData.writeByte(0);    //Deflate
+        headerData.writeByte(0);    //Adaptive filtering
+        headerData.writeByte(0);    //Not interlaced
+
+        ByteArrayOutputStream compressed = new ByteArrayOutputStream();
+        DeflaterOutputStream deflater = new DeflaterOutputStream(compressed);
+
+        for (int y = 0; y < mHeight; y++) {
+            deflater.write(0);      //Each row is unfiltered
+            deflater.write(mPixels, y * mWidth * 3, mWidth * 3);
+        }
+
+        deflater.finish();
+
+        DataOutputStream data = new DataOutputStream(out);
+        data.write(PNG_SIGNATURE);
+        writePNGChunk(data, "IHDR", header.toByteArray());
+        writePNGChunk(data, "IDAT", compressed.toByteArray());
+        writePNGChunk(data, "IEND", new byte[0]);
+        data.flush();
+    }
+
+    private static void writePNGChunk(DataOutputStream out, String type, byte[] chunk) throws IOException {
+        byte[] typeBytes = type.getBytes(ASCII);
+
+        CRC32 crc = new CRC32();
+        crc.update(typeBytes);
+        crc.update(chunk);
+
+        out.writeInt(chunk.length);
+        out.write(typeBytes);
+        out.write(chunk);
+        out.writeInt((int) crc.getValue());
+    }
+}
@@ -0,0 +1,33 @@
+package com.sudo_code.ndrenderer;
+
+/**
+ * Orders faces with a selection sort. It's O(n^2) so it's only really here as a reference to
+ * compare the other sorters against.
+ */
+public class SelectionFaceSorter extends FaceSorter {
+
+    @Override
+    protected void order(int faceCount) {
+        for (int faceI = 0; faceI < faceCount; faceI++) {
+            mOrder[faceI] = faceI;
+        }
+
+        for (int faceI = 0; faceI < faceCount - 1; faceI++) {
+            int farthestFaceI = faceI;
+            float farthestFaceDist = mDepthKeys[mOrder[faceI]];
+
+            for (int faceI2 = faceI + 1; faceI2 < faceCount; faceI2++) {   //Find the maximum
+                float faceI2Dist = mDepthKeys[mOrder[faceI2]];
+
+                if (faceI2Dist > farthestFaceDist) {
+                    farthestFaceI = faceI2;
+                    farthestFaceDist = faceI2Dist;
+                }
+            }
+
+            int temp = mOrder[faceI];
+            mOrder[faceI] = mOrder[farthestFaceI];
+            mOrder[farthestFaceI] = temp;
+        }
+    }
+}
@@ -0,0 +1,219 @@
+package com.sudo_code.ndrenderer;
+
+import java.nio.ByteBuffer;
+import java.util.Random;
+
+/**
+ * Many copies of one shape, each with an N dimensional orientation of its own and a 3D offset
+ * it's moved by once it's been projected, so that NDShape can draw them all from one mesh with
+ * glDrawElementsInstanced. Each copy is turned by the shape's own orientation after its own, so
+ * turning the shape turns every copy. Like NDProjection, none of this touches OpenGL.
+ *
+ * The copies are packed into the Instances uniform block of shape_instanced_vert.glsl (std140):
+ * ivec4 header; vec4 instances[INSTANCE_VEC4S]; The header holds the number of dimensions, the
+ * vec4s per row of an orientation and the vec4s per copy. Each copy is its offset followed by
+ * the rows of its orientation, each split into vec4s like the vertex attributes are. gl_InstanceID
+ * starts from 0 every draw, so copies that don't fit in one block are drawn in batches, each
+ * with a block of its own. Every block takes BLOCK_SIZE bytes of the buffer, so each batch can be
+ * bound with glBindBufferRange at a whole multiple of BLOCK_SIZE.
+ */
+public class ShapeInstances {
+    public static final int BLOCK_SIZE = 16384;  //The smallest GL_MAX_UNIFORM_BLOCK_SIZE, a multiple of any offset alignment
+
+    private static final int BYTES_PER_VEC4 = 16;
+    private static final int HEADER_BYTES   = BYTES_PER_VEC4;
+    private static final int OFFSET_VEC4S   = 1;
+
+    private final int     mDimensions;
+    private final int     mCount;
+    private final float[] mOrientations;    //DxD per copy, row major like NDTransform
+    private final float[] mOffsets;         //x,y,z per copy
+    private final float[] mRow;             //Scratch space for a row of a copy's combined orientation
+
+    /**
+     * Initializes every copy to the identity orientation and no offset
+     *
+     * @param dimensions The number of dimensions of the shape
+     * @param count The number of copies
+     */
+    public ShapeInstances(int dimensions, int count) {
+        if (dimensions > NDProjection.MAX_DIMENSIONS) {
+            throw new IllegalArgumentException(dimensions + " dimensions can't be projected on the GPU");
+        }
+
+        mDimensions   = dimensions;
+        mCount        = count;
+        mOrientations = new float[count * dimensions * dimensions];
+        mOffsets      = new float[count * 3];
+        mRow          = new float[dimensions];
+
+        NDTransform identity = new NDTransform(dimensions);
+
+        for (int instance = 0; instance < count; instance++) {
+            setOrientation(instance, identity);
+        }
+    }
+
+    /**
+     * Makes a side x side x side cube of copies, each turned a random way
+     *
+     * @param dimensions The number of dimensions of the shape
+     * @param side The number of copies along each edge of the cube
+     * @param spacing The distance between neighbouring copies
+     * @param seed The seed of the random orientations
+     * @return The copies, centered on the origin
+     */
+    public static ShapeInstances lattice(int dimensions, int side, float spacing, long seed) {
+        ShapeInstances instances = new ShapeInstances(dimensions, side * side * side);
+        NDTransform orientation = new NDTransform(dimensions);
+        Random random = new Random(seed);
+        float center = (side - 1) * spacing / 2.f;
+
+        for (int instance = 0; instance < instances.mCount; instance++) {
+            orientation.setIdentity();
+
+            for (int rotation = 0; rotation < dimensions; rotation++) {
+                int axis1 = random.nextInt(dimensions);
+                int axis2 = (axis1 + 1 + random.nextInt(dimensions - 1)) % dimensions;
+
+                orientation.rotate(random.nextFloat() * 6.f, axis1, axis2);
+            }
+
+            instances.setOrientation(instance, orientation);
+            instances.setOffset(instance,
+                    instance % side * spacing - center,
+                    instance / side % side * spacing - center,
+                    instance / (side * side) * spacing - center);
+        }
+
+        return instances;
+    }
+
+    /**
+     * @param instance The copy
+     * @param orientation Its orientation, applied before the shape's (copied)
+     */
+    public void setOrientation(int instance, NDTransform orientation) {
+        int size = mDimensions * mDimensions;
+        System.arraycopy(orientation.getMatrix(), 0, mOrientations, instance * size, size);
+    }
+
+    /**
+     * @param instance The copy
+     * @param x How far it's moved along x once it's been projected
+     * @param y How far it's moved along y
+     * @param z How far it's moved along z
+     */
+    public void setOffset(int instance, float x, float y, float z) {
+        mOffsets[instance * 3 + 0] = x;
+        mOffsets[instance * 3 + 1] = y;
+        mOffsets[instance * 3 + 2] = z;
+    }
+
+    public int getDimensions() {
+        return mDimensions;
+    }
+
+    /**
+     * @return The number of copies
+     */
+    public int getCount() {
+        return mCount;
+    }
+
+    /**
+     * @return The vec4s each copy takes up in the block
+     */
+    public int getVec4sPerInstance() {
+        return OFFSET_VEC4S + mDimensions * NDProjection.getAttributeChunks(mDimensions);
+    }
+
+    /**
+     * @return The number of copies that fit in one block, and so one draw
+     */
+    public int getInstancesPerBatch() {
+        return (BLOCK_SIZE - HEADER_BYTES) / (getVec4sPerInstance() * BYTES_PER_VEC4);
+    }
+
+    /**
+     * @return The number of draws it takes to draw every copy
+     */
+    public int getBatchCount() {
+        return (mCount + getInstancesPerBatch() - 1) / getInstancesPerBatch();
+    }
+
+    /**
+     * @param batch The batch
+     * @return The number of copies drawn by it
+     */
+    public int getBatchInstanceCount(int batch) {
+        return Math.min(getInstancesPerBatch(), mCount - batch * getInstancesPerBatch());
+    }
+
+    /**
+     * @return The bytes of the buffer the blocks are packed into, BLOCK_SIZE per batch
+     */
+    public int getBufferSize() {
+        return getBatchCount() * BLOCK_SIZE;
+    }
+
+    /**
+     * @return The bytes pack() writes, from the start of the first block to the end of the
+     *         last copy
+     */
+    public int getPackedBytes() {
+        int lastBatch = getBatchCount() - 1;
+        return lastBatch * BLOCK_SIZE + HEADER_BYTES + getBatchInstanceCount(lastBatch) * getVec4sPerInstance() * BYTES_PER_VEC4;
+    }
+
+    /**
+     * Puts every copy into dst in the layout of the Instances block, each batch BLOCK_SIZE bytes
+     * after the last, with its orientation combined with the shape's
+     *
+     * @param orientation The shape's orientation, applied after each copy's own
+     * @param dst The buffer to put the blocks in, from its start. Its position is left after the
+     *            last copy.
+     */
+    public void pack(NDTransform orientation, ByteBuffer dst) {
+        float[] matrix = orientation.getMatrix();
+        int rowChunks = NDProjection.getAttributeChunks(mDimensions);
+        int paddedDimensions = rowChunks * NDProjection.COMPONENTS_PER_CHUNK;
+        int size = mDimensions * mDimensions;
+
+        for (int batch = 0; batch < getBatchCount(); batch++) {
+            int first = batch * getInstancesPerBatch();
+
+            dst.position(batch * BLOCK_SIZE);
+            dst.putInt(mDimensions);
+            dst.putInt(rowChunks);
+            dst.putInt(getVec4sPerInstance());
+            dst.putInt(0);  //Padding to a whole vec4
+
+            for (int instance = first; instance < first + getBatchInstanceCount(batch); instance++) {
+                int instanceI = instance * size;
+
+                dst.putFloat(mOffsets[instance * 3 + 0]);
+                dst.putFloat(mOffsets[instance * 3 + 1]);
+                dst.putFloat(mOffsets[instance * 3 + 2]);
+                dst.putFloat(0.f);
+
+                //Each row of the shape's orientation times the copy's
+                for (int row = 0; row < mDimensions; row++) {
+                    for (int col = 0; col < mDimensions; col++) {
+                        float result = 0;
+
+                        for (int i = 0; i < mDimensions; i++) {
+                            result += matrix[row * mDimensions + i] * mOrientations[instanceI + i * mDimensions + col];
+                        }
+
+                        mRow[col] = result;
+                    }
+
+                    for (int col = 0; col < paddedDimensions; col++) {
+                        dst.putFloat(col < mDimensions ? mRow[col] : 0.f);
+                    }
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,342 @@
+package com.sudo_code.ndrenderer;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Keeps the model space arrays of generated meshes so that making the same shape again (every
+ * time the GL surface is recreated, say) copies them instead of generating them. Entries are
+ * dropped least recently used first once the arrays add up to more than the byte budget.
+ *
+ * The cached vertices (and vertex sources) are shared with every mesh made from them, which only
+ * ever reads them. The indices and secondary data are copied, as meshes sort and relight them in
+ * place.
+ *
+ * Given a directory, it also saves every mesh it's given there as a MeshFile, and looks meshes
+ * it doesn't have in memory up there before they're generated, so they survive the process.
+ */
+public class ShapeMeshCache {
+
+    /**
+     * What a mesh is generated from
+     */
+    public static final class Key {
+        private final Class<? extends NDMesh> mType;
+        private final int   mDimensions;
+        private final int   mResolution;    //Smoothness, density, the layout for shapes with more than one, or 0
+        private final float mSize;          //The extent of shapes that have one, otherwise 0
+
+        public Key(Class<? extends NDMesh> type, int dimensions, int resolution, float size) {
+            mType       = type;
+            mDimensions = dimensions;
+            mResolution = resolution;
+            mSize       = size;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (!(o instanceof Key)) {
+                return false;
+            }
+
+            Key other = (Key) o;
+            return mType == other.mType &&
+                    mDimensions == other.mDimensions &&
+                    mResolution == other.mResolution &&
+                    Float.compare(mSize, other.mSize) == 0;
+        }
+
+        @Override
+        public int hashCode() {
+            int hash = mType.hashCode();
+            hash = hash * 31 + mDimensions;
+            hash = hash * 31 + mResolution;
+            hash = hash * 31 + Float.floatToIntBits(mSize);
+            return hash;
+        }
+
+        /**
+         * @return The name of the mesh's file in the cache directory
+         */
+        public String getFileName() {
+            return mType.getSimpleName() + "_" + mDimensions + "_" + mResolution + "_" +
+                    Integer.toHexString(Float.floatToIntBits(mSize)) + ".mesh";
+        }
+
+        @Override
+        public String toString() {
+            return mType.getSimpleName() + "(" + mDimensions + "D, " + mResolution + ", " + mSize + ")";
+        }
+    }
+
+    /**
+     * The arrays genVertexData() makes
+     */
+    public static final class MeshData {
+        private final float[] mVertices;
+        private final int[]   mVertexSources;   //Null if the drawn vertices are mVertices
+        private final int[]   mIndices;
+        private final float[] mSecondaryData;
+        private final int     mFaceCount;
+        private final MeshFile mFile;           //The mapped file the arrays were copied from, or null
+
+        /**
+         * @param vertices The model space vertices (kept, so they mustn't change afterwards)
+         * @param indices The indices, in their generated order (kept)
+         * @param secondaryData The generated secondary data (kept)
+         * @param faceCount The number of faces
+         */
+        public MeshData(float[] vertices, int[] indices, float[] secondaryData, int faceCount) {
+            this(vertices, null, indices, secondaryData, faceCount);
+        }
+
+        /**
+         * @param vertices The model space vertices (kept, so they mustn't change afterwards)
+         * @param vertexSources The vertex each drawn vertex is a copy of, or null if they're the
+         *                      vertices themselves (kept, so they mustn't change afterwards)
+         * @param indices The indices, in their generated order (kept)
+         * @param secondaryData The generated secondary data (kept)
+         * @param faceCount The number of faces
+         */
+        public MeshData(float[] vertices, int[] vertexSources, int[] indices, float[] secondaryData, int faceCount) {
+            this(vertices, vertexSources, indices, secondaryData, faceCount, null);
+        }
+
+        /**
+         * @param file The mapped file the arrays were copied from
+         */
+        MeshData(float[] vertices, int[] vertexSources, int[] indices, float[] secondaryData, int faceCount, MeshFile file) {
+            mVertices      = vertices;
+            mVertexSources = vertexSources;
+            mIndices       = indices;
+            mSecondaryData = secondaryData;
+            mFaceCount     = faceCount;
+            mFile          = file;
+        }
+
+        /**
+         * @return The vertices, shared and not to be written to
+         */
+        public float[] getVertices() {
+            return mVertices;
+        }
+
+        /**
+         * @return The vertex sources, shared and not to be written to, or null if there aren't any
+         */
+        public int[] getVertexSources() {
+            return mVertexSources;
+        }
+
+        /**
+         * @return A copy of the indices
+         */
+        public int[] copyIndices() {
+            return mIndices.clone();
+        }
+
+        /**
+         * @return A copy of the secondary data
+         */
+        public float[] copySecondaryData() {
+            return mSecondaryData.clone();
+        }
+
+        /**
+         * @return The indices themselves, for MeshFile to write out without copying them
+         */
+        int[] getIndices() {
+            return mIndices;
+        }
+
+        /**
+         * @return The secondary data itself, for MeshFile to write out without copying it
+         */
+        float[] getSecondaryData() {
+            return mSecondaryData;
+        }
+
+        public int getFaceCount() {
+            return mFaceCount;
+        }
+
+        /**
+         * @return The mapped file the arrays were copied from, or null if they were generated
+         */
+        public MeshFile getFile() {
+            return mFile;
+        }
+
+        /**
+         * @return The bytes the arrays take up (the mapped file isn't on the heap)
+         */
+        public long getBytes() {
+            int sources = mVertexSources != null ? mVertexSources.length : 0;
+            return 4L * (mVertices.length + sources + mIndices.length + mSecondaryData.length);
+        }
+    }
+
+    private final long mMaxBytes;
+
+    //Guarded by this
+    private File mDirectory;
+    private final LinkedHashMap<Key, MeshData> mEntries = new LinkedHashMap<>(16, 0.75f, true);  //Access ordered
+    private long mBytes;
+    private long mHits;
+    private long mMisses;
+    private long mFileHits;
+    private long mEvictions;
+
+    /**
+     * @param maxBytes The most the cached arrays can add up to
+     */
+    public ShapeMeshCache(long maxBytes) {
+        mMaxBytes = maxBytes;
+    }
+
+    /**
+     * Sets the directory meshes are saved to and loaded from as well as being kept in memory
+     *
+     * @param directory The directory (created if it isn't there), or null to only keep meshes in memory
+     */
+    public synchronized void setDirectory(File directory) {
+        if (directory != null) {
+            directory.mkdirs();
+        }
+
+        mDirectory = directory;
+    }
+
+    /**
+     * Looks up a mesh, in memory and then in the directory, counting a hit or a miss. Files that
+     * can't be loaded are deleted and count as misses.
+     *
+     * @return The mesh's arrays, or null if they aren't cached
+     */
+    public synchronized MeshData get(Key key) {
+        MeshData data = mEntries.get(key);
+
+        if (data == null && mDirectory != null) {
+            File file = new File(mDirectory, key.getFileName());
+
+            if (file.exists()) {
+                try {
+                    data = MeshFile.map(file).toMeshData();
+                    mFileHits++;
+                    putInMemory(key, data);
+                } catch (IOException e) {
+                    file.delete();
+                }
+            }
+        }
+
+        if (data != null) {
+            mHits++;
+        } else {
+            mMisses++;
+        }
+
+        return data;
+    }
+
+    /**
+     * Caches a mesh's arrays, dropping the least recently used meshes until they fit, and saves
+     * them to the directory if there is one. Meshes bigger than the whole budget aren't kept in
+     * memory. The file's written without holding the cache's lock, so lookups don't wait on it.
+     */
+    public void put(Key key, MeshData data) {
+        File directory;
+
+        synchronized (this) {
+            putInMemory(key, data);
+            directory = mDirectory;
+        }
+
+        if (directory != null) {
+            try {
+                MeshFile.write(new File(directory, key.getFileName()), key.mDimensions, data);
+            } catch (IOException e) {
+                //It'll just have to be generated again next time
+            }
+        }
+    }
+
+    //Must hold the lock
+    private void putInMemory(Key key, MeshData data) {
+        MeshData replaced = mEntries.remove(key);
+        if (replaced != null) {
+            mBytes -= replaced.getBytes();
+        }
+
+        if (data.getBytes() > mMaxBytes) {
+            return;
+        }
+
+        Iterator<Map.Entry<Key, MeshData>> eldest = mEntries.entrySet().iterator();
+        while (mBytes + data.getBytes() > mMaxBytes) {
+            mBytes -= eldest.next().getValue().getBytes();
+            eldest.remove();
+            mEvictions++;
+        }
+
+        mEntries.put(key, data);
+        mBytes += data.getBytes();
+    }
+
+    /**
+     * Drops every mesh kept in memory, but not the files (the counters carry on)
+     */
+    public synchronized void clear() {
+        mEntries.clear();
+        mBytes = 0;
+    }
+
+    public synchronized boolean contains(Key key) {
+        return mEntries.containsKey(key);
+    }
+
+    public synchronized int getEntryCount() {
+        return mEntries.size();
+    }
+
+    /**
+     * @return The bytes the cached arrays add up to
+     */
+    public synchronized long getBytes() {
+        return mBytes;
+    }
+
+    public long getMaxBytes() {
+        return mMaxBytes;
+    }
+
+    public synchronized long getHits() {
+        return mHits;
+    }
+
+    public synchronized long getMisses() {
+        return mMisses;
+    }
+
+    /**
+     * @return How many of the hits were loaded from the directory rather than memory
+     */
+    public synchronized long getFileHits() {
+        return mFileHits;
+    }
+
+    public synchronized long getEvictions() {
+        return mEvictions;
+    }
+
+    /**
+     * @return The fraction of lookups that were hits, or 0 if there haven't been any
+     */
+    public synchronized float getHitRate() {
+        long lookups = mHits + mMisses;
+        return lookups == 0 ? 0.f : (float) mHits / lookups;
+    }
+}
@@ -0,0 +1,615 @@
+package com.sudo_code.ndrenderer;
+
+import java.util.Arrays;
+
+/**
+ * A stand-in for the GPU that draws what an NDShape would, so frames can be checked and timed
+ * without a device. It takes the same projected vertices, secondary data and indices NDShape
+ * uploads and reproduces the ways MainActivity draws them: shape_frag's directional lighting
+ * with alpha blending and no depth test (the hypercube and hypertorus), the same lighting with
+ * WeightedBlendedOIT's order independent blending, and c_graph_frag's interpolated colors with a
+ * depth test (the complex graph).
+ *
+ * Each draw transforms the vertices and bins the triangles into TILE_SIZE square tiles of the
+ * screen, in order, on the calling thread. The tiles are then rasterized in parallel. Every pixel
+ * belongs to one tile, so the triangles still land on it in draw order and the image is the same
+ * however many threads there are. Vertices are snapped to 1/16 of a pixel and the edges are tested
+ * in integers with a fill rule, so triangles sharing an edge never both cover (and blend twice
+ * over) a pixel. Triangles with a vertex behind the camera are dropped rather than clipped.
+ */
+public class SoftwareRasterizer {
+    public static final int TILE_SIZE = 32;
+
+    private static final int   SUBPIXEL_BITS  = 4;
+    private static final int   SUBPIXEL_SCALE = 1 << SUBPIXEL_BITS;
+    private static final float GUARD_BAND     = 1 << 20;    //Pixels past the screen where vertices are dropped
+
+    //shape_frag's light, normalize(vec3(1.f, -1.f, -1.f))
+    private static final float LIGHT_X =  (float) (1 / Math.sqrt(3));
+    private static final float LIGHT_Y = -(float) (1 / Math.sqrt(3));
+    private static final float LIGHT_Z = -(float) (1 / Math.sqrt(3));
+
+    private final int mWidth;
+    private final int mHeight;
+    private final int mTilesX;
+    private final int mTilesY;
+
+    private final float[] mColor;   //r,g,b,a per pixel, top row first
+    private final float[] mDepth;   //Window depth per pixel, 0 to 1
+
+    private final float[] mMatrix = new float[16];  //Column major, as android.opengl.Matrix
+    private FrameWorkerPool mPool;
+
+    //The current draw
+    private int[]     mFixed     = new int[0];    //Screen x,y per vertex in 1/SUBPIXEL_SCALE pixels
+    private float[]   mDepthW    = new float[0];  //Window depth, 1/w per vertex
+    private boolean[] mVisible   = new boolean[0];
+    private int[]     mTriangles = new int[0];    //3 vertices per triangle, wound so the area is positive
+    private float[]   mTriangleColors = new float[0];   //r,g,b,a per triangle when they're flat shaded
+    private float[]   mVertexColors;              //r,g,b per vertex when they're interpolated
+    private boolean   mDepthTest;
+    private boolean   mWeighted;                  //Whether fragments are accumulated rather than blended
+
+    private float[] mAccumulated = new float[0];  //WeightedBlendedOIT's first target, r,g,b,revealage per pixel
+    private float[] mWeights     = new float[0];  //Its second target, the sum of the weights per pixel
+
+    private final int[][] mBins;        //The triangles overlapping each tile, in draw order
+    private final int[]   mBinCounts;
+
+    private final FrameWorkerPool.Task mTileTask = new FrameWorkerPool.Task() {
+        @Override
+        public void run(int chunk, int start, int end) {
+            for (int tile = start; tile < end; tile++) {
+                rasterizeTile(tile);
+            }
+        }
+    };
+
+    /**
+     * @param width The width of the image in pixels
+     * @param height The height of the image in pixels
+     */
+    public SoftwareRasterizer(int width, int height) {
+        mWidth  = width;
+        mHeight = height;
+        mTilesX = (width + TILE_SIZE - 1) / TILE_SIZE;
+        mTilesY = (height + TILE_SIZE - 1) / TILE_SIZE;
+
+        mColor = new float[width * height * 4];
+        mDepth = new float[width * height];
+
+        mBins      = new int[mTilesX * mTilesY][16];
+        mBinCounts = new int[mTilesX * mTilesY];
+
+        mMatrix[0] = mMatrix[5] = mMatrix[10] = mMatrix[15] = 1.f;
+    }
+
+    /**
+     * Sets the pool the tiles are rasterized on
+     *
+     * @param pool The pool, or null to rasterize on the calling thread
+     */
+    public void setWorkerPool(FrameWorkerPool pool) {
+        mPool = pool;
+    }
+
+    /**
+     * Sets the matrix taking the projected vertices to clip space (the projectionMatrix uniform)
+     *
+     * @param matrix A column major 4x4 matrix, as android.opengl.Matrix makes them
+     */
+    public void setMatrix(float[] matrix) {
+        System.arraycopy(matrix, 0, mMatrix, 0, 16);
+    }
+
+    /**
+     * Sets the matrix up the way MainActivity does for one eye looking straight ahead: a
+     * perspective projection of an object pushed distance away down -z
+     *
+     * @param fovy The vertical field of view in degrees
+     * @param near The distance to the near plane
+     * @param far The distance to the far plane
+     * @param distance How far away the object is
+     */
+    public void setCamera(float fovy, float near, float far, float distance) {
+        float f = 1.f / (float) Math.tan(Math.toRadians(fovy) / 2);
+        float aspect = (float) mWidth / mHeight;
+
+        Arrays.fill(mMatrix, 0.f);
+        mMatrix[0]  = f / aspect;
+        mMatrix[5]  = f;
+        mMatrix[10] = (far + near) / (near - far);
+        mMatrix[11] = -1.f;
+        mMatrix[14] = 2.f * far * near / (near - far);
+
+        //Times a translation of -distance along z
+        mMatrix[12] = mMatrix[8] * -distance;
+        mMatrix[13] = mMatrix[9] * -distance;
+        mMatrix[14] += mMatrix[10] * -distance;
+        mMatrix[15] = mMatrix[11] * -distance;
+    }
+
+    /**
+     * Clears the color to a value and the depth to the far plane
+     */
+    public void clear(float red, float green, float blue, float alpha) {
+        for (int i = 0; i < mColor.length; i += 4) {
+            mColor[i + 0] = red;
+            mColor[i + 1] = green;
+            mColor[i + 2] = blue;
+            mColor[i + 3] = alpha;
+        }
+
+        Arrays.fill(mDepth, 1.f);
+    }
+
+    /**
+     * Draws triangles the way shape_frag does, with GL_BLEND on and GL_DEPTH_TEST off: every
+     * triangle is color lit by the normal of its last vertex (the provoking vertex of a flat
+     * varying) from a directional light, and blended over what's already there with
+     * GL_SRC_ALPHA, GL_ONE_MINUS_SRC_ALPHA.
+     *
+     * @param vertices3d The projected vertices, 3 components each
+     * @param normals The normals, 3 components per vertex
+     * @param indices The triangles, 3 indices each
+     * @param indexCount The number of indices to draw
+     * @param color The shape's color, r,g,b,a
+     */
+    public void drawLit(float[] vertices3d, float[] normals, int[] indices, int indexCount, float[] color) {
+        mDepthTest = false;
+        mVertexColors = null;
+
+        setTriangleColors(normals, indices, indexCount, color);
+        draw(vertices3d, indices, indexCount);
+    }
+
+    /**
+     * Draws triangles lit the same way as drawLit(), but blended the way WeightedBlendedOIT does
+     * it, so the order of the triangles doesn't matter: each fragment's color and alpha are
+     * added into the accumulation targets with WeightedBlendedOIT.getWeight() of its distance
+     * from the camera, and then the weighted average color is composited over the pixel,
+     * covering all but the product of 1 - alpha of its fragments. The targets are kept in 32 bit
+     * floats, where the GPU's are 16 bit.
+     *
+     * @param vertices3d The projected vertices, 3 components each
+     * @param normals The normals, 3 components per vertex
+     * @param indices The triangles, 3 indices each
+     * @param indexCount The number of indices to draw
+     * @param color The shape's color, r,g,b,a
+     */
+    public void drawLitWeightedBlended(float[] vertices3d, float[] normals, int[] indices, int indexCount, float[] color) {
+        mDepthTest = false;
+        mVertexColors = null;
+
+        if (mWeights.length != mWidth * mHeight) {
+            mAccumulated = new float[mWidth * mHeight * 4];
+            mWeights     = new float[mWidth * mHeight];
+        }
+
+        setTriangleColors(normals, indices, indexCount, color);
+
+        mWeighted = true;
+        draw(vertices3d, indices, indexCount);
+        mWeighted = false;
+    }
+
+    /**
+     * Lights every triangle by the normal of its last vertex into mTriangleColors
+     */
+    private void setTriangleColors(float[] normals, int[] indices, int indexCount, float[] color) {
+        if (mTriangleColors.length < indexCount / 3 * 4) {
+            mTriangleColors = new float[indexCount / 3 * 4];
+        }
+
+        for (int tri = 0; tri < indexCount / 3; tri++) {
+            int normalI = indices[tri * 3 + 2] * 3;
+
+            float light = Math.abs(normals[normalI + 0] * LIGHT_X +
+                                   normals[normalI + 1] * LIGHT_Y +
+                                   normals[normalI + 2] * LIGHT_Z);
+
+            mTriangleColors[tri * 4 + 0] = color[0] * light;
+            mTriangleColors[tri * 4 + 1] = color[1] * light;
+            mTriangleColors[tri * 4 + 2] = color[2] * light;
+            mTriangleColors[tri * 4 + 3] = color[3];
+        }
+    }
+
+    /**
+     * Draws triangles the way c_graph_frag does, with GL_DEPTH_TEST on (GL_LEQUAL) and
+     * GL_BLEND off: the vertex colors are interpolated across the triangles and written opaque.
+     *
+     * @param vertices3d The projected vertices, 3 components each
+     * @param colors The colors, r,g,b per vertex
+     * @param indices The triangles, 3 indices each
+     * @param indexCount The number of indices to draw
+     */
+    public void drawDepthTested(float[] vertices3d, float[] colors, int[] indices, int indexCount) {
+        mDepthTest = true;
+        mVertexColors = colors;
+
+        draw(vertices3d, indices, indexCount);
+
+        mVertexColors = null;
+    }
+
+    /**
+     * Transforms the vertices, sets up and bins the triangles, then rasterizes the tiles
+     */
+    private void draw(float[] vertices3d, int[] indices, int indexCount) {
+        transformVertices(vertices3d);
+
+        if (mTriangles.length < indexCount) {
+            mTriangles = new int[indexCount];
+        }
+
+        Arrays.fill(mBinCounts, 0);
+
+        for (int tri = 0; tri < indexCount / 3; tri++) {
+            setupTriangle(tri, indices[tri * 3 + 0], indices[tri * 3 + 1], indices[tri * 3 + 2]);
+        }
+
+        if (mPool != null) {
+            mPool.run(mBins.length, 1, mTileTask);
+        } else {
+            mTileTask.run(0, 0, mBins.length);
+        }
+    }
+
+    /**
+     * Takes the vertices through mMatrix to window coordinates
+     */
+    private void transformVertices(float[] vertices3d) {
+        int vertexCount = vertices3d.length / 3;
+
+        if (mVisible.length < vertexCount) {
+            mFixed   = new int[vertexCount * 2];
+            mDepthW  = new float[vertexCount * 2];
+            mVisible = new boolean[vertexCount];
+        }
+
+        float[] m = mMatrix;
+
+        for (int vertI = 0; vertI < vertexCount; vertI++) {
+            float x = vertices3d[vertI * 3 + 0];
+            float y = vertices3d[vertI * 3 + 1];
+            float z = vertices3d[vertI * 3 + 2];
+
+            float clipX = m[0] * x + m[4] * y + m[8]  * z + m[12];
+            float clipY = m[1] * x + m[5] * y + m[9]  * z + m[13];
+            float clipZ = m[2] * x + m[6] * y + m[10] * z + m[14];
+            float clipW = m[3] * x + m[7] * y + m[11] * z + m[15];
+
+            if (clipW <= 0.f) {
+                mVisible[vertI] = false;
+                continue;
+            }
+
+            float invW = 1.f / clipW;
+            float screenX = (clipX * invW + 1.f) * 0.5f * mWidth;
+            float screenY = (1.f - clipY * invW) * 0.5f * mHeight;   //Top row first
+
+            if (Math.abs(screenX) > GUARD_BAND || Math.abs(screenY) > GUARD_BAND) {
+                mVisible[vertI] = false;
+                continue;
+            }
+
+            mVisible[vertI] = true;
+            mFixed[vertI * 2 + 0] = Math.round(screenX * SUBPIXEL_SCALE);
+            mFixed[vertI * 2 + 1] = Math.round(screenY * SUBPIXEL_SCALE);
+            mDepthW[vertI * 2 + 0] = (clipZ * invW + 1.f) * 0.5f;
+            mDepthW[vertI * 2 + 1] = invW;
+        }
+    }
+
+    /**
+     * Winds a triangle so its area is positive and adds it to the bins of the tiles it overlaps
+     */
+    private void setupTriangle(int tri, int vert0, int vert1, int vert2) {
+        if (!mVisible[vert0] || !mVisible[vert1] || !mVisible[vert2]) {
+            return;
+        }
+
+        long area = edge(vert0, vert1, mFixed[vert2 * 2], mFixed[vert2 * 2 + 1]);
+
+        if (area == 0) {
+            return;
+        }
+
+        mTriangles[tri * 3 + 0] = vert0;
+        mTriangles[tri * 3 + 1] = area > 0 ? vert1 : vert2;
+        mTriangles[tri * 3 + 2] = area > 0 ? vert2 : vert1;
+
+        int minX = Math.min(mFixed[vert0 * 2], Math.min(mFixed[vert1 * 2], mFixed[vert2 * 2]));
+        int maxX = Math.max(mFixed[vert0 * 2], Math.max(mFixed[vert1 * 2], mFixed[vert2 * 2]));
+        int minY = Math.min(mFixed[vert0 * 2 + 1], Math.min(mFixed[vert1 * 2 + 1], mFixed[vert2 * 2 + 1]));
+        int maxY = Math.max(mFixed[vert0 * 2 + 1], Math.max(mFixed[vert1 * 2 + 1], mFixed[vert2 * 2 + 1]));
+
+        int minTileX = Math.max(0, (minX >> SUBPIXEL_BITS) / TILE_SIZE);
+        int maxTileX = Math.min(mTilesX - 1, (maxX >> SUBPIXEL_BITS) / TILE_SIZE);
+        int minTileY = Math.max(0, (minY >> SUBPIXEL_BITS) / TILE_SIZE);
+        int maxTileY = Math.min(mTilesY - 1, (maxY >> SUBPIXEL_BITS) / TILE_SIZE);
+
+        for (int tileY = minTileY; tileY <= maxTileY; tileY++) {
+            for (int tileX = minTileX; tileX <= maxTileX; tileX++) {
+                int tile = tileY * mTilesX + tileX;
+
+                if (mBinCounts[tile] == mBins[tile].length) {
+                    mBins[tile] = Arrays.copyOf(mBins[tile], mBinCounts[tile] * 2);
+                }
+
+                mBins[tile][mBinCounts[tile]++] = tri;
+            }
+        }
+    }
+
+    /**
+     * @return The edge function of the edge from vertA to vertB at x, y (in fixed point), twice
+     *         the signed area of the triangle they make
+     */
+    private long edge(int vertA, int vertB, long x, long y) {
+        long ax = mFixed[vertA * 2], ay = mFixed[vertA * 2 + 1];
+        long bx = mFixed[vertB * 2], by = mFixed[vertB * 2 + 1];
+
+        return (bx - ax) * (y - ay) - (by - ay) * (x - ax);
+    }
+
+    /**
+     * The fill rule: pixel centers exactly on an edge belong to only one of the two triangles
+     * sharing it, which traverse it in opposite directions
+     *
+     * @return 0 if samples on the edge from vertA to vertB are inside, 1 if they aren't
+     */
+    private int edgeBias(int vertA, int vertB) {
+        int dx = mFixed[vertB * 2] - mFixed[vertA * 2];
+        int dy = mFixed[vertB * 2 + 1] - mFixed[vertA * 2 + 1];
+
+        return dy > 0 || (dy == 0 && dx < 0) ? 0 : 1;
+    }
+
+    /**
+     * Rasterizes the triangles binned into a tile, in order
+     */
+    private void rasterizeTile(int tile) {
+        int tileX0 = (tile % mTilesX) * TILE_SIZE;
+        int tileY0 = (tile / mTilesX) * TILE_SIZE;
+        int tileX1 = Math.min(tileX0 + TILE_SIZE, mWidth);
+        int tileY1 = Math.min(tileY0 + TILE_SIZE, mHeight);
+
+        int[] bin = mBins[tile];
+
+        if (mWeighted) {
+            clearAccumulated(tileX0, tileY0, tileX1, tileY1);
+        }
+
+        for (int i = 0; i < mBinCounts[tile]; i++) {
+            rasterizeTriangle(bin[i], tileX0, tileY0, tileX1, tileY1);
+        }
+
+        if (mWeighted) {
+            composite(tileX0, tileY0, tileX1, tileY1);
+        }
+    }
+
+    /**
+     * Clears the accumulation targets in [x0, x1) x [y0, y1) the way WeightedBlendedOIT.begin()
+     * does: nothing added, and everything revealed
+     */
+    private void clearAccumulated(int x0, int y0, int x1, int y1) {
+        for (int y = y0; y < y1; y++) {
+            for (int x = x0; x < x1; x++) {
+                int pixel = y * mWidth + x;
+
+                mAccumulated[pixel * 4 + 0] = 0.f;
+                mAccumulated[pixel * 4 + 1] = 0.f;
+                mAccumulated[pixel * 4 + 2] = 0.f;
+                mAccumulated[pixel * 4 + 3] = 1.f;
+                mWeights[pixel] = 0.f;
+            }
+        }
+    }
+
+    /**
+     * Composites the accumulation targets in [x0, x1) x [y0, y1) over the color the way
+     * oit_composite_frag.glsl does, blended with GL_ONE_MINUS_SRC_ALPHA, GL_SRC_ALPHA
+     */
+    private void composite(int x0, int y0, int x1, int y1) {
+        for (int y = y0; y < y1; y++) {
+            for (int x = x0; x < x1; x++) {
+                int pixel = y * mWidth + x;
+                int colorI = pixel * 4;
+                float revealage = mAccumulated[colorI + 3];
+                float weight = Math.max(mWeights[pixel], 1e-5f);
+
+                for (int channel = 0; channel < 3; channel++) {
+                    float average = mAccumulated[colorI + channel] / weight;
+                    mColor[colorI + channel] = average * (1.f - revealage) + mColor[colorI + channel] * revealage;
+                }
+
+                mColor[colorI + 3] = revealage * (1.f - revealage) + mColor[colorI + 3] * revealage;
+            }
+        }
+    }
+
+    /**
+     * Rasterizes the part of a triangle inside [x0, x1) x [y0, y1)
+     */
+    private void rasterizeTriangle(int tri, int x0, int y0, int x1, int y1) {
+        int vert0 = mTriangles[tri * 3 + 0];
+        int vert1 = mTriangles[tri * 3 + 1];
+        int vert2 = mTriangles[tri * 3 + 2];
+
+        int half = SUBPIXEL_SCALE / 2;  //Pixel centers are at + 0.5
+
+        int minX = Math.min(mFixed[vert0 * 2], Math.min(mFixed[vert1 * 2], mFixed[vert2 * 2]));
+        int maxX = Math.max(mFixed[vert0 * 2], Math.max(mFixed[vert1 * 2], mFixed[vert2 * 2]));
+        int minY = Math.min(mFixed[vert0 * 2 + 1], Math.min(mFixed[vert1 * 2 + 1], mFixed[vert2 * 2 + 1]));
+        int maxY = Math.max(mFixed[vert0 * 2 + 1], Math.max(mFixed[vert1 * 2 + 1], mFixed[vert2 * 2 + 1]));
+
+        //The pixels whose centers are inside the bounding box, clamped to the tile
+        int startX = Math.max(x0, -((half - minX) >> SUBPIXEL_BITS));
+        int endX   = Math.min(x1 - 1, (maxX - half) >> SUBPIXEL_BITS);
+        int startY = Math.max(y0, -((half - minY) >> SUBPIXEL_BITS));
+        int endY   = Math.min(y1 - 1, (maxY - half) >> SUBPIXEL_BITS);
+
+        if (startX > endX || startY > endY) {
+            return;
+        }
+
+        long sampleX = (long) startX * SUBPIXEL_SCALE + half;
+        long sampleY = (long) startY * SUBPIXEL_SCALE + half;
+
+        //Barycentric weights at the first pixel, biased so that > 0 is inside
+        long rowW0 = edge(vert1, vert2, sampleX, sampleY) - edgeBias(vert1, vert2);
+        long rowW1 = edge(vert2, vert0, sampleX, sampleY) - edgeBias(vert2, vert0);
+        long rowW2 = edge(vert0, vert1, sampleX, sampleY) - edgeBias(vert0, vert1);
+
+        //How they change a pixel right and a pixel down
+        long stepX0 = -(long) (mFixed[vert2 * 2 + 1] - mFixed[vert1 * 2 + 1]) * SUBPIXEL_SCALE;
+        long stepX1 = -(long) (mFixed[vert0 * 2 + 1] - mFixed[vert2 * 2 + 1]) * SUBPIXEL_SCALE;
+        long stepX2 = -(long) (mFixed[vert1 * 2 + 1] - mFixed[vert0 * 2 + 1]) * SUBPIXEL_SCALE;
+        long stepY0 = (long) (mFixed[vert2 * 2] - mFixed[vert1 * 2]) * SUBPIXEL_SCALE;
+        long stepY1 = (long) (mFixed[vert0 * 2] - mFixed[vert2 * 2]) * SUBPIXEL_SCALE;
+        long stepY2 = (long) (mFixed[vert1 * 2] - mFixed[vert0 * 2]) * SUBPIXEL_SCALE;
+
+        float invArea = 1.f / edge(vert0, vert1, mFixed[vert2 * 2], mFixed[vert2 * 2 + 1]);
+
+        for (int y = startY; y <= endY; y++) {
+            long w0 = rowW0;
+            long w1 = rowW1;
+            long w2 = rowW2;
+
+            for (int x = startX; x <= endX; x++) {
+                if ((w0 | w1 | w2) >= 0) {
+                    int pixel = y * mWidth + x;
+
+                    if (mDepthTest) {
+                        shadeDepthTested(pixel, vert0, vert1, vert2, w0 * invArea, w1 * invArea, w2 * invArea);
+                    } else if (mWeighted) {
+                        accumulate(pixel, tri, vert0, vert1, vert2, w0 * invArea, w1 * invArea, w2 * invArea);
+                    } else {
+                        blend(pixel, tri);
+                    }
+                }
+
+                w0 += stepX0;
+                w1 += stepX1;
+                w2 += stepX2;
+            }
+
+            rowW0 += stepY0;
+            rowW1 += stepY1;
+            rowW2 += stepY2;
+        }
+    }
+
+    /**
+     * Blends a triangle's flat color over a pixel with GL_SRC_ALPHA, GL_ONE_MINUS_SRC_ALPHA
+     */
+    private void blend(int pixel, int tri) {
+        int colorI = pixel * 4;
+        float alpha = mTriangleColors[tri * 4 + 3];
+
+        for (int channel = 0; channel < 3; channel++) {
+            mColor[colorI + channel] = mTriangleColors[tri * 4 + channel] * alpha + mColor[colorI + channel] * (1.f - alpha);
+        }
+
+        mColor[colorI + 3] = alpha * alpha + mColor[colorI + 3] * (1.f - alpha);
+    }
+
+    /**
+     * Adds a triangle's flat color into a pixel's accumulation targets the way oit_frag.glsl
+     * does, weighted by the fragment's distance from the camera, which is 1 over the screen space
+     * interpolated 1/w (gl_FragCoord.w)
+     *
+     * @param l0 The screen space barycentric weight of vert0 (and l1, l2 of vert1, vert2)
+     */
+    private void accumulate(int pixel, int tri, int vert0, int vert1, int vert2, float l0, float l1, float l2) {
+        float invW = l0 * mDepthW[vert0 * 2 + 1] + l1 * mDepthW[vert1 * 2 + 1] + l2 * mDepthW[vert2 * 2 + 1];
+        float alpha = mTriangleColors[tri * 4 + 3];
+        float weight = WeightedBlendedOIT.getWeight(alpha, 1.f / invW);
+
+        int colorI = pixel * 4;
+
+        for (int channel = 0; channel < 3; channel++) {
+            mAccumulated[colorI + channel] += mTriangleColors[tri * 4 + channel] * weight;
+        }
+
+        mAccumulated[colorI + 3] *= 1.f - alpha;
+        mWeights[pixel] += weight;
+    }
+
+    /**
+     * Depth tests a fragment and writes its perspective correct color if it passes
+     *
+     * @param l0 The screen space barycentric weight of vert0 (and l1, l2 of vert1, vert2)
+     */
+    private void shadeDepthTested(int pixel, int vert0, int vert1, int vert2, float l0, float l1, float l2) {
+        float depth = l0 * mDepthW[vert0 * 2] + l1 * mDepthW[vert1 * 2] + l2 * mDepthW[vert2 * 2];
+
+        if (depth < 0.f || depth > 1.f || depth > mDepth[pixel]) {
+            return;
+        }
+
+        mDepth[pixel] = depth;
+
+        float q0 = l0 * mDepthW[vert0 * 2 + 1];
+        float q1 = l1 * mDepthW[vert1 * 2 + 1];
+        float q2 = l2 * mDepthW[vert2 * 2 + 1];
+        float invQ = 1.f / (q0 + q1 + q2);
+
+        int colorI = pixel * 4;
+
+        for (int channel = 0; channel < 3; channel++) {
+            mColor[colorI + channel] = (q0 * mVertexColors[vert0 * 3 + channel] +
+                                        q1 * mVertexColors[vert1 * 3 + channel] +
+                                        q2 * mVertexColors[vert2 * 3 + channel]) * invQ;
+        }
+
+        mColor[colorI + 3] = 1.f;
+    }
+
+    /**
+     * @return The color buffer, r,g,b,a per pixel, top row first (not a copy)
+     */
+    public float[] getColorBuffer() {
+        return mColor;
+    }
+
+    /**
+     * Converts the color buffer to 8 bits per channel, dropping the alpha
+     *
+     * @param image The image to write to (must be the same size)
+     */
+    public void readPixels(RgbImage image) {
+        if (image.getWidth() != mWidth || image.getHeight() != mHeight) {
+            throw new IllegalArgumentException("The image is a different size");
+        }
+
+        byte[] pixels = image.getPixels();
+
+        for (int pixel = 0; pixel < mWidth * mHeight; pixel++) {
+            for (int channel = 0; channel < 3; channel++) {
+                float value = Math.max(0.f, Math.min(1.f, mColor[pixel * 4 + channel]));
+                pixels[pixel * 3 + channel] = (byte) Math.round(value * 255.f);
+            }
+        }
+    }
+
+    /**
+     * @return The color buffer as a new image
+     */
+    public RgbImage toImage() {
+        RgbImage image = new RgbImage(mWidth, mHeight);
+        readPixels(image);
+        return image;
+    }
+
+    public int getWidth() {
+        return mWidth;
+    }
+
+    public int getHeight() {
+        return mHeight;
+    }
+}
@@ -0,0 +1,220 @@
+package com.sudo_code.ndrenderer;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.Arrays;
+
+/**
+ * A vertex buffer split into a ring of slices that are written with unsynchronized mapping. Each
+ * draw writes into the next slice, so the GPU can still be reading the previous ones without the
+ * driver having to stall. A fence is put down after each draw, and a slice is only written again
+ * once the fence from the last time it was used has signalled.
+ */
+public class StreamingVertexBuffer {
+
+    /**
+     * The GL calls the streaming buffer needs, so the slice and fence bookkeeping can be driven
+     * by a stand-in off the device
+     */
+    public interface GL {
+        /**
+         * @return A new buffer object
+         */
+        int genBuffer();
+
+        /**
+         * Allocates size bytes of uninitialized storage for the buffer
+         */
+        void allocate(int buffer, int size);
+
+        /**
+         * Maps a range of the buffer for writing without synchronizing with the GPU. The
+         * previous contents of the range are discarded.
+         */
+        ByteBuffer map(int buffer, int offset, int length);
+
+        void unmap(int buffer);
+
+        /**
+         * @return A fence that signals once the GPU has finished all the commands so far
+         */
+        long fence();
+
+        /**
+         * Waits for a fence to signal
+         *
+         * @return Whether the fence signalled before the timeout
+         */
+        boolean waitFence(long fence, long timeoutNanos);
+
+        void deleteFence(long fence);
+    }
+
+    private static final int  SLICE_ALIGNMENT = 256;
+    private static final long WAIT_TIMEOUT    = 16000000;   //About a frame, in nanoseconds
+
+    private final GL        mGL;
+    private final int       mBuffer;
+    private final int       mSliceSize;
+    private final long[]    mFences;        //0 if the slice isn't in use by the GPU
+    private final boolean[] mSliceWritten;  //Whether the slice has ever been written
+
+    private int        mSlice = -1;
+    private ByteBuffer mMapped;
+
+    private long mSlicesUsed;
+    private long mFenceWaits;   //Slices that were still fenced when they came around again
+    private long mStalls;       //Waits that timed out at least once
+
+    /**
+     * Allocates the ring
+     *
+     * @param gl The GL calls to use
+     * @param sliceSize The largest number of bytes written per slice
+     * @param sliceCount The number of slices (2 for double buffering, 3 for triple)
+     */
+    public StreamingVertexBuffer(GL gl, int sliceSize, int sliceCount) {
+        mGL           = gl;
+        mSliceSize    = (sliceSize + SLICE_ALIGNMENT - 1) / SLICE_ALIGNMENT * SLICE_ALIGNMENT;
+        mFences       = new long[sliceCount];
+        mSliceWritten = new boolean[sliceCount];
+
+        mBuffer = mGL.genBuffer();
+        mGL.allocate(mBuffer, mSliceSize * sliceCount);
+    }
+
+    /**
+     * Moves on to the next slice in the ring, waiting for the GPU to finish with it if needed
+     *
+     * @return Whether the slice has been written before (and so still holds what was last
+     *         written to it outside of the ranges that get mapped)
+     */
+    public boolean nextSlice() {
+        if (mMapped != null) {
+            throw new IllegalStateException("The current slice is still mapped");
+        }
+
+        mSlice = (mSlice + 1) % mFences.length;
+        mSlicesUsed++;
+
+        long fence = mFences[mSlice];
+        if (fence != 0) {
+            mFenceWaits++;
+
+            if (!mGL.waitFence(fence, WAIT_TIMEOUT)) {
+                mStalls++;
+
+                while (!mGL.waitFence(fence, WAIT_TIMEOUT)) {
+                    //The GPU still hasn't finished with it, and overwriting it would corrupt a draw
+                }
+            }
+
+            mGL.deleteFence(fence);
+            mFences[mSlice] = 0;
+        }
+
+        return mSliceWritten[mSlice];
+    }
+
+    /**
+     * Maps a range of the current slice for writing
+     *
+     * @param offset The offset from the start of the slice in bytes
+     * @param length The number of bytes to map
+     * @return The mapped range, in native byte order
+     */
+    public ByteBuffer map(int offset, int length) {
+        if (mSlice < 0) {
+            throw new IllegalStateException("nextSlice() hasn't been called");
+        }
+
+        if (offset + length > mSliceSize) {
+            throw new IllegalArgumentException("Mapping past the end of the slice");
+        }
+
+        mMapped = mGL.map(mBuffer, getSliceOffset() + offset, length).order(ByteOrder.nativeOrder());
+        return mMapped;
+    }
+
+    /**
+     * Unmaps the current slice once it's been written
+     */
+    public void unmap() {
+        mGL.unmap(mBuffer);
+        mMapped = null;
+        mSliceWritten[mSlice] = true;
+    }
+
+    /**
+     * Forgets what's been written to the slices, so nextSlice() treats each of them as never
+     * written until it has been again (for when the layout of what's written changes)
+     */
+    public void discardContents() {
+        Arrays.fill(mSliceWritten, false);
+    }
+
+    /**
+     * Puts down a fence after the draw reading the current slice, so it won't be written again
+     * until the GPU has finished with it. If the slice is drawn again in a later frame without
+     * moving on, the new fence replaces the old one, which it covers.
+     */
+    public void fenceSlice() {
+        if (mFences[mSlice] != 0) {
+            mGL.deleteFence(mFences[mSlice]);
+        }
+
+        mFences[mSlice] = mGL.fence();
+    }
+
+    /**
+     * Deletes any fences still waiting
+     */
+    public void release() {
+        for (int slice = 0; slice < mFences.length; slice++) {
+            if (mFences[slice] != 0) {
+                mGL.deleteFence(mFences[slice]);
+                mFences[slice] = 0;
+            }
+        }
+    }
+
+    /**
+     * @return The buffer object
+     */
+    public int getBuffer() {
+        return mBuffer;
+    }
+
+    /**
+     * @return The offset of the current slice from the start of the buffer in bytes
+     */
+    public int getSliceOffset() {
+        return mSlice * mSliceSize;
+    }
+
+    /**
+     * @return The index of the current slice
+     */
+    public int getSlice() {
+        return mSlice;
+    }
+
+    /**
+     * @return The number of slices in the ring
+     */
+    public int getSliceCount() {
+        return mFences.length;
+    }
+
+    public long getSlicesUsed() {
+        return mSlicesUsed;
+    }
+
+    public long getFenceWaits() {
+        return mFenceWaits;
+    }
+
+    public long getStalls() {
+        return mStalls;
+    }
+}
@@ -0,0 +1,96 @@
+package com.sudo_code.ndrenderer;
+
+/**
+ * Counts the bytes an NDShape uploads to buffer objects, both for the last frame and in total,
+ * so the effect of the buffer update policies can be measured.
+ */
+public class UploadStats {
+    private long mFrameVertexBytes;
+    private long mFrameIndexBytes;
+    private long mFrameUniformBytes;
+
+    private long mTotalBytes;
+    private long mFrames;
+
+    /**
+     * Starts counting a new frame
+     */
+    public void beginFrame() {
+        mFrameVertexBytes  = 0;
+        mFrameIndexBytes   = 0;
+        mFrameUniformBytes = 0;
+        mFrames++;
+    }
+
+    public void addVertexBytes(long bytes) {
+        mFrameVertexBytes += bytes;
+        mTotalBytes += bytes;
+    }
+
+    public void addIndexBytes(long bytes) {
+        mFrameIndexBytes += bytes;
+        mTotalBytes += bytes;
+    }
+
+    public void addUniformBytes(long bytes) {
+        mFrameUniformBytes += bytes;
+        mTotalBytes += bytes;
+    }
+
+    /**
+     * @return The bytes of vertex data uploaded in the current frame
+     */
+    public long getFrameVertexBytes() {
+        return mFrameVertexBytes;
+    }
+
+    /**
+     * @return The bytes of index data uploaded in the current frame
+     */
+    public long getFrameIndexBytes() {
+        return mFrameIndexBytes;
+    }
+
+    /**
+     * @return The bytes of uniform data uploaded in the current frame
+     */
+    public long getFrameUniformBytes() {
+        return mFrameUniformBytes;
+    }
+
+    /**
+     * @return All the bytes uploaded in the current frame
+     */
+    public long getFrameBytes() {
+        return mFrameVertexBytes + mFrameIndexBytes + mFrameUniformBytes;
+    }
+
+    /**
+     * @return All the bytes uploaded since the last reset
+     */
+    public long getTotalBytes() {
+        return mTotalBytes;
+    }
+
+    /**
+     * @return The number of frames since the last reset
+     */
+    public long getFrames() {
+        return mFrames;
+    }
+
+    /**
+     * @return The average bytes uploaded per frame since the last reset
+     */
+    public long getAverageFrameBytes() {
+        return mFrames == 0 ? 0 : mTotalBytes / mFrames;
+    }
+
+    public void reset() {
+        mFrameVertexBytes  = 0;
+        mFrameIndexBytes   = 0;
+        mFrameUniformBytes = 0;
+        mTotalBytes = 0;
+        mFrames     = 0;
+    }
+}
@@ -0,0 +1,41 @@
+package com.sudo_code.ndrenderer;
+
+class Utils {
+
+    /**
+     * Projects a vertex down a dimension
+     *
+     * @param vertex The vertex to be projected
+     * @param projectionConstant The camera's distance to the hypervolume of projection (MUST BE GREATER THAN GREATEST EXTENT OF SHAPE)
+     */
+    public static float[] projectDown(float[] vertex, float projectionConstant) {
+        float[] projVertex = new float[vertex.length - 1];
+
+        for (int i = 0; i < vertex.length - 1; i++) {
+            projVertex[i] = vertex[i] * (projectionConstant / (projectionConstant +  vertex[vertex.length - 1]));
+        }
+
+        return projVertex;
+    }
+
+    /**
+     * Integer exponentiation by squaring
+     *
+     * @param base Base of exponentiation
+     * @param exponent of exponentiation (must be >= 0)
+     */
+    public static int powI(int base, int exponent) {
+        int result = 1;
+
+        while (exponent != 0) {
+            if ((exponent & 1) != 0) {
+                result *= base;
+            }
+
+            exponent >>= 1;
+            base *= base;
+        }
+
+        return result;
+    }
+}
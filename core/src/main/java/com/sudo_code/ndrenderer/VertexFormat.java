@@ -0,0 +1,187 @@
+package com.sudo_code.ndrenderer;
+
+import java.nio.ByteBuffer;
+import java.nio.FloatBuffer;
+
+/**
+ * How an NDShape lays out the projected positions and secondary data it streams to the GPU each
+ * frame. The positions are always full floats, as they're spread out over the whole view. The
+ * secondary data is normals or colors, with every component between -1 and 1, so it can be
+ * packed into fewer bits without anything visible being lost.
+ */
+public enum VertexFormat {
+    /**
+     * All the positions as 3 floats each, followed by all the secondary data as 3 floats each
+     * (24 bytes per vertex). The secondary data is a block of its own, so it's left out of the
+     * upload on frames it hasn't changed.
+     */
+    SEPARATE_FLOAT(0, 0),
+
+    /**
+     * Each vertex's position followed by its secondary data as 3 half floats and a half float of
+     * padding (20 bytes per vertex)
+     */
+    INTERLEAVED_HALF_FLOAT(GLBackend.GL_HALF_FLOAT, 8),
+
+    /**
+     * Each vertex's position followed by its secondary data as 3 signed normalized bytes and a
+     * byte of padding (16 bytes per vertex). Every component keeps 7 bits.
+     */
+    INTERLEAVED_SNORM(GLBackend.GL_BYTE, 4);
+
+    private static final int BYTES_PER_FLOAT = 4;
+    private static final int POSITION_BYTES  = 3 * BYTES_PER_FLOAT;
+
+    private final int mSecondaryType;   //The GL type of the interleaved secondary data
+    private final int mSecondaryBytes;  //Bytes of interleaved secondary data per vertex, padding included
+
+    VertexFormat(int secondaryType, int secondaryBytes) {
+        mSecondaryType  = secondaryType;
+        mSecondaryBytes = secondaryBytes;
+    }
+
+    /**
+     * @return Whether each vertex's secondary data is next to its position rather than in a
+     *         block of its own
+     */
+    public boolean isInterleaved() {
+        return this != SEPARATE_FLOAT;
+    }
+
+    /**
+     * @return The bytes each vertex takes up with its secondary data
+     */
+    public int getBytesPerVertex() {
+        return isInterleaved() ? POSITION_BYTES + mSecondaryBytes : 2 * POSITION_BYTES;
+    }
+
+    /**
+     * Interleaved vertices always have their secondary data uploaded with their positions, as
+     * the positions can't be written without writing over it
+     *
+     * @param secondaryData Whether the secondary data has changed
+     * @return Whether the secondary data needs uploading
+     */
+    public boolean uploadsSecondaryData(boolean secondaryData) {
+        return secondaryData || isInterleaved();
+    }
+
+    /**
+     * @param vertexCount The number of vertices
+     * @param secondaryData Whether the secondary data has changed
+     * @return The bytes write() writes
+     */
+    public int getUploadBytes(int vertexCount, boolean secondaryData) {
+        return uploadsSecondaryData(secondaryData) ? vertexCount * getBytesPerVertex() : vertexCount * POSITION_BYTES;
+    }
+
+    /**
+     * Writes the vertices in this format
+     *
+     * @param vertices3d The projected positions, 3 components each
+     * @param secondaryData The secondary data, 3 components each
+     * @param writeSecondary Whether the secondary data has changed (always written when interleaved)
+     * @param out The buffer to write to, in native byte order, from its position on
+     */
+    public void write(float[] vertices3d, float[] secondaryData, boolean writeSecondary, ByteBuffer out) {
+        if (!isInterleaved()) {
+            FloatBuffer floats = out.asFloatBuffer();
+            floats.put(vertices3d);
+
+            if (writeSecondary) {
+                floats.put(secondaryData);
+            }
+
+            out.position(out.position() + floats.position() * BYTES_PER_FLOAT);
+            return;
+        }
+
+        for (int compI = 0; compI < vertices3d.length; compI += 3) {
+            out.putFloat(vertices3d[compI + 0]);
+            out.putFloat(vertices3d[compI + 1]);
+            out.putFloat(vertices3d[compI + 2]);
+
+            if (this == INTERLEAVED_HALF_FLOAT) {
+                out.putShort(toHalfFloat(secondaryData[compI + 0]));
+                out.putShort(toHalfFloat(secondaryData[compI + 1]));
+                out.putShort(toHalfFloat(secondaryData[compI + 2]));
+                out.putShort((short) 0);
+            } else {
+                out.put(toSnorm(secondaryData[compI + 0]));
+                out.put(toSnorm(secondaryData[compI + 1]));
+                out.put(toSnorm(secondaryData[compI + 2]));
+                out.put((byte) 0);
+            }
+        }
+    }
+
+    /**
+     * Points the position and secondary data attributes of the bound vertex array object at
+     * vertices written by write() to the bound array buffer
+     *
+     * @param gl The GL to call
+     * @param posHandle The attribute index of the position
+     * @param secondaryHandle The attribute index of the secondary data
+     * @param vertexCount The number of vertices
+     * @param offset The byte offset the vertices were written to
+     */
+    public void setAttribPointers(GLBackend gl, int posHandle, int secondaryHandle, int vertexCount, int offset) {
+        if (!isInterleaved()) {
+            gl.glVertexAttribPointer(posHandle, 3, GLBackend.GL_FLOAT, false, 0, offset);
+            gl.glVertexAttribPointer(secondaryHandle, 3, GLBackend.GL_FLOAT, false, 0, offset + vertexCount * POSITION_BYTES);
+            return;
+        }
+
+        gl.glVertexAttribPointer(posHandle, 3, GLBackend.GL_FLOAT, false, getBytesPerVertex(), offset);
+        gl.glVertexAttribPointer(
+                secondaryHandle,
+                3,
+                mSecondaryType,
+                this == INTERLEAVED_SNORM,
+                getBytesPerVertex(),
+                offset + POSITION_BYTES);
+    }
+
+    /**
+     * Converts a float to the nearest half float (IEEE 754 binary16), rounding halfway cases up
+     * in magnitude
+     *
+     * @param value The float
+     * @return The bits of the half float
+     */
+    static short toHalfFloat(float value) {
+        int bits     = Float.floatToRawIntBits(value);
+        int sign     = (bits >>> 16) & 0x8000;
+        int exponent = ((bits >>> 23) & 0xFF) - 127 + 15;
+        int mantissa = bits & 0x7FFFFF;
+
+        if (exponent >= 0x1F) {
+            //Too big for a half float, infinite or NaN (which stays a NaN)
+            boolean nan = (bits & 0x7FFFFFFF) > 0x7F800000;
+            return (short) (sign | 0x7C00 | (nan ? 0x200 : 0));
+        }
+
+        if (exponent <= 0) {
+            if (exponent < -10) {
+                return (short) sign;    //Too small even for a subnormal
+            }
+
+            //Subnormal, so the implicit leading 1 becomes part of the mantissa
+            int shift = 14 - exponent;
+            return (short) (sign | (((mantissa | 0x800000) + (1 << (shift - 1))) >> shift));
+        }
+
+        //A mantissa that rounds up past 10 bits carries into the exponent, which is what's wanted
+        return (short) (sign | ((exponent << 10) + ((mantissa + 0x1000) >> 13)));
+    }
+
+    /**
+     * Converts a float to a signed normalized byte, clamping it between -1 and 1
+     *
+     * @param value The float
+     * @return The byte, value * 127 rounded
+     */
+    static byte toSnorm(float value) {
+        return (byte) Math.round(Math.max(-1.f, Math.min(1.f, value)) * 127.f);
+    }
+}
@@ -0,0 +1,184 @@
+package com.sudo_code.ndrenderer;
+
+/**
+ * Weighted blended order independent transparency (McGuire and Bavoil, 2013), so that blended
+ * shapes can be drawn with their faces in any order and NDShape never has to sort them
+ * (BufferUpdatePolicy.UNSORTED).
+ *
+ * Between begin() and end(), the shape is drawn into an offscreen framebuffer with two color
+ * targets, using oit_frag.glsl (or oit_nd_frag.glsl). Every fragment adds its premultiplied color
+ * times a weight that falls off with its distance into the first target's color, and its alpha
+ * times the weight into the second target. The first target's alpha starts at 1 and is
+ * multiplied by 1 - alpha by every fragment, leaving how much of the background shows through
+ * (the revealage). OpenGL ES 3.0 can't blend its draw buffers differently, so both targets use
+ * GL_ONE, GL_ONE for color and GL_ZERO, GL_ONE_MINUS_SRC_ALPHA for alpha, which is why the
+ * revealage lives in the first target's alpha rather than a target of its own. end() then
+ * composites the weighted average color over what was in the framebuffer before, with
+ * oit_composite_vert.glsl and oit_composite_frag.glsl, and sets the blending back to
+ * GL_SRC_ALPHA, GL_ONE_MINUS_SRC_ALPHA, the blending the sorted shapes are drawn with.
+ *
+ * The targets are 16 bit float, which needs EXT_color_buffer_half_float to be rendered to on
+ * OpenGL ES 3.0 (most phones have it). The result is an approximation: where faces overlap,
+ * nearer ones count for more, but they don't completely cover the ones behind them the way
+ * they do when they're sorted.
+ */
+public class WeightedBlendedOIT {
+    private static final int     TARGETS          = 2;
+    private static final float[] CLEAR_ACCUMULATE = {0.f, 0.f, 0.f, 1.f};   //Nothing added, everything revealed
+    private static final float[] CLEAR_WEIGHT     = {0.f, 0.f, 0.f, 0.f};
+
+    private static final int[] DRAW_BUFFERS = {GLBackend.GL_COLOR_ATTACHMENT0, GLBackend.GL_COLOR_ATTACHMENT1};
+
+    private final GLBackend mGL;
+    private final int       mCompositeProgram;
+
+    private int   mFramebuffer;
+    private int[] mTextures = new int[TARGETS];
+    private int   mVAO;             //Empty, the composite's triangle comes from gl_VertexID
+    private int   mWidth;
+    private int   mHeight;
+
+    private int   mEyeFramebuffer;
+    private int   mViewportX;
+    private int   mViewportY;
+
+    /**
+     * Generates the framebuffer and the textures it renders to, which are sized by begin()
+     *
+     * @param gl The GL to draw with
+     * @param compositeProgram The program linked from oit_composite_vert.glsl and
+     *                         oit_composite_frag.glsl
+     */
+    public WeightedBlendedOIT(GLBackend gl, int compositeProgram) {
+        mGL               = gl;
+        mCompositeProgram = compositeProgram;
+
+        int[] names = new int[1];
+
+        mGL.glGenFramebuffers(1, names, 0);
+        mFramebuffer = names[0];
+
+        mGL.glGenTextures(TARGETS, mTextures, 0);
+
+        mGL.glGenVertexArrays(1, names, 0);
+        mVAO = names[0];
+
+        mGL.glUseProgram(mCompositeProgram);
+        mGL.glUniform1i(mGL.glGetUniformLocation(mCompositeProgram, "accumulated"), 0);
+        mGL.glUniform1i(mGL.glGetUniformLocation(mCompositeProgram, "weights"), 1);
+        mGL.glUseProgram(0);
+    }
+
+    /**
+     * The weight of a fragment, equation 7 of the paper. The shape is around 10 units from the
+     * camera, where this changes by about a factor of 2 from the nearest faces to the farthest.
+     * oit_frag.glsl computes exactly the same.
+     *
+     * @param alpha The fragment's alpha
+     * @param viewDepth The fragment's distance in front of the camera (1 / gl_FragCoord.w)
+     * @return The weight its color and alpha are added with
+     */
+    public static float getWeight(float alpha, float viewDepth) {
+        float near = viewDepth / 5.f;
+        float far  = viewDepth / 200.f;
+
+        float weight = 10.f / (1e-5f + near * near + far * far * far * far * far * far);
+        return alpha * Math.max(1e-2f, Math.min(3e3f, weight));
+    }
+
+    /**
+     * Sizes the targets to the eye's viewport, leaving the framebuffer bound
+     */
+    private void resize(int width, int height) {
+        mWidth  = width;
+        mHeight = height;
+
+        int[] formats = {GLBackend.GL_RGBA16F, GLBackend.GL_R16F};
+        int[] layouts = {GLBackend.GL_RGBA, GLBackend.GL_RED};
+
+        mGL.glBindFramebuffer(GLBackend.GL_FRAMEBUFFER, mFramebuffer);
+
+        for (int target = 0; target < TARGETS; target++) {
+            mGL.glBindTexture(GLBackend.GL_TEXTURE_2D, mTextures[target]);
+
+            mGL.glTexImage2D(GLBackend.GL_TEXTURE_2D, 0, formats[target], width, height, 0,
+                    layouts[target], GLBackend.GL_HALF_FLOAT, null);
+
+            mGL.glTexParameteri(GLBackend.GL_TEXTURE_2D, GLBackend.GL_TEXTURE_MIN_FILTER, GLBackend.GL_NEAREST);
+            mGL.glTexParameteri(GLBackend.GL_TEXTURE_2D, GLBackend.GL_TEXTURE_MAG_FILTER, GLBackend.GL_NEAREST);
+
+            mGL.glFramebufferTexture2D(GLBackend.GL_FRAMEBUFFER, DRAW_BUFFERS[target],
+                    GLBackend.GL_TEXTURE_2D, mTextures[target], 0);
+        }
+
+        mGL.glBindTexture(GLBackend.GL_TEXTURE_2D, 0);
+        mGL.glDrawBuffers(TARGETS, DRAW_BUFFERS, 0);
+
+        int status = mGL.glCheckFramebufferStatus(GLBackend.GL_FRAMEBUFFER);
+        if (status != GLBackend.GL_FRAMEBUFFER_COMPLETE) {
+            throw new IllegalStateException("The OIT framebuffer is incomplete (0x" + Integer.toHexString(status) +
+                    "), 16 bit float targets need EXT_color_buffer_half_float");
+        }
+    }
+
+    /**
+     * Redirects drawing into the accumulation targets, sized to the eye's viewport, and sets up
+     * the blending. Draw the shapes with the OIT program until end(). The eye's framebuffer and
+     * viewport are passed in rather than queried with glGetIntegerv for every eye.
+     *
+     * @param framebuffer The framebuffer the eye is being drawn into, which end() composites into
+     * @param x The left of the eye's viewport
+     * @param y The bottom of the eye's viewport
+     * @param width The width of the eye's viewport, and of the targets
+     * @param height The height of the eye's viewport, and of the targets
+     */
+    public void begin(int framebuffer, int x, int y, int width, int height) {
+        mEyeFramebuffer  = framebuffer;
+        mViewportX       = x;
+        mViewportY       = y;
+
+        if (width != mWidth || height != mHeight) {
+            resize(width, height);
+        } else {
+            mGL.glBindFramebuffer(GLBackend.GL_FRAMEBUFFER, mFramebuffer);
+        }
+
+        mGL.glViewport(0, 0, mWidth, mHeight);
+
+        mGL.glClearBufferfv(GLBackend.GL_COLOR, 0, CLEAR_ACCUMULATE, 0);
+        mGL.glClearBufferfv(GLBackend.GL_COLOR, 1, CLEAR_WEIGHT, 0);
+
+        mGL.glEnable(GLBackend.GL_BLEND);
+        mGL.glBlendFuncSeparate(GLBackend.GL_ONE, GLBackend.GL_ONE, GLBackend.GL_ZERO, GLBackend.GL_ONE_MINUS_SRC_ALPHA);
+    }
+
+    /**
+     * Goes back to the framebuffer and viewport begin() was given, and composites what was
+     * drawn over them: the weighted average color, covering all but the revealage of what's
+     * there. Leaves the blending as GL_SRC_ALPHA, GL_ONE_MINUS_SRC_ALPHA.
+     */
+    public void end() {
+        mGL.glBindFramebuffer(GLBackend.GL_FRAMEBUFFER, mEyeFramebuffer);
+        mGL.glViewport(mViewportX, mViewportY, mWidth, mHeight);
+
+        mGL.glBlendFunc(GLBackend.GL_ONE_MINUS_SRC_ALPHA, GLBackend.GL_SRC_ALPHA);
+
+        for (int target = 0; target < TARGETS; target++) {
+            mGL.glActiveTexture(GLBackend.GL_TEXTURE0 + target);
+            mGL.glBindTexture(GLBackend.GL_TEXTURE_2D, mTextures[target]);
+        }
+
+        mGL.glUseProgram(mCompositeProgram);
+        mGL.glBindVertexArray(mVAO);
+        mGL.glDrawArrays(GLBackend.GL_TRIANGLES, 0, 3);
+        mGL.glBindVertexArray(0);
+        mGL.glUseProgram(0);
+
+        for (int target = TARGETS - 1; target >= 0; target--) {
+            mGL.glActiveTexture(GLBackend.GL_TEXTURE0 + target);
+            mGL.glBindTexture(GLBackend.GL_TEXTURE_2D, 0);
+        }
+
+        mGL.glBlendFunc(GLBackend.GL_SRC_ALPHA, GLBackend.GL_ONE_MINUS_SRC_ALPHA);
+    }
+}
@@ -0,0 +1,85 @@
+package com.sudo_code.ndrenderer;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class BufferUpdatePolicyTest {
+
+    @Test
+    public void staticIndicesNeverSortsOrUploadsIndices() {
+        BufferUpdatePolicy policy = BufferUpdatePolicy.STATIC_INDICES;
+
+        assertFalse(policy.sortsFaces());
+        assertFalse(policy.updatesSecondaryData());
+        assertFalse(policy.uploadsIndices(false));
+        assertFalse(policy.uploadsIndices(true));
+    }
+
+    @Test
+    public void unsortedUpdatesSecondaryDataButNeverSortsOrUploadsIndices() {
+        BufferUpdatePolicy policy = BufferUpdatePolicy.UNSORTED;
+
+        assertFalse(policy.sortsFaces());
+        assertTrue(policy.updatesSecondaryData());
+        assertFalse(policy.uploadsIndices(false));
+        assertFalse(policy.uploadsIndices(true));
+    }
+
+    @Test
+    public void reorderedIndicesOnlyUploadsWhenReordered() {
+        BufferUpdatePolicy policy = BufferUpdatePolicy.REORDERED_INDICES;
+
+        assertTrue(policy.sortsFaces());
+        assertTrue(policy.updatesSecondaryData());
+        assertFalse(policy.uploadsIndices(false));
+        assertTrue(policy.uploadsIndices(true));
+    }
+
+    @Test
+    public void dynamicAlwaysUploads() {
+        BufferUpdatePolicy policy = BufferUpdatePolicy.DYNAMIC;
+
+        assertTrue(policy.sortsFaces());
+        assertTrue(policy.updatesSecondaryData());
+        assertTrue(policy.uploadsIndices(false));
+        assertTrue(policy.uploadsIndices(true));
+    }
+
+    @Test
+    public void sortingSortedFacesReportsNoReorder() {
+        //Two faces, the second one farther from the camera than the first
+        float[] vertices3d = new float[8 * 3];
+        for (int vertI = 4; vertI < 8; vertI++) {
+            vertices3d[vertI * 3 + 2] = -5.f;
+        }
+
+        int[] indices = {0, 1, 3, 1, 2, 3, 4, 5, 7, 5, 6, 7};
+        FaceSorter sorter = new RadixFaceSorter();
+
+        assertTrue(sorter.sortFaces(vertices3d, indices, 2, 10.f));
+        assertEquals(4, indices[0]);
+        assertFalse(sorter.sortFaces(vertices3d, indices, 2, 10.f));
+    }
+
+    @Test
+    public void uploadStatsCountPerFrameAndInTotal() {
+        UploadStats stats = new UploadStats();
+
+        stats.beginFrame();
+        stats.addVertexBytes(100);
+        stats.addIndexBytes(40);
+        stats.addUniformBytes(8);
+        assertEquals(148, stats.getFrameBytes());
+
+        stats.beginFrame();
+        stats.addVertexBytes(100);
+        assertEquals(100, stats.getFrameBytes());
+        assertEquals(0, stats.getFrameIndexBytes());
+
+        assertEquals(248, stats.getTotalBytes());
+        assertEquals(124, stats.getAverageFrameBytes());
+    }
+}
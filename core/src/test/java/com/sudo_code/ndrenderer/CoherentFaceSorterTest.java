@@ -0,0 +1,144 @@
+package com.sudo_code.ndrenderer;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Checks which of CoherentFaceSorter's sorts are counted as repairs, full sorts and fallbacks,
+ * and that the order it ends up with is the same as a from scratch sort's whichever it did
+ */
+public class CoherentFaceSorterTest {
+    private static final int FACE_COUNT = 1000;
+
+    private static final float PROJECTION_CONSTANT = 3.f;
+    private static final float VIEW_DIST           = 10.f;
+
+    private static final int[] XZ = {0, 2};
+    private static final int[] YW = {1, 3};
+    private static final float SMALL_STEP = 0.005f;    //Radians, little enough that the faces stay nearly in order
+
+    /**
+     * Sorts faces whose depth keys are their position in the indices, either already farthest
+     * first or the reverse of it
+     */
+    private static void sort(CoherentFaceSorter sorter, int[] indices, boolean reversed) {
+        float[] depthKeys = sorter.getDepthKeys(FACE_COUNT);
+
+        for (int faceI = 0; faceI < FACE_COUNT; faceI++) {
+            depthKeys[faceI] = reversed ? faceI : FACE_COUNT - faceI;
+        }
+
+        sorter.sortByDepthKeys(indices, FACE_COUNT);
+    }
+
+    @Test
+    public void sortedFacesAreRepairedWithoutFallingBack() {
+        CoherentFaceSorter sorter = new CoherentFaceSorter();
+        int[] indices = new int[FACE_COUNT * FaceSorter.INDICES_PER_FACE];
+
+        for (int frameI = 0; frameI < 10; frameI++) {
+            sort(sorter, indices, false);
+        }
+
+        assertEquals(1, sorter.getFullSortCount());     //There's no order to repair the first time
+        assertEquals(9, sorter.getIncrementalSortCount());
+        assertEquals(0, sorter.getFallbackCount());
+    }
+
+    @Test
+    public void skippedRepairsAreNotCountedAsFallbacks() {
+        CoherentFaceSorter sorter = new CoherentFaceSorter();
+        int[] indices = new int[FACE_COUNT * FaceSorter.INDICES_PER_FACE];
+
+        //The first sort, then falling back after 1, 2 and 4 skipped frames: frames 1, 3, 6 and 11
+        for (int frameI = 0; frameI < 12; frameI++) {
+            sort(sorter, indices, true);
+        }
+
+        assertEquals(12, sorter.getFullSortCount());
+        assertEquals(0, sorter.getIncrementalSortCount());
+        assertEquals(4, sorter.getFallbackCount());
+
+        sorter.resetCounters();
+        assertEquals(0, sorter.getFallbackCount());
+    }
+
+    /**
+     * @return The depth key of every face in indices, in the order they're drawn
+     */
+    private static float[] drawnDepthKeys(float[] vertices3d, int[] indices, int faceCount) {
+        float[] keys = new float[faceCount];
+
+        for (int faceI = 0; faceI < faceCount; faceI++) {
+            keys[faceI] = FaceSorter.depthKey(
+                    vertices3d,
+                    indices[faceI * FaceSorter.INDICES_PER_FACE + FaceSorter.FIRST_KEY_INDEX] * 3,
+                    indices[faceI * FaceSorter.INDICES_PER_FACE + FaceSorter.SECOND_KEY_INDEX] * 3,
+                    VIEW_DIST);
+        }
+
+        return keys;
+    }
+
+    /**
+     * Rotates the mesh, sorts the coherent indices and checks they're drawn in the same depth
+     * order as the selection sort puts last frame's indices in
+     */
+    private static void sortFrame(HypertorusMesh mesh, CoherentFaceSorter sorter, int[] indices, float angle,
+                                  int frameI) {
+        int faceCount = mesh.getFaceCount();
+
+        mesh.rotate(angle, XZ);
+        mesh.rotate(angle * 0.7f, YW);
+        mesh.project();
+
+        int[] expected = indices.clone();
+
+        new SelectionFaceSorter().sortFaces(mesh.getVertices3d(), expected, faceCount, VIEW_DIST);
+        sorter.sortFaces(mesh.getVertices3d(), indices, faceCount, VIEW_DIST);
+
+        assertArrayEquals(
+                "Frame " + frameI,
+                drawnDepthKeys(mesh.getVertices3d(), expected, faceCount),
+                drawnDepthKeys(mesh.getVertices3d(), indices, faceCount),
+                0.f);
+    }
+
+    @Test
+    public void rotatingShapeIsSortedTheSameAsFromScratch() {
+        HypertorusMesh mesh = new HypertorusMesh(4, PROJECTION_CONSTANT, VIEW_DIST, 10);
+        CoherentFaceSorter sorter = new CoherentFaceSorter();
+        int[] indices = mesh.getIndices().clone();
+        int frameI = 0;
+
+        //Small steps are repaired, after the first frame which has nothing to repair
+        for (; frameI < 30; frameI++) {
+            sortFrame(mesh, sorter, indices, SMALL_STEP, frameI);
+        }
+
+        assertEquals(1, sorter.getFullSortCount());
+        assertEquals(29, sorter.getIncrementalSortCount());
+        assertEquals(0, sorter.getFallbackCount());
+
+        //Turning it round every frame reverses the order, so the repair gives up part way
+        //through, then skips 1 frame, gives up again, then skips 2
+        for (; frameI < 35; frameI++) {
+            sortFrame(mesh, sorter, indices, (float) Math.PI, frameI);
+        }
+
+        assertEquals(6, sorter.getFullSortCount());
+        assertEquals(29, sorter.getIncrementalSortCount());
+        assertEquals(2, sorter.getFallbackCount());
+
+        //And once it's small steps again it goes back to repairing
+        for (; frameI < 45; frameI++) {
+            sortFrame(mesh, sorter, indices, SMALL_STEP, frameI);
+        }
+
+        assertEquals(6, sorter.getFullSortCount());
+        assertEquals(39, sorter.getIncrementalSortCount());
+        assertEquals(2, sorter.getFallbackCount());
+    }
+}
@@ -0,0 +1,139 @@
+package com.sudo_code.ndrenderer;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Checks RadixFaceSorter against SelectionFaceSorter. Ties can go either way, so rather than
+ * the exact order both have to put the same faces in a non-increasing depth order.
+ */
+public class FaceSorterTest {
+    private static final int[] FACE_COUNTS = {1000, 10000, 100000};
+
+    private static final float[] TIED_KEYS = {1.f, 2.5f, 2.5f, 40.f};
+
+    /**
+     * Makes the indices of faceCount faces, each with its own indices, except for the faces
+     * that are repeats of an earlier face
+     */
+    private static int[] genIndices(int faceCount, int[] repeatOf) {
+        int[] indices = new int[faceCount * FaceSorter.INDICES_PER_FACE];
+
+        for (int faceI = 0; faceI < faceCount; faceI++) {
+            int sourceI = repeatOf[faceI] >= 0 ? repeatOf[faceI] : faceI;
+
+            for (int i = 0; i < FaceSorter.INDICES_PER_FACE; i++) {
+                indices[faceI * FaceSorter.INDICES_PER_FACE + i] = sourceI * FaceSorter.INDICES_PER_FACE + i;
+            }
+        }
+
+        return indices;
+    }
+
+    /**
+     * Sorts the faces with sorter and checks they come out farthest first
+     *
+     * @param keys The depth key of every face, by the face its first index belongs to
+     * @return The faces in the order they came out, by the face their first index belongs to
+     */
+    private static int[] sort(FaceSorter sorter, float[] keys, int[] repeatOf, String message) {
+        int faceCount = keys.length;
+        int[] indices = genIndices(faceCount, repeatOf);
+
+        float[] depthKeys = sorter.getDepthKeys(faceCount);
+        for (int faceI = 0; faceI < faceCount; faceI++) {
+            depthKeys[faceI] = keys[indices[faceI * FaceSorter.INDICES_PER_FACE] / FaceSorter.INDICES_PER_FACE];
+        }
+
+        sorter.sortByDepthKeys(indices, faceCount);
+
+        int[] faces = new int[faceCount];
+
+        for (int faceI = 0; faceI < faceCount; faceI++) {
+            int indexI = faceI * FaceSorter.INDICES_PER_FACE;
+            faces[faceI] = indices[indexI] / FaceSorter.INDICES_PER_FACE;
+
+            //The faces have to stay whole
+            for (int i = 1; i < FaceSorter.INDICES_PER_FACE; i++) {
+                assertTrue(message, indices[indexI + i] == indices[indexI] + i);
+            }
+
+            if (faceI > 0) {
+                assertTrue(message + ", face " + faceI, keys[faces[faceI]] <= keys[faces[faceI - 1]]);
+            }
+        }
+
+        return faces;
+    }
+
+    private static void check(float[] keys, int[] repeatOf, String message) {
+        int[] radix     = sort(new RadixFaceSorter(), keys, repeatOf, message + ", radix");
+        int[] selection = sort(new SelectionFaceSorter(), keys, repeatOf, message + ", selection");
+
+        Arrays.sort(radix);
+        Arrays.sort(selection);
+
+        assertArrayEquals(message, selection, radix);
+    }
+
+    @Test
+    public void randomKeysMatchTheSelectionSort() {
+        Random random = new Random(1);
+
+        for (int faceCount : FACE_COUNTS) {
+            float[] keys     = new float[faceCount];
+            int[]   repeatOf = new int[faceCount];
+
+            for (int faceI = 0; faceI < faceCount; faceI++) {
+                keys[faceI]     = random.nextFloat() * 100.f;
+                repeatOf[faceI] = -1;
+            }
+
+            check(keys, repeatOf, faceCount + " random faces");
+        }
+    }
+
+    @Test
+    public void tiedKeysMatchTheSelectionSort() {
+        Random random = new Random(2);
+
+        for (int faceCount : FACE_COUNTS) {
+            float[] keys     = new float[faceCount];
+            int[]   repeatOf = new int[faceCount];
+
+            for (int faceI = 0; faceI < faceCount; faceI++) {
+                repeatOf[faceI] = -1;
+
+                switch (random.nextInt(4)) {
+                    case 0:     //Zero distance, with either sign
+                        keys[faceI] = random.nextBoolean() ? 0.f : -0.f;
+                        break;
+
+                    case 1:     //A handful of equal distances
+                        keys[faceI] = TIED_KEYS[random.nextInt(TIED_KEYS.length)];
+                        break;
+
+                    case 2:     //The same face again
+                        if (faceI > 0) {
+                            int sourceI = random.nextInt(faceI);
+                            repeatOf[faceI] = repeatOf[sourceI] >= 0 ? repeatOf[sourceI] : sourceI;
+                        }
+
+                        keys[faceI] = TIED_KEYS[0];
+                        break;
+
+                    default:
+                        keys[faceI] = random.nextFloat() * 100.f;
+                        break;
+                }
+            }
+
+            check(keys, repeatOf, faceCount + " tied faces");
+        }
+    }
+}
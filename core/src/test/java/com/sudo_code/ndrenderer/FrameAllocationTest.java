@@ -0,0 +1,130 @@
+package com.sudo_code.ndrenderer;
+
+import org.junit.Test;
+
+import java.lang.management.ManagementFactory;
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assume.assumeTrue;
+
+/**
+ * Checks that the per frame CPU geometry work allocates nothing once it's warmed up. frame() is
+ * what NDShape.prepare() does on the CPU projection path without the GL calls after it: the
+ * rotation, then NDMesh.prepareGeometry() projecting, generating the normals and sorting the
+ * faces, over real hypercube and hypertorus meshes.
+ */
+public class FrameAllocationTest {
+    private static final float PROJECTION_CONSTANT = 3.f;
+    private static final float VIEW_DIST           = 10.f;
+    private static final int   WARMUP_FRAMES       = 20000;    //Enough for the JIT to settle
+    private static final int   MEASURED_FRAMES     = 1000;
+
+    private final int mDimensions = 5;
+
+    private final NDTransform mRotation = new NDTransform(mDimensions);
+
+    private final float[] mVertices = new float[2000 * mDimensions];  //For the vector kernels
+
+    public FrameAllocationTest() {
+        Random random = new Random(9);
+
+        for (int i = 0; i < mVertices.length; i++) {
+            mVertices[i] = random.nextFloat() * 2.f - 1.f;
+        }
+    }
+
+    private void frame(NDMesh mesh, float angle) {
+        mRotation.setIdentity();
+        mRotation.rotate(angle, 0, 2);
+        mRotation.rotate(angle, 2, 3);
+        mRotation.rotate(angle, 3, 1);
+        mRotation.rotate(angle, 0, 4);
+        mRotation.rotate(angle, 4, 1);
+
+        mesh.transform(mRotation);
+        mesh.prepareGeometry();
+    }
+
+    /**
+     * @return The bytes allocated by this thread over MEASURED_FRAMES frames after warming up
+     */
+    private long measureAllocation(NDMesh mesh, FaceSorter sorter) {
+        mesh.setFaceSorter(sorter);
+
+        com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        long threadId = Thread.currentThread().getId();
+
+        for (int frameI = 0; frameI < WARMUP_FRAMES; frameI++) {
+            frame(mesh, 0.01f);
+        }
+
+        //Calling it once first so whatever it allocates the first time isn't counted
+        threads.getThreadAllocatedBytes(threadId);
+
+        long before = threads.getThreadAllocatedBytes(threadId);
+
+        for (int frameI = 0; frameI < MEASURED_FRAMES; frameI++) {
+            frame(mesh, 0.01f);
+        }
+
+        return threads.getThreadAllocatedBytes(threadId) - before;
+    }
+
+    private static void assumeAllocationCounting() {
+        assumeTrue(ManagementFactory.getThreadMXBean() instanceof com.sun.management.ThreadMXBean);
+    }
+
+    @Test
+    public void radixSortedHypercubeFrameDoesNotAllocate() {
+        assumeAllocationCounting();
+        assertEquals(0, measureAllocation(new HypercubeMesh(mDimensions, PROJECTION_CONSTANT, VIEW_DIST), new RadixFaceSorter()));
+    }
+
+    @Test
+    public void coherentSortedHypercubeFrameDoesNotAllocate() {
+        assumeAllocationCounting();
+        assertEquals(0, measureAllocation(new HypercubeMesh(mDimensions, PROJECTION_CONSTANT, VIEW_DIST), new CoherentFaceSorter()));
+    }
+
+    @Test
+    public void radixSortedHypertorusFrameDoesNotAllocate() {
+        assumeAllocationCounting();
+        assertEquals(0, measureAllocation(new HypertorusMesh(mDimensions, PROJECTION_CONSTANT, VIEW_DIST, 6), new RadixFaceSorter()));
+    }
+
+    @Test
+    public void coherentSortedHypertorusFrameDoesNotAllocate() {
+        assumeAllocationCounting();
+        assertEquals(0, measureAllocation(new HypertorusMesh(mDimensions, PROJECTION_CONSTANT, VIEW_DIST, 6), new CoherentFaceSorter()));
+    }
+
+    @Test
+    public void vectorKernelsDoNotAllocate() {
+        assumeAllocationCounting();
+
+        com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        long threadId = Thread.currentThread().getId();
+        float[][] matrix = new float[mDimensions][mDimensions];
+        float[] scratch = new float[mDimensions * 4];
+
+        long before = 0;
+        for (int pass = 0; pass < 2; pass++) {  //The first pass warms up
+            before = threads.getThreadAllocatedBytes(threadId);
+
+            for (int i = 0; i < WARMUP_FRAMES; i++) {
+                int offset = (i % (mVertices.length / mDimensions)) * mDimensions;
+
+                NDVector.sub(mVertices, offset, mVertices, 0, mDimensions, scratch, 0);
+                NDVector.add(scratch, 0, mVertices, offset, mDimensions, scratch, mDimensions);
+                NDVector.mult(0.5f, scratch, mDimensions, mDimensions, scratch, mDimensions);
+                NDVector.multMatrix(matrix, scratch, mDimensions, mDimensions, scratch, mDimensions * 2);
+                NDVector.rotate(scratch, 0, 0.8f, 0.6f, 0, 2);
+                NDVector.cross(scratch, 0, scratch, mDimensions, scratch, mDimensions * 3);
+                NDVector.normalize(scratch, 0, mDimensions, scratch, 0);
+            }
+        }
+
+        assertEquals(0, threads.getThreadAllocatedBytes(threadId) - before);
+    }
+}
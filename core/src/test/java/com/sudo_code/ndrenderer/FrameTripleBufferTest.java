@@ -0,0 +1,102 @@
+package com.sudo_code.ndrenderer;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+public class FrameTripleBufferTest {
+    private static final int FRAME_SIZE = 4096;
+    private static final int FRAMES     = 20000;
+
+    @Test
+    public void nothingBeforeTheFirstPublish() {
+        FrameTripleBuffer<int[]> buffer = new FrameTripleBuffer<>(new int[1], new int[1], new int[1]);
+
+        assertFalse(buffer.hasFreshFrame());
+        assertNull(buffer.acquire());
+    }
+
+    @Test
+    public void acquireGetsTheNewestFrame() {
+        FrameTripleBuffer<int[]> buffer = new FrameTripleBuffer<>(new int[1], new int[1], new int[1]);
+
+        for (int frame = 1; frame <= 3; frame++) {
+            buffer.getBack()[0] = frame;
+            buffer.publish();
+        }
+
+        assertTrue(buffer.hasFreshFrame());
+        int[] newest = buffer.acquire();
+        assertEquals(3, newest[0]);
+
+        //Nothing newer, so the same frame again
+        assertFalse(buffer.hasFreshFrame());
+        assertSame(newest, buffer.acquire());
+    }
+
+    @Test
+    public void producerNeverWritesTheFrontSlot() {
+        FrameTripleBuffer<int[]> buffer = new FrameTripleBuffer<>(new int[1], new int[1], new int[1]);
+
+        buffer.getBack()[0] = 1;
+        buffer.publish();
+        int[] front = buffer.acquire();
+
+        for (int frame = 2; frame < 10; frame++) {
+            assertTrue(buffer.getBack() != front);
+            buffer.getBack()[0] = frame;
+            buffer.publish();
+        }
+
+        assertEquals(1, front[0]);
+    }
+
+    /**
+     * Every frame is filled with its own number, so a frame the consumer sees while the producer
+     * is still writing it would have mixed numbers in it
+     */
+    @Test
+    public void framesAreNeverTornAcrossThreads() throws InterruptedException {
+        final FrameTripleBuffer<int[]> buffer = new FrameTripleBuffer<>(
+                new int[FRAME_SIZE], new int[FRAME_SIZE], new int[FRAME_SIZE]);
+
+        Thread producer = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                for (int frame = 1; frame <= FRAMES; frame++) {
+                    int[] back = buffer.getBack();
+
+                    for (int i = 0; i < back.length; i++) {
+                        back[i] = frame;
+                    }
+
+                    buffer.publish();
+                }
+            }
+        });
+
+        producer.start();
+
+        int last = 0;
+        while (last < FRAMES) {
+            int[] front = buffer.acquire();
+
+            if (front == null) {
+                continue;
+            }
+
+            for (int i = 0; i < front.length; i++) {
+                assertEquals("Torn frame", front[0], front[i]);
+            }
+
+            assertTrue("Went back in time", front[0] >= last);
+            last = front[0];
+        }
+
+        producer.join();
+    }
+}
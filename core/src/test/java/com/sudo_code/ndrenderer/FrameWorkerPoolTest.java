@@ -0,0 +1,76 @@
+package com.sudo_code.ndrenderer;
+
+import org.junit.Test;
+
+import java.util.concurrent.atomic.AtomicIntegerArray;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+
+public class FrameWorkerPoolTest {
+
+    @Test
+    public void coversEveryIndexOnce() {
+        FrameWorkerPool pool = new FrameWorkerPool(4);
+
+        for (int count : new int[] {0, 1, 7, 100, 1001}) {
+            for (int run = 0; run < 50; run++) {    //Reusing the workers every time
+                final AtomicIntegerArray visits = new AtomicIntegerArray(count);
+
+                pool.run(count, 1, new FrameWorkerPool.Task() {
+                    @Override
+                    public void run(int chunk, int start, int end) {
+                        for (int i = start; i < end; i++) {
+                            visits.incrementAndGet(i);
+                        }
+                    }
+                });
+
+                for (int i = 0; i < count; i++) {
+                    assertEquals("count " + count + " index " + i, 1, visits.get(i));
+                }
+            }
+        }
+
+        pool.shutdown();
+    }
+
+    @Test
+    public void smallLoopsStayOnTheCallingThread() {
+        FrameWorkerPool pool = new FrameWorkerPool(4);
+        final Thread caller = Thread.currentThread();
+
+        assertEquals(1, pool.getChunks(1000, 1000));
+        assertEquals(2, pool.getChunks(2000, 1000));
+        assertEquals(4, pool.getChunks(100000, 1000));
+
+        pool.run(1500, 1000, new FrameWorkerPool.Task() {
+            @Override
+            public void run(int chunk, int start, int end) {
+                assertSame(caller, Thread.currentThread());
+                assertEquals(0, start);
+                assertEquals(1500, end);
+            }
+        });
+
+        pool.shutdown();
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void rethrowsWorkerExceptions() {
+        FrameWorkerPool pool = new FrameWorkerPool(3);
+
+        try {
+            pool.run(300, 1, new FrameWorkerPool.Task() {
+                @Override
+                public void run(int chunk, int start, int end) {
+                    if (chunk == 2) {
+                        throw new IllegalStateException("Chunk " + chunk);
+                    }
+                }
+            });
+        } finally {
+            pool.shutdown();
+        }
+    }
+}
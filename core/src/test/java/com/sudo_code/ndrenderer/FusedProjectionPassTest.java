@@ -0,0 +1,161 @@
+package com.sudo_code.ndrenderer;
+
+import org.junit.Test;
+
+import java.util.Random;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Checks that FusedProjectionPass gives exactly the same vertices, normals and face order as the
+ * separate projection, normal and sorting passes it replaced in NDShape.prepare()
+ */
+public class FusedProjectionPassTest {
+    private static final float PROJECTION_CONSTANT = 3.f;
+    private static final float VIEW_DIST           = 10.f;
+    private static final int   FACE_COUNT          = 700;      //Enough vertices for a partial last block
+    private static final int   PARALLEL_FACE_COUNT = 20000;    //Enough to be split across threads
+    private static final int   FRAMES              = 20;
+
+    /**
+     * Makes faces over a pool of vertices they share, like the hypertorus, so the order the
+     * normals are written in matters
+     */
+    private static int[] genIndices(int faceCount, int vertexCount, Random random) {
+        int[] indices = new int[faceCount * FaceSorter.INDICES_PER_FACE];
+        int[] corners = new int[4];
+
+        for (int faceI = 0; faceI < faceCount; faceI++) {
+            for (int corner = 0; corner < corners.length; corner++) {
+                boolean repeated;
+
+                do {    //The corners have to be different or the normal is NaN
+                    corners[corner] = random.nextInt(vertexCount);
+                    repeated = false;
+
+                    for (int other = 0; other < corner; other++) {
+                        repeated |= corners[other] == corners[corner];
+                    }
+                } while (repeated);
+            }
+
+            int[] face = {corners[0], corners[1], corners[2], corners[1], corners[2], corners[3]};
+            System.arraycopy(face, 0, indices, faceI * face.length, face.length);
+        }
+
+        return indices;
+    }
+
+    private static void threePass(NDTransform orientation, float[] vertices, int dimensions,
+                                  float[] vertices3d, float[] normals, int[] indices, FaceSorter sorter) {
+        float[] vertex = new float[dimensions];
+
+        for (int vertI = 0; vertI < vertices.length / dimensions; vertI++) {
+            orientation.apply(vertices, vertI * dimensions, vertex, 0);
+            NDProjection.projectVertex(vertex, 0, dimensions, PROJECTION_CONSTANT);
+            System.arraycopy(vertex, 0, vertices3d, vertI * 3, 3);
+        }
+
+        for (int indexFaceStartI = 0; indexFaceStartI < indices.length; indexFaceStartI += 6) {
+            float[] normal = new float[3];
+            NDVector.triangleNormal(
+                    vertices3d,
+                    indices[indexFaceStartI + 0] * 3,
+                    indices[indexFaceStartI + 1] * 3,
+                    indices[indexFaceStartI + 2] * 3,
+                    normal,
+                    0);
+
+            for (int i = 0; i < 6; i++) {
+                System.arraycopy(normal, 0, normals, indices[indexFaceStartI + i] * 3, 3);
+            }
+        }
+
+        sorter.sortFaces(vertices3d, indices, indices.length / FaceSorter.INDICES_PER_FACE, VIEW_DIST);
+    }
+
+    private static void checkDimensions(int dimensions, int faceCount, FrameWorkerPool pool) {
+        Random random = new Random(dimensions);
+        int vertexCount = faceCount * 2;
+
+        float[] vertices = new float[vertexCount * dimensions];
+        for (int i = 0; i < vertices.length; i++) {
+            vertices[i] = random.nextFloat() * 2.f - 1.f;
+        }
+
+        int[] expectedIndices = genIndices(faceCount, vertexCount, random);
+        int[] indices = expectedIndices.clone();
+
+        float[] expectedVertices3d = new float[vertexCount * 3];
+        float[] expectedNormals    = new float[vertexCount * 3];
+        float[] vertices3d         = new float[vertexCount * 3];
+        float[] normals            = new float[vertexCount * 3];
+
+        FaceSorter expectedSorter = new RadixFaceSorter();
+        FaceSorter sorter         = new RadixFaceSorter();
+
+        FusedProjectionPass pass = new FusedProjectionPass(vertices, dimensions, PROJECTION_CONSTANT, VIEW_DIST);
+        pass.setWorkerPool(pool);
+
+        NDTransform rotation = new NDTransform(dimensions);
+        NDTransform orientation = new NDTransform(dimensions);
+
+        for (int frame = 0; frame < FRAMES; frame++) {
+            rotation.setIdentity();
+            rotation.rotate(0.1f, 0, 2);
+            rotation.rotate(0.07f, 1, dimensions - 1);
+            orientation.concat(rotation);
+
+            threePass(orientation, vertices, dimensions, expectedVertices3d, expectedNormals, expectedIndices, expectedSorter);
+            boolean reordered = pass.run(orientation, vertices3d, indices, faceCount, normals, sorter);
+
+            assertArrayEquals(dimensions + "D vertices, frame " + frame, expectedVertices3d, vertices3d, 0.f);
+            assertArrayEquals(dimensions + "D normals, frame " + frame, expectedNormals, normals, 0.f);
+            assertArrayEquals(dimensions + "D indices, frame " + frame, expectedIndices, indices);
+
+            if (frame == 0) {
+                assertEquals(true, reordered);  //The random faces start out of order
+            }
+        }
+    }
+
+    @Test
+    public void matchesThreePass4D() {
+        checkDimensions(4, FACE_COUNT, null);
+    }
+
+    @Test
+    public void matchesThreePass6D() {
+        checkDimensions(6, FACE_COUNT, null);
+    }
+
+    @Test
+    public void matchesThreePass3D() {
+        checkDimensions(3, FACE_COUNT, null);
+    }
+
+    @Test
+    public void parallelMatchesThreePass() {
+        FrameWorkerPool pool = new FrameWorkerPool(4);
+
+        try {
+            checkDimensions(4, PARALLEL_FACE_COUNT, pool);
+            checkDimensions(6, PARALLEL_FACE_COUNT, pool);
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    @Test
+    public void unsortedLeavesIndices() {
+        float[] vertices = new float[4 * 4];
+        int[] indices = {0, 1, 2, 1, 2, 3};
+        float[] vertices3d = new float[4 * 3];
+
+        FusedProjectionPass pass = new FusedProjectionPass(vertices, 4, PROJECTION_CONSTANT, VIEW_DIST);
+
+        assertEquals(false, pass.run(new NDTransform(4), vertices3d, indices, 1, null, null));
+        assertArrayEquals(new int[] {0, 1, 2, 1, 2, 3}, indices);
+    }
+}
@@ -0,0 +1,122 @@
+package com.sudo_code.ndrenderer;
+
+import org.junit.Test;
+
+import java.nio.FloatBuffer;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+/**
+ * Drives the pipeline with a producer that fills each frame with its own number instead of
+ * real geometry, the way NDShape's producer fills it with projected vertices
+ */
+public class GeometryPipelineTest {
+    private static final int VERTEX_FLOATS = 3000;
+    private static final int INDEX_COUNT   = 600;
+
+    private static class CountingProducer implements GeometryPipeline.Producer {
+        final AtomicLong mProduced = new AtomicLong();
+
+        @Override
+        public void produce(GeometryFrame frame) {
+            float value = mProduced.incrementAndGet();
+
+            FloatBuffer vertices = frame.getVertexFloats();
+            vertices.clear();
+            while (vertices.hasRemaining()) {
+                vertices.put(value);
+            }
+        }
+    }
+
+    @Test
+    public void startMakesTheFirstFrame() {
+        CountingProducer producer = new CountingProducer();
+        GeometryPipeline pipeline = new GeometryPipeline(producer, VERTEX_FLOATS, INDEX_COUNT);
+
+        pipeline.start();
+        GeometryFrame frame = pipeline.acquire();
+        pipeline.stop();
+
+        assertEquals(1, frame.getSequence());
+        assertEquals(1.f, frame.getVertexFloats().get(0), 0.f);
+    }
+
+    @Test
+    public void consumerSeesWholeFramesInOrder() {
+        CountingProducer producer = new CountingProducer();
+        GeometryPipeline pipeline = new GeometryPipeline(producer, VERTEX_FLOATS, INDEX_COUNT);
+        pipeline.start();
+
+        long lastSequence = 0;
+        int newFrames = 0;
+
+        for (int frameI = 0; frameI < 5000; frameI++) {
+            GeometryFrame frame = pipeline.acquire();
+            FloatBuffer vertices = frame.getVertexFloats();
+
+            for (int i = 0; i < VERTEX_FLOATS; i++) {
+                assertEquals("Torn frame", (float) frame.getSequence(), vertices.get(i), 0.f);
+            }
+
+            assertTrue(frame.getSequence() >= lastSequence);
+            if (frame.getSequence() > lastSequence) {
+                newFrames++;
+            }
+
+            //The producer waits for each frame to be taken, so it's never more than one ahead
+            assertTrue(producer.mProduced.get() <= frame.getSequence() + 1);
+
+            lastSequence = frame.getSequence();
+        }
+
+        pipeline.stop();
+
+        assertTrue(newFrames > 1);
+    }
+
+    @Test
+    public void producerWaitsForTheConsumer() throws InterruptedException {
+        CountingProducer producer = new CountingProducer();
+        GeometryPipeline pipeline = new GeometryPipeline(producer, VERTEX_FLOATS, INDEX_COUNT);
+
+        pipeline.start();
+        pipeline.acquire();
+        Thread.sleep(100);
+
+        //Frame 1 was taken, so only frame 2 gets made however long the consumer takes
+        assertEquals(2, producer.mProduced.get());
+
+        pipeline.stop();
+    }
+
+    @Test
+    public void producerFailuresReachTheConsumer() throws InterruptedException {
+        GeometryPipeline pipeline = new GeometryPipeline(new GeometryPipeline.Producer() {
+            private int mFrames;
+
+            @Override
+            public void produce(GeometryFrame frame) {
+                if (++mFrames == 2) {
+                    throw new ArithmeticException("Frame 2");
+                }
+            }
+        }, VERTEX_FLOATS, INDEX_COUNT);
+
+        pipeline.start();
+        pipeline.acquire();
+        Thread.sleep(100);
+
+        try {
+            pipeline.acquire();
+            fail("The failure wasn't passed on");
+        } catch (IllegalStateException e) {
+            assertTrue(e.getCause() instanceof ArithmeticException);
+        }
+
+        pipeline.stop();
+    }
+}
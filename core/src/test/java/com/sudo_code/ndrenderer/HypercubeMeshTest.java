@@ -0,0 +1,161 @@
+package com.sudo_code.ndrenderer;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Comparator;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+
+/**
+ * Checks that a hypercube projecting only its corners draws the same as one projecting every
+ * face's vertices
+ */
+public class HypercubeMeshTest {
+    private static final float PROJECTION_CONSTANT = 3.f;
+    private static final float VIEW_DIST           = 10.f;
+
+    private static NDTransform getRotation(int dimensions) {
+        NDTransform rotation = new NDTransform(dimensions);
+        rotation.rotate(0.05f, 0, 2);
+        rotation.rotate(0.03f, 1, dimensions - 1);
+        rotation.rotate(0.02f, 2, dimensions - 1);
+        return rotation;
+    }
+
+    /**
+     * @return The faces' 6 indices each, in order of their first index, since the mesh sorts its
+     *         faces back to front
+     */
+    private static int[] getSortedFaces(int[] indices) {
+        int faceCount = indices.length / 6;
+        Integer[] order = new Integer[faceCount];
+        for (int faceI = 0; faceI < faceCount; faceI++) {
+            order[faceI] = faceI;
+        }
+
+        final int[] faceIndices = indices;
+        Arrays.sort(order, new Comparator<Integer>() {
+            @Override
+            public int compare(Integer a, Integer b) {
+                return Integer.compare(faceIndices[a * 6], faceIndices[b * 6]);
+            }
+        });
+
+        int[] sorted = new int[indices.length];
+        for (int faceI = 0; faceI < faceCount; faceI++) {
+            System.arraycopy(indices, order[faceI] * 6, sorted, faceI * 6, 6);
+        }
+
+        return sorted;
+    }
+
+    @Test
+    public void sharedCornersDrawTheSameAsSeparateVertices() {
+        for (int dimensions = 3; dimensions <= 8; dimensions++) {
+            HypercubeMesh shared   = new HypercubeMesh(dimensions, PROJECTION_CONSTANT, VIEW_DIST);
+            HypercubeMesh separate = new SeparateVerticesHypercubeMesh(dimensions, PROJECTION_CONSTANT, VIEW_DIST);
+            NDTransform rotation = getRotation(dimensions);
+
+            for (int frameI = 0; frameI < 20; frameI++) {
+                shared.transform(rotation);
+                separate.transform(rotation);
+
+                shared.prepareGeometry();
+                separate.prepareGeometry();
+
+                String message = dimensions + "D, frame " + frameI;
+                assertArrayEquals(message, separate.getVertices3d(), shared.getVertices3d(), 0.f);
+                assertArrayEquals(message, separate.getSecondaryData(), shared.getSecondaryData(), 0.f);
+                assertArrayEquals(message, separate.getIndices(), shared.getIndices());
+            }
+        }
+    }
+
+    @Test
+    public void onlyTheCornersAreKept() {
+        for (int dimensions = 3; dimensions <= 10; dimensions++) {
+            HypercubeMesh shared   = new HypercubeMesh(dimensions, PROJECTION_CONSTANT, VIEW_DIST);
+            HypercubeMesh separate = new SeparateVerticesHypercubeMesh(dimensions, PROJECTION_CONSTANT, VIEW_DIST);
+            int faceVertices = shared.getFaceCount() * 4;
+
+            assertEquals(Utils.powI(2, dimensions) * dimensions, shared.getVertices().length);
+            assertEquals(faceVertices, shared.getDrawnVertexCount());
+            assertEquals(faceVertices * 3, shared.getVertices3d().length);
+            assertArrayEquals(separate.getVertices(), shared.getDrawnVertices(), 0.f);
+
+            assertNull(separate.getVertexSources());
+            assertEquals(faceVertices, separate.getDrawnVertexCount());
+        }
+    }
+
+    @Test
+    public void streamedFacesMatchTheMaterializedOnes() {
+        for (int dimensions = 3; dimensions <= HypercubeMesh.MAX_DIMENSIONS; dimensions++) {
+            MaterializedHypercubeFaces expected = MaterializedHypercubeFaces.generate(dimensions);
+            HypercubeMesh shared   = new HypercubeMesh(dimensions, PROJECTION_CONSTANT, VIEW_DIST);
+            HypercubeMesh separate = new SeparateVerticesHypercubeMesh(dimensions, PROJECTION_CONSTANT, VIEW_DIST);
+
+            String message = dimensions + "D";
+            assertArrayEquals(message, expected.vertices, separate.getVertices(), 0.f);
+            assertArrayEquals(message, expected.vertices, shared.getDrawnVertices(), 0.f);
+            assertArrayEquals(message, getSortedFaces(expected.indices), getSortedFaces(separate.getIndices()));
+            assertArrayEquals(message, getSortedFaces(expected.indices), getSortedFaces(shared.getIndices()));
+        }
+    }
+
+    @Test
+    public void chunkSizeDoesNotChangeTheFaces() {
+        int dimensions = 7;
+        int faceCount = HypercubeFaceEnumerator.getFaceCount(dimensions);
+        HypercubeFaceEnumerator enumerator = new HypercubeFaceEnumerator(dimensions);
+
+        int[] all = new int[faceCount * HypercubeFaceEnumerator.CORNERS_PER_FACE];
+        assertEquals(faceCount, enumerator.next(all, faceCount + 1));
+        assertFalse(enumerator.hasNext());
+        assertEquals(0, enumerator.next(all, 1));
+
+        for (int chunk : new int[] {1, 7, faceCount}) {
+            int[] corners = new int[chunk * HypercubeFaceEnumerator.CORNERS_PER_FACE];
+            enumerator.reset();
+
+            while (enumerator.hasNext()) {
+                int facesDone = enumerator.getFacesDone();
+                int faces = enumerator.next(corners, chunk);
+
+                for (int i = 0; i < faces * HypercubeFaceEnumerator.CORNERS_PER_FACE; i++) {
+                    assertEquals("chunk " + chunk, all[facesDone * HypercubeFaceEnumerator.CORNERS_PER_FACE + i], corners[i]);
+                }
+            }
+
+            assertEquals(faceCount, enumerator.getFacesDone());
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void tooFewDimensionsAreRejected() {
+        new HypercubeMesh(2, PROJECTION_CONSTANT, VIEW_DIST);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void tooManyDimensionsAreRejected() {
+        new HypercubeMesh(HypercubeMesh.MAX_DIMENSIONS + 1, PROJECTION_CONSTANT, VIEW_DIST);
+    }
+
+    @Test
+    public void gpuProjectionUploadsEveryFaceVertex() {
+        RecordingGLBackend gl = new RecordingGLBackend();
+        NDShape shape = new Hypercube(gl, 4, PROJECTION_CONSTANT, VIEW_DIST, 0, 1);
+        NDMesh mesh = shape.getMesh();
+
+        gl.beginFrame();
+        shape.setGpuProjection(true);
+
+        //One vec4 per vertex for 4D, then the normals
+        int vertexBytes = (mesh.getDrawnVertexCount() * 4 + mesh.getSecondaryData().length) * 4;
+        assertEquals(vertexBytes + NDProjection.ORIENTATION_BLOCK_SIZE, gl.getFrameBytes());
+    }
+}
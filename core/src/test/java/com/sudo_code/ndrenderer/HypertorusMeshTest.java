@@ -0,0 +1,99 @@
+package com.sudo_code.ndrenderer;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertArrayEquals;
+
+/**
+ * Checks HypertorusMesh's generators against the ones they replaced
+ */
+public class HypertorusMeshTest {
+    private static final float PROJECTION_CONSTANT = 3.f;
+    private static final float VIEW_DIST           = 10.f;
+
+    private static final int[] SMOOTHNESSES = {3, 4, 7, 10};
+
+    /**
+     * The face loop HypertorusMesh used to use, working the neighbours out from powers of the
+     * smoothness for every index
+     */
+    private static int[] genIndicesFromPowers(int dimensions, int smoothness) {
+        int vertexCount = Utils.powI(smoothness, dimensions - 1);
+        int[] indices = new int[vertexCount * (dimensions - 2) * 6];
+        int indexI = 0;
+
+        for (int dim = 3; dim <= dimensions; dim++) {
+            for (int i = 0; i < vertexCount; i++) {
+                int block = Utils.powI(smoothness, dim - 1);
+                int base  = (int) Math.floor(i / block) * block;
+
+                indices[indexI + 0] = i;
+                indices[indexI + 1] = base + (i + Utils.powI(smoothness, dim - 3)) % block;
+                indices[indexI + 2] = base + (i + Utils.powI(smoothness, dim - 2)) % block;
+                indices[indexI + 3] = base + (i + Utils.powI(smoothness, dim - 3)) % block;
+                indices[indexI + 4] = base + (i + Utils.powI(smoothness, dim - 2) + Utils.powI(smoothness, dim - 3)) % block;
+                indices[indexI + 5] = base + (i + Utils.powI(smoothness, dim - 2)) % block;
+
+                indexI += 6;
+            }
+        }
+
+        return indices;
+    }
+
+    @Test
+    public void verticesMatchTheRecursiveGenerator() {
+        for (int dims = 3; dims <= 6; dims++) {
+            for (int smoothness : SMOOTHNESSES) {
+                HypertorusMesh mesh = new HypertorusMesh(dims, PROJECTION_CONSTANT, VIEW_DIST, smoothness);
+
+                assertArrayEquals(
+                        dims + "D, smoothness " + smoothness,
+                        RecursiveHypertorusVertices.generate(dims, smoothness),
+                        mesh.getVertices(),
+                        0.f);
+            }
+        }
+    }
+
+    @Test
+    public void indicesMatchThePowerLoop() {
+        FrameWorkerPool pool = new FrameWorkerPool(4);
+
+        try {
+            for (int dims = 3; dims <= 6; dims++) {
+                for (int smoothness : SMOOTHNESSES) {
+                    int[] expected = genIndicesFromPowers(dims, smoothness);
+                    int[] indices  = new int[expected.length];
+                    int[] pooled   = new int[expected.length];
+
+                    HypertorusMesh.genTorusIndices(dims, smoothness, indices);
+
+                    //Small chunks so the ranges start part way through dimensions and blocks
+                    HypertorusMesh.genTorusIndices(dims, smoothness, pooled, pool, 7);
+
+                    assertArrayEquals(dims + "D, smoothness " + smoothness, expected, indices);
+                    assertArrayEquals(dims + "D, smoothness " + smoothness + ", pooled", expected, pooled);
+                }
+            }
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    @Test
+    public void pooledMeshMatchesTheSerialOne() {
+        FrameWorkerPool pool = new FrameWorkerPool(4);
+
+        try {
+            //Enough faces to be split across the pool
+            HypertorusMesh serial = new HypertorusMesh(5, PROJECTION_CONSTANT, VIEW_DIST, 20, null);
+            HypertorusMesh pooled = new HypertorusMesh(5, PROJECTION_CONSTANT, VIEW_DIST, 20, null, pool);
+
+            assertArrayEquals(serial.getIndices(), pooled.getIndices());
+            assertArrayEquals(serial.getVertices(), pooled.getVertices(), 0.f);
+        } finally {
+            pool.shutdown();
+        }
+    }
+}
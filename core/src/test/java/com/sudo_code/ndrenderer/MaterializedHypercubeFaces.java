@@ -0,0 +1,146 @@
+package com.sudo_code.ndrenderer;
+
+/**
+ * The hypercube face generator HypercubeMesh used to use, writing out every face's vertices in
+ * one go. Kept to check HypercubeFaceEnumerator against.
+ */
+class MaterializedHypercubeFaces {
+    final float[] vertices;     //4 per face, dimensions components each
+    final int[]   indices;      //6 per face
+
+    private MaterializedHypercubeFaces(int dimensions) {
+        int faceCount = HypercubeFaceEnumerator.getFaceCount(dimensions);
+
+        vertices = new float[faceCount * 4 * dimensions];
+        indices  = new int[faceCount * 6];
+
+        int[] lockedAxes = new int[dimensions - 2];
+        float[] lockedAxesValues = new float[dimensions - 2];
+
+        for (int i = 0; i < dimensions - 2; i++) {
+            lockedAxes[i] = i;
+        }
+
+        int vertFaceStartI = 0;
+        int indexFaceStartI = 0;
+
+        //loop through all the combinations of locked axes
+        do {
+            int[] unlockedAxes = getUnlockedAxes(lockedAxes);
+
+            for (int i = 0; i < dimensions - 2; i++) {
+                lockedAxesValues[i] = -1.f;
+            }
+
+            //loop through all the combinations of values of the locked axes
+            do {
+                for (int vertexI = 0; vertexI < 4; vertexI++) { //Fill in all the locked axes
+                    for (int lockedAxesI = 0; lockedAxesI < lockedAxes.length; lockedAxesI++) {
+                        vertices[(vertFaceStartI + vertexI) * dimensions + lockedAxes[lockedAxesI]] = lockedAxesValues[lockedAxesI];
+                    }
+                }
+
+                vertices[(vertFaceStartI + 0) * dimensions + unlockedAxes[0]] = -1.f;
+                vertices[(vertFaceStartI + 0) * dimensions + unlockedAxes[1]] = -1.f;
+
+                vertices[(vertFaceStartI + 1) * dimensions + unlockedAxes[0]] = -1.f;
+                vertices[(vertFaceStartI + 1) * dimensions + unlockedAxes[1]] = 1.f;
+
+                vertices[(vertFaceStartI + 2) * dimensions + unlockedAxes[0]] = 1.f;
+                vertices[(vertFaceStartI + 2) * dimensions + unlockedAxes[1]] = 1.f;
+
+                vertices[(vertFaceStartI + 3) * dimensions + unlockedAxes[0]] = 1.f;
+                vertices[(vertFaceStartI + 3) * dimensions + unlockedAxes[1]] = -1.f;
+
+                indices[indexFaceStartI + 0] = vertFaceStartI + 0;
+                indices[indexFaceStartI + 1] = vertFaceStartI + 1;
+                indices[indexFaceStartI + 2] = vertFaceStartI + 3;
+
+                indices[indexFaceStartI + 3] = vertFaceStartI + 1;
+                indices[indexFaceStartI + 4] = vertFaceStartI + 2;
+                indices[indexFaceStartI + 5] = vertFaceStartI + 3;
+
+                vertFaceStartI += 4;
+                indexFaceStartI += 6;
+
+            } while (nextLockedAxesValues(lockedAxesValues));
+        } while (nextLockedAxes(lockedAxes));
+    }
+
+    static MaterializedHypercubeFaces generate(int dimensions) {
+        return new MaterializedHypercubeFaces(dimensions);
+    }
+
+    /**
+     * Iterates currentLockedAxes to the next combination of locked axes.
+     * The locked axes are the axes that will remain fixed in drawing a square
+     *
+     * @param currentLockedAxes An array with the index of each axis that is currently locked
+     * @return Whether or not there is a next combination
+     */
+    private static boolean nextLockedAxes(int[] currentLockedAxes) {
+        for (int i = currentLockedAxes.length - 1; i >= 0; i--) {
+            if (currentLockedAxes[i] < i + 2) {
+                currentLockedAxes[i]++;
+
+                for (int resetI = i + 1; resetI < currentLockedAxes.length; resetI++) {
+                    currentLockedAxes[resetI] = currentLockedAxes[i] + resetI - i;
+                }
+
+                return true;
+            }
+        }
+
+        return false;   //We're at the last one
+    }
+
+    /**
+     * Iterates to the next combination of values of 1.f and -1.f in binary counting
+     *
+     * @param currentLockedAxesValues An array with the values of each axis that is currently locked
+     * @return Whether or not there is a next combination
+     */
+    private static boolean nextLockedAxesValues(float[] currentLockedAxesValues) {
+        for (int i = 0; i < currentLockedAxesValues.length; i++) {
+            if (currentLockedAxesValues[i] == -1.f) {
+                currentLockedAxesValues[i] = 1.f;
+
+                for (int wipeI = i - 1; wipeI >= 0; wipeI--) {
+                    currentLockedAxesValues[wipeI] = -1.f;
+                }
+
+                return true;
+            }
+        }
+
+        return false;   //We're at the last one
+    }
+
+    /**
+     * Generates the unlocked axes (the ones the square will lie on) from the locked axes
+     *
+     * @param currentLockedAxes An array with the index of each axis that is currently locked
+     * @return The unlocked axes (the axes the square will lie on)
+     */
+    private static int[] getUnlockedAxes(int[] currentLockedAxes) {
+        int[] unlockedAxes = new int[2];    //A square lies on two axes
+        int unlockedAxesIndex = 0;
+
+        for (int checkLocked = 0; checkLocked < currentLockedAxes.length + 2; checkLocked++) {
+            boolean found = false;
+
+            for (int i = 0; i < currentLockedAxes.length; i++) {
+                if (currentLockedAxes[i] == checkLocked) {
+                    found = true;
+                }
+            }
+
+            if (!found) {
+                unlockedAxes[unlockedAxesIndex] = checkLocked;
+                unlockedAxesIndex++;
+            }
+        }
+
+        return unlockedAxes;
+    }
+}
@@ -0,0 +1,116 @@
+package com.sudo_code.ndrenderer;
+
+import org.junit.Test;
+
+import java.util.HashSet;
+import java.util.Set;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Checks the edges found from the faces of the meshes
+ */
+public class MeshEdgesTest {
+    private static final float PROJECTION_CONSTANT = 3.f;
+    private static final float VIEW_DIST           = 10.f;
+
+    @Test
+    public void hypercubeEdgesJoinCornersOneAxisApart() {
+        for (int dimensions = 3; dimensions <= HypercubeMesh.MAX_DIMENSIONS; dimensions++) {
+            NDMesh[] meshes = {
+                    new HypercubeMesh(dimensions, PROJECTION_CONSTANT, VIEW_DIST),
+                    new SeparateVerticesHypercubeMesh(dimensions, PROJECTION_CONSTANT, VIEW_DIST)};
+
+            for (NDMesh mesh : meshes) {
+                MeshEdges edges = mesh.getEdges();
+                float[] vertices = edges.getVertices();
+                int[] indices = edges.getIndices();
+                String message = dimensions + "D, " + mesh.getClass().getSimpleName();
+
+                assertEquals(message, Utils.powI(2, dimensions) * dimensions, vertices.length);
+                assertEquals(message, dimensions * Utils.powI(2, dimensions - 1), edges.getEdgeCount());
+
+                for (int edgeI = 0; edgeI < edges.getEdgeCount(); edgeI++) {
+                    int differences = 0;
+
+                    for (int comp = 0; comp < dimensions; comp++) {
+                        if (vertices[indices[edgeI * 2] * dimensions + comp] != vertices[indices[edgeI * 2 + 1] * dimensions + comp]) {
+                            differences++;
+                        }
+                    }
+
+                    assertEquals(message, 1, differences);
+                }
+            }
+        }
+    }
+
+    @Test
+    public void everyEdgeIsOnlyKeptOnce() {
+        NDMesh[] meshes = {
+                new SeparateVerticesHypercubeMesh(6, PROJECTION_CONSTANT, VIEW_DIST),
+                new HypertorusMesh(3, PROJECTION_CONSTANT, VIEW_DIST, 12),
+                new HypertorusMesh(4, PROJECTION_CONSTANT, VIEW_DIST, 6),
+                new ComplexGraphMesh(10, 1.5f, PROJECTION_CONSTANT, VIEW_DIST)
+        };
+
+        for (NDMesh mesh : meshes) {
+            MeshEdges edges = mesh.getEdges();
+            int[] indices = edges.getIndices();
+            Set<Long> seen = new HashSet<>();
+
+            for (int edgeI = 0; edgeI < edges.getEdgeCount(); edgeI++) {
+                int a = Math.min(indices[edgeI * 2], indices[edgeI * 2 + 1]);
+                int b = Math.max(indices[edgeI * 2], indices[edgeI * 2 + 1]);
+
+                assertTrue(a != b);
+                assertTrue(seen.add(((long) a << 32) | b));
+            }
+        }
+    }
+
+    @Test
+    public void gridEdgesLeaveOutTheDiagonals() {
+        int density = 10;
+        MeshEdges edges = new ComplexGraphMesh(density, 1.5f, PROJECTION_CONSTANT, VIEW_DIST).getEdges();
+
+        //Each row and column of the grid has density - 1 edges along it
+        assertEquals(2 * density * (density - 1), edges.getEdgeCount());
+    }
+
+    @Test
+    public void edgeVerticesProjectLikeTheFaces() {
+        HypercubeMesh mesh = new SeparateVerticesHypercubeMesh(5, PROJECTION_CONSTANT, VIEW_DIST);
+        NDTransform rotation = new NDTransform(5);
+        rotation.rotate(0.3f, 0, 4);
+        rotation.rotate(0.2f, 1, 3);
+        mesh.transform(rotation);
+
+        mesh.prepareGeometry();
+        mesh.prepareEdges();
+
+        float[] edgeVertices = mesh.getEdges().getVertices();
+        float[] drawnVertices = mesh.getDrawnVertices();
+        float[] edgeVertices3d = mesh.getEdgeVertices3d();
+
+        //Every edge vertex is projected to wherever the face vertices at the same position are
+        for (int edgeVertI = 0; edgeVertI < edgeVertices.length / 5; edgeVertI++) {
+            for (int vertI = 0; vertI < drawnVertices.length / 5; vertI++) {
+                boolean same = true;
+
+                for (int comp = 0; comp < 5; comp++) {
+                    same &= edgeVertices[edgeVertI * 5 + comp] == drawnVertices[vertI * 5 + comp];
+                }
+
+                if (same) {
+                    assertArrayEquals(
+                            new float[] {mesh.getVertices3d()[vertI * 3], mesh.getVertices3d()[vertI * 3 + 1], mesh.getVertices3d()[vertI * 3 + 2]},
+                            new float[] {edgeVertices3d[edgeVertI * 3], edgeVertices3d[edgeVertI * 3 + 1], edgeVertices3d[edgeVertI * 3 + 2]},
+                            0.f);
+                }
+            }
+        }
+    }
+}
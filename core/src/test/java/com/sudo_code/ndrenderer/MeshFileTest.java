@@ -0,0 +1,244 @@
+package com.sudo_code.ndrenderer;
+
+import org.junit.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.Buffer;
+import java.nio.IntBuffer;
+import java.nio.ShortBuffer;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+/**
+ * Writes meshes to MeshFiles and maps them back
+ */
+public class MeshFileTest {
+    private static final float PROJECTION_CONSTANT = 3.f;
+    private static final float VIEW_DIST           = 10.f;
+
+    private static File newTempFile() throws IOException {
+        File file = File.createTempFile("mesh", ".mesh");
+        file.deleteOnExit();
+        return file;
+    }
+
+    private static File newTempDirectory() throws IOException {
+        File directory = newTempFile();
+        directory.delete();
+        directory.mkdirs();
+        directory.deleteOnExit();
+        return directory;
+    }
+
+    private static ShapeMeshCache.MeshData getData(NDMesh mesh) {
+        return new ShapeMeshCache.MeshData(
+                mesh.getVertices(), mesh.getVertexSources(), mesh.getIndices(), mesh.getSecondaryData(), mesh.getFaceCount());
+    }
+
+    private static void assertRoundTrips(NDMesh mesh, int indexType) throws IOException {
+        File file = newTempFile();
+        MeshFile.write(file, mesh.getDimensions(), getData(mesh));
+
+        MeshFile mapped = MeshFile.map(file);
+        ShapeMeshCache.MeshData data = mapped.toMeshData();
+
+        assertEquals(mesh.getDimensions(), mapped.getDimensions());
+        assertEquals(mesh.getFaceCount(), mapped.getFaceCount());
+        assertEquals(mesh.getVertices().length / mesh.getDimensions(), mapped.getVertexCount());
+        assertEquals(indexType, mapped.getIndexType());
+        assertTrue(mapped.getVertices().isDirect());
+        assertEquals(mesh.getVertices().length + mesh.getSecondaryData().length, mapped.getVertexData().remaining());
+
+        assertArrayEquals(mesh.getVertices(), data.getVertices(), 0.f);
+        assertArrayEquals(mesh.getVertexSources(), data.getVertexSources());
+        assertArrayEquals(mesh.getIndices(), data.copyIndices());
+        assertArrayEquals(mesh.getSecondaryData(), data.copySecondaryData(), 0.f);
+        assertEquals(mesh.getFaceCount(), data.getFaceCount());
+    }
+
+    @Test
+    public void smallMeshesRoundTripWithShortIndices() throws IOException {
+        assertRoundTrips(new HypercubeMesh(5, PROJECTION_CONSTANT, VIEW_DIST), GLBackend.GL_UNSIGNED_SHORT);
+        assertRoundTrips(new ComplexGraphMesh(25, 1.5f, PROJECTION_CONSTANT, VIEW_DIST), GLBackend.GL_UNSIGNED_SHORT);
+    }
+
+    @Test
+    public void vertexSourcesRoundTrip() throws IOException {
+        assertRoundTrips(new HypercubeMesh(6, PROJECTION_CONSTANT, VIEW_DIST), GLBackend.GL_UNSIGNED_SHORT);
+        assertRoundTrips(new SeparateVerticesHypercubeMesh(6, PROJECTION_CONSTANT, VIEW_DIST), GLBackend.GL_UNSIGNED_SHORT);
+    }
+
+    @Test
+    public void largeMeshesRoundTripWithIntIndices() throws IOException {
+        assertRoundTrips(new HypertorusMesh(5, PROJECTION_CONSTANT, VIEW_DIST, 17), GLBackend.GL_UNSIGNED_INT);
+    }
+
+    @Test
+    public void indexViewsMatchTheIndices() throws IOException {
+        NDMesh mesh = new HypercubeMesh(4, PROJECTION_CONSTANT, VIEW_DIST);
+        File file = newTempFile();
+        MeshFile.write(file, 4, getData(mesh));
+
+        ShortBuffer indices = (ShortBuffer) MeshFile.map(file).getIndices();
+        assertEquals(mesh.getIndices().length, indices.remaining());
+
+        for (int i = 0; i < mesh.getIndices().length; i++) {
+            assertEquals(mesh.getIndices()[i], indices.get(i));
+        }
+
+        NDMesh large = new HypertorusMesh(5, PROJECTION_CONSTANT, VIEW_DIST, 17);
+        MeshFile.write(file, 5, getData(large));
+
+        IntBuffer intIndices = (IntBuffer) MeshFile.map(file).getIndices();
+        assertEquals(large.getIndices()[large.getIndices().length - 1], intIndices.get(intIndices.limit() - 1));
+    }
+
+    /**
+     * The views of a read only mapping are the only read only direct buffers about, NDShape's own
+     * copies can be written to
+     */
+    private static void assertMapped(Buffer data) {
+        assertNotNull(data);
+        assertTrue(data.isDirect());
+        assertTrue(data.isReadOnly());
+    }
+
+    @Test
+    public void loadedShapesUploadTheMappedViews() throws IOException {
+        File directory = newTempDirectory();
+        ShapeMeshCache cache = new ShapeMeshCache(1 << 24);
+        cache.setDirectory(directory);
+
+        RecordingGLBackend gl = new RecordingGLBackend();
+        NDShape generated = new Hypertorus(gl, 4, PROJECTION_CONSTANT, VIEW_DIST, 0, 1, 8, cache);
+
+        File file = new File(directory, generated.getMesh().getCacheKey().getFileName());
+        assertTrue(file.exists());
+        file.deleteOnExit();
+
+        assertNull(generated.getMesh().getMeshFile());
+        assertFalse(gl.getBufferData(generated.getIndexBuffer()).isReadOnly());
+
+        cache.clear();  //So the next one's loaded from the file
+        NDShape loaded = new Hypertorus(gl, 4, PROJECTION_CONSTANT, VIEW_DIST, 0, 1, 8, cache);
+        MeshFile mapped = loaded.getMesh().getMeshFile();
+
+        assertNotNull(mapped);
+        assertMapped(gl.getBufferData(loaded.getIndexBuffer()));
+
+        loaded.setGpuProjection(true);
+        assertMapped(gl.getBufferData(loaded.getGpuVertexBuffer()));
+        assertEquals(mapped.getVertexData().capacity() * 4, gl.getBufferSize(loaded.getGpuVertexBuffer()));
+
+        //The file's indices are in the order they were generated, so sorted shapes upload their
+        //own the first frame, and unsorted ones never need to
+        loaded.setGpuProjection(false);
+        loaded.prepare();
+        assertEquals(loaded.getMesh().getIndices().length * 2, loaded.getUploadStats().getFrameIndexBytes());
+
+        NDShape unsorted = new Hypertorus(gl, 4, PROJECTION_CONSTANT, VIEW_DIST, 0, 1, 8, cache);
+        unsorted.setBufferUpdatePolicy(BufferUpdatePolicy.UNSORTED);
+        unsorted.prepare();
+        assertEquals(0, unsorted.getUploadStats().getFrameIndexBytes());
+        assertMapped(gl.getBufferData(unsorted.getIndexBuffer()));
+    }
+
+    @Test
+    public void corruptFilesAreRejected() throws IOException {
+        File file = newTempFile();
+        MeshFile.write(file, 4, getData(new HypercubeMesh(4, PROJECTION_CONSTANT, VIEW_DIST)));
+
+        try (RandomAccessFile raf = new RandomAccessFile(file, "rw")) {
+            raf.seek(100);
+            int value = raf.read();
+            raf.seek(100);
+            raf.write(value ^ 1);
+        }
+
+        try {
+            MeshFile.map(file);
+            fail("A flipped bit wasn't caught");
+        } catch (IOException e) {
+            //Expected
+        }
+    }
+
+    @Test
+    public void truncatedFilesAreRejected() throws IOException {
+        File file = newTempFile();
+        MeshFile.write(file, 4, getData(new HypercubeMesh(4, PROJECTION_CONSTANT, VIEW_DIST)));
+
+        try (RandomAccessFile raf = new RandomAccessFile(file, "rw")) {
+            raf.setLength(raf.length() - 8);
+        }
+
+        try {
+            MeshFile.map(file);
+            fail("A truncated file was loaded");
+        } catch (IOException e) {
+            //Expected
+        }
+    }
+
+    @Test
+    public void otherVersionsAreRejected() throws IOException {
+        File file = newTempFile();
+        MeshFile.write(file, 4, getData(new HypercubeMesh(4, PROJECTION_CONSTANT, VIEW_DIST)));
+
+        try (RandomAccessFile raf = new RandomAccessFile(file, "rw")) {
+            raf.seek(4);
+            raf.write(MeshFile.VERSION + 1);    //The low byte, it's little endian
+        }
+
+        try {
+            MeshFile.map(file);
+            fail("A file of another version was loaded");
+        } catch (IOException e) {
+            //Expected
+        }
+    }
+
+    @Test
+    public void cachesShareMeshesThroughTheirDirectory() throws IOException {
+        File directory = newTempDirectory();
+        ShapeMeshCache.Key key = new ShapeMeshCache.Key(HypertorusMesh.class, 4, 8, 0.f);
+        NDMesh mesh = new HypertorusMesh(4, PROJECTION_CONSTANT, VIEW_DIST, 8);
+
+        ShapeMeshCache first = new ShapeMeshCache(1 << 20);
+        first.setDirectory(directory);
+        first.put(key, getData(mesh));
+
+        File file = new File(directory, key.getFileName());
+        assertTrue(file.exists());
+        file.deleteOnExit();
+
+        //A new process, as far as the cache is concerned
+        ShapeMeshCache second = new ShapeMeshCache(1 << 20);
+        second.setDirectory(directory);
+        ShapeMeshCache.MeshData data = second.get(key);
+
+        assertNotNull(data);
+        assertEquals(1, second.getFileHits());
+        assertArrayEquals(mesh.getVertices(), data.getVertices(), 0.f);
+
+        //A corrupt file is a miss, and gets deleted
+        try (RandomAccessFile raf = new RandomAccessFile(file, "rw")) {
+            raf.setLength(raf.length() - 1);
+        }
+
+        ShapeMeshCache third = new ShapeMeshCache(1 << 20);
+        third.setDirectory(directory);
+
+        assertEquals(null, third.get(key));
+        assertEquals(1, third.getMisses());
+        assertFalse(file.exists());
+    }
+}
@@ -0,0 +1,119 @@
+package com.sudo_code.ndrenderer;
+
+import org.junit.Test;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.FloatBuffer;
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Checks the GPU projection path against the CPU one. shaderProject() is a line for line copy of
+ * main() in shape_nd_vert.glsl that reads its inputs out of the same packed buffers NDShape
+ * uploads, so a mistake in the packing or in the shader's maths shows up here.
+ */
+public class NDProjectionTest {
+    private static final float PROJECTION_CONSTANT = 3.f;
+    private static final int   VERTEX_COUNT        = 200;
+
+    /**
+     * The GLSL projection, reading the vertex attributes and the Orientation block the way the
+     * shader sees them
+     */
+    private static float[] shaderProject(FloatBuffer attributes, int chunks, int vertI, ByteBuffer orientationBlock) {
+        float[][] orientation = new float[NDProjection.MAX_DIMENSIONS * 3][4];
+        for (int i = 0; i < orientation.length; i++) {
+            for (int comp = 0; comp < 4; comp++) {
+                orientation[i][comp] = orientationBlock.getFloat((i * 4 + comp) * 4);
+            }
+        }
+        int dimensions = orientationBlock.getInt(orientation.length * 4 * 4);
+
+        //Attributes that aren't enabled read as (0, 0, 0, 1)
+        float[][] chunkValues = new float[3][];
+        for (int chunk = 0; chunk < 3; chunk++) {
+            chunkValues[chunk] = new float[] {0.f, 0.f, 0.f, 1.f};
+
+            if (chunk < chunks) {
+                for (int comp = 0; comp < 4; comp++) {
+                    chunkValues[chunk][comp] = attributes.get((vertI * chunks + chunk) * 4 + comp);
+                }
+            }
+        }
+
+        float[] vertex = new float[NDProjection.MAX_DIMENSIONS];
+
+        for (int row = 0; row < dimensions; row++) {
+            vertex[row] = dot(orientation[row * 3 + 0], chunkValues[0]) +
+                          dot(orientation[row * 3 + 1], chunkValues[1]) +
+                          dot(orientation[row * 3 + 2], chunkValues[2]);
+        }
+
+        for (int dim = dimensions - 1; dim > 2; dim--) {
+            float scale = Math.abs(PROJECTION_CONSTANT - 1.f) / (PROJECTION_CONSTANT + vertex[dim]);
+
+            for (int comp = 0; comp < dim - 1; comp++) {
+                vertex[comp] *= scale;
+            }
+        }
+
+        return new float[] {vertex[0], vertex[1], vertex[2]};
+    }
+
+    private static float dot(float[] a, float[] b) {
+        return a[0] * b[0] + a[1] * b[1] + a[2] * b[2] + a[3] * b[3];
+    }
+
+    @Test
+    public void gpuProjectionMatchesCpuProjection() {
+        Random random = new Random(42);
+
+        for (int dimensions = 3; dimensions <= NDProjection.MAX_DIMENSIONS; dimensions++) {
+            float[] vertices = new float[VERTEX_COUNT * dimensions];
+            for (int i = 0; i < vertices.length; i++) {
+                vertices[i] = random.nextFloat() * 2.f - 1.f;
+            }
+
+            //Vertices within the unit hypercube stay in front of the camera whatever the rotation
+            for (int i = 0; i < vertices.length; i++) {
+                vertices[i] /= (float) Math.sqrt(dimensions);
+            }
+
+            NDTransform orientation = new NDTransform(dimensions);
+            for (int rotation = 0; rotation < 20; rotation++) {
+                int axis1 = random.nextInt(dimensions);
+                int axis2 = (axis1 + 1 + random.nextInt(dimensions - 1)) % dimensions;
+
+                orientation.rotate(random.nextFloat() * 6.f, axis1, axis2);
+            }
+
+            int chunks = NDProjection.getAttributeChunks(dimensions);
+
+            FloatBuffer attributes = ByteBuffer.allocateDirect(VERTEX_COUNT * chunks * 4 * 4)
+                    .order(ByteOrder.nativeOrder())
+                    .asFloatBuffer();
+            NDProjection.packVertices(vertices, dimensions, attributes);
+            assertEquals(attributes.capacity(), attributes.position());
+
+            ByteBuffer orientationBlock = ByteBuffer.allocateDirect(NDProjection.ORIENTATION_BLOCK_SIZE)
+                    .order(ByteOrder.nativeOrder());
+            NDProjection.packOrientation(orientation, orientationBlock);
+            assertEquals(orientationBlock.capacity(), orientationBlock.position());
+
+            float[] vertex = new float[dimensions];
+
+            for (int vertI = 0; vertI < VERTEX_COUNT; vertI++) {
+                orientation.apply(vertices, vertI * dimensions, vertex, 0);
+                NDProjection.projectVertex(vertex, 0, dimensions, PROJECTION_CONSTANT);
+
+                float[] gpuVertex = shaderProject(attributes, chunks, vertI, orientationBlock);
+
+                for (int comp = 0; comp < 3; comp++) {
+                    assertEquals(dimensions + "D vertex " + vertI, vertex[comp], gpuVertex[comp], 1e-5f);
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,313 @@
+package com.sudo_code.ndrenderer;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Runs NDShape's frames against a RecordingGLBackend and checks what it draws and uploads
+ */
+public class NDShapeTest {
+    private static final float PROJECTION_CONSTANT = 3.f;
+    private static final float VIEW_DIST           = 10.f;
+    private static final int   BYTES_PER_FLOAT     = 4;
+    private static final int   BYTES_PER_INT       = 4;
+    private static final int   BYTES_PER_SHORT     = 2;
+
+    private RecordingGLBackend mGL;
+    private NDTransform        mRotation;
+
+    @Before
+    public void setUp() {
+        mGL = new RecordingGLBackend();
+        mRotation = new NDTransform(4);
+        mRotation.rotate(0.05f, 0, 2);
+        mRotation.rotate(0.05f, 2, 3);
+        mRotation.rotate(0.05f, 3, 1);
+    }
+
+    /**
+     * One frame the way MainActivity draws it, turning the shape first
+     */
+    private void frame(NDShape shape) {
+        mGL.beginFrame();
+        shape.transform(mRotation);
+        shape.prepare();
+        shape.submit();
+        shape.submit();
+        shape.finishFrame();
+    }
+
+    private static int getVertexBytes(NDMesh mesh, boolean secondaryData) {
+        int floats = mesh.getVertices3d().length + (secondaryData ? mesh.getSecondaryData().length : 0);
+        return floats * BYTES_PER_FLOAT;
+    }
+
+    private static int getIndexBytes(NDShape shape) {
+        int indexSize = shape.getIndexType() == GLBackend.GL_UNSIGNED_SHORT ? BYTES_PER_SHORT : BYTES_PER_INT;
+        return shape.getMesh().getIndices().length * indexSize;
+    }
+
+    @Test
+    public void everyEyeDrawsEveryIndex() {
+        NDShape shape = new Hypercube(mGL, 4, PROJECTION_CONSTANT, VIEW_DIST, 0, 1);
+        int indexCount = shape.getMesh().getIndices().length;
+
+        frame(shape);
+
+        assertArrayEquals(new int[] {indexCount, indexCount}, mGL.getFrameDrawSizes());
+        assertEquals(2, mGL.getFrameCallCount("glDrawElements"));
+    }
+
+    @Test
+    public void recordedBytesMatchUploadStats() {
+        for (BufferUpdatePolicy policy : BufferUpdatePolicy.values()) {
+            NDShape shape = new Hypertorus(mGL, 4, PROJECTION_CONSTANT, VIEW_DIST, 0, 1, 8);
+            shape.setBufferUpdatePolicy(policy);
+
+            for (int frameI = 0; frameI < 10; frameI++) {
+                frame(shape);
+                assertEquals(policy.name(), shape.getUploadStats().getFrameBytes(), mGL.getFrameBytes());
+            }
+        }
+    }
+
+    @Test
+    public void staticIndicesOnlyStreamPositionsOnceEverySliceHasBeenWritten() {
+        NDShape shape = new ComplexGraph(mGL, 20, 1.5f, PROJECTION_CONSTANT, VIEW_DIST, 0, 1);
+        NDMesh mesh = shape.getMesh();
+        int slices = shape.getStreamingVertexBuffer().getSliceCount();
+
+        for (int frameI = 0; frameI < slices; frameI++) {
+            frame(shape);
+            assertEquals(getVertexBytes(mesh, true), mGL.getFrameBytes());
+        }
+
+        for (int frameI = 0; frameI < 10; frameI++) {
+            frame(shape);
+
+            assertEquals(getVertexBytes(mesh, false), mGL.getFrameBytes());
+            assertEquals(0, mGL.getFrameCallCount("glBufferSubData"));
+        }
+    }
+
+    @Test
+    public void dynamicUploadsEverythingEveryFrame() {
+        NDShape shape = new Hypercube(mGL, 4, PROJECTION_CONSTANT, VIEW_DIST, 0, 1);
+        shape.setBufferUpdatePolicy(BufferUpdatePolicy.DYNAMIC);
+        NDMesh mesh = shape.getMesh();
+
+        for (int frameI = 0; frameI < 10; frameI++) {
+            frame(shape);
+
+            assertEquals(
+                    getVertexBytes(mesh, true) + getIndexBytes(shape),
+                    mGL.getFrameBytes());
+        }
+    }
+
+    @Test
+    public void indicesAreShortsWhenEveryVertexFits() {
+        NDShape shape = new Hypercube(mGL, 4, PROJECTION_CONSTANT, VIEW_DIST, 0, 1);
+        shape.setBufferUpdatePolicy(BufferUpdatePolicy.DYNAMIC);
+
+        frame(shape);
+
+        assertEquals(GLBackend.GL_UNSIGNED_SHORT, shape.getIndexType());
+        assertEquals(GLBackend.GL_UNSIGNED_SHORT, mGL.getLastDrawType());
+        assertEquals(shape.getMesh().getIndices().length * BYTES_PER_SHORT, shape.getUploadStats().getFrameIndexBytes());
+    }
+
+    @Test
+    public void indicesAreIntsWhenTheVerticesDoNotFitInAShort() {
+        //17^4 vertices
+        NDShape shape = new Hypertorus(mGL, 5, PROJECTION_CONSTANT, VIEW_DIST, 0, 1, 17);
+        shape.setBufferUpdatePolicy(BufferUpdatePolicy.DYNAMIC);
+
+        mGL.beginFrame();
+        shape.prepare();
+        shape.submit();
+        shape.finishFrame();
+
+        assertEquals(GLBackend.GL_UNSIGNED_INT, shape.getIndexType());
+        assertEquals(GLBackend.GL_UNSIGNED_INT, mGL.getLastDrawType());
+        assertEquals(shape.getMesh().getIndices().length * BYTES_PER_INT, shape.getUploadStats().getFrameIndexBytes());
+    }
+
+    @Test
+    public void packedVertexFormatsUploadFewerBytes() {
+        long previousBytes = Long.MAX_VALUE;
+
+        for (VertexFormat format : VertexFormat.values()) {
+            NDShape shape = new Hypertorus(mGL, 4, PROJECTION_CONSTANT, VIEW_DIST, 0, 1, 8);
+            shape.setVertexFormat(format);
+            int vertexCount = shape.getMesh().getVertices3d().length / 3;
+
+            for (int frameI = 0; frameI < 10; frameI++) {
+                frame(shape);
+
+                assertEquals(format.name(), vertexCount * format.getBytesPerVertex(), shape.getUploadStats().getFrameVertexBytes());
+                assertEquals(format.name(), shape.getUploadStats().getFrameBytes(), mGL.getFrameBytes());
+            }
+
+            assertTrue(format.name(), shape.getUploadStats().getAverageFrameBytes() < previousBytes);
+            previousBytes = shape.getUploadStats().getAverageFrameBytes();
+        }
+    }
+
+    @Test
+    public void switchingBackToSeparateFloatsRewritesTheSecondaryData() {
+        NDShape shape = new ComplexGraph(mGL, 20, 1.5f, PROJECTION_CONSTANT, VIEW_DIST, 0, 1);
+        NDMesh mesh = shape.getMesh();
+        int slices = shape.getStreamingVertexBuffer().getSliceCount();
+
+        shape.setVertexFormat(VertexFormat.INTERLEAVED_SNORM);
+
+        for (int frameI = 0; frameI < slices * 2; frameI++) {
+            frame(shape);
+        }
+
+        shape.setVertexFormat(VertexFormat.SEPARATE_FLOAT);
+
+        for (int frameI = 0; frameI < slices; frameI++) {
+            frame(shape);
+            assertEquals(getVertexBytes(mesh, true), mGL.getFrameBytes());
+        }
+
+        frame(shape);
+        assertEquals(getVertexBytes(mesh, false), mGL.getFrameBytes());
+    }
+
+    @Test
+    public void backgroundGeometryDrawsTheSameAsTheRenderThread() {
+        NDShape shape = new Hypercube(mGL, 4, PROJECTION_CONSTANT, VIEW_DIST, 0, 1);
+        int indexCount = shape.getMesh().getIndices().length;
+
+        shape.startAsyncGeometry(new NDShape.Animator() {
+            @Override
+            public void nextRotation(long frameNanos, NDTransform rotation) {
+                rotation.setIdentity();
+                rotation.rotate(0.05f, 0, 2);
+            }
+        });
+
+        try {
+            for (int frameI = 0; frameI < 10; frameI++) {
+                mGL.beginFrame();
+                shape.prepare();
+                shape.submit();
+                shape.submit();
+                shape.finishFrame();
+
+                assertArrayEquals(new int[] {indexCount, indexCount}, mGL.getFrameDrawSizes());
+                assertTrue(mGL.getFrameBytes() <= getVertexBytes(shape.getMesh(), true) + getIndexBytes(shape));
+            }
+        } finally {
+            shape.stopAsyncGeometry();
+        }
+    }
+
+    @Test
+    public void backgroundGeometryUploadsPackedVertices() {
+        NDShape shape = new Hypercube(mGL, 4, PROJECTION_CONSTANT, VIEW_DIST, 0, 1);
+        shape.setVertexFormat(VertexFormat.INTERLEAVED_HALF_FLOAT);
+        int vertexBytes = shape.getMesh().getVertices3d().length / 3 * VertexFormat.INTERLEAVED_HALF_FLOAT.getBytesPerVertex();
+
+        shape.startAsyncGeometry(new NDShape.Animator() {
+            @Override
+            public void nextRotation(long frameNanos, NDTransform rotation) {
+                rotation.setIdentity();
+                rotation.rotate(0.05f, 0, 2);
+            }
+        });
+
+        try {
+            for (int frameI = 0; frameI < 10; frameI++) {
+                mGL.beginFrame();
+                shape.prepare();
+                shape.submit();
+                shape.finishFrame();
+
+                long uploaded = shape.getUploadStats().getFrameVertexBytes();
+                assertTrue(uploaded == 0 || uploaded == vertexBytes);
+                assertEquals(GLBackend.GL_UNSIGNED_SHORT, mGL.getLastDrawType());
+            }
+        } finally {
+            shape.stopAsyncGeometry();
+        }
+    }
+
+    @Test
+    public void edgeModeDrawsLinesAndStreamsOnlyTheirPositions() {
+        NDShape shape = new Hypercube(mGL, 4, PROJECTION_CONSTANT, VIEW_DIST, 0, 1);
+        MeshEdges edges = shape.getMesh().getEdges();
+        int lineIndexCount = edges.getIndices().length;
+
+        shape.setEdgeMode(true);
+
+        for (int frameI = 0; frameI < 5; frameI++) {
+            frame(shape);
+
+            assertArrayEquals(new int[] {lineIndexCount, lineIndexCount}, mGL.getFrameDrawSizes());
+            assertEquals(GLBackend.GL_LINES, mGL.getLastDrawMode());
+            assertEquals(GLBackend.GL_UNSIGNED_SHORT, mGL.getLastDrawType());
+            assertEquals(edges.getVertices().length / 4 * 3 * BYTES_PER_FLOAT, mGL.getFrameBytes());
+        }
+
+        shape.setEdgeMode(false);
+        frame(shape);
+
+        assertEquals(GLBackend.GL_TRIANGLES, mGL.getLastDrawMode());
+        assertEquals(getVertexBytes(shape.getMesh(), true), shape.getUploadStats().getFrameVertexBytes());
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void edgeModeCannotBeProjectedOnTheGpu() {
+        NDShape shape = new Hypercube(mGL, 4, PROJECTION_CONSTANT, VIEW_DIST, 0, 1);
+        shape.setEdgeMode(true);
+        shape.setGpuProjection(true);
+    }
+
+    @Test
+    public void instancesAreDrawnInOneDrawPerBatch() {
+        NDShape shape = new Hypercube(mGL, 4, PROJECTION_CONSTANT, VIEW_DIST, 0, 1);
+        ShapeInstances instances = ShapeInstances.lattice(4, 6, 2.5f, 0);
+        int indexCount = shape.getMesh().getIndices().length;
+
+        shape.setBufferUpdatePolicy(BufferUpdatePolicy.UNSORTED);
+        shape.setGpuProjection(true);
+        shape.setInstances(instances);
+
+        for (int frameI = 0; frameI < 5; frameI++) {
+            frame(shape);
+
+            //216 copies, 204 to a block
+            assertEquals(2, instances.getBatchCount());
+            assertEquals(4, shape.getFrameDrawCalls());
+            assertEquals(4, mGL.getFrameCallCount("glDrawElementsInstanced"));
+            assertEquals(0, mGL.getFrameCallCount("glDrawElements"));
+            assertArrayEquals(new int[] {indexCount, indexCount, indexCount, indexCount}, mGL.getFrameDrawSizes());
+            assertEquals(instances.getBatchInstanceCount(1), mGL.getLastDrawInstanceCount());
+
+            //Only the copies are uploaded
+            assertEquals(instances.getPackedBytes(), mGL.getFrameBytes());
+            assertEquals(shape.getUploadStats().getFrameBytes(), mGL.getFrameBytes());
+        }
+
+        shape.setInstances(null);
+        frame(shape);
+
+        assertEquals(2, shape.getFrameDrawCalls());
+        assertEquals(2, mGL.getFrameCallCount("glDrawElements"));
+        assertEquals(NDProjection.ORIENTATION_BLOCK_SIZE, mGL.getFrameBytes());
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void instancesAreOnlyProjectedOnTheGpu() {
+        NDShape shape = new Hypercube(mGL, 4, PROJECTION_CONSTANT, VIEW_DIST, 0, 1);
+        shape.setInstances(ShapeInstances.lattice(4, 2, 2.5f, 0));
+    }
+}
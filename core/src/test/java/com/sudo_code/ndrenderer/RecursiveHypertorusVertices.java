@@ -0,0 +1,79 @@
+package com.sudo_code.ndrenderer;
+
+/**
+ * The recursive hypertorus vertex generator HypertorusMesh used to use, building a rotation
+ * matrix and a couple of vectors for every circle of every vertex. Kept to check the closed form
+ * generator against and to benchmark it against.
+ */
+class RecursiveHypertorusVertices {
+    private final int     mDimensions;
+    private final int     mSmoothness;
+    private final float[] mVertices;
+    private int           mVertI;
+
+    private RecursiveHypertorusVertices(int dimensions, int smoothness) {
+        mDimensions = dimensions;
+        mSmoothness = smoothness;
+        mVertices   = new float[Utils.powI(smoothness, dimensions - 1) * dimensions];
+    }
+
+    /**
+     * @return The vertices of a hypertorus, mDimensions components each
+     */
+    static float[] generate(int dimensions, int smoothness) {
+        RecursiveHypertorusVertices generator = new RecursiveHypertorusVertices(dimensions, smoothness);
+
+        for (int i = 0; i < smoothness; i++) {
+            float[] torusVec = new float[dimensions];
+            torusVec[0] = (float) Math.cos(i * 2.f * Math.PI / smoothness);
+            torusVec[1] = (float) Math.sin(i * 2.f * Math.PI / smoothness);
+
+            generator.genTorusVertices(2, torusVec, torusVec);
+        }
+
+        return generator.mVertices;
+    }
+
+    private float[][] genNDTorusVecRotMatrix(int torusVecDimension, float[] prevTorusVec) {
+        float[][] rotMatrix = new float[mDimensions][mDimensions];
+
+        for (int x = 0; x < mDimensions; x++) {
+            for (int y = 0; y < mDimensions; y++) {
+                if (x == 0) {
+                    for (int prevTVecI = 0; prevTVecI < prevTorusVec.length; prevTVecI++) {
+                        rotMatrix[x][prevTVecI] = prevTorusVec[prevTVecI];
+                    }
+                }
+
+                else if (x == 1 && y == torusVecDimension) {
+                    rotMatrix[x][y] = 1.f;
+                }
+
+                else {
+                    rotMatrix[x][y] = 0;
+                }
+            }
+        }
+
+        return rotMatrix;
+    }
+
+    private void genTorusVertices(int torusVecDimension, float[] currentVector, float[] prevTorusVec) {
+        float[][] rotMatrix = genNDTorusVecRotMatrix(torusVecDimension, prevTorusVec);
+
+        for (int i = 0; i < mSmoothness; i++) {
+            float[] circleVec = new float[mDimensions];
+            circleVec[0] = (float) (Math.cos(i * 2.f * Math.PI / mSmoothness) / Math.pow(2.f, torusVecDimension - 1));
+            circleVec[1] = (float) (Math.sin(i * 2.f * Math.PI / mSmoothness) / Math.pow(2.f, torusVecDimension - 1));
+
+            float[] offset = NDVector.multMatrix(rotMatrix, circleVec);
+
+            if (torusVecDimension < mDimensions - 1) {
+                genTorusVertices(torusVecDimension + 1, NDVector.add(currentVector, offset), offset);
+            } else {
+                System.arraycopy(NDVector.add(currentVector, offset), 0, mVertices, mVertI * mDimensions, mDimensions);
+                mVertI++;
+            }
+        }
+    }
+}
@@ -0,0 +1,29 @@
+package com.sudo_code.ndrenderer;
+
+/**
+ * A hypercube laid out the way HypercubeMesh used to lay it out, with every face's 4 vertices
+ * kept in model space and projected rather than only the 2^D corners. Kept to check the shared
+ * corners against and to benchmark them against.
+ */
+class SeparateVerticesHypercubeMesh extends HypercubeMesh {
+
+    SeparateVerticesHypercubeMesh(int dimensions, float projectionConstant, float viewDist) {
+        super(dimensions, projectionConstant, viewDist);
+    }
+
+    /**
+     * Generates the shared corners layout, then copies every face's vertices out of it
+     */
+    @Override
+    protected void genVertexData() {
+        super.genVertexData();
+
+        mVertices      = getDrawnVertices();
+        mVertexSources = null;
+    }
+
+    @Override
+    protected ShapeMeshCache.Key getCacheKey() {
+        return null;
+    }
+}
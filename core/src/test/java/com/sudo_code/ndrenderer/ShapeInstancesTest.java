@@ -0,0 +1,223 @@
+package com.sudo_code.ndrenderer;
+
+import org.junit.Test;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.FloatBuffer;
+import java.util.Random;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Checks the instanced projection against the CPU one. shaderProject() is a line for line copy of
+ * main() in shape_instanced_vert.glsl that reads its inputs out of the same packed buffers NDShape
+ * uploads, the way NDProjectionTest checks shape_nd_vert.glsl.
+ */
+public class ShapeInstancesTest {
+    private static final float PROJECTION_CONSTANT = 3.f;
+    private static final int   VERTEX_COUNT        = 20;
+    private static final int   INSTANCE_COUNT      = 300;   //More than fit in one block, whatever the dimensions
+    private static final int   BYTES_PER_VEC4      = 16;
+
+    /**
+     * The GLSL projection of one instance, reading the vertex attributes and the Instances block
+     * bound for its batch the way the shader sees them
+     */
+    private static float[] shaderProject(FloatBuffer attributes, int chunks, int vertI, ByteBuffer block, int instanceID) {
+        int dimensions    = block.getInt(0);
+        int rowChunks     = block.getInt(4);
+        int instanceVec4s = block.getInt(8);
+
+        //Attributes that aren't enabled read as (0, 0, 0, 1)
+        float[][] chunkValues = new float[3][];
+        for (int chunk = 0; chunk < 3; chunk++) {
+            chunkValues[chunk] = new float[] {0.f, 0.f, 0.f, 1.f};
+
+            if (chunk < chunks) {
+                for (int comp = 0; comp < 4; comp++) {
+                    chunkValues[chunk][comp] = attributes.get((vertI * chunks + chunk) * 4 + comp);
+                }
+            }
+        }
+
+        float[] vertex = new float[NDProjection.MAX_DIMENSIONS];
+        int instance = instanceID * instanceVec4s;
+
+        for (int row = 0; row < dimensions; row++) {
+            int rowStart = instance + 1 + row * rowChunks;
+            vertex[row] = 0.f;
+
+            for (int chunk = 0; chunk < rowChunks; chunk++) {
+                vertex[row] += dot(getInstanceVec4(block, rowStart + chunk), chunkValues[chunk]);
+            }
+        }
+
+        for (int dim = dimensions - 1; dim > 2; dim--) {
+            float scale = Math.abs(PROJECTION_CONSTANT - 1.f) / (PROJECTION_CONSTANT + vertex[dim]);
+
+            for (int comp = 0; comp < dim - 1; comp++) {
+                vertex[comp] *= scale;
+            }
+        }
+
+        float[] offset = getInstanceVec4(block, instance);
+        return new float[] {vertex[0] + offset[0], vertex[1] + offset[1], vertex[2] + offset[2]};
+    }
+
+    /**
+     * @return instances[i] of the block
+     */
+    private static float[] getInstanceVec4(ByteBuffer block, int i) {
+        float[] vec4 = new float[4];
+
+        for (int comp = 0; comp < 4; comp++) {
+            vec4[comp] = block.getFloat(BYTES_PER_VEC4 + (i * 4 + comp) * 4);
+        }
+
+        return vec4;
+    }
+
+    private static float dot(float[] a, float[] b) {
+        return a[0] * b[0] + a[1] * b[1] + a[2] * b[2] + a[3] * b[3];
+    }
+
+    private static NDTransform getRandomOrientation(int dimensions, Random random) {
+        NDTransform orientation = new NDTransform(dimensions);
+
+        for (int rotation = 0; rotation < 20; rotation++) {
+            int axis1 = random.nextInt(dimensions);
+            int axis2 = (axis1 + 1 + random.nextInt(dimensions - 1)) % dimensions;
+
+            orientation.rotate(random.nextFloat() * 6.f, axis1, axis2);
+        }
+
+        return orientation;
+    }
+
+    @Test
+    public void instancedProjectionMatchesCpuProjection() {
+        Random random = new Random(42);
+
+        for (int dimensions = 3; dimensions <= NDProjection.MAX_DIMENSIONS; dimensions++) {
+            float[] vertices = new float[VERTEX_COUNT * dimensions];
+            for (int i = 0; i < vertices.length; i++) {
+                vertices[i] = (random.nextFloat() * 2.f - 1.f) / (float) Math.sqrt(dimensions);
+            }
+
+            //Enough copies for more than one batch
+            ShapeInstances instances = new ShapeInstances(dimensions, INSTANCE_COUNT);
+            NDTransform[] orientations = new NDTransform[INSTANCE_COUNT];
+            float[] offsets = new float[INSTANCE_COUNT * 3];
+
+            for (int instance = 0; instance < INSTANCE_COUNT; instance++) {
+                orientations[instance] = getRandomOrientation(dimensions, random);
+                instances.setOrientation(instance, orientations[instance]);
+
+                for (int comp = 0; comp < 3; comp++) {
+                    offsets[instance * 3 + comp] = random.nextFloat() * 20.f - 10.f;
+                }
+
+                instances.setOffset(instance, offsets[instance * 3], offsets[instance * 3 + 1], offsets[instance * 3 + 2]);
+            }
+
+            assertTrue(instances.getBatchCount() > 1);
+
+            NDTransform orientation = getRandomOrientation(dimensions, random);
+            int chunks = NDProjection.getAttributeChunks(dimensions);
+
+            FloatBuffer attributes = ByteBuffer.allocateDirect(VERTEX_COUNT * chunks * 4 * 4)
+                    .order(ByteOrder.nativeOrder())
+                    .asFloatBuffer();
+            NDProjection.packVertices(vertices, dimensions, attributes);
+
+            ByteBuffer blocks = ByteBuffer.allocateDirect(instances.getBufferSize())
+                    .order(ByteOrder.nativeOrder());
+            instances.pack(orientation, blocks);
+            assertEquals(instances.getPackedBytes(), blocks.position());
+
+            float[] turned = new float[dimensions];
+            float[] vertex = new float[dimensions];
+            int instance = 0;
+
+            for (int batch = 0; batch < instances.getBatchCount(); batch++) {
+                blocks.position(batch * ShapeInstances.BLOCK_SIZE);
+                ByteBuffer block = blocks.slice().order(ByteOrder.nativeOrder());
+
+                for (int instanceID = 0; instanceID < instances.getBatchInstanceCount(batch); instanceID++, instance++) {
+                    for (int vertI = 0; vertI < VERTEX_COUNT; vertI++) {
+                        //The copy's own orientation, then the shape's
+                        orientations[instance].apply(vertices, vertI * dimensions, turned, 0);
+                        orientation.apply(turned, 0, vertex, 0);
+                        NDProjection.projectVertex(vertex, 0, dimensions, PROJECTION_CONSTANT);
+
+                        float[] gpuVertex = shaderProject(attributes, chunks, vertI, block, instanceID);
+
+                        for (int comp = 0; comp < 3; comp++) {
+                            assertEquals(dimensions + "D copy " + instance + " vertex " + vertI,
+                                    vertex[comp] + offsets[instance * 3 + comp], gpuVertex[comp], 1e-4f);
+                        }
+                    }
+                }
+            }
+
+            assertEquals(INSTANCE_COUNT, instance);
+        }
+    }
+
+    @Test
+    public void latticeIsCenteredOnTheOrigin() {
+        ShapeInstances lattice = ShapeInstances.lattice(4, 6, 2.5f, 0);
+        ByteBuffer blocks = ByteBuffer.allocateDirect(lattice.getBufferSize())
+                .order(ByteOrder.nativeOrder());
+        lattice.pack(new NDTransform(4), blocks);
+
+        float[] sum = new float[3];
+        int instance = 0;
+
+        for (int batch = 0; batch < lattice.getBatchCount(); batch++) {
+            blocks.position(batch * ShapeInstances.BLOCK_SIZE);
+            ByteBuffer block = blocks.slice().order(ByteOrder.nativeOrder());
+
+            for (int instanceID = 0; instanceID < lattice.getBatchInstanceCount(batch); instanceID++, instance++) {
+                float[] offset = getInstanceVec4(block, instanceID * lattice.getVec4sPerInstance());
+
+                for (int comp = 0; comp < 3; comp++) {
+                    assertTrue(Math.abs(offset[comp]) <= 2.5f * 5 / 2.f);
+                    sum[comp] += offset[comp];
+                }
+            }
+        }
+
+        assertEquals(216, instance);
+        assertArrayEquals(new float[] {0.f, 0.f, 0.f}, sum, 1e-3f);
+    }
+
+    @Test
+    public void batchesFitInABlock() {
+        for (int dimensions = 3; dimensions <= NDProjection.MAX_DIMENSIONS; dimensions++) {
+            ShapeInstances instances = new ShapeInstances(dimensions, 500);
+            int drawn = 0;
+
+            for (int batch = 0; batch < instances.getBatchCount(); batch++) {
+                drawn += instances.getBatchInstanceCount(batch);
+            }
+
+            assertEquals(instances.getCount(), drawn);
+            assertTrue(BYTES_PER_VEC4 + instances.getInstancesPerBatch() * instances.getVec4sPerInstance() * BYTES_PER_VEC4 <=
+                    ShapeInstances.BLOCK_SIZE);
+            assertTrue(instances.getPackedBytes() <= instances.getBufferSize());
+        }
+
+        //A 4D copy is its offset and 4 rows of one vec4 each
+        assertEquals(5, new ShapeInstances(4, 1).getVec4sPerInstance());
+        assertEquals(204, new ShapeInstances(4, 1).getInstancesPerBatch());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void tooManyDimensionsAreRejected() {
+        new ShapeInstances(NDProjection.MAX_DIMENSIONS + 1, 1);
+    }
+}
@@ -0,0 +1,137 @@
+package com.sudo_code.ndrenderer;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Checks the cache's eviction and counters, and that meshes made from it are the same as generated ones
+ */
+public class ShapeMeshCacheTest {
+    private static final float PROJECTION_CONSTANT = 3.f;
+    private static final float VIEW_DIST           = 10.f;
+
+    private static ShapeMeshCache.Key getKey(int dimensions) {
+        return new ShapeMeshCache.Key(HypercubeMesh.class, dimensions, 0, 0.f);
+    }
+
+    /**
+     * @return Mesh data taking up exactly bytes
+     */
+    private static ShapeMeshCache.MeshData getData(int bytes) {
+        return new ShapeMeshCache.MeshData(new float[bytes / 4], new int[0], new float[0], 0);
+    }
+
+    @Test
+    public void evictsLeastRecentlyUsedPastTheBudget() {
+        ShapeMeshCache cache = new ShapeMeshCache(300);
+
+        cache.put(getKey(3), getData(100));
+        cache.put(getKey(4), getData(100));
+        cache.put(getKey(5), getData(100));
+
+        cache.get(getKey(3));   //Now 4 is the least recently used
+        cache.put(getKey(6), getData(100));
+
+        assertTrue(cache.contains(getKey(3)));
+        assertFalse(cache.contains(getKey(4)));
+        assertTrue(cache.contains(getKey(5)));
+        assertTrue(cache.contains(getKey(6)));
+        assertEquals(300, cache.getBytes());
+        assertEquals(1, cache.getEvictions());
+    }
+
+    @Test
+    public void meshesBiggerThanTheBudgetAreNotCached() {
+        ShapeMeshCache cache = new ShapeMeshCache(300);
+        cache.put(getKey(3), getData(100));
+        cache.put(getKey(4), getData(400));
+
+        assertTrue(cache.contains(getKey(3)));
+        assertFalse(cache.contains(getKey(4)));
+        assertEquals(100, cache.getBytes());
+    }
+
+    @Test
+    public void countsHitsAndMisses() {
+        ShapeMeshCache cache = new ShapeMeshCache(1000);
+        cache.get(getKey(3));
+        cache.put(getKey(3), getData(100));
+        cache.get(getKey(3));
+        cache.get(getKey(3));
+        cache.get(getKey(4));
+
+        assertEquals(2, cache.getHits());
+        assertEquals(2, cache.getMisses());
+        assertEquals(0.5f, cache.getHitRate(), 0.f);
+    }
+
+    @Test
+    public void keysTellShapesApart() {
+        assertEquals(getKey(4), getKey(4));
+        assertEquals(getKey(4).hashCode(), getKey(4).hashCode());
+        assertFalse(getKey(4).equals(getKey(5)));
+        assertFalse(getKey(4).equals(new ShapeMeshCache.Key(HypertorusMesh.class, 4, 0, 0.f)));
+        assertFalse(new ShapeMeshCache.Key(ComplexGraphMesh.class, 4, 50, 1.5f).equals(
+                new ShapeMeshCache.Key(ComplexGraphMesh.class, 4, 50, 2.f)));
+    }
+
+    @Test
+    public void cachedMeshesMatchGeneratedOnes() {
+        ShapeMeshCache cache = new ShapeMeshCache(64 * 1024 * 1024);
+
+        NDMesh[] generated = {
+                new HypercubeMesh(5, PROJECTION_CONSTANT, VIEW_DIST, cache),
+                new HypertorusMesh(4, PROJECTION_CONSTANT, VIEW_DIST, 8, cache),
+                new ComplexGraphMesh(20, 1.5f, PROJECTION_CONSTANT, VIEW_DIST, cache)};
+
+        NDMesh[] cached = {
+                new HypercubeMesh(5, PROJECTION_CONSTANT, VIEW_DIST, cache),
+                new HypertorusMesh(4, PROJECTION_CONSTANT, VIEW_DIST, 8, cache),
+                new ComplexGraphMesh(20, 1.5f, PROJECTION_CONSTANT, VIEW_DIST, cache)};
+
+        assertEquals(3, cache.getMisses());
+        assertEquals(3, cache.getHits());
+
+        for (int meshI = 0; meshI < generated.length; meshI++) {
+            assertSame(generated[meshI].getVertices(), cached[meshI].getVertices());
+            assertNotSame(generated[meshI].getIndices(), cached[meshI].getIndices());
+            assertArrayEquals(generated[meshI].getIndices(), cached[meshI].getIndices());
+            assertArrayEquals(generated[meshI].getSecondaryData(), cached[meshI].getSecondaryData(), 0.f);
+            assertArrayEquals(generated[meshI].getVertices3d(), cached[meshI].getVertices3d(), 0.f);
+        }
+    }
+
+    @Test
+    public void sortingACachedMeshLeavesTheCacheAlone() {
+        ShapeMeshCache cache = new ShapeMeshCache(64 * 1024 * 1024);
+
+        NDMesh first = new HypercubeMesh(4, PROJECTION_CONSTANT, VIEW_DIST, cache);
+        int[] sorted = first.getIndices().clone();
+
+        NDTransform rotation = new NDTransform(4);
+        rotation.rotate(1.f, 0, 2);
+        rotation.rotate(1.f, 2, 3);
+        first.transform(rotation);
+        first.prepareGeometry();
+
+        NDMesh second = new HypercubeMesh(4, PROJECTION_CONSTANT, VIEW_DIST, cache);
+        assertArrayEquals(sorted, second.getIndices());
+    }
+
+    @Test
+    public void meshesWithoutACacheAreGenerated() {
+        ShapeMeshCache cache = new ShapeMeshCache(64 * 1024 * 1024);
+
+        new HypercubeMesh(4, PROJECTION_CONSTANT, VIEW_DIST, cache);
+        new HypercubeMesh(4, PROJECTION_CONSTANT, VIEW_DIST);
+
+        assertEquals(0, cache.getHits());
+        assertEquals(1, cache.getMisses());
+    }
+}
@@ -0,0 +1,262 @@
+package com.sudo_code.ndrenderer;
+
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Renders the shapes with the SoftwareRasterizer and compares them against the golden images in
+ * src/test/resources/golden. If the rendering changes on purpose, rerun the tests with
+ * -Dndrenderer.updateGoldens=true (from the core directory) to write new ones.
+ */
+public class SoftwareRasterizerTest {
+    private static final int   SIZE                = 128;
+    private static final float PROJECTION_CONSTANT = 3.f;
+    private static final float VIEW_DIST           = 10.f;
+    private static final float[] WHITE             = {1.f, 1.f, 1.f, 0.1f};   //MainActivity's "White"
+
+    private static final int   TOLERANCE         = 2;       //Per channel, out of 255
+    private static final float MAX_DIFFERING     = 0.005f;  //Fraction of pixels
+    private static final String GOLDEN_DIRECTORY = "src/test/resources/golden";
+
+    private static NDTransform getRotation(int dims) {
+        NDTransform rotation = new NDTransform(dims);
+        rotation.rotate(0.6f, 0, 2);
+        rotation.rotate(0.4f, 1, 2);
+        rotation.rotate(0.5f, 0, dims - 1);
+        rotation.rotate(0.3f, 1, dims - 1);
+        return rotation;
+    }
+
+    /**
+     * Draws a mesh's prepared geometry the way MainActivity draws it
+     */
+    private static RgbImage render(NDMesh mesh, FrameWorkerPool pool) {
+        SoftwareRasterizer rasterizer = new SoftwareRasterizer(SIZE, SIZE);
+        rasterizer.setWorkerPool(pool);
+        rasterizer.setCamera(30.f, 0.1f, 100.f, VIEW_DIST);
+        rasterizer.clear(0.3f, 0.3f, 0.3f, 1.f);
+
+        int[] indices = mesh.getIndices();
+
+        if (mesh instanceof ComplexGraphMesh) {
+            rasterizer.drawDepthTested(mesh.getVertices3d(), mesh.getSecondaryData(), indices, indices.length);
+        } else {
+            rasterizer.drawLit(mesh.getVertices3d(), mesh.getSecondaryData(), indices, indices.length, WHITE);
+        }
+
+        return rasterizer.toImage();
+    }
+
+    private static void checkGolden(String name, RgbImage image) throws IOException {
+        if (Boolean.getBoolean("ndrenderer.updateGoldens")) {
+            File file = new File(GOLDEN_DIRECTORY, name + ".ppm");
+            file.getParentFile().mkdirs();
+
+            try (OutputStream out = new FileOutputStream(file)) {
+                image.writePPM(out);
+            }
+        }
+
+        RgbImage golden;
+
+        try (InputStream in = SoftwareRasterizerTest.class.getResourceAsStream("/golden/" + name + ".ppm")) {
+            assertNotNull("Missing golden image " + name, in);
+            golden = RgbImage.readPPM(in);
+        }
+
+        int differing = image.countDifferences(golden, TOLERANCE);
+        assertTrue(name + " differs in " + differing + " pixels", differing <= MAX_DIFFERING * SIZE * SIZE);
+    }
+
+    @Test
+    public void hypercubeMatchesGolden() throws IOException {
+        NDMesh mesh = new HypercubeMesh(4, PROJECTION_CONSTANT, VIEW_DIST);
+        mesh.transform(getRotation(4));
+        mesh.prepareGeometry();
+
+        checkGolden("hypercube_4d", render(mesh, null));
+    }
+
+    @Test
+    public void hypertorusMatchesGolden() throws IOException {
+        NDMesh mesh = new HypertorusMesh(4, PROJECTION_CONSTANT, VIEW_DIST, 8);
+        mesh.transform(getRotation(4));
+        mesh.prepareGeometry();
+
+        checkGolden("hypertorus_4d_8", render(mesh, null));
+    }
+
+    @Test
+    public void complexGraphMatchesGolden() throws IOException {
+        NDMesh mesh = new ComplexGraphMesh(30, 1.5f, PROJECTION_CONSTANT, VIEW_DIST);
+        mesh.transform(getRotation(4));
+        mesh.prepareGeometry();
+
+        checkGolden("complex_graph_30", render(mesh, null));
+    }
+
+    @Test
+    public void tilesOnManyThreadsMatchOneThread() {
+        FrameWorkerPool pool = new FrameWorkerPool(4);
+
+        try {
+            NDMesh mesh = new HypertorusMesh(4, PROJECTION_CONSTANT, VIEW_DIST, 8);
+            mesh.transform(getRotation(4));
+            mesh.prepareGeometry();
+
+            RgbImage single = render(mesh, null);
+            RgbImage multi  = render(mesh, pool);
+
+            assertArrayEquals(single.getPixels(), multi.getPixels());
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    @Test
+    public void sharedEdgesAreOnlyBlendedOnce() {
+        SoftwareRasterizer rasterizer = new SoftwareRasterizer(SIZE, SIZE);
+        rasterizer.setCamera(30.f, 0.1f, 100.f, VIEW_DIST);
+        rasterizer.clear(0.f, 0.f, 0.f, 1.f);
+
+        //A quad split along its diagonal, with normals lighting both halves the same
+        float[] vertices = {-1.f, -1.f, 0.f,  1.f, -1.f, 0.f,  1.f, 1.f, 0.f,  -1.f, 1.f, 0.f};
+        float[] normals  = new float[12];
+        for (int vertI = 0; vertI < 4; vertI++) {
+            normals[vertI * 3] = 1.f;
+        }
+
+        int[] indices = {0, 1, 2, 0, 2, 3};
+        rasterizer.drawLit(vertices, normals, indices, indices.length, new float[] {1.f, 1.f, 1.f, 0.5f});
+
+        //Every covered pixel was blended exactly once, so there's only one color besides the background
+        float[] color = rasterizer.getColorBuffer();
+        float covered = -1.f;
+
+        for (int pixel = 0; pixel < SIZE * SIZE; pixel++) {
+            float red = color[pixel * 4];
+
+            if (red != 0.f) {
+                if (covered < 0.f) {
+                    covered = red;
+                }
+
+                assertEquals(covered, red, 0.f);
+            }
+        }
+
+        assertTrue(covered > 0.f);
+    }
+
+    @Test
+    public void depthTestKeepsTheNearerTriangle() {
+        SoftwareRasterizer rasterizer = new SoftwareRasterizer(SIZE, SIZE);
+        rasterizer.setCamera(30.f, 0.1f, 100.f, VIEW_DIST);
+        rasterizer.clear(0.f, 0.f, 0.f, 1.f);
+
+        float[] near = {-1.f, -1.f, 1.f,  1.f, -1.f, 1.f,  0.f, 1.f, 1.f};
+        float[] far  = {-1.f, -1.f, -1.f,  1.f, -1.f, -1.f,  0.f, 1.f, -1.f};
+        float[] red  = {1.f, 0.f, 0.f,  1.f, 0.f, 0.f,  1.f, 0.f, 0.f};
+        float[] blue = {0.f, 0.f, 1.f,  0.f, 0.f, 1.f,  0.f, 0.f, 1.f};
+        int[] indices = {0, 1, 2};
+
+        //Near first, so the far one has to be rejected rather than just drawn over
+        rasterizer.drawDepthTested(near, red, indices, 3);
+        rasterizer.drawDepthTested(far, blue, indices, 3);
+
+        assertEquals(0xFF0000, rasterizer.toImage().getRGB(SIZE / 2, SIZE / 2));
+    }
+
+    @Test
+    public void weightedBlendingOfOneLayerMatchesSortedBlending() {
+        float[] vertices = {-1.f, -1.f, 0.f,  1.f, -1.f, 0.f,  1.f, 1.f, 0.f,  -1.f, 1.f, 0.f};
+        float[] normals  = new float[12];
+        for (int vertI = 0; vertI < 4; vertI++) {
+            normals[vertI * 3] = 1.f;
+        }
+
+        int[] indices = {0, 1, 2, 0, 2, 3};
+        float[] color = {1.f, 0.5f, 0.25f, 0.4f};
+
+        SoftwareRasterizer sorted   = new SoftwareRasterizer(SIZE, SIZE);
+        SoftwareRasterizer weighted = new SoftwareRasterizer(SIZE, SIZE);
+
+        for (SoftwareRasterizer rasterizer : new SoftwareRasterizer[] {sorted, weighted}) {
+            rasterizer.setCamera(30.f, 0.1f, 100.f, VIEW_DIST);
+            rasterizer.clear(0.3f, 0.3f, 0.3f, 1.f);
+        }
+
+        sorted.drawLit(vertices, normals, indices, indices.length, color);
+        weighted.drawLitWeightedBlended(vertices, normals, indices, indices.length, color);
+
+        //With nothing overlapping, the weighted average is just the one fragment's color
+        float[] expected = sorted.getColorBuffer();
+        float[] actual   = weighted.getColorBuffer();
+
+        for (int i = 0; i < expected.length; i += 4) {
+            for (int channel = 0; channel < 3; channel++) {
+                assertEquals(expected[i + channel], actual[i + channel], 1e-5f);
+            }
+        }
+    }
+
+    @Test
+    public void weightedBlendingIgnoresTheOrderOfTheFaces() {
+        NDMesh mesh = new HypercubeMesh(5, PROJECTION_CONSTANT, VIEW_DIST);
+        mesh.setBufferUpdatePolicy(BufferUpdatePolicy.UNSORTED);
+        mesh.transform(getRotation(5));
+        mesh.prepareGeometry();
+
+        int[] indices = mesh.getIndices();
+        int[] reversed = new int[indices.length];
+
+        for (int faceI = 0; faceI < mesh.getFaceCount(); faceI++) {
+            System.arraycopy(indices, faceI * 6, reversed, (mesh.getFaceCount() - 1 - faceI) * 6, 6);
+        }
+
+        RgbImage[] images = new RgbImage[2];
+        int[][] orders = {indices, reversed};
+
+        for (int orderI = 0; orderI < orders.length; orderI++) {
+            SoftwareRasterizer rasterizer = new SoftwareRasterizer(SIZE, SIZE);
+            rasterizer.setCamera(30.f, 0.1f, 100.f, VIEW_DIST);
+            rasterizer.clear(0.3f, 0.3f, 0.3f, 1.f);
+            rasterizer.drawLitWeightedBlended(mesh.getVertices3d(), mesh.getSecondaryData(), orders[orderI],
+                    indices.length, WHITE);
+
+            images[orderI] = rasterizer.toImage();
+        }
+
+        //Only the rounding of the sums can differ
+        assertEquals(0, images[0].countDifferences(images[1], 1));
+    }
+
+    @Test
+    public void ppmRoundTrips() throws IOException {
+        RgbImage image = new RgbImage(3, 2);
+        byte[] pixels = image.getPixels();
+        for (int i = 0; i < pixels.length; i++) {
+            pixels[i] = (byte) (i * 13);
+        }
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        image.writePPM(out);
+        RgbImage read = RgbImage.readPPM(new ByteArrayInputStream(out.toByteArray()));
+
+        assertEquals(3, read.getWidth());
+        assertEquals(2, read.getHeight());
+        assertArrayEquals(pixels, read.getPixels());
+    }
+}
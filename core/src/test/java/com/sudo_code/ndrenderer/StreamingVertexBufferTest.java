@@ -0,0 +1,188 @@
+package com.sudo_code.ndrenderer;
+
+import org.junit.Test;
+
+import java.nio.ByteBuffer;
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class StreamingVertexBufferTest {
+
+    /**
+     * Stands in for the GPU. Fences only signal when the test says so, and mapping a range that a
+     * pending fence still covers fails the test.
+     */
+    private static class FakeGL implements StreamingVertexBuffer.GL {
+        int  mBufferSize;
+        long mNextFence = 1;
+        int  mLastMapOffset;
+        int  mWaitsBeforeSignal;    //How many waits on a fence time out before it signals
+
+        Map<Long, Boolean> mFences = new HashMap<Long, Boolean>();    //Fence -> signalled
+        Map<Long, Integer> mFenceOffsets = new HashMap<Long, Integer>();
+
+        @Override
+        public int genBuffer() {
+            return 1;
+        }
+
+        @Override
+        public void allocate(int buffer, int size) {
+            mBufferSize = size;
+        }
+
+        @Override
+        public ByteBuffer map(int buffer, int offset, int length) {
+            assertTrue(offset + length <= mBufferSize);
+
+            for (Map.Entry<Long, Integer> fence : mFenceOffsets.entrySet()) {
+                if (fence.getValue() == offset && !mFences.get(fence.getKey())) {
+                    fail("Mapped a slice the GPU is still reading");
+                }
+            }
+
+            mLastMapOffset = offset;
+            return ByteBuffer.allocate(length);
+        }
+
+        @Override
+        public void unmap(int buffer) {
+        }
+
+        @Override
+        public long fence() {
+            long fence = mNextFence++;
+            mFences.put(fence, false);
+            mFenceOffsets.put(fence, mLastMapOffset);
+            return fence;
+        }
+
+        @Override
+        public boolean waitFence(long fence, long timeoutNanos) {
+            if (mWaitsBeforeSignal > 0) {
+                mWaitsBeforeSignal--;
+                return false;
+            }
+
+            mFences.put(fence, true);
+            return true;
+        }
+
+        @Override
+        public void deleteFence(long fence) {
+            assertTrue(mFences.containsKey(fence));
+            mFences.remove(fence);
+            mFenceOffsets.remove(fence);
+        }
+    }
+
+    /**
+     * Writes and fences one slice, the way NDShape.draw does
+     */
+    private static void drawSlice(StreamingVertexBuffer buffer, int length) {
+        buffer.nextSlice();
+        buffer.map(0, length);
+        buffer.unmap();
+        buffer.fenceSlice();
+    }
+
+    @Test
+    public void slicesRotateThroughTheRing() {
+        FakeGL gl = new FakeGL();
+        StreamingVertexBuffer buffer = new StreamingVertexBuffer(gl, 1000, 3);
+
+        assertEquals(1024 * 3, gl.mBufferSize);     //Slices are aligned to 256 bytes
+
+        for (int draw = 0; draw < 7; draw++) {
+            drawSlice(buffer, 1000);
+
+            assertEquals(draw % 3, buffer.getSlice());
+            assertEquals((draw % 3) * 1024, gl.mLastMapOffset);
+        }
+    }
+
+    @Test
+    public void waitsForTheFenceBeforeReusingASlice() {
+        FakeGL gl = new FakeGL();
+        StreamingVertexBuffer buffer = new StreamingVertexBuffer(gl, 1000, 2);
+
+        drawSlice(buffer, 1000);
+        drawSlice(buffer, 1000);
+        assertEquals(0, buffer.getFenceWaits());
+        assertEquals(2, gl.mFences.size());
+
+        drawSlice(buffer, 1000);    //Back to the first slice, so it has to wait on its fence
+        assertEquals(1, buffer.getFenceWaits());
+        assertEquals(0, buffer.getStalls());
+        assertEquals(2, gl.mFences.size());   //The old fence was deleted and a new one made
+    }
+
+    @Test
+    public void keepsWaitingWhenTheFenceTimesOut() {
+        FakeGL gl = new FakeGL();
+        StreamingVertexBuffer buffer = new StreamingVertexBuffer(gl, 1000, 2);
+
+        drawSlice(buffer, 1000);
+        drawSlice(buffer, 1000);
+
+        gl.mWaitsBeforeSignal = 3;
+        drawSlice(buffer, 1000);
+
+        assertEquals(1, buffer.getStalls());
+        assertEquals(0, gl.mWaitsBeforeSignal);
+    }
+
+    @Test
+    public void reportsWhetherTheSliceHasBeenWrittenBefore() {
+        StreamingVertexBuffer buffer = new StreamingVertexBuffer(new FakeGL(), 1000, 2);
+
+        assertFalse(buffer.nextSlice());
+        buffer.map(0, 1000);
+        buffer.unmap();
+        buffer.fenceSlice();
+
+        assertFalse(buffer.nextSlice());
+        buffer.map(0, 1000);
+        buffer.unmap();
+        buffer.fenceSlice();
+
+        assertTrue(buffer.nextSlice());
+    }
+
+    @Test
+    public void refencingASliceReplacesItsFence() {
+        FakeGL gl = new FakeGL();
+        StreamingVertexBuffer buffer = new StreamingVertexBuffer(gl, 1000, 3);
+
+        drawSlice(buffer, 1000);
+        buffer.fenceSlice();    //Drawn again in the next frame without a new slice
+        buffer.fenceSlice();
+
+        assertEquals(1, gl.mFences.size());
+    }
+
+    @Test
+    public void releaseDeletesPendingFences() {
+        FakeGL gl = new FakeGL();
+        StreamingVertexBuffer buffer = new StreamingVertexBuffer(gl, 1000, 3);
+
+        drawSlice(buffer, 1000);
+        drawSlice(buffer, 1000);
+        buffer.release();
+
+        assertEquals(0, gl.mFences.size());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void mappingPastTheSliceThrows() {
+        StreamingVertexBuffer buffer = new StreamingVertexBuffer(new FakeGL(), 1000, 3);
+
+        buffer.nextSlice();
+        buffer.map(512, 1000);
+    }
+}
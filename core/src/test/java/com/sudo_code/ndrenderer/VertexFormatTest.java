@@ -0,0 +1,117 @@
+package com.sudo_code.ndrenderer;
+
+import org.junit.Test;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Checks the packed vertex formats' conversions and layouts
+ */
+public class VertexFormatTest {
+
+    /**
+     * @return The float a half float's bits stand for
+     */
+    private static float fromHalfFloat(short half) {
+        int sign     = (half & 0x8000) != 0 ? -1 : 1;
+        int exponent = (half >> 10) & 0x1F;
+        int mantissa = half & 0x3FF;
+
+        if (exponent == 0) {
+            return sign * mantissa * (float) Math.pow(2, -24);
+        }
+
+        if (exponent == 0x1F) {
+            return mantissa == 0 ? sign * Float.POSITIVE_INFINITY : Float.NaN;
+        }
+
+        return sign * (1 + mantissa / 1024.f) * (float) Math.pow(2, exponent - 15);
+    }
+
+    @Test
+    public void halfFloatsOfExactValues() {
+        assertEquals(0x0000, VertexFormat.toHalfFloat(0.f));
+        assertEquals((short) 0x8000, VertexFormat.toHalfFloat(-0.f));
+        assertEquals(0x3C00, VertexFormat.toHalfFloat(1.f));
+        assertEquals((short) 0xBC00, VertexFormat.toHalfFloat(-1.f));
+        assertEquals(0x3800, VertexFormat.toHalfFloat(0.5f));
+        assertEquals(0x7BFF, VertexFormat.toHalfFloat(65504.f));
+        assertEquals(0x7C00, VertexFormat.toHalfFloat(1e6f));
+        assertEquals(0x0001, VertexFormat.toHalfFloat((float) Math.pow(2, -24)));
+        assertEquals(0x0000, VertexFormat.toHalfFloat(1e-10f));
+        assertEquals(0x7E00, VertexFormat.toHalfFloat(Float.NaN));
+    }
+
+    @Test
+    public void halfFloatsAreWithinHalfAnUlpOfUnitValues() {
+        Random random = new Random(5);
+
+        for (int i = 0; i < 100000; i++) {
+            float value = random.nextFloat() * 2.f - 1.f;
+            float ulp = Math.max(Math.ulp(1.f) * 8192.f * Math.abs(value), (float) Math.pow(2, -24));
+
+            assertEquals(value, fromHalfFloat(VertexFormat.toHalfFloat(value)), ulp / 2.f + 1e-9f);
+        }
+    }
+
+    @Test
+    public void snormsRoundAndClamp() {
+        assertEquals(127, VertexFormat.toSnorm(1.f));
+        assertEquals(-127, VertexFormat.toSnorm(-1.f));
+        assertEquals(0, VertexFormat.toSnorm(0.f));
+        assertEquals(64, VertexFormat.toSnorm(0.5f));
+        assertEquals(127, VertexFormat.toSnorm(2.f));
+        assertEquals(-127, VertexFormat.toSnorm(-2.f));
+    }
+
+    @Test
+    public void interleavedVerticesAreWrittenInOrder() {
+        float[] vertices3d    = {1.f, 2.f, 3.f, 4.f, 5.f, 6.f};
+        float[] secondaryData = {0.f, 1.f, -1.f, 0.5f, -0.5f, 0.25f};
+
+        for (VertexFormat format : VertexFormat.values()) {
+            ByteBuffer out = ByteBuffer.allocate(format.getUploadBytes(2, true)).order(ByteOrder.nativeOrder());
+            format.write(vertices3d, secondaryData, true, out);
+
+            assertEquals(format.name(), out.capacity(), out.position());
+
+            for (int vertI = 0; vertI < 2; vertI++) {
+                int positionOffset  = format.isInterleaved() ? vertI * format.getBytesPerVertex() : vertI * 12;
+                int secondaryOffset = format.isInterleaved() ? positionOffset + 12 : 24 + vertI * 12;
+
+                for (int comp = 0; comp < 3; comp++) {
+                    float secondary = secondaryData[vertI * 3 + comp];
+
+                    assertEquals(vertices3d[vertI * 3 + comp], out.getFloat(positionOffset + comp * 4), 0.f);
+
+                    switch (format) {
+                        case SEPARATE_FLOAT:
+                            assertEquals(secondary, out.getFloat(secondaryOffset + comp * 4), 0.f);
+                            break;
+                        case INTERLEAVED_HALF_FLOAT:
+                            assertEquals(secondary, fromHalfFloat(out.getShort(secondaryOffset + comp * 2)), 0.f);
+                            break;
+                        case INTERLEAVED_SNORM:
+                            assertEquals(secondary, out.get(secondaryOffset + comp) / 127.f, 0.5f / 127.f);
+                            break;
+                    }
+                }
+            }
+        }
+    }
+
+    @Test
+    public void separateFloatsCanLeaveOutTheSecondaryData() {
+        float[] vertices3d = new float[30];
+        ByteBuffer out = ByteBuffer.allocate(120).order(ByteOrder.nativeOrder());
+
+        VertexFormat.SEPARATE_FLOAT.write(vertices3d, new float[30], false, out);
+
+        assertEquals(VertexFormat.SEPARATE_FLOAT.getUploadBytes(10, false), out.position());
+        assertEquals(VertexFormat.INTERLEAVED_SNORM.getUploadBytes(10, true), VertexFormat.INTERLEAVED_SNORM.getUploadBytes(10, false));
+    }
+}
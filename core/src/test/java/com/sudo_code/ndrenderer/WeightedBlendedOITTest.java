@@ -0,0 +1,97 @@
+package com.sudo_code.ndrenderer;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Runs WeightedBlendedOIT's passes against a RecordingGLBackend
+ */
+public class WeightedBlendedOITTest {
+    private static final int EYE_FRAMEBUFFER = 100;
+
+    private RecordingGLBackend mGL;
+
+    @Before
+    public void setUp() {
+        mGL = new RecordingGLBackend();
+        mGL.glBindFramebuffer(GLBackend.GL_FRAMEBUFFER, EYE_FRAMEBUFFER);
+        mGL.glViewport(640, 0, 640, 720);
+    }
+
+    @Test
+    public void endCompositesBackIntoTheEyesFramebuffer() {
+        WeightedBlendedOIT oit = new WeightedBlendedOIT(mGL, 1);
+        NDShape shape = new Hypercube(mGL, 4, 3.f, 10.f, 0, 1);
+        shape.setBufferUpdatePolicy(BufferUpdatePolicy.UNSORTED);
+
+        mGL.beginFrame();
+        shape.prepare();
+
+        oit.begin(EYE_FRAMEBUFFER, 640, 0, 640, 720);
+        assertTrue(mGL.getBoundFramebuffer() != EYE_FRAMEBUFFER);
+        shape.submit();
+        oit.end();
+
+        shape.finishFrame();
+
+        assertEquals(EYE_FRAMEBUFFER, mGL.getBoundFramebuffer());
+        assertArrayEquals(new int[] {shape.getMesh().getIndices().length, 3}, mGL.getFrameDrawSizes());
+        assertEquals(GLBackend.GL_TRIANGLES, mGL.getLastDrawMode());
+
+        int[] viewport = new int[4];
+        mGL.glGetIntegerv(GLBackend.GL_VIEWPORT, viewport, 0);
+        assertArrayEquals(new int[] {640, 0, 640, 720}, viewport);
+    }
+
+    @Test
+    public void theEyeIsNotQueried() {
+        WeightedBlendedOIT oit = new WeightedBlendedOIT(mGL, 1);
+
+        for (int eye = 0; eye < 4; eye++) {
+            oit.begin(EYE_FRAMEBUFFER, eye % 2 * 640, 0, 640, 720);
+            oit.end();
+        }
+
+        assertEquals(0, mGL.getTotalCallCount("glGetIntegerv"));
+    }
+
+    @Test
+    public void endRestoresTheSortedBlending() {
+        WeightedBlendedOIT oit = new WeightedBlendedOIT(mGL, 1);
+
+        oit.begin(EYE_FRAMEBUFFER, 640, 0, 640, 720);
+        oit.end();
+
+        assertArrayEquals(new int[] {
+                GLBackend.GL_SRC_ALPHA, GLBackend.GL_ONE_MINUS_SRC_ALPHA,
+                GLBackend.GL_SRC_ALPHA, GLBackend.GL_ONE_MINUS_SRC_ALPHA
+        }, mGL.getBlendFunc());
+    }
+
+    @Test
+    public void targetsAreOnlyReallocatedWhenTheViewportChanges() {
+        WeightedBlendedOIT oit = new WeightedBlendedOIT(mGL, 1);
+
+        for (int eye = 0; eye < 4; eye++) {
+            oit.begin(EYE_FRAMEBUFFER, eye % 2 * 640, 0, 640, 720);
+            oit.end();
+        }
+
+        assertEquals(2, mGL.getTotalCallCount("glTexImage2D"));
+
+        oit.begin(EYE_FRAMEBUFFER, 0, 0, 320, 360);
+        oit.end();
+
+        assertEquals(4, mGL.getTotalCallCount("glTexImage2D"));
+    }
+
+    @Test
+    public void nearerFragmentsWeighMore() {
+        assertTrue(WeightedBlendedOIT.getWeight(0.1f, 8.f) > WeightedBlendedOIT.getWeight(0.1f, 12.f));
+        assertEquals(2.f * WeightedBlendedOIT.getWeight(0.1f, 10.f), WeightedBlendedOIT.getWeight(0.2f, 10.f), 1e-6f);
+    }
+}